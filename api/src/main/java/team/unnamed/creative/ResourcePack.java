@@ -271,6 +271,21 @@ public interface ResourcePack extends ResourceContainer {
      */
     @Nullable Overlay overlay(final @NotNull @OverlayEntry.Directory String directory);
 
+    /**
+     * Removes the overlay with the given directory name.
+     *
+     * <p>Note that this does not modify the {@link OverlaysMeta},
+     * which may still declare the overlay directory.</p>
+     *
+     * @param directory The overlay directory name.
+     * @return True if the overlay existed and was removed,
+     * false otherwise
+     * @sincePackFormat 18
+     * @sinceMinecraft 1.20.2
+     * @since 1.7.0
+     */
+    boolean removeOverlay(final @NotNull @OverlayEntry.Directory String directory);
+
     /**
      * Gets all the overlays in this resource-pack.
      *
@@ -23,6 +23,7 @@
  */
 package team.unnamed.creative;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import team.unnamed.creative.base.Writable;
@@ -41,13 +42,21 @@ import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
-final class ResourcePackImpl extends ResourceContainerImpl implements ResourcePack {
+@ApiStatus.Internal
+public class ResourcePackImpl extends ResourceContainerImpl implements ResourcePack {
 
     private final Map<String, Overlay> overlays = new HashMap<>();
 
     private @Nullable Writable icon;
     private Metadata metadata;
 
+    ResourcePackImpl() {
+    }
+
+    protected ResourcePackImpl(final @NotNull MapFactory maps) {
+        super(maps);
+    }
+
     @Override
     public @Nullable Writable icon() {
         return icon;
@@ -81,6 +90,12 @@ final class ResourcePackImpl extends ResourceContainerImpl implements ResourcePa
         return overlays.get(directory);
     }
 
+    @Override
+    public boolean removeOverlay(final @NotNull @OverlayEntry.Directory String directory) {
+        requireNonNull(directory, "directory");
+        return overlays.remove(directory) != null;
+    }
+
     @Override
     public @NotNull Collection<Overlay> overlays() {
         return overlays.values();
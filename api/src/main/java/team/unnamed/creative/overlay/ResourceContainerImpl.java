@@ -56,17 +56,34 @@ import static java.util.Objects.requireNonNull;
 @ApiStatus.Internal
 public class ResourceContainerImpl implements ResourceContainer {
 
-    private final Map<Key, Atlas> atlases = new HashMap<>();
-    private final Map<Key, BlockState> blockStates = new HashMap<>();
-    private final Map<Key, Font> fonts = new HashMap<>();
-    private final Map<Key, Language> languages = new HashMap<>();
-    private final Map<Key, Model> models = new HashMap<>();
-    private final Map<String, SoundRegistry> soundRegistries = new HashMap<>();
-    private final Map<Key, Sound> sounds = new HashMap<>();
-    private final Map<Key, Texture> textures = new HashMap<>();
+    private final Map<Key, Atlas> atlases;
+    private final Map<Key, BlockState> blockStates;
+    private final Map<Key, Font> fonts;
+    private final Map<Key, Language> languages;
+    private final Map<Key, Model> models;
+    private final Map<String, SoundRegistry> soundRegistries;
+    private final Map<Key, Sound> sounds;
+    private final Map<Key, Texture> textures;
 
     // Unknown files we don't know how to parse
-    private final Map<String, Writable> files = new HashMap<>();
+    private final Map<String, Writable> files;
+
+    public ResourceContainerImpl() {
+        this(MapFactory.HASH_MAP);
+    }
+
+    protected ResourceContainerImpl(final @NotNull MapFactory maps) {
+        requireNonNull(maps, "maps");
+        this.atlases = maps.create(Atlas.class);
+        this.blockStates = maps.create(BlockState.class);
+        this.fonts = maps.create(Font.class);
+        this.languages = maps.create(Language.class);
+        this.models = maps.create(Model.class);
+        this.soundRegistries = maps.create(SoundRegistry.class);
+        this.sounds = maps.create(Sound.class);
+        this.textures = maps.create(Texture.class);
+        this.files = maps.create(Writable.class);
+    }
 
     //#region Atlases (Keyed)
     @Override
@@ -84,7 +101,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeAtlas(final @NotNull Key key) {
         requireNonNull(key, "key");
-        return atlases.remove(key) != null;
+        return atlases.keySet().remove(key);
     }
 
     @Override
@@ -109,7 +126,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeBlockState(final @NotNull Key key) {
         requireNonNull(key, "key");
-        return blockStates.remove(key) != null;
+        return blockStates.keySet().remove(key);
     }
 
     @Override
@@ -134,7 +151,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeFont(final @NotNull Key key) {
         requireNonNull(key, "key");
-        return fonts.remove(key) != null;
+        return fonts.keySet().remove(key);
     }
 
     @Override
@@ -159,7 +176,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeLanguage(final @NotNull Key key) {
         requireNonNull(key, "key");
-        return languages.remove(key) != null;
+        return languages.keySet().remove(key);
     }
 
     @Override
@@ -184,7 +201,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeModel(final @NotNull Key key) {
         requireNonNull(key, "key");
-        return models.remove(key) != null;
+        return models.keySet().remove(key);
     }
 
     @Override
@@ -209,7 +226,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeSoundRegistry(final @NotNull String namespace) {
         requireNonNull(namespace, "namespace");
-        return soundRegistries.remove(namespace) != null;
+        return soundRegistries.keySet().remove(namespace);
     }
 
     @Override
@@ -234,7 +251,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeSound(final @NotNull Key key) {
         requireNonNull(key, "key");
-        return sounds.remove(key) != null;
+        return sounds.keySet().remove(key);
     }
 
     @Override
@@ -259,7 +276,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeTexture(final @NotNull Key key) {
         requireNonNull(key, "key");
-        return textures.remove(key) != null;
+        return textures.keySet().remove(key);
     }
 
     @Override
@@ -285,7 +302,7 @@ public class ResourceContainerImpl implements ResourceContainer {
     @Override
     public boolean removeUnknownFile(final @NotNull String path) {
         requireNonNull(path, "path");
-        return files.remove(path) != null;
+        return files.keySet().remove(path);
     }
 
     @Override
@@ -451,4 +468,39 @@ public class ResourceContainerImpl implements ResourceContainer {
             }
         }
     }
+
+    /**
+     * Creates the maps that store the resources of a {@link ResourceContainerImpl},
+     * one per resource type, so that implementations can use a custom storage,
+     * e.g. for resources that are loaded on demand.
+     *
+     * <p>Removals are always performed through the map key sets.</p>
+     *
+     * @since 1.7.0
+     */
+    @ApiStatus.Internal
+    public interface MapFactory {
+        /**
+         * The default map factory, creates empty {@link HashMap hash maps}.
+         *
+         * @since 1.7.0
+         */
+        MapFactory HASH_MAP = new MapFactory() {
+            @Override
+            public <K, V> @NotNull Map<K, V> create(final @NotNull Class<V> type) {
+                return new HashMap<>();
+            }
+        };
+
+        /**
+         * Creates the map for the resources of the given type.
+         *
+         * @param type The resource type, {@link Writable} for unknown files
+         * @param <K> The key type
+         * @param <V> The resource type
+         * @return The created map
+         * @since 1.7.0
+         */
+        <K, V> @NotNull Map<K, V> create(final @NotNull Class<V> type);
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.resources;
+
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.creative.ResourcePack;
+
+import java.util.function.Predicate;
+
+/**
+ * Finds and removes the models, textures and sounds of a resource-pack
+ * that are not used, e.g. the leftovers of merging several resource-packs.
+ *
+ * <p>A resource is used if it is reachable from the roots: block states,
+ * fonts, atlases and sound registries, plus the resources kept by the
+ * pruner predicates (see {@link Builder}). References are followed through
+ * model parents, model textures (including element face textures), item
+ * overrides, bitmap font files, atlas sources and sound entries.</p>
+ *
+ * <p>Atlas sources are evaluated in order, like the client does, so every
+ * texture stitched by a {@link team.unnamed.creative.atlas.DirectoryAtlasSource}
+ * and not removed by a later {@link team.unnamed.creative.atlas.FilterAtlasSource}
+ * is used.</p>
+ *
+ * <p>Resources in overlays are analyzed together with the base resources,
+ * a resource referenced from any of them is used in all of them.</p>
+ *
+ * @since 1.7.0
+ */
+@ApiStatus.NonExtendable
+public interface ResourcePruner {
+    /**
+     * Gets a resource pruner using the default predicates.
+     *
+     * <p>By default, resources in the {@code minecraft} namespace (which may
+     * override vanilla resources) and item models (which may be referenced by
+     * items) are kept. Since textures can also be used directly by the game,
+     * only textures in the {@code block} and {@code item} directories may
+     * be removed.</p>
+     *
+     * @return The default resource pruner
+     * @since 1.7.0
+     */
+    static @NotNull ResourcePruner pruner() {
+        return ResourcePrunerImpl.DEFAULT;
+    }
+
+    /**
+     * Creates a new builder for {@link ResourcePruner}, starting
+     * with the default predicates.
+     *
+     * @return The created builder
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    static @NotNull Builder builder() {
+        return new ResourcePrunerImpl.BuilderImpl();
+    }
+
+    /**
+     * Finds the unused resources of the given resource-pack,
+     * without modifying it.
+     *
+     * @param resourcePack The resource-pack
+     * @return The unused resources
+     * @since 1.7.0
+     */
+    @NotNull UnusedResources find(final @NotNull ResourcePack resourcePack);
+
+    /**
+     * Finds and removes the unused resources of the given
+     * resource-pack, including its overlays.
+     *
+     * @param resourcePack The resource-pack
+     * @return The removed resources
+     * @since 1.7.0
+     */
+    @NotNull UnusedResources prune(final @NotNull ResourcePack resourcePack);
+
+    /**
+     * A builder for {@link ResourcePruner} instances.
+     *
+     * @since 1.7.0
+     */
+    interface Builder {
+        /**
+         * Sets the predicate determining the models that are always
+         * kept, even if they are not referenced.
+         *
+         * @param keep The predicate, receives the model key
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder keepModels(final @NotNull Predicate<Key> keep);
+
+        /**
+         * Sets the predicate determining the textures that are always
+         * kept, even if they are not referenced.
+         *
+         * @param keep The predicate, receives the texture key
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder keepTextures(final @NotNull Predicate<Key> keep);
+
+        /**
+         * Sets the predicate determining the sounds that are always
+         * kept, even if they are not referenced.
+         *
+         * @param keep The predicate, receives the sound key
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder keepSounds(final @NotNull Predicate<Key> keep);
+
+        /**
+         * Builds a new {@link ResourcePruner} instance.
+         *
+         * @return The built instance
+         * @since 1.7.0
+         */
+        @Contract("-> new")
+        @NotNull ResourcePruner build();
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.resources;
+
+import net.kyori.adventure.key.InvalidKeyException;
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.atlas.Atlas;
+import team.unnamed.creative.atlas.AtlasSource;
+import team.unnamed.creative.atlas.DirectoryAtlasSource;
+import team.unnamed.creative.atlas.FilterAtlasSource;
+import team.unnamed.creative.atlas.PalettedPermutationsAtlasSource;
+import team.unnamed.creative.atlas.SingleAtlasSource;
+import team.unnamed.creative.atlas.UnstitchAtlasSource;
+import team.unnamed.creative.blockstate.BlockState;
+import team.unnamed.creative.blockstate.MultiVariant;
+import team.unnamed.creative.blockstate.Selector;
+import team.unnamed.creative.blockstate.Variant;
+import team.unnamed.creative.font.BitMapFontProvider;
+import team.unnamed.creative.font.Font;
+import team.unnamed.creative.font.FontProvider;
+import team.unnamed.creative.font.LegacyUnicodeFontProvider;
+import team.unnamed.creative.model.Element;
+import team.unnamed.creative.model.ElementFace;
+import team.unnamed.creative.model.ItemOverride;
+import team.unnamed.creative.model.Model;
+import team.unnamed.creative.model.ModelTexture;
+import team.unnamed.creative.model.ModelTextures;
+import team.unnamed.creative.overlay.ResourceContainer;
+import team.unnamed.creative.sound.Sound;
+import team.unnamed.creative.sound.SoundEntry;
+import team.unnamed.creative.sound.SoundEvent;
+import team.unnamed.creative.sound.SoundRegistry;
+import team.unnamed.creative.texture.Texture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.requireNonNull;
+
+final class ResourcePrunerImpl implements ResourcePruner {
+
+    private static final String TEXTURE_EXTENSION = ".png";
+
+    private static final Predicate<Key> MINECRAFT = key -> key.namespace().equals(Key.MINECRAFT_NAMESPACE);
+    private static final Predicate<Key> DEFAULT_KEEP_MODELS = MINECRAFT.or(key -> key.value().startsWith("item/"));
+    private static final Predicate<Key> DEFAULT_KEEP_TEXTURES = MINECRAFT.or(key -> !key.value().startsWith("block/") && !key.value().startsWith("item/"));
+    private static final Predicate<Key> DEFAULT_KEEP_SOUNDS = MINECRAFT;
+
+    static final ResourcePruner DEFAULT = new ResourcePrunerImpl(DEFAULT_KEEP_MODELS, DEFAULT_KEEP_TEXTURES, DEFAULT_KEEP_SOUNDS);
+
+    private final Predicate<Key> keepModels;
+    private final Predicate<Key> keepTextures;
+    private final Predicate<Key> keepSounds;
+
+    private ResourcePrunerImpl(final @NotNull Predicate<Key> keepModels, final @NotNull Predicate<Key> keepTextures, final @NotNull Predicate<Key> keepSounds) {
+        this.keepModels = keepModels;
+        this.keepTextures = keepTextures;
+        this.keepSounds = keepSounds;
+    }
+
+    @Override
+    public @NotNull UnusedResources find(final @NotNull ResourcePack resourcePack) {
+        requireNonNull(resourcePack, "resourcePack");
+        return new Analysis(containers(resourcePack)).run();
+    }
+
+    @Override
+    public @NotNull UnusedResources prune(final @NotNull ResourcePack resourcePack) {
+        requireNonNull(resourcePack, "resourcePack");
+        final List<ResourceContainer> containers = containers(resourcePack);
+        final UnusedResources unused = new Analysis(containers).run();
+        for (final ResourceContainer container : containers) {
+            for (final Key key : unused.models()) {
+                container.removeModel(key);
+            }
+            for (final Key key : unused.textures()) {
+                container.removeTexture(key);
+            }
+            for (final Key key : unused.sounds()) {
+                container.removeSound(key);
+            }
+        }
+        return unused;
+    }
+
+    private static @NotNull List<ResourceContainer> containers(final @NotNull ResourcePack resourcePack) {
+        final List<ResourceContainer> containers = new ArrayList<>();
+        containers.add(resourcePack);
+        containers.addAll(resourcePack.overlays());
+        return containers;
+    }
+
+    private static @NotNull Key textureKey(final @NotNull Key key) {
+        // model and atlas texture references do not include the extension
+        return Key.key(key.namespace(), key.value() + TEXTURE_EXTENSION);
+    }
+
+    private static @NotNull String withoutExtension(final @NotNull String path) {
+        return path.endsWith(TEXTURE_EXTENSION)
+                ? path.substring(0, path.length() - TEXTURE_EXTENSION.length())
+                : path;
+    }
+
+    /*
+     * Reachability analysis of a single resource-pack, computes
+     * the used resources starting from the roots
+     */
+    private final class Analysis {
+        private final List<ResourceContainer> containers;
+        private final Map<Key, List<Model>> models = new HashMap<>();
+        private final Set<Key> textures = new LinkedHashSet<>();
+
+        private final Set<Key> usedModels = new HashSet<>();
+        private final Set<Key> usedTextures = new HashSet<>();
+        private final Set<Key> usedSounds = new HashSet<>();
+        private final Queue<Key> pendingModels = new ArrayDeque<>();
+
+        Analysis(final @NotNull List<ResourceContainer> containers) {
+            this.containers = containers;
+            for (final ResourceContainer container : containers) {
+                for (final Model model : container.models()) {
+                    models.computeIfAbsent(model.key(), k -> new ArrayList<>(1)).add(model);
+                }
+                for (final Texture texture : container.textures()) {
+                    textures.add(texture.key());
+                }
+            }
+        }
+
+        @NotNull UnusedResources run() {
+            for (final ResourceContainer container : containers) {
+                for (final BlockState blockState : container.blockStates()) {
+                    for (final MultiVariant variant : blockState.variants().values()) {
+                        useModels(variant);
+                    }
+                    for (final Selector selector : blockState.multipart()) {
+                        useModels(selector.variant());
+                    }
+                }
+                for (final Font font : container.fonts()) {
+                    for (final FontProvider provider : font.providers()) {
+                        useTextures(provider);
+                    }
+                }
+                for (final Atlas atlas : container.atlases()) {
+                    useTextures(atlas);
+                }
+                for (final SoundRegistry soundRegistry : container.soundRegistries()) {
+                    for (final SoundEvent event : soundRegistry.sounds()) {
+                        for (final SoundEntry entry : event.sounds()) {
+                            if (entry.type() == SoundEntry.Type.FILE) {
+                                usedSounds.add(entry.key());
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (final Key key : models.keySet()) {
+                if (keepModels.test(key)) {
+                    pendingModels.add(key);
+                }
+            }
+
+            // follow model references
+            Key key;
+            while ((key = pendingModels.poll()) != null) {
+                if (!usedModels.add(key)) {
+                    continue;
+                }
+                final List<Model> found = models.get(key);
+                if (found == null) {
+                    // vanilla or built-in model
+                    continue;
+                }
+                for (final Model model : found) {
+                    useReferences(model);
+                }
+            }
+
+            final Set<Key> unusedModels = new LinkedHashSet<>();
+            final Set<Key> unusedTextures = new LinkedHashSet<>();
+            final Set<Key> unusedSounds = new LinkedHashSet<>();
+            for (final ResourceContainer container : containers) {
+                for (final Model model : container.models()) {
+                    if (!usedModels.contains(model.key())) {
+                        unusedModels.add(model.key());
+                    }
+                }
+                for (final Texture texture : container.textures()) {
+                    if (!usedTextures.contains(texture.key()) && !keepTextures.test(texture.key())) {
+                        unusedTextures.add(texture.key());
+                    }
+                }
+                for (final Sound sound : container.sounds()) {
+                    if (!usedSounds.contains(sound.key()) && !keepSounds.test(sound.key())) {
+                        unusedSounds.add(sound.key());
+                    }
+                }
+            }
+            return UnusedResources.unusedResources(unusedModels, unusedTextures, unusedSounds);
+        }
+
+        private void useModels(final @Nullable MultiVariant multiVariant) {
+            if (multiVariant == null) {
+                return;
+            }
+            for (final Variant variant : multiVariant.variants()) {
+                pendingModels.add(variant.model());
+            }
+        }
+
+        private void useReferences(final @NotNull Model model) {
+            final Key parent = model.parent();
+            if (parent != null) {
+                pendingModels.add(parent);
+            }
+            for (final ItemOverride override : model.overrides()) {
+                pendingModels.add(override.model());
+            }
+
+            final ModelTextures modelTextures = model.textures();
+            for (final ModelTexture layer : modelTextures.layers()) {
+                useTexture(layer);
+            }
+            useTexture(modelTextures.particle());
+            for (final ModelTexture variable : modelTextures.variables().values()) {
+                useTexture(variable);
+            }
+
+            for (final Element element : model.elements()) {
+                for (final ElementFace face : element.faces().values()) {
+                    final String texture = face.texture();
+                    if (texture.startsWith("#")) {
+                        // a texture variable, already used
+                        continue;
+                    }
+                    try {
+                        usedTextures.add(textureKey(Key.key(texture)));
+                    } catch (final InvalidKeyException ignored) {
+                        // not a texture, the client ignores it too
+                    }
+                }
+            }
+        }
+
+        private void useTexture(final @Nullable ModelTexture texture) {
+            if (texture != null && texture.key() != null) {
+                usedTextures.add(textureKey(texture.key()));
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        private void useTextures(final @NotNull FontProvider provider) {
+            if (provider instanceof BitMapFontProvider) {
+                // bitmap files already include the extension
+                usedTextures.add(((BitMapFontProvider) provider).file());
+            } else if (provider instanceof LegacyUnicodeFontProvider) {
+                String template = ((LegacyUnicodeFontProvider) provider).template();
+                if (template.indexOf(':') == -1) {
+                    template = Key.MINECRAFT_NAMESPACE + ':' + template;
+                }
+                final Pattern pattern = Pattern.compile(Pattern.quote(template).replace("%s", "\\E.*\\Q"));
+                for (final Key texture : textures) {
+                    if (pattern.matcher(texture.asString()).matches()) {
+                        usedTextures.add(texture);
+                    }
+                }
+            }
+        }
+
+        /*
+         * Uses the textures stitched by the given atlas, evaluating
+         * its sources in order, like the client does
+         */
+        private void useTextures(final @NotNull Atlas atlas) {
+            // sprite key -> texture key
+            final Map<Key, Key> sprites = new LinkedHashMap<>();
+            for (final AtlasSource source : atlas.sources()) {
+                if (source instanceof DirectoryAtlasSource) {
+                    final DirectoryAtlasSource directory = (DirectoryAtlasSource) source;
+                    final String path = directory.source() + '/';
+                    for (final Key texture : textures) {
+                        final String value = texture.value();
+                        if (value.startsWith(path) && value.endsWith(TEXTURE_EXTENSION)) {
+                            final String sprite = directory.prefix() + withoutExtension(value.substring(path.length()));
+                            sprites.put(Key.key(texture.namespace(), sprite), texture);
+                        }
+                    }
+                } else if (source instanceof SingleAtlasSource) {
+                    final SingleAtlasSource single = (SingleAtlasSource) source;
+                    final Key sprite = single.sprite() == null ? single.resource() : single.sprite();
+                    sprites.put(sprite, textureKey(single.resource()));
+                } else if (source instanceof FilterAtlasSource) {
+                    sprites.keySet().removeIf(((FilterAtlasSource) source).pattern()::test);
+                } else if (source instanceof PalettedPermutationsAtlasSource) {
+                    final PalettedPermutationsAtlasSource permutations = (PalettedPermutationsAtlasSource) source;
+                    for (final Key texture : permutations.textures()) {
+                        usedTextures.add(textureKey(texture));
+                    }
+                    usedTextures.add(textureKey(permutations.paletteKey()));
+                    for (final Key palette : permutations.permutations().values()) {
+                        usedTextures.add(textureKey(palette));
+                    }
+                } else if (source instanceof UnstitchAtlasSource) {
+                    usedTextures.add(textureKey(((UnstitchAtlasSource) source).resource()));
+                }
+            }
+            usedTextures.addAll(sprites.values());
+        }
+    }
+
+    static final class BuilderImpl implements Builder {
+        private Predicate<Key> keepModels = DEFAULT_KEEP_MODELS;
+        private Predicate<Key> keepTextures = DEFAULT_KEEP_TEXTURES;
+        private Predicate<Key> keepSounds = DEFAULT_KEEP_SOUNDS;
+
+        @Override
+        public @NotNull Builder keepModels(final @NotNull Predicate<Key> keep) {
+            this.keepModels = requireNonNull(keep, "keep");
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder keepTextures(final @NotNull Predicate<Key> keep) {
+            this.keepTextures = requireNonNull(keep, "keep");
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder keepSounds(final @NotNull Predicate<Key> keep) {
+            this.keepSounds = requireNonNull(keep, "keep");
+            return this;
+        }
+
+        @Override
+        public @NotNull ResourcePruner build() {
+            return new ResourcePrunerImpl(keepModels, keepTextures, keepSounds);
+        }
+    }
+}
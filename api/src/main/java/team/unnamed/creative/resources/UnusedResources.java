@@ -0,0 +1,117 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.resources;
+
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The resources of a resource-pack that are not reachable,
+ * found (and optionally removed) by a {@link ResourcePruner}.
+ *
+ * @see ResourcePruner
+ * @since 1.7.0
+ */
+public final class UnusedResources {
+    private final Set<Key> models;
+    private final Set<Key> textures;
+    private final Set<Key> sounds;
+
+    private UnusedResources(final @NotNull Set<Key> models, final @NotNull Set<Key> textures, final @NotNull Set<Key> sounds) {
+        this.models = Collections.unmodifiableSet(new LinkedHashSet<>(requireNonNull(models, "models")));
+        this.textures = Collections.unmodifiableSet(new LinkedHashSet<>(requireNonNull(textures, "textures")));
+        this.sounds = Collections.unmodifiableSet(new LinkedHashSet<>(requireNonNull(sounds, "sounds")));
+    }
+
+    static @NotNull UnusedResources unusedResources(final @NotNull Set<Key> models, final @NotNull Set<Key> textures, final @NotNull Set<Key> sounds) {
+        return new UnusedResources(models, textures, sounds);
+    }
+
+    /**
+     * Returns the keys of the unused models.
+     *
+     * @return The unused model keys
+     * @since 1.7.0
+     */
+    public @NotNull @Unmodifiable Set<Key> models() {
+        return models;
+    }
+
+    /**
+     * Returns the keys of the unused textures.
+     *
+     * @return The unused texture keys
+     * @since 1.7.0
+     */
+    public @NotNull @Unmodifiable Set<Key> textures() {
+        return textures;
+    }
+
+    /**
+     * Returns the keys of the unused sounds (sound files,
+     * not sound events).
+     *
+     * @return The unused sound keys
+     * @since 1.7.0
+     */
+    public @NotNull @Unmodifiable Set<Key> sounds() {
+        return sounds;
+    }
+
+    /**
+     * Returns the total amount of unused resources.
+     *
+     * @return The amount of unused resources
+     * @since 1.7.0
+     */
+    public int size() {
+        return models.size() + textures.size() + sounds.size();
+    }
+
+    /**
+     * Determines whether there are no unused resources.
+     *
+     * @return True if all the resources are used
+     * @since 1.7.0
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "UnusedResources{" +
+                "models=" + models +
+                ", textures=" + textures +
+                ", sounds=" + sounds +
+                '}';
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.resources;
+
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.atlas.Atlas;
+import team.unnamed.creative.atlas.AtlasSource;
+import team.unnamed.creative.base.KeyPattern;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.blockstate.BlockState;
+import team.unnamed.creative.blockstate.MultiVariant;
+import team.unnamed.creative.blockstate.Variant;
+import team.unnamed.creative.font.Font;
+import team.unnamed.creative.font.FontProvider;
+import team.unnamed.creative.model.ItemOverride;
+import team.unnamed.creative.model.Model;
+import team.unnamed.creative.model.ModelTexture;
+import team.unnamed.creative.model.ModelTextures;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.sound.Sound;
+import team.unnamed.creative.sound.SoundEntry;
+import team.unnamed.creative.sound.SoundEvent;
+import team.unnamed.creative.sound.SoundRegistry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourcePrunerTest {
+
+    private static final Writable DATA = Writable.stringUtf8("data");
+
+    @Test
+    @DisplayName("Test that unreachable resources are found and removed")
+    void test_prune() {
+        final ResourcePack resourcePack = createResourcePack();
+
+        final UnusedResources unused = ResourcePruner.pruner().find(resourcePack);
+        assertEquals(set(key("block/unused"), key("block/overlay_unused")), unused.models());
+        assertEquals(set(
+                key("block/orphan.png"),
+                key("block/atlas/filtered.png"),
+                key("item/unused.png")
+        ), unused.textures());
+        assertEquals(set(key("unused")), unused.sounds());
+        assertEquals(6, unused.size());
+
+        // find does not modify the resource-pack
+        assertNotNull(resourcePack.model(key("block/unused")));
+
+        final UnusedResources removed = ResourcePruner.pruner().prune(resourcePack);
+        assertEquals(unused.toString(), removed.toString());
+        assertNull(resourcePack.model(key("block/unused")));
+        assertNull(resourcePack.texture(key("block/orphan.png")));
+        assertNull(resourcePack.sound(key("unused")));
+        final Overlay overlay = resourcePack.overlay("overlay");
+        assertNotNull(overlay);
+        assertNull(overlay.model(key("block/overlay_unused")));
+        assertNotNull(overlay.texture(key("block/from_overlay.png")));
+
+        // the used resources are kept
+        assertNotNull(resourcePack.model(key("block/test")));
+        assertNotNull(resourcePack.model(key("block/parent")));
+        assertNotNull(resourcePack.model(key("item/custom")));
+        assertNotNull(resourcePack.texture(key("block/used.png")));
+        assertNotNull(resourcePack.texture(key("block/face.png")));
+        assertNotNull(resourcePack.texture(key("block/atlas/stitched.png")));
+        assertNotNull(resourcePack.texture(key("item/glyph.png")));
+        assertNotNull(resourcePack.texture(Key.key("minecraft:block/stone.png")));
+        assertNotNull(resourcePack.sound(key("used")));
+
+        // nothing else to remove
+        assertTrue(ResourcePruner.pruner().find(resourcePack).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test that the pruner predicates keep resources")
+    void test_keep() {
+        final ResourcePruner pruner = ResourcePruner.builder()
+                .keepModels(key -> key.value().startsWith("item/") || key.value().endsWith("unused"))
+                .keepTextures(key -> false)
+                .keepSounds(key -> true)
+                .build();
+
+        final UnusedResources unused = pruner.find(createResourcePack());
+        assertTrue(unused.models().isEmpty());
+        // kept models also keep their textures
+        assertTrue(!unused.textures().contains(key("block/orphan.png")));
+        assertTrue(unused.textures().contains(Key.key("minecraft:block/stone.png")));
+        assertTrue(unused.sounds().isEmpty());
+    }
+
+    private static ResourcePack createResourcePack() {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+
+        // block state -> model -> parent -> textures
+        resourcePack.blockState(BlockState.of(key("test"), Collections.singletonMap(
+                "",
+                MultiVariant.of(Variant.builder().model(key("block/test")).build())
+        )));
+        resourcePack.model(Model.model()
+                .key(key("block/test"))
+                .parent(key("block/parent"))
+                .build());
+        resourcePack.model(Model.model()
+                .key(key("block/parent"))
+                .parent(Key.key("minecraft:block/cube_all"))
+                .textures(ModelTextures.builder()
+                        .addVariable("all", ModelTexture.ofKey(key("block/used")))
+                        .particle(ModelTexture.ofKey(key("block/face")))
+                        .build())
+                .build());
+        resourcePack.model(Model.model()
+                .key(key("block/unused"))
+                .textures(ModelTextures.builder()
+                        .addVariable("all", ModelTexture.ofKey(key("block/orphan")))
+                        .build())
+                .build());
+
+        // item model (always kept) -> override
+        resourcePack.model(Model.model()
+                .key(Key.key("minecraft:item/diamond"))
+                .overrides(ItemOverride.of(key("item/custom")))
+                .build());
+        resourcePack.model(Model.model().key(key("item/custom")).build());
+
+        // atlas, stitches a directory, but filters some sprites
+        resourcePack.atlas(Atlas.atlas(Key.key("minecraft:blocks"), Arrays.asList(
+                AtlasSource.directory("block/atlas", "block/atlas/"),
+                AtlasSource.filter(KeyPattern.ofValue("block/atlas/filtered"))
+        )));
+
+        // font
+        resourcePack.font(Font.font(key("font"), FontProvider.bitMap()
+                .file(key("item/glyph.png"))
+                .height(8)
+                .ascent(7)
+                .characters(Collections.singletonList("a"))
+                .build()));
+
+        // sounds
+        final Sound used = Sound.sound(key("used"), DATA);
+        resourcePack.sound(used);
+        resourcePack.sound(key("unused"), DATA);
+        resourcePack.soundRegistry(SoundRegistry.soundRegistry("creative", Collections.singleton(SoundEvent.soundEvent()
+                .key(key("event"))
+                .sounds(SoundEntry.soundEntry(used))
+                .build())));
+
+        // overlay, references base textures too
+        final Overlay overlay = Overlay.overlay("overlay");
+        overlay.model(Model.model()
+                .key(key("block/test"))
+                .textures(ModelTextures.builder()
+                        .addVariable("all", ModelTexture.ofKey(key("block/from_overlay")))
+                        .build())
+                .build());
+        overlay.model(Model.model().key(key("block/overlay_unused")).build());
+        overlay.texture(key("block/from_overlay.png"), DATA);
+        resourcePack.overlay(overlay);
+
+        for (final String texture : new String[] {
+                "block/used.png", "block/face.png", "block/orphan.png",
+                "block/atlas/stitched.png", "block/atlas/filtered.png",
+                "item/glyph.png", "item/unused.png",
+                "gui/sprites/used_by_the_game.png"
+        }) {
+            resourcePack.texture(key(texture), DATA);
+        }
+        resourcePack.texture(Key.key("minecraft:block/stone.png"), DATA);
+        return resourcePack;
+    }
+
+    private static Key key(final String value) {
+        return Key.key("creative", value);
+    }
+
+    @SafeVarargs
+    private static <T> HashSet<T> set(final T... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+}
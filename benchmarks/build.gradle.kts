@@ -0,0 +1,24 @@
+plugins {
+    id("creative.java-conventions")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+description = "JMH benchmarks for the creative API, serializers and server"
+
+dependencies {
+    jmh(project(":creative-api"))
+    jmh(project(":creative-serializer-minecraft"))
+    jmh(project(":creative-server"))
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // run a subset using -Pjmh.includes=<regex>, e.g. ./gradlew :creative-benchmarks:jmh -Pjmh.includes=Reader
+    if (project.hasProperty("jmh.includes")) {
+        includes.add(project.property("jmh.includes").toString())
+    }
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
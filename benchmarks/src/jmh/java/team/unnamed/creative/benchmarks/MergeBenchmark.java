@@ -0,0 +1,95 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.overlay.ResourceContainer;
+import team.unnamed.creative.resources.MergeStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ResourceContainer#merge(ResourceContainer, MergeStrategy)}
+ * with every {@link MergeStrategy}, merging a container with distinct models,
+ * textures and sounds, and with shared languages and fonts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MergeBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"override", "mergeAndFailOnError", "mergeAndKeepFirstOnError"})
+    private String strategyName;
+
+    private MergeStrategy strategy;
+    private ResourceContainer other;
+    private ResourcePack target;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        switch (strategyName) {
+            case "override":
+                strategy = MergeStrategy.override();
+                break;
+            case "mergeAndFailOnError":
+                strategy = MergeStrategy.mergeAndFailOnError();
+                break;
+            case "mergeAndKeepFirstOnError":
+                strategy = MergeStrategy.mergeAndKeepFirstOnError();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown merge strategy: " + strategyName);
+        }
+
+        // not a resource-pack, so pack metadata is not merged
+        final Overlay overlay = Overlay.overlay("other");
+        SyntheticPacks.populate(overlay, size, 1L, "other");
+        other = overlay;
+    }
+
+    // merging modifies the target, use a new one every time
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        target = SyntheticPacks.generate(size, 0L);
+    }
+
+    @Benchmark
+    public ResourcePack merge() {
+        target.merge(other, strategy);
+        return target;
+    }
+}
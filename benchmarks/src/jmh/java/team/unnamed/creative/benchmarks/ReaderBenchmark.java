@@ -0,0 +1,107 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackReader;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.serialize.minecraft.fs.FileTreeReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link MinecraftResourcePackReader} reading the same
+ * resource-pack from a ZIP file, a memory-mapped ZIP file, a ZIP
+ * stream and a directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReaderBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private final MinecraftResourcePackReader reader = MinecraftResourcePackReader.minecraft();
+
+    private Path root;
+    private File zipFile;
+    private byte[] zipBytes;
+    private File directory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final ResourcePack resourcePack = SyntheticPacks.generate(size, 0L);
+        root = Files.createTempDirectory("creative-reader-benchmark");
+        zipFile = root.resolve("pack.zip").toFile();
+        directory = root.resolve("pack").toFile();
+
+        final MinecraftResourcePackWriter writer = MinecraftResourcePackWriter.minecraft();
+        writer.writeToZipFile(zipFile, resourcePack);
+        writer.writeToDirectory(directory, resourcePack);
+        zipBytes = Files.readAllBytes(zipFile.toPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticPacks.delete(root);
+    }
+
+    @Benchmark
+    public ResourcePack zipFile() {
+        return reader.readFromZipFile(zipFile);
+    }
+
+    @Benchmark
+    public ResourcePack mappedZipFile() throws IOException {
+        try (FileTreeReader tree = FileTreeReader.mappedZip(zipFile.toPath())) {
+            return reader.read(tree);
+        }
+    }
+
+    @Benchmark
+    public ResourcePack zipStream() {
+        return reader.readFromInputStream(new ByteArrayInputStream(zipBytes));
+    }
+
+    @Benchmark
+    public ResourcePack directory() {
+        return reader.readFromDirectory(directory);
+    }
+}
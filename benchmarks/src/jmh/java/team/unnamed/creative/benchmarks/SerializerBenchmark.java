@@ -0,0 +1,150 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.benchmarks;
+
+import com.google.gson.JsonParser;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.key.Keyed;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.serialize.minecraft.blockstate.BlockStateSerializer;
+import team.unnamed.creative.serialize.minecraft.font.FontSerializer;
+import team.unnamed.creative.serialize.minecraft.io.JsonResourceDeserializer;
+import team.unnamed.creative.serialize.minecraft.io.JsonResourceSerializer;
+import team.unnamed.creative.serialize.minecraft.language.LanguageSerializer;
+import team.unnamed.creative.serialize.minecraft.model.ModelSerializer;
+import team.unnamed.creative.serialize.minecraft.sound.SoundRegistrySerializer;
+import team.unnamed.creative.sound.SoundRegistry;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the JSON serializers of every resource type,
+ * serializing and deserializing a single resource.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializerBenchmark {
+
+    // languages, fonts and sound registries scale with the pack size
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"model", "blockState", "font", "language", "soundRegistry"})
+    private String type;
+
+    private Codec<?> codec;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final ResourcePack resourcePack = SyntheticPacks.generate(size, 0L);
+        switch (type) {
+            case "model":
+                codec = new JsonCodec<>(ModelSerializer.INSTANCE, resourcePack.models().iterator().next());
+                break;
+            case "blockState":
+                codec = new JsonCodec<>(BlockStateSerializer.INSTANCE, resourcePack.blockStates().iterator().next());
+                break;
+            case "font":
+                codec = new JsonCodec<>(FontSerializer.INSTANCE, resourcePack.fonts().iterator().next());
+                break;
+            case "language":
+                codec = new JsonCodec<>(LanguageSerializer.INSTANCE, resourcePack.languages().iterator().next());
+                break;
+            case "soundRegistry":
+                codec = new SoundRegistryCodec(resourcePack.soundRegistries().iterator().next());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown resource type: " + type);
+        }
+        json = codec.serialize();
+    }
+
+    @Benchmark
+    public String serialize() throws IOException {
+        return codec.serialize();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        return codec.deserialize(json);
+    }
+
+    private interface Codec<T> {
+        String serialize() throws IOException;
+
+        T deserialize(String json) throws IOException;
+    }
+
+    private static final class JsonCodec<T extends Keyed, S extends JsonResourceSerializer<T> & JsonResourceDeserializer<T>> implements Codec<T> {
+        private final S serializer;
+        private final T resource;
+        private final Key key;
+
+        private JsonCodec(final S serializer, final T resource) {
+            this.serializer = serializer;
+            this.resource = resource;
+            this.key = resource.key();
+        }
+
+        @Override
+        public String serialize() throws IOException {
+            return serializer.serializeToJsonString(resource);
+        }
+
+        @Override
+        public T deserialize(final String json) throws IOException {
+            return serializer.deserializeFromJsonString(json, key);
+        }
+    }
+
+    private static final class SoundRegistryCodec implements Codec<SoundRegistry> {
+        private final SoundRegistry registry;
+
+        private SoundRegistryCodec(final SoundRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public String serialize() throws IOException {
+            return SoundRegistrySerializer.INSTANCE.serializeToJsonString(registry);
+        }
+
+        @Override
+        public SoundRegistry deserialize(final String json) {
+            return SoundRegistrySerializer.INSTANCE.readFromTree(JsonParser.parseString(json), registry.namespace());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.server.ResourcePackServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks end-to-end downloads from a local {@link ResourcePackServer},
+ * using both the blocking and the non-blocking implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ServerBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean nonBlocking;
+
+    private ResourcePackServer server;
+    private URL url;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final BuiltResourcePack pack = MinecraftResourcePackWriter.minecraft().build(SyntheticPacks.generate(size, 0L));
+        server = ResourcePackServer.server()
+                .address(new InetSocketAddress("127.0.0.1", 0))
+                .nonBlocking(nonBlocking)
+                .pack(pack)
+                .build();
+        server.start();
+
+        final InetSocketAddress address = server.address();
+        url = new URL("http://127.0.0.1:" + address.getPort() + "/" + pack.hash() + ".zip");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        long read = 0;
+        try (InputStream input = connection.getInputStream()) {
+            final byte[] buffer = new byte[8192];
+            int len;
+            while ((len = input.read(buffer)) != -1) {
+                read += len;
+            }
+        }
+        if (connection.getResponseCode() != 200) {
+            throw new IllegalStateException("Unexpected response code: " + connection.getResponseCode());
+        }
+        return read;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.benchmarks;
+
+import net.kyori.adventure.key.Key;
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.blockstate.BlockState;
+import team.unnamed.creative.blockstate.MultiVariant;
+import team.unnamed.creative.blockstate.Variant;
+import team.unnamed.creative.font.Font;
+import team.unnamed.creative.font.FontProvider;
+import team.unnamed.creative.lang.Language;
+import team.unnamed.creative.model.Model;
+import team.unnamed.creative.model.ModelTexture;
+import team.unnamed.creative.model.ModelTextures;
+import team.unnamed.creative.overlay.ResourceContainer;
+import team.unnamed.creative.sound.Sound;
+import team.unnamed.creative.sound.SoundEntry;
+import team.unnamed.creative.sound.SoundEvent;
+import team.unnamed.creative.sound.SoundRegistry;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates deterministic synthetic resource-packs, so that
+ * every benchmark run uses exactly the same data.
+ *
+ * <p>The amount of resources scales with the given size: {@code size}
+ * textures and models, {@code size / 10} block states and sounds, and
+ * languages and fonts with {@code size} translations and characters.
+ * Texture and sound data is random, so it doesn't compress, like real
+ * PNG and OGG files.</p>
+ */
+public final class SyntheticPacks {
+    private static final String[] LANGUAGES = {"en_us", "es_es", "pt_br", "de_de"};
+
+    private SyntheticPacks() {
+        throw new UnsupportedOperationException("Can't instantiate utility class");
+    }
+
+    /**
+     * Generates a resource-pack with the given size.
+     *
+     * @param size The resource-pack size
+     * @param seed The random seed
+     * @return The generated resource-pack
+     */
+    public static @NotNull ResourcePack generate(final int size, final long seed) {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.packMeta(15, "Synthetic resource-pack (size: " + size + ", seed: " + seed + ")");
+        populate(resourcePack, size, seed, "synthetic");
+        return resourcePack;
+    }
+
+    /**
+     * Adds resources to the given container, resources from
+     * different namespaces never conflict, except languages (with
+     * different translation keys) and the default font, which are merged.
+     *
+     * @param container The resource container
+     * @param size      The amount of resources
+     * @param seed      The random seed
+     * @param namespace The namespace of the added resources
+     */
+    public static void populate(final @NotNull ResourceContainer container, final int size, final long seed, final @NotNull String namespace) {
+        final Random random = new Random(seed);
+
+        for (int i = 0; i < size; i++) {
+            final Key texture = Key.key(namespace, "item/generated_" + i + ".png");
+            container.texture(texture, Writable.bytes(randomBytes(random, 256 + random.nextInt(4096))));
+            container.model(Model.model()
+                    .key(Key.key(namespace, "item/generated_" + i))
+                    .parent(Key.key("item/generated"))
+                    .textures(ModelTextures.builder()
+                            .layers(ModelTexture.ofKey(Key.key(namespace, "item/generated_" + i)))
+                            .build())
+                    .build());
+        }
+
+        final List<SoundEvent> soundEvents = new ArrayList<>();
+        for (int i = 0; i < size / 10; i++) {
+            container.blockState(BlockState.of(
+                    Key.key(namespace, "block_" + i),
+                    Collections.singletonMap("", MultiVariant.of(Variant.builder()
+                            .model(Key.key(namespace, "block/block_" + i))
+                            .y(90 * random.nextInt(4))
+                            .build()))
+            ));
+
+            final Key sound = Key.key(namespace, "sound_" + i);
+            container.sound(Sound.sound(sound, Writable.bytes(randomBytes(random, 1024 + random.nextInt(16 * 1024)))));
+            soundEvents.add(SoundEvent.soundEvent(
+                    Key.key(namespace, "event_" + i),
+                    false,
+                    null,
+                    Collections.singletonList(SoundEntry.sound(sound, 1F, 1F, 1, false, 16, false))
+            ));
+        }
+        if (!soundEvents.isEmpty()) {
+            container.soundRegistry(SoundRegistry.soundRegistry(namespace, soundEvents));
+        }
+
+        for (final String language : LANGUAGES) {
+            final Map<String, String> translations = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                translations.put("item." + namespace + ".generated_" + i, language + " translation " + random.nextInt());
+            }
+            container.language(Language.language(Key.key(language), translations));
+        }
+
+        // characters from the supplementary private use area
+        final Map<String, Integer> advances = new LinkedHashMap<>();
+        for (int i = 0, count = Math.min(size, 0xFFFD); i < count; i++) {
+            advances.put(new String(Character.toChars(0xF0000 + i)), random.nextInt(16) - 8);
+        }
+        container.font(Font.font(Key.key("default"), FontProvider.space(advances)));
+    }
+
+    private static byte @NotNull [] randomBytes(final @NotNull Random random, final int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Deletes the given directory and all its contents.
+     *
+     * @param directory The directory to delete
+     * @throws IOException If deleting fails
+     */
+    public static void delete(final @NotNull Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
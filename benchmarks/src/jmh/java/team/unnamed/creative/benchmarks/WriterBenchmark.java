@@ -0,0 +1,93 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.serialize.minecraft.fs.ZipCompressionPolicy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link MinecraftResourcePackWriter#build(ResourcePack)},
+ * single-threaded, using an executor and storing PNG and OGG entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WriterBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ResourcePack resourcePack;
+    private ExecutorService executor;
+    private MinecraftResourcePackWriter parallelWriter;
+    private MinecraftResourcePackWriter storeMediaWriter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        resourcePack = SyntheticPacks.generate(size, 0L);
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        parallelWriter = MinecraftResourcePackWriter.builder()
+                .executor(executor)
+                .build();
+        storeMediaWriter = MinecraftResourcePackWriter.builder()
+                .compressionPolicy(ZipCompressionPolicy.storeCompressedMedia())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public BuiltResourcePack build() {
+        return MinecraftResourcePackWriter.minecraft().build(resourcePack);
+    }
+
+    @Benchmark
+    public BuiltResourcePack buildParallel() {
+        return parallelWriter.build(resourcePack);
+    }
+
+    @Benchmark
+    public BuiltResourcePack buildStoreMedia() {
+        return storeMediaWriter.build(resourcePack);
+    }
+}
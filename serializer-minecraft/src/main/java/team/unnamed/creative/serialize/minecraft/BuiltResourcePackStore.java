@@ -0,0 +1,287 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.serialize.minecraft.fs.ZipCompressionPolicy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A persistent, content-addressed store of built resource-packs,
+ * used to avoid rebuilding unchanged resource-packs, e.g. on every
+ * server startup.
+ *
+ * <p>Built ZIP files are stored in a local directory, named by their
+ * SHA-1 hash, and indexed by a fingerprint of the input {@link ResourcePack}.
+ * The fingerprint is computed from the serialized resource-pack files, before
+ * optimizing, compressing and archiving them, so it is much cheaper than
+ * building the resource-pack, and from the writer configuration (e.g. its
+ * compression policy), so changing it builds the resource-packs again.</p>
+ *
+ * <p>The writer configuration must be identifiable across processes, so
+ * resource-packs built by custom {@link MinecraftResourcePackWriter}
+ * implementations, or with a {@link ZipCompressionPolicy} without a
+ * {@link ZipCompressionPolicy#key() key}, are built every time and
+ * never stored.</p>
+ *
+ * <p>If a resource-pack with the same fingerprint was built before, even
+ * by a previous process, its ZIP file is memory-mapped and returned with
+ * its stored hash, without building nor hashing it again.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * BuiltResourcePackStore store = BuiltResourcePackStore.store(Paths.get("built-packs"));
+ * BuiltResourcePack built = store.build(pack); // only built if changed
+ * }</pre>
+ *
+ * @since 1.7.0
+ */
+public final class BuiltResourcePackStore {
+    private static final String ZIP_EXTENSION = ".zip";
+    private static final String INDEX_EXTENSION = ".fingerprint";
+
+    private final Path directory;
+    private final MinecraftResourcePackWriter writer;
+
+    private BuiltResourcePackStore(final @NotNull Path directory, final @NotNull MinecraftResourcePackWriter writer) {
+        this.directory = requireNonNull(directory, "directory");
+        this.writer = requireNonNull(writer, "writer");
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to create the store directory", e);
+        }
+    }
+
+    /**
+     * Creates a new {@link BuiltResourcePackStore} instance, backed by the
+     * given directory and building resource-packs with the given writer.
+     *
+     * @param directory The directory where the built resource-packs are
+     *                  stored, created if it doesn't exist
+     * @param writer    The writer used to build the resource-packs
+     * @return The created store
+     * @since 1.7.0
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull BuiltResourcePackStore store(final @NotNull Path directory, final @NotNull MinecraftResourcePackWriter writer) {
+        return new BuiltResourcePackStore(directory, writer);
+    }
+
+    /**
+     * Creates a new {@link BuiltResourcePackStore} instance, backed by the
+     * given directory and building resource-packs with the default writer.
+     *
+     * @param directory The directory where the built resource-packs are
+     *                  stored, created if it doesn't exist
+     * @return The created store
+     * @since 1.7.0
+     */
+    @Contract("_ -> new")
+    public static @NotNull BuiltResourcePackStore store(final @NotNull Path directory) {
+        return new BuiltResourcePackStore(directory, MinecraftResourcePackWriter.minecraft());
+    }
+
+    /**
+     * Computes the fingerprint of the given resource-pack, resource-packs
+     * with the same fingerprint are built to the same ZIP file.
+     *
+     * @param resourcePack The resource-pack
+     * @return The fingerprint, a hexadecimal SHA-1 hash, or null if
+     * the writer configuration can't be identified, in which case
+     * built resource-packs are never stored
+     * @since 1.7.0
+     */
+    public @Nullable String fingerprint(final @NotNull ResourcePack resourcePack) {
+        requireNonNull(resourcePack, "resourcePack");
+        if (!(writer instanceof MinecraftResourcePackWriterImpl)) {
+            return null;
+        }
+        final MinecraftResourcePackWriterImpl impl = (MinecraftResourcePackWriterImpl) writer;
+        final String configuration = impl.configuration();
+        if (configuration == null) {
+            return null;
+        }
+        try (FingerprintFileTreeWriter tree = new FingerprintFileTreeWriter()) {
+            impl.writeInputs(tree, resourcePack);
+            return tree.fingerprint(configuration);
+        }
+    }
+
+    /**
+     * Returns the stored resource-pack with the given fingerprint.
+     *
+     * @param fingerprint The resource-pack fingerprint
+     * @return The memory-mapped resource-pack, null if not stored
+     * @throws UncheckedIOException If reading the resource-pack fails
+     * @since 1.7.0
+     */
+    public @Nullable BuiltResourcePack get(final @NotNull String fingerprint) {
+        requireNonNull(fingerprint, "fingerprint");
+        final String index;
+        try {
+            index = new String(Files.readAllBytes(directory.resolve(fingerprint + INDEX_EXTENSION)), StandardCharsets.UTF_8).trim();
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read the index of " + fingerprint, e);
+        }
+
+        // "<hash> <length>"
+        final int separator = index.indexOf(' ');
+        if (separator == -1) {
+            return null;
+        }
+        final String hash = index.substring(0, separator);
+        final long length;
+        try {
+            length = Long.parseLong(index.substring(separator + 1));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+
+        final Path file = directory.resolve(hash + ZIP_EXTENSION);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != length) {
+                // incomplete or modified, build it again
+                return null;
+            }
+            // the mapping stays valid after closing the channel
+            final ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return BuiltResourcePack.of(mapped(data), hash);
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to map resource-pack " + hash, e);
+        }
+    }
+
+    /**
+     * Returns the stored resource-pack built from an identical resource-pack,
+     * or builds the given resource-pack and stores it.
+     *
+     * <p>If the writer configuration can't be identified, see
+     * {@link #fingerprint(ResourcePack)}, the resource-pack is
+     * built in memory and not stored.</p>
+     *
+     * @param resourcePack The resource-pack to build
+     * @return The built resource-pack, memory-mapped if stored
+     * @throws UncheckedIOException If reading or storing the resource-pack fails
+     * @since 1.7.0
+     */
+    public @NotNull BuiltResourcePack build(final @NotNull ResourcePack resourcePack) {
+        requireNonNull(resourcePack, "resourcePack");
+        final String fingerprint = fingerprint(resourcePack);
+        if (fingerprint == null) {
+            return writer.build(resourcePack);
+        }
+        final BuiltResourcePack stored = get(fingerprint);
+        if (stored != null) {
+            return stored;
+        }
+
+        try {
+            // build to a temporary file first, so a partially
+            // written resource-pack is never used
+            final Path temporary = Files.createTempFile(directory, fingerprint, ".tmp");
+            final String hash;
+            try {
+                hash = writer.buildToZipFile(temporary, resourcePack).hash();
+                Files.move(temporary, directory.resolve(hash + ZIP_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            final long length = Files.size(directory.resolve(hash + ZIP_EXTENSION));
+            final Path temporaryIndex = Files.createTempFile(directory, fingerprint, ".tmp");
+            try {
+                Files.write(temporaryIndex, (hash + ' ' + length).getBytes(StandardCharsets.UTF_8));
+                Files.move(temporaryIndex, directory.resolve(fingerprint + INDEX_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporaryIndex);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to store resource-pack " + fingerprint, e);
+        }
+
+        final BuiltResourcePack built = get(fingerprint);
+        if (built == null) {
+            throw new IllegalStateException("Stored resource-pack " + fingerprint + " was removed");
+        }
+        return built;
+    }
+
+    private static @NotNull Writable mapped(final @NotNull ByteBuffer data) {
+        return new Writable() {
+            @Override
+            public void write(final @NotNull OutputStream output) throws IOException {
+                requireNonNull(output, "output");
+                final ByteBuffer source = data.duplicate();
+                final WritableByteChannel channel = Channels.newChannel(output);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+            }
+
+            @Override
+            public byte @NotNull [] toByteArray() {
+                final byte[] bytes = new byte[data.remaining()];
+                data.duplicate().get(bytes);
+                return bytes;
+            }
+
+            @Override
+            public String toString() {
+                return "Writable.mapped";
+            }
+        };
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "BuiltResourcePackStore{" +
+                "directory=" + directory +
+                '}';
+    }
+}
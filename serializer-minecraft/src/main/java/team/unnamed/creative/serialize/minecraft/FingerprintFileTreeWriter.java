@@ -0,0 +1,134 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.serialize.minecraft.fs.FileTreeWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * FileTreeWriter that doesn't store nor compress anything, only
+ * computes a SHA-1 hash of every written file, used to compute a
+ * fingerprint of the resource-pack contents that doesn't depend on
+ * the order the files were written
+ */
+final class FingerprintFileTreeWriter implements FileTreeWriter {
+    private static final byte[] VERSION = "creative-fingerprint-v2".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<String, byte[]> digests = new TreeMap<>();
+    private DigestOutputStream current;
+    private String currentPath;
+
+    @Override
+    public boolean exists(final String path) {
+        return digests.containsKey(path) || path.equals(currentPath);
+    }
+
+    @Override
+    public OutputStream openStream(final String path) {
+        closeCurrent();
+        if (digests.containsKey(path)) {
+            throw new IllegalStateException("File " + path + " already exists!");
+        }
+        final DigestOutputStream stream = new DigestOutputStream(NullOutputStream.INSTANCE, HashUtil.sha1()) {
+            @Override
+            public void close() {
+                if (current == this) {
+                    closeCurrent();
+                }
+            }
+        };
+        current = stream;
+        currentPath = path;
+        return stream;
+    }
+
+    @Override
+    public void write(final String path, final Writable data) {
+        closeCurrent();
+        if (digests.containsKey(path)) {
+            throw new IllegalStateException("File " + path + " already exists!");
+        }
+        final MessageDigest digest = HashUtil.sha1();
+        try {
+            data.write(new DigestOutputStream(NullOutputStream.INSTANCE, digest));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        digests.put(path, digest.digest());
+    }
+
+    /*
+     * Returns the fingerprint of all the written files and the given
+     * writer configuration, as a lower-case hexadecimal string
+     */
+    @NotNull String fingerprint(final @NotNull String configuration) {
+        closeCurrent();
+        final MessageDigest digest = HashUtil.sha1();
+        digest.update(VERSION);
+        digest.update((byte) 0);
+        digest.update(configuration.getBytes(StandardCharsets.UTF_8));
+        for (final Map.Entry<String, byte[]> entry : digests.entrySet()) {
+            digest.update((byte) 0);
+            digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(entry.getValue());
+        }
+        return HashUtil.toHexString(digest.digest());
+    }
+
+    private void closeCurrent() {
+        if (current != null) {
+            digests.put(currentPath, current.getMessageDigest().digest());
+            current = null;
+            currentPath = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeCurrent();
+    }
+
+    private static final class NullOutputStream extends OutputStream {
+        private static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte @NotNull [] b, final int off, final int len) {
+        }
+    }
+}
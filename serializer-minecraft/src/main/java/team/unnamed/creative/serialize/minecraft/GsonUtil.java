@@ -29,6 +29,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
@@ -37,6 +38,7 @@ import team.unnamed.creative.base.Vector3Float;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.math.BigDecimal;
 
 @ApiStatus.Internal
 public final class GsonUtil {
@@ -138,10 +140,55 @@ public final class GsonUtil {
     public static Vector3Float readVector3Float(JsonElement element) {
         JsonArray array = element.getAsJsonArray();
         return new Vector3Float(
-                (float) array.get(0).getAsDouble(),
-                (float) array.get(1).getAsDouble(),
-                (float) array.get(2).getAsDouble()
+                array.get(0).getAsFloat(),
+                array.get(1).getAsFloat(),
+                array.get(2).getAsFloat()
         );
     }
 
+    public static Vector3Float readVector3Float(JsonReader reader) throws IOException {
+        reader.beginArray();
+        Vector3Float vector = new Vector3Float(
+                nextFloat(reader),
+                nextFloat(reader),
+                nextFloat(reader)
+        );
+        // ignore extra values, like the tree version does
+        while (reader.hasNext()) {
+            reader.skipValue();
+        }
+        reader.endArray();
+        return vector;
+    }
+
+    /*
+     * Reads the next value as a float, the same way
+     * JsonElement#getAsFloat() does
+     */
+    public static float nextFloat(JsonReader reader) throws IOException {
+        return Float.parseFloat(reader.nextString());
+    }
+
+    /*
+     * Reads the next value as an integer, the same way
+     * getInt(JsonObject, String, int) does, i.e. the value
+     * must be a number and decimals are truncated
+     */
+    public static int nextInt(JsonReader reader, String key) throws IOException {
+        if (reader.peek() != JsonToken.NUMBER) {
+            throw new IllegalStateException("Field '" + key + "' must be an integer");
+        }
+        String value = reader.nextString();
+        // same as JsonElement#getAsInt() for lazily parsed numbers
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return (int) Long.parseLong(value);
+        } catch (NumberFormatException ignored) {
+        }
+        return new BigDecimal(value).intValue();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,359 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.overlay.ResourceContainerImpl;
+import team.unnamed.creative.sound.Sound;
+import team.unnamed.creative.texture.Texture;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A map of resources that are read from a resource-pack
+ * file tree on demand, used by {@link LazyResourcePack}.
+ *
+ * <p>Every resource starts as a {@link Source}, which is
+ * deserialized the first time its value is requested. While
+ * a resource is not requested, replaced nor removed, its source
+ * is kept, so that writers can copy the file instead of serializing
+ * the resource again. Requested resources may be modified, e.g.
+ * the translations of a language, so they are always serialized.</p>
+ *
+ * <p>Replaced and removed resources are never deserialized, so
+ * {@link #put} and {@link #remove} return {@code null} if the
+ * previous value was not loaded yet. Like the default resource
+ * maps, it is not thread-safe.</p>
+ *
+ * @param <K> The key type
+ * @param <V> The resource type
+ */
+final class LazyResourceMap<K, V> extends AbstractMap<K, V> {
+
+    // the resource values or their sources, if not loaded yet
+    private final Map<K, Object> values = new LinkedHashMap<>();
+
+    // sources of the resources that were not loaded, replaced nor removed
+    private final Map<K, Source<V>> sources = new LinkedHashMap<>();
+
+    private final Values valuesView = new Values();
+    private final KeySet keySetView = new KeySet();
+    private final EntrySet entrySetView = new EntrySet();
+
+    /**
+     * Returns the lazy map backing the given resource collection,
+     * if any.
+     *
+     * @param resources The resource collection, e.g. the models of a container
+     * @param <K> The key type, must be the key type of the resources
+     * @param <V> The resource type
+     * @return The lazy map, or null if the collection is not lazy
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> @Nullable LazyResourceMap<K, V> of(final @NotNull Collection<V> resources) {
+        if (resources instanceof LazyResourceMap.Values) {
+            return ((LazyResourceMap<K, V>.Values) resources).map();
+        }
+        return null;
+    }
+
+    /**
+     * Adds a resource that is loaded when first requested.
+     *
+     * @param key The resource key
+     * @param path The resource file path, relative to the container
+     * @param data The resource file data
+     * @param loader The resource loader
+     */
+    void source(final @NotNull K key, final @NotNull String path, final @NotNull Writable data, final @NotNull Supplier<V> loader) {
+        final Source<V> source = new Source<>(path, data, loader);
+        values.put(key, source);
+        sources.put(key, source);
+    }
+
+    /**
+     * Returns the sources of the resources that were
+     * not loaded, replaced nor removed.
+     *
+     * @return The sources
+     */
+    @NotNull Collection<Source<V>> sources() {
+        return sources.values();
+    }
+
+    /**
+     * Returns the resources that were loaded, added or
+     * replaced, i.e. the ones that have no source.
+     *
+     * @return The modified resources
+     */
+    @SuppressWarnings("unchecked")
+    @NotNull Collection<V> modified() {
+        final List<V> modified = new ArrayList<>();
+        for (final Map.Entry<K, Object> entry : values.entrySet()) {
+            if (!sources.containsKey(entry.getKey())) {
+                modified.add((V) entry.getValue());
+            }
+        }
+        return modified;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V load(final K key, final Object value) {
+        if (value instanceof Source) {
+            final V loaded = ((Source<V>) value).loader.get();
+            values.put(key, loaded);
+            // the value may be modified, so it can't be copied
+            sources.remove(key);
+            return loaded;
+        }
+        return (V) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> @Nullable V loadedOrNull(final @Nullable Object value) {
+        return value instanceof Source ? null : (V) value;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final Object value = values.get(key);
+        return value == null ? null : load((K) key, value);
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+        requireNonNull(value, "value");
+        sources.remove(key);
+        return loadedOrNull(values.put(key, value));
+    }
+
+    @Override
+    public V remove(final Object key) {
+        sources.remove(key);
+        return loadedOrNull(values.remove(key));
+    }
+
+    @Override
+    public void clear() {
+        sources.clear();
+        values.clear();
+    }
+
+    @Override
+    public @NotNull Set<K> keySet() {
+        return keySetView;
+    }
+
+    @Override
+    public @NotNull Collection<V> values() {
+        return valuesView;
+    }
+
+    @Override
+    public @NotNull Set<Map.Entry<K, V>> entrySet() {
+        return entrySetView;
+    }
+
+    /**
+     * The source of a resource that was not loaded yet.
+     *
+     * @param <V> The resource type
+     */
+    static final class Source<V> {
+        private final String path;
+        private final Writable data;
+        private final Supplier<V> loader;
+
+        Source(final @NotNull String path, final @NotNull Writable data, final @NotNull Supplier<V> loader) {
+            this.path = path;
+            this.data = data;
+            this.loader = loader;
+        }
+
+        @NotNull String path() {
+            return path;
+        }
+
+        @NotNull Writable data() {
+            return data;
+        }
+    }
+
+    /*
+     * Iterates over the entries, loading their values when
+     * requested, removals are applied to the sources too
+     */
+    private abstract class LazyIterator<T> implements Iterator<T> {
+        private final Iterator<Map.Entry<K, Object>> delegate = values.entrySet().iterator();
+        private Map.Entry<K, Object> current;
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            current = delegate.next();
+            return map(current);
+        }
+
+        @Override
+        public void remove() {
+            delegate.remove();
+            sources.remove(current.getKey());
+        }
+
+        V value(final Map.Entry<K, Object> entry) {
+            final Object value = entry.getValue();
+            if (value instanceof Source) {
+                @SuppressWarnings("unchecked")
+                final V loaded = ((Source<V>) value).loader.get();
+                // replacing the value of the current entry is safe while iterating
+                entry.setValue(loaded);
+                // the value may be modified, so it can't be copied
+                sources.remove(entry.getKey());
+                return loaded;
+            }
+            @SuppressWarnings("unchecked")
+            final V loaded = (V) value;
+            return loaded;
+        }
+
+        abstract T map(Map.Entry<K, Object> entry);
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        @Override
+        public @NotNull Iterator<K> iterator() {
+            return new LazyIterator<K>() {
+                @Override
+                K map(final Map.Entry<K, Object> entry) {
+                    return entry.getKey();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public boolean contains(final Object key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public boolean remove(final Object key) {
+            sources.remove(key);
+            return values.keySet().remove(key);
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public @NotNull Iterator<V> iterator() {
+            return new LazyIterator<V>() {
+                @Override
+                V map(final Map.Entry<K, Object> entry) {
+                    return value(entry);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        LazyResourceMap<K, V> map() {
+            return LazyResourceMap.this;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public @NotNull Iterator<Map.Entry<K, V>> iterator() {
+            return new LazyIterator<Map.Entry<K, V>>() {
+                @Override
+                Map.Entry<K, V> map(final Map.Entry<K, Object> entry) {
+                    return new SimpleImmutableEntry<>(entry.getKey(), value(entry));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+    }
+
+    /*
+     * Creates lazy maps for the resources deserialized from JSON
+     * files, and hash maps for the rest, which are only references
+     * to the file contents
+     */
+    static final class Factory implements ResourceContainerImpl.MapFactory {
+        static final Factory INSTANCE = new Factory();
+
+        private Factory() {
+        }
+
+        @Override
+        public <K, V> @NotNull Map<K, V> create(final @NotNull Class<V> type) {
+            if (type == Writable.class || type == Sound.class || type == Texture.class) {
+                return new HashMap<>();
+            }
+            return new LazyResourceMap<>();
+        }
+    }
+}
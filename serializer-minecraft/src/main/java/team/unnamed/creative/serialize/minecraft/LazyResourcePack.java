@@ -0,0 +1,58 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.ApiStatus;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.serialize.minecraft.fs.FileTreeReader;
+
+import java.io.IOException;
+
+/**
+ * A {@link ResourcePack} whose resources are read from a file
+ * tree on demand, created by {@link MinecraftResourcePackReader#readLazily}.
+ *
+ * <p>Models, block states, fonts, languages, atlases and sound
+ * registries are only deserialized when they are requested, textures,
+ * sounds and unknown files keep referencing the file tree contents.
+ * When written, resources that were not requested nor replaced are
+ * copied from the file tree as they are, see {@link FileTreeReader#indexedZip},
+ * requested resources may have been modified, so they are serialized.</p>
+ *
+ * <p>The file tree is kept open until the resource-pack is closed,
+ * after that, resources that were not loaded can't be used.</p>
+ *
+ * @since 1.7.0
+ */
+@ApiStatus.NonExtendable
+public interface LazyResourcePack extends ResourcePack, AutoCloseable {
+    /**
+     * Closes the file tree this resource-pack reads from.
+     *
+     * @throws IOException If closing fails
+     * @since 1.7.0
+     */
+    @Override
+    void close() throws IOException;
+}
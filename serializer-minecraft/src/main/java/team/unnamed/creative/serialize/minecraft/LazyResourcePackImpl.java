@@ -0,0 +1,65 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.creative.ResourcePackImpl;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.overlay.ResourceContainerImpl;
+import team.unnamed.creative.serialize.minecraft.fs.FileTreeReader;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+final class LazyResourcePackImpl extends ResourcePackImpl implements LazyResourcePack {
+
+    private final FileTreeReader reader;
+
+    LazyResourcePackImpl(final @NotNull FileTreeReader reader) {
+        super(LazyResourceMap.Factory.INSTANCE);
+        this.reader = requireNonNull(reader, "reader");
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static final class LazyOverlay extends ResourceContainerImpl implements Overlay {
+
+        private final String directory;
+
+        LazyOverlay(final @NotNull String directory) {
+            super(LazyResourceMap.Factory.INSTANCE);
+            this.directory = requireNonNull(directory, "directory");
+        }
+
+        @Override
+        public @NotNull String directory() {
+            return directory;
+        }
+
+    }
+}
@@ -25,6 +25,7 @@ package team.unnamed.creative.serialize.minecraft;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import team.unnamed.creative.ResourcePack;
 import team.unnamed.creative.serialize.ResourcePackReader;
 import team.unnamed.creative.serialize.minecraft.fs.FileTreeReader;
@@ -35,6 +36,7 @@ import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.concurrent.Executor;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
@@ -68,6 +70,47 @@ public interface MinecraftResourcePackReader extends ResourcePackReader<FileTree
     @Override
     @NotNull ResourcePack read(final @NotNull FileTreeReader tree);
 
+    /**
+     * Lazily reads a {@link ResourcePack} from the given file tree.
+     *
+     * <p>The file tree is only indexed, JSON resources (models, block
+     * states, fonts, languages, atlases and sound registries) are
+     * deserialized when they are first requested, and the rest keep
+     * referencing the file tree contents. The file tree is closed
+     * when the returned resource-pack is closed.</p>
+     *
+     * <p>It is useful to modify a few resources of a large resource-pack,
+     * specially when reading from {@link FileTreeReader#indexedZip(Path)},
+     * since, when written to a ZIP file, the entries that were not requested
+     * are copied without being inflated nor compressed again.</p>
+     *
+     * @param tree The file tree, its contents must be usable while it is open
+     * @return The lazily read resource-pack
+     * @since 1.7.0
+     */
+    @NotNull LazyResourcePack readLazily(final @NotNull FileTreeReader tree);
+
+    /**
+     * Lazily reads a {@link ResourcePack} from a ZIP file at the given
+     * {@link Path path}, the file is kept open until the resource-pack
+     * is closed.
+     *
+     * @param path The path to the ZIP file
+     * @return The lazily read resource-pack
+     * @see #readLazily(FileTreeReader)
+     * @since 1.7.0
+     */
+    default @NotNull LazyResourcePack readLazilyFromZipFile(final @NotNull Path path) {
+        requireNonNull(path, "path");
+        final FileTreeReader reader;
+        try {
+            reader = FileTreeReader.indexedZip(path);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to open ZIP file: " + path, e);
+        }
+        return readLazily(reader);
+    }
+
     /**
      * Reads a {@link ResourcePack} from a ZIP file at the given
      * {@link Path path}.
@@ -120,21 +163,44 @@ public interface MinecraftResourcePackReader extends ResourcePackReader<FileTree
      * @since 1.3.0
      */
     interface Builder {
-        /*
+        /**
          * Makes the reader lenient.
          *
-         * <p>A lenient reader will:</p>
-         * <ul>
-         *     <li>Use a <a href="https://www.javadoc.io/doc/com.google.code.gson/gson/2.8.0/com/google/gson/stream/JsonReader.html#setLenient-boolean-">lenient JSON reader</a></li>
-         * </ul>
+         * <p>This option has no effect, JSON files are always read
+         * using a <a href="https://www.javadoc.io/doc/com.google.code.gson/gson/2.8.0/com/google/gson/stream/JsonReader.html#setLenient-boolean-">lenient JSON reader</a>,
+         * like Minecraft does.</p>
          *
          * @param lenient Whether the reader should be lenient
          * @return This builder
          * @since 1.3.0
+         * @deprecated JSON files are always read leniently, this
+         * method does nothing
          */
+        @Deprecated
         @Contract("_ -> this")
         @NotNull Builder lenient(final boolean lenient);
 
+        /**
+         * Sets the executor used to read and deserialize JSON files
+         * (models, block states, fonts, languages, etc.) in parallel,
+         * optional.
+         *
+         * <p>If the executor is not specified or if it's set to null,
+         * every file is read in the calling thread.</p>
+         *
+         * <p>ZIP files opened with {@link FileTreeReader#zip(ZipFile)}
+         * are random-access, so their entries are also inflated in the
+         * executor, for other file trees, the file contents are read in
+         * the calling thread. In any case, the resulting resource-pack is
+         * the same as the one from a sequential reader.</p>
+         *
+         * @param executor The executor, e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder executor(final @Nullable Executor executor);
+
         /**
          * Builds a new {@link MinecraftResourcePackReader} instance.
          *
@@ -23,13 +23,13 @@
  */
 package team.unnamed.creative.serialize.minecraft;
 
-import com.google.gson.JsonElement;
 import com.google.gson.stream.JsonReader;
 import net.kyori.adventure.key.Key;
 import org.intellij.lang.annotations.Subst;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Readable;
 import team.unnamed.creative.base.Writable;
 import team.unnamed.creative.metadata.Metadata;
 import team.unnamed.creative.overlay.Overlay;
@@ -40,6 +40,7 @@ import team.unnamed.creative.serialize.minecraft.io.JsonResourceDeserializer;
 import team.unnamed.creative.serialize.minecraft.io.ResourceDeserializer;
 import team.unnamed.creative.serialize.minecraft.metadata.MetadataSerializer;
 import team.unnamed.creative.serialize.minecraft.sound.SoundRegistrySerializer;
+import team.unnamed.creative.sound.SoundRegistry;
 import team.unnamed.creative.texture.Texture;
 import team.unnamed.creative.util.Keys;
 
@@ -48,36 +49,80 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
 import static team.unnamed.creative.serialize.minecraft.MinecraftResourcePackStructure.*;
 
 final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackReader {
-    static final MinecraftResourcePackReader INSTANCE = MinecraftResourcePackReader.builder()
-            .lenient(false)
-            .build();
+    static final MinecraftResourcePackReader INSTANCE = MinecraftResourcePackReader.builder().build();
 
-    private final boolean lenient;
+    // amount of JSON entries deserialized by a single executor task
+    private static final int BATCH_SIZE = 64;
 
-    private MinecraftResourcePackReaderImpl(
-            final boolean lenient
-    ) {
-        this.lenient = lenient;
+    private final @Nullable Executor executor;
+
+    private MinecraftResourcePackReaderImpl(final @Nullable Executor executor) {
+        this.executor = executor;
     }
 
     @Override
-    @SuppressWarnings("PatternValidation")
     public @NotNull ResourcePack read(final @NotNull FileTreeReader reader) {
-        ResourcePack resourcePack = ResourcePack.resourcePack();
+        requireNonNull(reader, "reader");
+        return read(reader, ResourcePack.resourcePack(), Overlay::overlay);
+    }
+
+    @Override
+    public @NotNull LazyResourcePack readLazily(final @NotNull FileTreeReader reader) {
+        requireNonNull(reader, "reader");
+        final LazyResourcePackImpl resourcePack = new LazyResourcePackImpl(reader);
+        try {
+            return read(reader, resourcePack, LazyResourcePackImpl.LazyOverlay::new);
+        } catch (final RuntimeException e) {
+            try {
+                resourcePack.close();
+            } catch (final IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
 
-        // textures that are waiting for metadata, or metadata
-        // waiting for textures (because we can't know the order
-        // they come in)
+    /*
+     * Reads the file tree into the given resource-pack, if its containers
+     * are lazy, JSON resources are added as sources, and deserialized
+     * when requested, otherwise, they are deserialized here
+     */
+    @SuppressWarnings("PatternValidation")
+    private <T extends ResourcePack> @NotNull T read(
+            final @NotNull FileTreeReader reader,
+            final @NotNull T resourcePack,
+            final @NotNull Function<String, Overlay> overlayFactory
+    ) {
+        // JSON files are read here, in the calling thread, or in the
+        // executor, if set, and their results are applied in order
+        JsonEntryReader jsonReader = executor == null
+                ? new DirectJsonEntryReader()
+                : new ParallelJsonEntryReader(executor);
+
+        // textures and their metadata, we can't know the order they
+        // come in, so they are joined after reading all the files
         // (null key means it is root resource pack)
-        Map<@Nullable String, Map<Key, Texture>> incompleteTextures = new HashMap<>();
+        Map<@Nullable String, Map<Key, Writable>> textures = new LinkedHashMap<>();
+        Map<@Nullable String, Map<Key, Metadata>> textureMetadata = new HashMap<>();
 
         while (reader.hasNext()) {
             String path = reader.next();
@@ -98,8 +143,7 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
                 switch (tokens.poll()) {
                     case PACK_METADATA_FILE: {
                         // found pack.mcmeta file, deserialize and add
-                        Metadata metadata = MetadataSerializer.INSTANCE.readFromTree(parseJson(reader.stream()));
-                        resourcePack.metadata(metadata);
+                        jsonReader.read(reader, path, json -> MetadataSerializer.INSTANCE.readFromTree(GsonUtil.parseReader(json)), resourcePack::metadata);
                         continue;
                     }
                     case PACK_ICON_FILE: {
@@ -144,7 +188,7 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
                 Overlay overlay = resourcePack.overlay(overlayDir);
                 if (overlay == null) {
                     // first occurrence, register overlay
-                    overlay = Overlay.overlay(overlayDir);
+                    overlay = overlayFactory.apply(overlayDir);
                     resourcePack.overlay(overlay);
                 }
 
@@ -188,10 +232,20 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
                 // (remember: last tokens are always files)
                 if (categoryName.equals(SOUNDS_FILE)) {
                     // found a sound registry!
-                    container.soundRegistry(SoundRegistrySerializer.INSTANCE.readFromTree(
-                            parseJson(reader.stream()),
-                            namespace
-                    ));
+                    final LazyResourceMap<String, SoundRegistry> lazy = LazyResourceMap.of(container.soundRegistries());
+                    if (lazy != null) {
+                        final Readable content = reader.content();
+                        lazy.source(namespace, containerPath, content.asWritable(), () -> deserialize(content, path,
+                                json -> SoundRegistrySerializer.INSTANCE.readFromTree(GsonUtil.parseReader(json), namespace)));
+                        continue;
+                    }
+                    final ResourceContainer soundRegistryContainer = container;
+                    jsonReader.read(
+                            reader,
+                            path,
+                            json -> SoundRegistrySerializer.INSTANCE.readFromTree(GsonUtil.parseReader(json), namespace),
+                            soundRegistryContainer::soundRegistry
+                    );
                     continue;
                 } else {
                     // TODO: gpu_warnlist.json?
@@ -210,34 +264,11 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
                 if (keyOfMetadata != null) {
                     // found metadata for texture
                     Key key = Key.key(namespace, keyOfMetadata);
-                    Metadata metadata = MetadataSerializer.INSTANCE.readFromTree(parseJson(reader.stream()));
-
-                    Map<Key, Texture> incompleteTexturesThisContainer = incompleteTextures.computeIfAbsent(overlayDir, k -> new HashMap<>());
-                    Texture texture = incompleteTexturesThisContainer.remove(key);
-                    if (texture == null) {
-                        // metadata was found first, put
-                        incompleteTexturesThisContainer.put(key, Texture.texture(key, Writable.EMPTY, metadata));
-                    } else {
-                        // texture was found before the metadata, nice!
-                        container.texture(texture.meta(metadata));
-                    }
+                    Map<Key, Metadata> metadataThisContainer = textureMetadata.computeIfAbsent(overlayDir, k -> new HashMap<>());
+                    jsonReader.read(reader, path, json -> MetadataSerializer.INSTANCE.readFromTree(GsonUtil.parseReader(json)), metadata -> metadataThisContainer.put(key, metadata));
                 } else {
                     Key key = Key.key(namespace, categoryPath);
-                    Writable data = reader.content().asWritable();
-                    Map<Key, Texture> incompleteTexturesThisContainer = incompleteTextures.computeIfAbsent(overlayDir, k -> new HashMap<>());
-                    Texture waiting = incompleteTexturesThisContainer.remove(key);
-
-                    if (waiting == null) {
-                        // found texture before metadata
-                        incompleteTexturesThisContainer.put(key, Texture.texture(key, data));
-                    } else {
-                        // metadata was found first
-                        container.texture(Texture.texture(
-                                key,
-                                data,
-                                waiting.meta()
-                        ));
-                    }
+                    textures.computeIfAbsent(overlayDir, k -> new LinkedHashMap<>()).put(key, reader.content().asWritable());
                 }
             } else {
                 @SuppressWarnings("rawtypes")
@@ -254,15 +285,33 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
                     continue;
                 }
                 Key key = Key.key(namespace, keyValue);
+                ResourceDeserializer<?> deserializer = category.deserializer();
+                ResourceContainer categoryContainer = container;
+                if (deserializer instanceof JsonResourceDeserializer) {
+                    //noinspection unchecked
+                    final LazyResourceMap<Key, Object> lazy = LazyResourceMap.of((Collection<Object>) category.lister().apply(container));
+                    if (lazy != null) {
+                        // deserialized when requested
+                        final Readable content = reader.content();
+                        lazy.source(key, containerPath, content.asWritable(), () -> deserialize(content, path,
+                                json -> ((JsonResourceDeserializer<?>) deserializer).deserializeFromJson(json, key)));
+                        continue;
+                    }
+                    // read directly from the JSON tokens, without creating a tree
+                    //noinspection unchecked
+                    jsonReader.read(
+                            reader,
+                            path,
+                            json -> ((JsonResourceDeserializer<?>) deserializer).deserializeFromJson(json, key),
+                            resource -> category.setter().accept(categoryContainer, resource)
+                    );
+                    continue;
+                }
                 try {
-                    ResourceDeserializer<?> deserializer = category.deserializer();
                     Object resource;
                     if (deserializer instanceof BinaryResourceDeserializer) {
                         resource = ((BinaryResourceDeserializer<?>) deserializer)
                                 .deserializeBinary(reader.content().asWritable(), key);
-                    } else if (deserializer instanceof JsonResourceDeserializer) {
-                        resource = ((JsonResourceDeserializer<?>) deserializer)
-                                .deserializeFromJson(parseJson(reader.stream()), key);
                     } else {
                         resource = deserializer.deserialize(reader.stream(), key);
                     }
@@ -274,10 +323,13 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
             }
         }
 
-        for (Map.Entry<String, Map<Key, Texture>> entry : incompleteTextures.entrySet()) {
+        // wait for the pending JSON files
+        jsonReader.finish();
+
+        for (Map.Entry<String, Map<Key, Writable>> entry : textures.entrySet()) {
             @Subst("dir")
             @Nullable String overlayDir = entry.getKey();
-            Map<Key, Texture> incompleteTexturesThisContainer = entry.getValue();
+            Map<Key, Metadata> metadataThisContainer = textureMetadata.getOrDefault(overlayDir, Collections.emptyMap());
             ResourceContainer container;
 
             if (overlayDir == null) {
@@ -289,10 +341,14 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
                 requireNonNull(container, "container"); // should never happen, but make ide happy
             }
 
-            for (Texture texture : incompleteTexturesThisContainer.values()) {
-                if (texture.data() != Writable.EMPTY) {
-                    container.texture(texture);
-                }
+            // metadata without texture is ignored
+            for (Map.Entry<Key, Writable> texture : entry.getValue().entrySet()) {
+                Key key = texture.getKey();
+                container.texture(Texture.texture(
+                        key,
+                        texture.getValue(),
+                        metadataThisContainer.getOrDefault(key, Metadata.empty())
+                ));
             }
         }
         return resourcePack;
@@ -307,27 +363,164 @@ final class MinecraftResourcePackReaderImpl implements MinecraftResourcePackRead
         }
     }
 
-    private @NotNull JsonElement parseJson(final @NotNull InputStream input) {
+
+    @FunctionalInterface
+    private interface JsonDeserializer<T> {
+        T deserialize(JsonReader reader) throws IOException;
+    }
+
+    /*
+     * Reads JSON files and applies their results, in the
+     * same order they were read, in the calling thread
+     */
+    private interface JsonEntryReader {
+        <T> void read(FileTreeReader reader, String path, JsonDeserializer<T> deserializer, Consumer<T> action);
+
+        void finish();
+    }
+
+    private <T> T deserialize(final @NotNull Readable content, final @NotNull String path, final @NotNull JsonDeserializer<T> deserializer) {
+        try (final InputStream input = content.open()) {
+            return deserialize(input, path, deserializer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read resource at: '" + path + "'", e);
+        }
+    }
+
+    private <T> T deserialize(final @NotNull InputStream input, final @NotNull String path, final @NotNull JsonDeserializer<T> deserializer) {
         try (final JsonReader jsonReader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
-            jsonReader.setLenient(lenient);
-            return GsonUtil.parseReader(jsonReader);
+            // JSON files are always read leniently, like the tree parser
+            // (GsonUtil#parseReader) does, see Builder#lenient(boolean)
+            jsonReader.setLenient(true);
+            return deserializer.deserialize(jsonReader);
         } catch (final IOException e) {
-            throw new UncheckedIOException("Failed to close JSON reader", e);
+            throw new UncheckedIOException("Failed to deserialize resource at: '" + path + "'", e);
+        }
+    }
+
+    /*
+     * Reads and applies every JSON file immediately
+     */
+    private final class DirectJsonEntryReader implements JsonEntryReader {
+        @Override
+        public <T> void read(final FileTreeReader reader, final String path, final JsonDeserializer<T> deserializer, final Consumer<T> action) {
+            action.accept(deserialize(reader.stream(), path, deserializer));
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    /*
+     * Reads (inflates, parses and deserializes) JSON files in the
+     * given executor, from the file tree reader content, which may
+     * be random-access (ZIP files) or a copy of the file contents
+     */
+    private final class ParallelJsonEntryReader implements JsonEntryReader {
+        private final Executor executor;
+        private final Queue<PendingEntry<?>> pending = new ArrayDeque<>();
+
+        // entries waiting to be submitted to the executor, they are
+        // submitted in batches to reduce the scheduling overhead
+        private List<PendingEntry<?>> batch = new ArrayList<>(BATCH_SIZE);
+
+        ParallelJsonEntryReader(final @NotNull Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public <T> void read(final FileTreeReader reader, final String path, final JsonDeserializer<T> deserializer, final Consumer<T> action) {
+            final PendingEntry<T> entry = new PendingEntry<>(reader.content(), path, deserializer, action);
+            pending.add(entry);
+            batch.add(entry);
+            if (batch.size() >= BATCH_SIZE) {
+                submitBatch();
+            }
+
+            // apply the completed entries, so that they can be collected
+            while (!pending.isEmpty() && pending.peek().task != null && pending.peek().task.isDone()) {
+                pending.remove().apply();
+            }
+        }
+
+        private void submitBatch() {
+            final List<PendingEntry<?>> entries = batch;
+            batch = new ArrayList<>(BATCH_SIZE);
+            final CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
+                for (final PendingEntry<?> entry : entries) {
+                    entry.deserialize();
+                }
+            }, executor);
+            for (final PendingEntry<?> entry : entries) {
+                entry.task = task;
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (!batch.isEmpty()) {
+                submitBatch();
+            }
+            while (!pending.isEmpty()) {
+                pending.remove().apply();
+            }
+        }
+    }
+
+    private final class PendingEntry<T> {
+        private final Readable content;
+        private final String path;
+        private final JsonDeserializer<T> deserializer;
+        private final Consumer<T> action;
+
+        private CompletableFuture<Void> task;
+        private T result;
+
+        PendingEntry(final @NotNull Readable content, final @NotNull String path, final @NotNull JsonDeserializer<T> deserializer, final @NotNull Consumer<T> action) {
+            this.content = content;
+            this.path = path;
+            this.deserializer = deserializer;
+            this.action = action;
+        }
+
+        void deserialize() {
+            result = MinecraftResourcePackReaderImpl.this.deserialize(content, path, deserializer);
+        }
+
+        void apply() {
+            try {
+                task.join();
+            } catch (final CompletionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            }
+            action.accept(result);
         }
     }
 
     static final class BuilderImpl implements Builder {
-        private boolean lenient = false;
+        private Executor executor;
 
         @Override
+        @Deprecated
         public @NotNull Builder lenient(final boolean lenient) {
-            this.lenient = lenient;
+            // no-op, JSON files are always read leniently
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder executor(final @Nullable Executor executor) {
+            this.executor = executor;
             return this;
         }
 
         @Override
         public @NotNull MinecraftResourcePackReader build() {
-            return new MinecraftResourcePackReaderImpl(lenient);
+            return new MinecraftResourcePackReaderImpl(executor);
         }
     }
 }
@@ -25,14 +25,16 @@ package team.unnamed.creative.serialize.minecraft;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import team.unnamed.creative.BuiltResourcePack;
 import team.unnamed.creative.ResourcePack;
 import team.unnamed.creative.base.Writable;
 import team.unnamed.creative.serialize.ResourcePackWriter;
 import team.unnamed.creative.serialize.minecraft.fs.FileTreeWriter;
+import team.unnamed.creative.serialize.minecraft.fs.ZipCompressionPolicy;
+import team.unnamed.creative.serialize.minecraft.fs.ZipEntryCache;
 
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -41,7 +43,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.zip.ZipOutputStream;
 
@@ -92,37 +94,45 @@ public interface MinecraftResourcePackWriter extends ResourcePackWriter<FileTree
     }
 
     default BuiltResourcePack build(ResourcePack resourcePack) {
-        MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Cannot find SHA-1 algorithm");
-        }
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MessageDigest digest = HashUtil.sha1();
+        WritableByteArrayOutputStream output = new WritableByteArrayOutputStream();
 
         // write resource to zip
         try (FileTreeWriter writer = FileTreeWriter.zip(new ZipOutputStream(new DigestOutputStream(output, digest)))) {
             write(writer, resourcePack);
         }
 
-        byte[] bytes = output.toByteArray();
-        String hash;
-
-        // stringify SHA-1 hash
-        {
-            byte[] hashBytes = digest.digest();
-            StringBuilder builder = new StringBuilder(hashBytes.length * 2);
-            for (byte b : hashBytes) {
-                int part1 = (b >> 4) & 0xF;
-                int part2 = b & 0xF;
-                builder
-                        .append(Character.forDigit(part1, 16))
-                        .append(Character.forDigit(part2, 16));
-            }
-            hash = builder.toString();
+        // the output buffer is wrapped, not copied
+        String hash = HashUtil.toHexString(digest.digest());
+        return BuiltResourcePack.of(output.asWritable(), hash);
+    }
+
+    /**
+     * Builds the given resource-pack to a ZIP file at the given
+     * path, computing its SHA-1 hash while it is written.
+     *
+     * <p>Unlike {@link #build(ResourcePack)}, the resource-pack
+     * ZIP is never held in memory, the returned {@link BuiltResourcePack}
+     * data reads the file every time it is required, so the file
+     * must not be modified or deleted while it is in use.</p>
+     *
+     * @param path The ZIP file path, created or overwritten
+     * @param resourcePack The resource-pack to build
+     * @return The built resource-pack, backed by the file
+     * @since 1.7.0
+     */
+    default BuiltResourcePack buildToZipFile(Path path, ResourcePack resourcePack) {
+        MessageDigest digest = HashUtil.sha1();
+
+        try (FileTreeWriter writer = FileTreeWriter.zip(new ZipOutputStream(new DigestOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)), digest)))) {
+            write(writer, resourcePack);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build resource pack to zip file: " + path, e);
         }
 
-        return BuiltResourcePack.of(Writable.bytes(bytes), hash);
+        String hash = HashUtil.toHexString(digest.digest());
+        return BuiltResourcePack.of(Writable.path(path), hash);
     }
 
     default BuiltResourcePack build(Consumer<ResourcePack> consumer) {
@@ -148,6 +158,82 @@ public interface MinecraftResourcePackWriter extends ResourcePackWriter<FileTree
          */
         @NotNull Builder prettyPrinting(final boolean prettyPrinting);
 
+        /**
+         * Sets the executor used to serialize JSON resources (models,
+         * block states, fonts, languages, etc.) in parallel, optional.
+         *
+         * <p>If the executor is not specified or if it's set to null,
+         * every resource is serialized in the calling thread.</p>
+         *
+         * <p>Note that, even if an executor is set, the entries are
+         * always written to the {@link FileTreeWriter} in the calling
+         * thread and in the same order, so the output (and its hash)
+         * is exactly the same as the one from a sequential writer.</p>
+         *
+         * <p>The executor is also used by {@link #build(ResourcePack)}
+         * to compress the ZIP entries in parallel, see
+         * {@link FileTreeWriter#parallelZip}. The built ZIP is always
+         * the same for the same resource-pack, but it's different from
+         * the one built without an executor.</p>
+         *
+         * @param executor The executor, e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder executor(final @Nullable Executor executor);
+
+        /**
+         * Sets the cache of compressed ZIP entries used by {@link #build(ResourcePack)},
+         * optional.
+         *
+         * <p>If set, rebuilding a resource-pack only compresses the entries
+         * that changed since the last build, the rest are copied from the
+         * cache. The built ZIP is exactly the same as the one built without
+         * a cache, but, like when using an {@link #executor(Executor)}, it's
+         * different from the one built without an executor nor cache.</p>
+         *
+         * <p>The cache should only be used to build a single resource-pack,
+         * see {@link ZipEntryCache}.</p>
+         *
+         * @param entryCache The compressed entries cache
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder entryCache(final @Nullable ZipEntryCache entryCache);
+
+        /**
+         * Sets the policy used by {@link #build(ResourcePack)} to determine
+         * whether every ZIP entry is stored or compressed, optional.
+         *
+         * <p>By default, every entry is compressed. Storing already
+         * compressed entries, see {@link ZipCompressionPolicy#storeCompressedMedia()},
+         * makes building a lot faster, with a slightly bigger result.</p>
+         *
+         * @param compressionPolicy The compression policy
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder compressionPolicy(final @NotNull ZipCompressionPolicy compressionPolicy);
+
+        /**
+         * Sets the optimizer used to losslessly re-encode the PNG
+         * textures (including font and GUI sprite textures) and the
+         * resource-pack icon when they are written, optional.
+         *
+         * <p>If the optimizer is not specified or if it's set to null,
+         * images are written as they are. If an {@link #executor(Executor)}
+         * is set, images are optimized in it.</p>
+         *
+         * @param pngOptimizer The PNG optimizer
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder pngOptimizer(final @Nullable PngOptimizer pngOptimizer);
+
         /**
          * Builds a new {@link MinecraftResourcePackWriter} instance.
          *
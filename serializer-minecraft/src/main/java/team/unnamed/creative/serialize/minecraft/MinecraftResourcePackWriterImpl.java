@@ -26,12 +26,17 @@ package team.unnamed.creative.serialize.minecraft;
 import com.google.gson.stream.JsonWriter;
 import net.kyori.adventure.key.Keyed;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
 import team.unnamed.creative.ResourcePack;
 import team.unnamed.creative.base.Writable;
 import team.unnamed.creative.metadata.Metadata;
 import team.unnamed.creative.overlay.Overlay;
 import team.unnamed.creative.overlay.ResourceContainer;
 import team.unnamed.creative.serialize.minecraft.fs.FileTreeWriter;
+import team.unnamed.creative.serialize.minecraft.fs.ZipCompressionPolicy;
+import team.unnamed.creative.serialize.minecraft.fs.ZipEntryCache;
+import team.unnamed.creative.serialize.minecraft.fs.ZipEntryLifecycleHandler;
 import team.unnamed.creative.serialize.minecraft.io.JsonResourceSerializer;
 import team.unnamed.creative.serialize.minecraft.io.ResourceSerializer;
 import team.unnamed.creative.serialize.minecraft.metadata.MetadataSerializer;
@@ -39,11 +44,30 @@ import team.unnamed.creative.serialize.minecraft.sound.SoundRegistrySerializer;
 import team.unnamed.creative.sound.SoundRegistry;
 import team.unnamed.creative.texture.Texture;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.ZipOutputStream;
 
+import static java.util.Objects.requireNonNull;
 import static team.unnamed.creative.serialize.minecraft.MinecraftResourcePackStructure.*;
 
 final class MinecraftResourcePackWriterImpl implements MinecraftResourcePackWriter {
@@ -51,57 +75,75 @@ final class MinecraftResourcePackWriterImpl implements MinecraftResourcePackWrit
             .prettyPrinting(false)
             .build();
 
+    // maximum amount of entries that the parallel writer keeps
+    // serialized in memory, waiting to be written to the tree
+    private static final int MAX_PENDING_ENTRIES = 4096;
+
+    // amount of JSON entries serialized by a single executor task
+    private static final int BATCH_SIZE = 64;
+
     private final boolean prettyPrinting;
+    private final @Nullable Executor executor;
+    private final @Nullable ZipEntryCache entryCache;
+    private final @NotNull ZipCompressionPolicy compressionPolicy;
+    private final @Nullable PngOptimizer pngOptimizer;
 
-    private MinecraftResourcePackWriterImpl(final boolean prettyPrinting) {
+    private MinecraftResourcePackWriterImpl(
+            final boolean prettyPrinting,
+            final @Nullable Executor executor,
+            final @Nullable ZipEntryCache entryCache,
+            final @NotNull ZipCompressionPolicy compressionPolicy,
+            final @Nullable PngOptimizer pngOptimizer
+    ) {
         this.prettyPrinting = prettyPrinting;
+        this.executor = executor;
+        this.entryCache = entryCache;
+        this.compressionPolicy = compressionPolicy;
+        this.pngOptimizer = pngOptimizer;
     }
 
-    public <T extends Keyed> void writeFullCategory(
+    private <T extends Keyed> void writeFullCategory(
             final @NotNull String basePath,
             final @NotNull ResourceContainer resourceContainer,
-            final @NotNull FileTreeWriter target,
+            final @NotNull EntryWriter target,
             final @NotNull ResourceCategory<T> category
     ) {
-        for (T resource : category.lister().apply(resourceContainer)) {
+        for (T resource : writeUnmodified(target, basePath, category.lister().apply(resourceContainer))) {
             String path = basePath + category.pathOf(resource);
             final ResourceSerializer<T> serializer = category.serializer();
 
             if (serializer instanceof JsonResourceSerializer) {
                 // if it's a JSON serializer, we can use our own method, that will
                 // do some extra configuration
-                writeToJson(target, (JsonResourceSerializer<T>) serializer, resource, path);
+                target.writeJson(path, (JsonResourceSerializer<T>) serializer, resource);
             } else {
-                try (OutputStream output = target.openStream(path)) {
-                    category.serializer().serialize(resource, output);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
+                target.writeSerialized(path, serializer, resource);
             }
         }
     }
 
-    private void writeWithBasePath(FileTreeWriter target, ResourceContainer container, String basePath) {
+    private void writeWithBasePath(EntryWriter target, ResourceContainer container, String basePath) {
         // write resources from most categories
         for (ResourceCategory<?> category : ResourceCategories.categories()) {
             writeFullCategory(basePath, container, target, category);
         }
 
         // write sound registries
-        for (SoundRegistry soundRegistry : container.soundRegistries()) {
-            writeToJson(target, SoundRegistrySerializer.INSTANCE, soundRegistry, basePath + MinecraftResourcePackStructure.pathOf(soundRegistry));
+        for (SoundRegistry soundRegistry : writeUnmodified(target, basePath, container.soundRegistries())) {
+            target.writeJson(basePath + MinecraftResourcePackStructure.pathOf(soundRegistry), SoundRegistrySerializer.INSTANCE, soundRegistry);
         }
 
         // write textures
         for (Texture texture : container.textures()) {
-            target.write(
+            writeImage(
+                    target,
                     basePath + MinecraftResourcePackStructure.pathOf(texture),
                     texture.data()
             );
 
             Metadata metadata = texture.meta();
             if (!metadata.parts().isEmpty()) {
-                writeToJson(target, MetadataSerializer.INSTANCE, metadata, basePath + MinecraftResourcePackStructure.pathOfMeta(texture));
+                target.writeJson(basePath + MinecraftResourcePackStructure.pathOfMeta(texture), MetadataSerializer.INSTANCE, metadata);
             }
         }
 
@@ -111,13 +153,53 @@ final class MinecraftResourcePackWriterImpl implements MinecraftResourcePackWrit
         }
     }
 
+    /*
+     * Writes the lazily read resources that were not replaced as they
+     * are, from their source files, and returns the resources that must
+     * be serialized, which are all of them for non-lazy containers
+     */
+    private static <T> @NotNull Collection<T> writeUnmodified(
+            final @NotNull EntryWriter target,
+            final @NotNull String basePath,
+            final @NotNull Collection<T> resources
+    ) {
+        final LazyResourceMap<?, T> lazy = LazyResourceMap.of(resources);
+        if (lazy == null) {
+            return resources;
+        }
+        for (final LazyResourceMap.Source<T> source : lazy.sources()) {
+            target.write(basePath + source.path(), source.data());
+        }
+        return lazy.modified();
+    }
+
+    private void writeImage(final @NotNull EntryWriter target, final @NotNull String path, final @NotNull Writable data) {
+        if (pngOptimizer == null) {
+            target.write(path, data);
+        } else {
+            target.writeOptimizedPng(path, pngOptimizer, data);
+        }
+    }
+
+    private static byte @NotNull [] optimize(final @NotNull PngOptimizer optimizer, final @NotNull Writable data) {
+        try {
+            return optimizer.optimize(data.toByteArray());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
-    public void write(final @NotNull FileTreeWriter target, final @NotNull ResourcePack resourcePack) {
+    public void write(final @NotNull FileTreeWriter tree, final @NotNull ResourcePack resourcePack) {
+        final EntryWriter target = executor == null
+                ? new DirectEntryWriter(tree)
+                : new ParallelEntryWriter(tree, executor);
+
         // write icon
         {
             Writable icon = resourcePack.icon();
             if (icon != null) {
-                target.write(PACK_ICON_FILE, icon);
+                writeImage(target, PACK_ICON_FILE, icon);
             }
         }
 
@@ -125,7 +207,7 @@ final class MinecraftResourcePackWriterImpl implements MinecraftResourcePackWrit
         {
             Metadata metadata = resourcePack.metadata();
             // TODO: Should we check for pack meta?
-            writeToJson(target, MetadataSerializer.INSTANCE, metadata, PACK_METADATA_FILE);
+            target.writeJson(PACK_METADATA_FILE, MetadataSerializer.INSTANCE, metadata);
         }
 
         writeWithBasePath(target, resourcePack, "");
@@ -134,10 +216,109 @@ final class MinecraftResourcePackWriterImpl implements MinecraftResourcePackWrit
         for (Overlay overlay : resourcePack.overlays()) {
             writeWithBasePath(target, overlay, OVERLAYS_FOLDER + '/' + overlay.directory() + '/');
         }
+
+        target.flush();
+    }
+
+    /*
+     * Writes the resource-pack files before optimizing them, used to
+     * fingerprint the resource-pack without running the PNG optimizer
+     */
+    void writeInputs(final @NotNull FileTreeWriter tree, final @NotNull ResourcePack resourcePack) {
+        new MinecraftResourcePackWriterImpl(prettyPrinting, executor, null, compressionPolicy, null).write(tree, resourcePack);
+    }
+
+    /*
+     * Describes the configuration that affects the built ZIP files and
+     * not their inputs, i.e. compression and optimization, null if it
+     * can't be identified, i.e. the compression policy has no key
+     */
+    @Nullable String configuration() {
+        final String compressionPolicyKey = compressionPolicy.key();
+        if (compressionPolicyKey == null) {
+            return null;
+        }
+        return "prettyPrinting=" + prettyPrinting
+                + ",compressionPolicy=" + compressionPolicyKey
+                + ",pngOptimizer=" + (pngOptimizer == null ? "none" : PngOptimizer.VERSION);
+    }
+
+    @Override
+    public BuiltResourcePack build(final ResourcePack resourcePack) {
+        final WritableByteArrayOutputStream output = new WritableByteArrayOutputStream();
+        final String hash = buildTo(output, resourcePack);
+        // the output buffer is wrapped, not copied
+        return BuiltResourcePack.of(output.asWritable(), hash);
+    }
+
+    @Override
+    public BuiltResourcePack buildToZipFile(final Path path, final ResourcePack resourcePack) {
+        final String hash;
+        try {
+            hash = buildTo(new BufferedOutputStream(Files.newOutputStream(path)), resourcePack);
+        } catch (final IOException e) {
+            deletePartial(path, e);
+            throw new UncheckedIOException("Failed to build resource pack to zip file: " + path, e);
+        } catch (final RuntimeException | Error e) {
+            deletePartial(path, e);
+            throw e;
+        }
+        return BuiltResourcePack.of(Writable.path(path), hash);
+    }
+
+    /*
+     * Deletes the partially written ZIP file of a failed build
+     */
+    private static void deletePartial(final @NotNull Path path, final @NotNull Throwable cause) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /*
+     * Writes the resource-pack ZIP to the given output, closing it,
+     * and returns its SHA-1 hash, computed on the fly
+     */
+    private @NotNull String buildTo(final @NotNull OutputStream output, final @NotNull ResourcePack resourcePack) {
+        final MessageDigest digest = HashUtil.sha1();
+        final OutputStream digestOutput = new DigestOutputStream(output, digest);
+
+        final FileTreeWriter zipWriter;
+        if (executor != null) {
+            // compress entries in parallel too
+            zipWriter = FileTreeWriter.parallelZip(digestOutput, executor, entryCache, compressionPolicy);
+        } else if (entryCache != null || resourcePack instanceof LazyResourcePack || compressionPolicy != ZipCompressionPolicy.deflate()) {
+            // the parallel ZIP writer caches entries, copies the compressed
+            // data of lazily read entries, and compresses entries before
+            // writing them, so policies can check their compressed size
+            zipWriter = FileTreeWriter.parallelZip(digestOutput, Runnable::run, entryCache, compressionPolicy);
+        } else {
+            zipWriter = FileTreeWriter.zip(new ZipOutputStream(digestOutput), ZipEntryLifecycleHandler.DEFAULT, compressionPolicy);
+        }
+
+        try (FileTreeWriter writer = zipWriter) {
+            write(writer, resourcePack);
+        }
+
+        return HashUtil.toHexString(digest.digest());
+    }
+
+    private static <T> void writeSerializedTo(FileTreeWriter writer, ResourceSerializer<T> serializer, T object, String path) {
+        try (OutputStream output = writer.openStream(path)) {
+            serializer.serialize(object, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private <T> void writeToJson(FileTreeWriter writer, JsonResourceSerializer<T> serializer, T object, String path) {
-        try (JsonWriter jsonWriter = new JsonWriter(writer.openWriter(path))) {
+        writeToJson(writer.openWriter(path), serializer, object, path);
+    }
+
+    private <T> void writeToJson(Writer writer, JsonResourceSerializer<T> serializer, T object, String path) {
+        try (JsonWriter jsonWriter = new JsonWriter(writer)) {
             if (prettyPrinting) {
                 jsonWriter.setIndent("  ");
             }
@@ -147,8 +328,213 @@ final class MinecraftResourcePackWriterImpl implements MinecraftResourcePackWrit
         }
     }
 
+    /*
+     * Receives the resource pack entries, in order, and writes
+     * them to a file tree
+     */
+    private interface EntryWriter {
+        void write(String path, Writable data);
+
+        <T> void writeJson(String path, JsonResourceSerializer<T> serializer, T object);
+
+        <T> void writeSerialized(String path, ResourceSerializer<T> serializer, T object);
+
+        void writeOptimizedPng(String path, PngOptimizer optimizer, Writable data);
+
+        void flush();
+    }
+
+    /*
+     * Writes every entry to the file tree as soon as it
+     * is received, in the calling thread
+     */
+    private final class DirectEntryWriter implements EntryWriter {
+        private final FileTreeWriter tree;
+
+        DirectEntryWriter(final @NotNull FileTreeWriter tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void write(final String path, final Writable data) {
+            tree.write(path, data);
+        }
+
+        @Override
+        public <T> void writeJson(final String path, final JsonResourceSerializer<T> serializer, final T object) {
+            writeToJson(tree, serializer, object, path);
+        }
+
+        @Override
+        public <T> void writeSerialized(final String path, final ResourceSerializer<T> serializer, final T object) {
+            writeSerializedTo(tree, serializer, object, path);
+        }
+
+        @Override
+        public void writeOptimizedPng(final String path, final PngOptimizer optimizer, final Writable data) {
+            final byte[] optimized = optimize(optimizer, data);
+            tree.write(path, output -> output.write(optimized));
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    /*
+     * Serializes JSON entries in the given executor, but writes
+     * them to the file tree in the calling thread and in the same
+     * order they were received, so that the output is exactly the
+     * same as the one from DirectEntryWriter
+     */
+    private final class ParallelEntryWriter implements EntryWriter {
+        private final FileTreeWriter tree;
+        private final Executor executor;
+        private final Queue<PendingEntry> pending = new ArrayDeque<>();
+
+        // entries waiting to be submitted to the executor, they are
+        // submitted in batches to reduce the scheduling overhead
+        private List<ComputedEntry> batch = new ArrayList<>(BATCH_SIZE);
+
+        ParallelEntryWriter(final @NotNull FileTreeWriter tree, final @NotNull Executor executor) {
+            this.tree = tree;
+            this.executor = executor;
+        }
+
+        @Override
+        public void write(final String path, final Writable data) {
+            enqueue(target -> target.write(path, data));
+        }
+
+        @Override
+        public <T> void writeJson(final String path, final JsonResourceSerializer<T> serializer, final T object) {
+            submit(new JsonEntry<>(path, serializer, object));
+        }
+
+        @Override
+        public void writeOptimizedPng(final String path, final PngOptimizer optimizer, final Writable data) {
+            submit(new ComputedEntry(path) {
+                @Override
+                byte @NotNull [] compute() {
+                    return optimize(optimizer, data);
+                }
+            });
+        }
+
+        private void submit(final @NotNull ComputedEntry entry) {
+            batch.add(entry);
+            if (batch.size() >= BATCH_SIZE) {
+                submitBatch();
+            }
+            enqueue(entry);
+        }
+
+        @Override
+        public <T> void writeSerialized(final String path, final ResourceSerializer<T> serializer, final T object) {
+            // custom serializers are not guaranteed to be thread-safe, they
+            // are invoked in the calling thread when the entry is written
+            enqueue(target -> writeSerializedTo(target, serializer, object, path));
+        }
+
+        private void submitBatch() {
+            final List<ComputedEntry> entries = batch;
+            batch = new ArrayList<>(BATCH_SIZE);
+            final CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
+                for (final ComputedEntry entry : entries) {
+                    entry.bytes = entry.compute();
+                }
+            }, executor);
+            for (final ComputedEntry entry : entries) {
+                entry.task = task;
+            }
+        }
+
+        private void enqueue(final @NotNull PendingEntry entry) {
+            pending.add(entry);
+            if (pending.size() > MAX_PENDING_ENTRIES) {
+                writeNext();
+            }
+        }
+
+        private void writeNext() {
+            final PendingEntry entry = pending.remove();
+            if (entry instanceof ComputedEntry && ((ComputedEntry) entry).task == null) {
+                // entry is in the current batch, submit it now
+                submitBatch();
+            }
+            entry.writeTo(tree);
+        }
+
+        @Override
+        public void flush() {
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface PendingEntry {
+        void writeTo(FileTreeWriter target);
+    }
+
+    /*
+     * An entry whose data is computed in the executor, and
+     * written to the file tree in the calling thread
+     */
+    private abstract static class ComputedEntry implements PendingEntry {
+        final String path;
+
+        CompletableFuture<Void> task;
+        byte[] bytes;
+
+        ComputedEntry(final @NotNull String path) {
+            this.path = path;
+        }
+
+        abstract byte @NotNull [] compute();
+
+        @Override
+        public void writeTo(final FileTreeWriter target) {
+            try {
+                task.join();
+            } catch (final CompletionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            }
+            final byte[] data = bytes;
+            // do not use Writable.bytes, it would copy the array again
+            target.write(path, output -> output.write(data));
+        }
+    }
+
+    private final class JsonEntry<T> extends ComputedEntry {
+        private final JsonResourceSerializer<T> serializer;
+        private final T object;
+
+        JsonEntry(final @NotNull String path, final @NotNull JsonResourceSerializer<T> serializer, final @NotNull T object) {
+            super(path);
+            this.serializer = serializer;
+            this.object = object;
+        }
+
+        @Override
+        byte @NotNull [] compute() {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            writeToJson(new OutputStreamWriter(output, StandardCharsets.UTF_8), serializer, object, path);
+            return output.toByteArray();
+        }
+    }
+
     static final class BuilderImpl implements Builder {
         private boolean prettyPrinting;
+        private Executor executor;
+        private ZipEntryCache entryCache;
+        private ZipCompressionPolicy compressionPolicy = ZipCompressionPolicy.deflate();
+        private PngOptimizer pngOptimizer;
 
         @Override
         public @NotNull Builder prettyPrinting(final boolean prettyPrinting) {
@@ -156,9 +542,33 @@ final class MinecraftResourcePackWriterImpl implements MinecraftResourcePackWrit
             return this;
         }
 
+        @Override
+        public @NotNull Builder executor(final @Nullable Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder entryCache(final @Nullable ZipEntryCache entryCache) {
+            this.entryCache = entryCache;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder compressionPolicy(final @NotNull ZipCompressionPolicy compressionPolicy) {
+            this.compressionPolicy = requireNonNull(compressionPolicy, "compressionPolicy");
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder pngOptimizer(final @Nullable PngOptimizer pngOptimizer) {
+            this.pngOptimizer = pngOptimizer;
+            return this;
+        }
+
         @Override
         public @NotNull MinecraftResourcePackWriter build() {
-            return new MinecraftResourcePackWriterImpl(prettyPrinting);
+            return new MinecraftResourcePackWriterImpl(prettyPrinting, executor, entryCache, compressionPolicy, pngOptimizer);
         }
     }
 }
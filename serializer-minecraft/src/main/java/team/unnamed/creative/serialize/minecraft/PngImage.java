@@ -0,0 +1,673 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+ * A decoded PNG image, as 8-bit non-premultiplied ARGB pixels, used
+ * by PngOptimizer. The decoder only accepts what can be re-encoded
+ * without losing information, and the encoder only writes the
+ * critical chunks (and tRNS)
+ */
+final class PngImage {
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    private static final int IHDR = 0x49484452;
+    private static final int PLTE = 0x504C5445;
+    private static final int TRNS = 0x74524E53;
+    private static final int IDAT = 0x49444154;
+    private static final int IEND = 0x49454E44;
+    private static final int ACTL = 0x6163544C;
+
+    private static final int COLOR_GRAY = 0;
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_PALETTE = 3;
+    private static final int COLOR_GRAY_ALPHA = 4;
+    private static final int COLOR_RGBA = 6;
+
+    // decoded images bigger than this are left as they are
+    private static final long MAX_PIXELS = 64L * 1024 * 1024;
+
+    // filter strategies tried by the encoder, 0-4 for every
+    // row with that filter, ADAPTIVE to choose per row
+    private static final int ADAPTIVE = -1;
+    private static final int[] FILTER_STRATEGIES = { 0, 1, 2, 3, 4, ADAPTIVE };
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+
+    private PngImage(final int width, final int height, final int @NotNull [] pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    int @NotNull [] pixels() {
+        return pixels;
+    }
+
+    static boolean isPng(final byte @NotNull [] data) {
+        if (data.length < SIGNATURE.length) {
+            return false;
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (data[i] != SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Decodes the given PNG, returns null if it's invalid, animated,
+     * interlaced, or if it has 16-bit samples that can't be reduced
+     * to 8-bit without losing precision
+     */
+    static @Nullable PngImage decode(final byte @NotNull [] data) {
+        if (!isPng(data)) {
+            return null;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.position(SIGNATURE.length);
+
+        int width = 0;
+        int height = 0;
+        int bitDepth = 0;
+        int colorType = -1;
+        byte[] palette = null;
+        byte[] transparency = null;
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        boolean end = false;
+
+        while (!end && buffer.remaining() >= 12) {
+            final int length = buffer.getInt();
+            final int type = buffer.getInt();
+            final int start = buffer.position();
+            if (length < 0 || length > buffer.remaining() - 4) {
+                return null;
+            }
+
+            final CRC32 crc = new CRC32();
+            crc.update(data, start - 4, length + 4);
+            if ((int) crc.getValue() != buffer.getInt(start + length)) {
+                return null;
+            }
+
+            switch (type) {
+                case IHDR: {
+                    if (length != 13) {
+                        return null;
+                    }
+                    width = buffer.getInt(start);
+                    height = buffer.getInt(start + 4);
+                    bitDepth = data[start + 8] & 0xFF;
+                    colorType = data[start + 9] & 0xFF;
+                    if (data[start + 10] != 0 || data[start + 11] != 0 || data[start + 12] != 0) {
+                        // unknown compression or filter method, or interlaced
+                        return null;
+                    }
+                    break;
+                }
+                case PLTE:
+                    palette = Arrays.copyOfRange(data, start, start + length);
+                    break;
+                case TRNS:
+                    transparency = Arrays.copyOfRange(data, start, start + length);
+                    break;
+                case IDAT:
+                    compressed.write(data, start, length);
+                    break;
+                case IEND:
+                    end = true;
+                    break;
+                case ACTL:
+                    // animated PNG, keep the animation
+                    return null;
+                default:
+                    if ((type & 0x20000000) == 0) {
+                        // unknown critical chunk
+                        return null;
+                    }
+                    // ancillary chunk, not needed
+                    break;
+            }
+            buffer.position(start + length + 4);
+        }
+
+        if (!end || width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS) {
+            return null;
+        }
+
+        final int channels = channels(colorType);
+        if (channels == 0 || !isValidBitDepth(colorType, bitDepth)) {
+            return null;
+        }
+        if (colorType == COLOR_PALETTE && palette == null) {
+            return null;
+        }
+
+        final int bitsPerPixel = channels * bitDepth;
+        final int stride = (int) (((long) width * bitsPerPixel + 7) / 8);
+        final byte[] raw = inflate(compressed.toByteArray(), (stride + 1) * height);
+        if (raw == null) {
+            return null;
+        }
+        if (!unfilter(raw, stride, height, Math.max(1, bitsPerPixel / 8))) {
+            return null;
+        }
+
+        final int[] pixels = new int[width * height];
+        final int[] samples = new int[channels];
+        final int maxSample = (1 << bitDepth) - 1;
+
+        for (int y = 0; y < height; y++) {
+            final int rowStart = y * (stride + 1) + 1;
+            for (int x = 0; x < width; x++) {
+                for (int c = 0; c < channels; c++) {
+                    samples[c] = sample(raw, rowStart, x * channels + c, bitDepth);
+                }
+
+                int pixel;
+                switch (colorType) {
+                    case COLOR_PALETTE: {
+                        final int index = samples[0];
+                        if (index * 3 + 2 >= palette.length) {
+                            return null;
+                        }
+                        final int alpha = transparency != null && index < transparency.length
+                                ? transparency[index] & 0xFF
+                                : 0xFF;
+                        pixel = (alpha << 24)
+                                | ((palette[index * 3] & 0xFF) << 16)
+                                | ((palette[index * 3 + 1] & 0xFF) << 8)
+                                | (palette[index * 3 + 2] & 0xFF);
+                        break;
+                    }
+                    case COLOR_GRAY:
+                    case COLOR_GRAY_ALPHA: {
+                        final boolean transparent = colorType == COLOR_GRAY
+                                && transparency != null && transparency.length >= 2
+                                && samples[0] == (((transparency[0] & 0xFF) << 8) | (transparency[1] & 0xFF));
+                        final int gray = reduce(samples[0], bitDepth, maxSample);
+                        final int alpha = colorType == COLOR_GRAY_ALPHA
+                                ? reduce(samples[1], bitDepth, maxSample)
+                                : (transparent ? 0 : 0xFF);
+                        if (gray < 0 || alpha < 0) {
+                            return null;
+                        }
+                        pixel = (alpha << 24) | (gray << 16) | (gray << 8) | gray;
+                        break;
+                    }
+                    default: {
+                        final boolean transparent = colorType == COLOR_RGB
+                                && transparency != null && transparency.length >= 6
+                                && samples[0] == (((transparency[0] & 0xFF) << 8) | (transparency[1] & 0xFF))
+                                && samples[1] == (((transparency[2] & 0xFF) << 8) | (transparency[3] & 0xFF))
+                                && samples[2] == (((transparency[4] & 0xFF) << 8) | (transparency[5] & 0xFF));
+                        final int red = reduce(samples[0], bitDepth, maxSample);
+                        final int green = reduce(samples[1], bitDepth, maxSample);
+                        final int blue = reduce(samples[2], bitDepth, maxSample);
+                        final int alpha = colorType == COLOR_RGBA
+                                ? reduce(samples[3], bitDepth, maxSample)
+                                : (transparent ? 0 : 0xFF);
+                        if (red < 0 || green < 0 || blue < 0 || alpha < 0) {
+                            return null;
+                        }
+                        pixel = (alpha << 24) | (red << 16) | (green << 8) | blue;
+                        break;
+                    }
+                }
+                pixels[y * width + x] = pixel;
+            }
+        }
+
+        return new PngImage(width, height, pixels);
+    }
+
+    private static int channels(final int colorType) {
+        switch (colorType) {
+            case COLOR_GRAY:
+            case COLOR_PALETTE:
+                return 1;
+            case COLOR_GRAY_ALPHA:
+                return 2;
+            case COLOR_RGB:
+                return 3;
+            case COLOR_RGBA:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isValidBitDepth(final int colorType, final int bitDepth) {
+        switch (colorType) {
+            case COLOR_GRAY:
+                return bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8 || bitDepth == 16;
+            case COLOR_PALETTE:
+                return bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+            default:
+                return bitDepth == 8 || bitDepth == 16;
+        }
+    }
+
+    private static int sample(final byte @NotNull [] raw, final int rowStart, final int index, final int bitDepth) {
+        switch (bitDepth) {
+            case 16: {
+                final int offset = rowStart + index * 2;
+                return ((raw[offset] & 0xFF) << 8) | (raw[offset + 1] & 0xFF);
+            }
+            case 8:
+                return raw[rowStart + index] & 0xFF;
+            default: {
+                final int perByte = 8 / bitDepth;
+                final int shift = 8 - bitDepth * (index % perByte + 1);
+                return (raw[rowStart + index / perByte] >> shift) & ((1 << bitDepth) - 1);
+            }
+        }
+    }
+
+    /*
+     * Converts the given sample to 8-bit, returns -1
+     * if it's not possible without losing precision
+     */
+    private static int reduce(final int sample, final int bitDepth, final int maxSample) {
+        if (bitDepth == 16) {
+            return sample % 257 == 0 ? sample / 257 : -1;
+        }
+        return sample * 255 / maxSample;
+    }
+
+    private static byte @Nullable [] inflate(final byte @NotNull [] compressed, final int length) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            final byte[] raw = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                final int count = inflater.inflate(raw, offset, length - offset);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    // truncated data
+                    return null;
+                }
+                offset += count;
+            }
+            return raw;
+        } catch (final DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static boolean unfilter(final byte @NotNull [] raw, final int stride, final int height, final int bpp) {
+        for (int y = 0; y < height; y++) {
+            final int row = y * (stride + 1);
+            final int filter = raw[row];
+            final int current = row + 1;
+            final int previous = current - (stride + 1);
+            for (int i = 0; i < stride; i++) {
+                final int a = i >= bpp ? raw[current + i - bpp] & 0xFF : 0;
+                final int b = y > 0 ? raw[previous + i] & 0xFF : 0;
+                final int c = i >= bpp && y > 0 ? raw[previous + i - bpp] & 0xFF : 0;
+                final int predictor;
+                switch (filter) {
+                    case 0: predictor = 0; break;
+                    case 1: predictor = a; break;
+                    case 2: predictor = b; break;
+                    case 3: predictor = (a + b) >>> 1; break;
+                    case 4: predictor = paeth(a, b, c); break;
+                    default: return false;
+                }
+                raw[current + i] = (byte) (raw[current + i] + predictor);
+            }
+        }
+        return true;
+    }
+
+    private static int paeth(final int a, final int b, final int c) {
+        final int p = a + b - c;
+        final int pa = Math.abs(p - a);
+        final int pb = Math.abs(p - b);
+        final int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        } else if (pb <= pc) {
+            return b;
+        } else {
+            return c;
+        }
+    }
+
+    /*
+     * Encodes this image trying the smallest color types and bit depths
+     * able to represent it, with every filter strategy, and returns the
+     * smallest result
+     */
+    byte @NotNull [] encode() {
+        boolean opaque = true;
+        boolean gray = true;
+        for (final int pixel : pixels) {
+            if ((pixel >>> 24) != 0xFF) {
+                opaque = false;
+            }
+            final int red = (pixel >> 16) & 0xFF;
+            if (red != ((pixel >> 8) & 0xFF) || red != (pixel & 0xFF)) {
+                gray = false;
+            }
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            byte[] best = encodeTrueColor(deflater, opaque, gray);
+            final byte[] indexed = encodeIndexed(deflater);
+            if (indexed != null && indexed.length < best.length) {
+                best = indexed;
+            }
+            return best;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte @NotNull [] encodeTrueColor(final @NotNull Deflater deflater, final boolean opaque, final boolean gray) {
+        final int colorType;
+        int bitDepth = 8;
+        if (gray) {
+            colorType = opaque ? COLOR_GRAY : COLOR_GRAY_ALPHA;
+            if (opaque) {
+                bitDepth = minGrayBitDepth();
+            }
+        } else {
+            colorType = opaque ? COLOR_RGB : COLOR_RGBA;
+        }
+
+        final int channels = channels(colorType);
+        final int stride = (width * channels * bitDepth + 7) / 8;
+        final byte[] raw = new byte[stride * height];
+        final int scale = 255 / ((1 << bitDepth) - 1);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int pixel = pixels[y * width + x];
+                final int offset = y * stride;
+                switch (colorType) {
+                    case COLOR_GRAY:
+                        writeSample(raw, offset, x, bitDepth, (pixel & 0xFF) / scale);
+                        break;
+                    case COLOR_GRAY_ALPHA:
+                        raw[offset + x * 2] = (byte) pixel;
+                        raw[offset + x * 2 + 1] = (byte) (pixel >>> 24);
+                        break;
+                    case COLOR_RGB:
+                        raw[offset + x * 3] = (byte) (pixel >> 16);
+                        raw[offset + x * 3 + 1] = (byte) (pixel >> 8);
+                        raw[offset + x * 3 + 2] = (byte) pixel;
+                        break;
+                    default:
+                        raw[offset + x * 4] = (byte) (pixel >> 16);
+                        raw[offset + x * 4 + 1] = (byte) (pixel >> 8);
+                        raw[offset + x * 4 + 2] = (byte) pixel;
+                        raw[offset + x * 4 + 3] = (byte) (pixel >>> 24);
+                        break;
+                }
+            }
+        }
+
+        return write(deflater, colorType, bitDepth, channels * bitDepth, raw, stride, null, null);
+    }
+
+    private int minGrayBitDepth() {
+        for (int bitDepth = 1; bitDepth < 8; bitDepth *= 2) {
+            final int scale = 255 / ((1 << bitDepth) - 1);
+            boolean representable = true;
+            for (final int pixel : pixels) {
+                if ((pixel & 0xFF) % scale != 0) {
+                    representable = false;
+                    break;
+                }
+            }
+            if (representable) {
+                return bitDepth;
+            }
+        }
+        return 8;
+    }
+
+    private byte @Nullable [] encodeIndexed(final @NotNull Deflater deflater) {
+        final Map<Integer, Integer> indexes = new HashMap<>();
+        for (final int pixel : pixels) {
+            if (indexes.putIfAbsent(pixel, 0) == null && indexes.size() > 256) {
+                return null;
+            }
+        }
+
+        // translucent colors first, so the tRNS chunk is as short as
+        // possible, then sorted so that the output is always the same
+        final Integer[] sorted = indexes.keySet().toArray(new Integer[0]);
+        final int count = sorted.length;
+        Arrays.sort(sorted, (first, second) -> {
+            final boolean firstOpaque = (first >>> 24) == 0xFF;
+            final boolean secondOpaque = (second >>> 24) == 0xFF;
+            if (firstOpaque != secondOpaque) {
+                return firstOpaque ? 1 : -1;
+            }
+            return Integer.compareUnsigned(first, second);
+        });
+
+        final byte[] palette = new byte[count * 3];
+        int translucent = 0;
+        for (int i = 0; i < count; i++) {
+            final int color = sorted[i];
+            indexes.put(color, i);
+            palette[i * 3] = (byte) (color >> 16);
+            palette[i * 3 + 1] = (byte) (color >> 8);
+            palette[i * 3 + 2] = (byte) color;
+            if ((color >>> 24) != 0xFF) {
+                translucent = i + 1;
+            }
+        }
+        byte[] transparency = null;
+        if (translucent > 0) {
+            transparency = new byte[translucent];
+            for (int i = 0; i < translucent; i++) {
+                transparency[i] = (byte) (sorted[i] >>> 24);
+            }
+        }
+
+        final int bitDepth = count <= 2 ? 1 : count <= 4 ? 2 : count <= 16 ? 4 : 8;
+        final int stride = (width * bitDepth + 7) / 8;
+        final byte[] raw = new byte[stride * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                writeSample(raw, y * stride, x, bitDepth, indexes.get(pixels[y * width + x]));
+            }
+        }
+
+        return write(deflater, COLOR_PALETTE, bitDepth, bitDepth, raw, stride, palette, transparency);
+    }
+
+    private static void writeSample(final byte @NotNull [] raw, final int rowStart, final int index, final int bitDepth, final int value) {
+        if (bitDepth == 8) {
+            raw[rowStart + index] = (byte) value;
+        } else {
+            final int perByte = 8 / bitDepth;
+            final int shift = 8 - bitDepth * (index % perByte + 1);
+            raw[rowStart + index / perByte] |= (byte) (value << shift);
+        }
+    }
+
+    private byte @NotNull [] write(
+            final @NotNull Deflater deflater,
+            final int colorType,
+            final int bitDepth,
+            final int bitsPerPixel,
+            final byte @NotNull [] raw,
+            final int stride,
+            final byte @Nullable [] palette,
+            final byte @Nullable [] transparency
+    ) {
+        final int bpp = Math.max(1, bitsPerPixel / 8);
+        byte[] compressed = null;
+        for (final int strategy : FILTER_STRATEGIES) {
+            final byte[] candidate = deflate(deflater, filter(raw, stride, bpp, strategy));
+            if (compressed == null || candidate.length < compressed.length) {
+                compressed = candidate;
+            }
+        }
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length + 128);
+        output.write(SIGNATURE, 0, SIGNATURE.length);
+
+        final ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width);
+        header.putInt(height);
+        header.put((byte) bitDepth);
+        header.put((byte) colorType);
+        header.put((byte) 0); // compression method
+        header.put((byte) 0); // filter method
+        header.put((byte) 0); // interlace method
+        writeChunk(output, IHDR, header.array());
+
+        if (palette != null) {
+            writeChunk(output, PLTE, palette);
+        }
+        if (transparency != null) {
+            writeChunk(output, TRNS, transparency);
+        }
+        writeChunk(output, IDAT, compressed);
+        writeChunk(output, IEND, new byte[0]);
+        return output.toByteArray();
+    }
+
+    private byte @NotNull [] filter(final byte @NotNull [] raw, final int stride, final int bpp, final int strategy) {
+        final byte[] filtered = new byte[(stride + 1) * height];
+        final byte[] scratch = strategy == ADAPTIVE ? new byte[stride] : null;
+
+        for (int y = 0; y < height; y++) {
+            final int current = y * stride;
+            final int previous = y > 0 ? current - stride : -1;
+            final int target = y * (stride + 1);
+
+            int filter = strategy;
+            if (strategy == ADAPTIVE) {
+                // minimum sum of absolute differences heuristic
+                long bestSum = Long.MAX_VALUE;
+                for (int candidate = 0; candidate <= 4; candidate++) {
+                    filterRow(raw, current, previous, stride, bpp, candidate, scratch, 0);
+                    long sum = 0;
+                    for (final byte value : scratch) {
+                        sum += Math.abs((int) value);
+                    }
+                    if (sum < bestSum) {
+                        bestSum = sum;
+                        filter = candidate;
+                    }
+                }
+            }
+
+            filtered[target] = (byte) filter;
+            filterRow(raw, current, previous, stride, bpp, filter, filtered, target + 1);
+        }
+        return filtered;
+    }
+
+    private static void filterRow(
+            final byte @NotNull [] raw,
+            final int current,
+            final int previous,
+            final int stride,
+            final int bpp,
+            final int filter,
+            final byte @NotNull [] output,
+            final int offset
+    ) {
+        for (int i = 0; i < stride; i++) {
+            final int a = i >= bpp ? raw[current + i - bpp] & 0xFF : 0;
+            final int b = previous >= 0 ? raw[previous + i] & 0xFF : 0;
+            final int c = i >= bpp && previous >= 0 ? raw[previous + i - bpp] & 0xFF : 0;
+            final int predictor;
+            switch (filter) {
+                case 1: predictor = a; break;
+                case 2: predictor = b; break;
+                case 3: predictor = (a + b) >>> 1; break;
+                case 4: predictor = paeth(a, b, c); break;
+                default: predictor = 0; break;
+            }
+            output[offset + i] = (byte) (raw[current + i] - predictor);
+        }
+    }
+
+    private static byte @NotNull [] deflate(final @NotNull Deflater deflater, final byte @NotNull [] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(data.length / 4, 64));
+        final byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            final int count = deflater.deflate(chunk);
+            output.write(chunk, 0, count);
+        }
+        return output.toByteArray();
+    }
+
+    private static void writeChunk(final @NotNull ByteArrayOutputStream output, final int type, final byte @NotNull [] data) {
+        final ByteBuffer header = ByteBuffer.allocate(8);
+        header.putInt(data.length);
+        header.putInt(type);
+        output.write(header.array(), 0, 8);
+        output.write(data, 0, data.length);
+
+        final CRC32 crc = new CRC32();
+        crc.update(header.array(), 4, 4);
+        crc.update(data);
+        final ByteBuffer footer = ByteBuffer.allocate(4);
+        footer.putInt((int) crc.getValue());
+        output.write(footer.array(), 0, 4);
+    }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A lossless PNG optimizer, re-encodes PNG images so that they are
+ * smaller, without changing their pixels.
+ *
+ * <p>Ancillary chunks (text, timestamps, color profiles, etc.) are
+ * removed, since Minecraft ignores them, the smallest color type and
+ * bit depth able to represent the image exactly are used (e.g. an
+ * indexed palette for images with 256 colors or less), and several
+ * filter strategies are tried at the maximum compression level. If
+ * the result is not smaller, the original image is kept.</p>
+ *
+ * <p>Images that can not be re-encoded losslessly (animated,
+ * interlaced, or with 16-bit samples) and non-PNG data are left
+ * as they are.</p>
+ *
+ * <p>Since optimizing is expensive, results are cached by the hash
+ * of the input image, in memory or in a local directory, so they are
+ * kept between builds and processes. Results cached in memory are
+ * limited by a memory budget, when it is exceeded, the least recently
+ * used results are evicted. It is safe to use an optimizer from
+ * multiple threads.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * MinecraftResourcePackWriter writer = MinecraftResourcePackWriter.builder()
+ *         .pngOptimizer(PngOptimizer.pngOptimizer(Paths.get("png-cache")))
+ *         .build();
+ * }</pre>
+ *
+ * @see MinecraftResourcePackWriter.Builder#pngOptimizer(PngOptimizer)
+ * @since 1.7.0
+ */
+public final class PngOptimizer {
+    /**
+     * The default memory budget, in bytes, used by {@link #pngOptimizer()}.
+     *
+     * @since 1.7.0
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    // changes when the optimization changes, so that
+    // previously cached results are not used
+    static final String VERSION = "creative-png-v1";
+    private static final String EXTENSION = ".png";
+    private static final byte[] UNCHANGED = new byte[0];
+
+    // approximate size of a cached result without its data,
+    // i.e. its key and map entry, so unchanged results count too
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final @Nullable Path directory;
+    private final long memoryBudget;
+
+    // results cached in memory, in access order, guarded by "this"
+    private final Map<String, byte[]> cache = new LinkedHashMap<>(16, 0.75F, true);
+    private long memoryUsage;
+
+    private PngOptimizer(final @Nullable Path directory, final long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must be non-negative");
+        }
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Failed to create the cache directory", e);
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@link PngOptimizer} instance, caching its results
+     * in memory, using the {@link #DEFAULT_MEMORY_BUDGET default memory budget}.
+     *
+     * @return The created optimizer
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    public static @NotNull PngOptimizer pngOptimizer() {
+        return new PngOptimizer(null, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Creates a new {@link PngOptimizer} instance, caching
+     * its results in memory.
+     *
+     * @param memoryBudget The maximum amount of bytes of results kept
+     *                     in memory, zero to not cache them
+     * @return The created optimizer
+     * @since 1.7.0
+     */
+    @Contract("_ -> new")
+    public static @NotNull PngOptimizer pngOptimizer(final long memoryBudget) {
+        return new PngOptimizer(null, memoryBudget);
+    }
+
+    /**
+     * Creates a new {@link PngOptimizer} instance, caching its
+     * results in the given directory.
+     *
+     * @param directory The directory where the optimized images are
+     *                  stored, created if it doesn't exist
+     * @return The created optimizer
+     * @since 1.7.0
+     */
+    @Contract("_ -> new")
+    public static @NotNull PngOptimizer pngOptimizer(final @NotNull Path directory) {
+        requireNonNull(directory, "directory");
+        return new PngOptimizer(directory, 0);
+    }
+
+    /**
+     * Optimizes the given PNG image, or returns it if it can't
+     * be optimized.
+     *
+     * @param png The PNG image data, not modified
+     * @return The optimized PNG image data, or the given data
+     * @since 1.7.0
+     */
+    public byte @NotNull [] optimize(final byte @NotNull [] png) {
+        requireNonNull(png, "png");
+        if (!PngImage.isPng(png)) {
+            return png;
+        }
+
+        final MessageDigest digest = HashUtil.sha1();
+        digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update(png);
+        final String key = HashUtil.toHexString(digest.digest());
+
+        byte[] optimized = cached(key);
+        if (optimized == null) {
+            final PngImage image = PngImage.decode(png);
+            optimized = image == null ? UNCHANGED : image.encode();
+            if (optimized.length >= png.length) {
+                optimized = UNCHANGED;
+            }
+            store(key, optimized);
+        }
+        return optimized == UNCHANGED || optimized.length == 0 ? png : optimized;
+    }
+
+    /**
+     * Removes all the results cached in memory, results
+     * cached in a directory are kept.
+     *
+     * @since 1.7.0
+     */
+    public synchronized void clear() {
+        cache.clear();
+        memoryUsage = 0;
+    }
+
+    /**
+     * Returns the approximate amount of bytes of results
+     * cached in memory, never greater than the memory budget.
+     *
+     * @return The memory usage, in bytes
+     * @since 1.7.0
+     */
+    public synchronized long memoryUsage() {
+        return memoryUsage;
+    }
+
+    private byte @Nullable [] cached(final @NotNull String key) {
+        if (directory == null) {
+            synchronized (this) {
+                return cache.get(key);
+            }
+        }
+        try {
+            return Files.readAllBytes(directory.resolve(key + EXTENSION));
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read optimized image " + key, e);
+        }
+    }
+
+    private void store(final @NotNull String key, final byte @NotNull [] optimized) {
+        if (directory == null) {
+            cache(key, optimized);
+            return;
+        }
+        // an empty file means that the image is already optimal, it is
+        // written to a temporary file first, so a partially written
+        // image is never used
+        try {
+            final Path temporary = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temporary, optimized);
+                Files.move(temporary, directory.resolve(key + EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to store optimized image " + key, e);
+        }
+    }
+
+    private synchronized void cache(final @NotNull String key, final byte @NotNull [] optimized) {
+        final long size = ENTRY_OVERHEAD + optimized.length;
+        if (size > memoryBudget || cache.containsKey(key)) {
+            // will never fit, or already cached by another thread
+            return;
+        }
+
+        cache.put(key, optimized);
+        memoryUsage += size;
+
+        // evict the least recently used results
+        final Iterator<byte[]> iterator = cache.values().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()) {
+            final byte[] eldest = iterator.next();
+            iterator.remove();
+            memoryUsage -= ENTRY_OVERHEAD + eldest.length;
+        }
+    }
+}
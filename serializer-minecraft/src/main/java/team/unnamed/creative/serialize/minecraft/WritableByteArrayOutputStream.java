@@ -0,0 +1,75 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.creative.base.Writable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/*
+ * ByteArrayOutputStream that can be converted to a Writable
+ * without copying its contents (unless its buffer is much bigger
+ * than them), used to build resource-packs in memory without
+ * holding multiple copies of the ZIP file
+ */
+final class WritableByteArrayOutputStream extends ByteArrayOutputStream {
+    WritableByteArrayOutputStream() {
+        super(64 * 1024);
+    }
+
+    /*
+     * Returns a Writable view of the written data, this
+     * output stream must not be used after calling this
+     */
+    @NotNull Writable asWritable() {
+        final int length = count;
+        // the buffer grows by doubling, so it may be almost twice as
+        // big as the data, trim it if the slack is significant, since
+        // the returned writable may be kept for a long time
+        final byte[] data = buf.length - length > length / 8 ? Arrays.copyOf(buf, length) : buf;
+        return new Writable() {
+            @Override
+            public void write(final @NotNull OutputStream output) throws IOException {
+                requireNonNull(output, "output");
+                output.write(data, 0, length);
+            }
+
+            @Override
+            public byte @NotNull [] toByteArray() {
+                return Arrays.copyOf(data, length);
+            }
+
+            @Override
+            public String toString() {
+                return "Writable.bytes";
+            }
+        };
+    }
+}
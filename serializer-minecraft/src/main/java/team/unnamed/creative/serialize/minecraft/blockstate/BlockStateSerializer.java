@@ -25,6 +25,8 @@ package team.unnamed.creative.serialize.minecraft.blockstate;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import net.kyori.adventure.key.Key;
 import team.unnamed.creative.blockstate.BlockState;
@@ -117,6 +119,44 @@ public final class BlockStateSerializer implements JsonResourceSerializer<BlockS
         return BlockState.of(key, variants, multipart);
     }
 
+    @Override
+    public BlockState deserializeFromJson(JsonReader reader, Key key) throws IOException {
+        Map<String, MultiVariant> variants = new HashMap<>();
+        List<Selector> multipart = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "variants": {
+                    variants = new HashMap<>();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String variantKey = reader.nextName();
+                        variants.put(variantKey, readMultiVariant(reader));
+                    }
+                    reader.endObject();
+                    break;
+                }
+                case "multipart": {
+                    multipart = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        multipart.add(readSelector(reader));
+                    }
+                    reader.endArray();
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+
+        return BlockState.of(key, variants, multipart);
+    }
+
     private static void writeMultiVariant(JsonWriter writer, MultiVariant multiVariant) throws IOException {
         List<Variant> variants = multiVariant.variants();
         if (variants.size() == 1) {
@@ -146,6 +186,22 @@ public final class BlockStateSerializer implements JsonResourceSerializer<BlockS
         }
     }
 
+    private static MultiVariant readMultiVariant(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+            // single variant
+            return MultiVariant.of(readVariant(reader));
+        } else {
+            // multiple variants
+            List<Variant> variants = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                variants.add(readVariant(reader));
+            }
+            reader.endArray();
+            return MultiVariant.of(variants);
+        }
+    }
+
     private static void writeVariant(JsonWriter writer, Variant variant) throws IOException {
         writer
                 .beginObject()
@@ -179,6 +235,42 @@ public final class BlockStateSerializer implements JsonResourceSerializer<BlockS
                 .build();
     }
 
+    private static Variant readVariant(JsonReader reader) throws IOException {
+        Variant.Builder builder = Variant.builder();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "model": {
+                    builder.model(Key.key(reader.nextString()));
+                    break;
+                }
+                case "x": {
+                    builder.x(GsonUtil.nextInt(reader, "x"));
+                    break;
+                }
+                case "y": {
+                    builder.y(GsonUtil.nextInt(reader, "y"));
+                    break;
+                }
+                case "uvlock": {
+                    builder.uvLock(reader.nextBoolean());
+                    break;
+                }
+                case "weight": {
+                    builder.weight(GsonUtil.nextInt(reader, "weight"));
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        return builder.build();
+    }
+
     private static void writeSelector(JsonWriter writer, Selector selector) throws IOException {
         writer.beginObject();
 
@@ -205,6 +297,37 @@ public final class BlockStateSerializer implements JsonResourceSerializer<BlockS
         return Selector.of(condition, multiVariant);
     }
 
+    private static Selector readSelector(JsonReader reader) throws IOException {
+        Condition condition = Condition.NONE;
+        MultiVariant multiVariant = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "when": {
+                    // conditions are small and depend on the amount
+                    // of entries, read them using the tree
+                    condition = readCondition(GsonUtil.parseReader(reader).getAsJsonObject());
+                    break;
+                }
+                case "apply": {
+                    multiVariant = readMultiVariant(reader);
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+
+        if (multiVariant == null) {
+            throw new IllegalStateException("Selector must have an 'apply' variant");
+        }
+        return Selector.of(condition, multiVariant);
+    }
+
     private static void writeCondition(JsonWriter writer, Condition condition) throws IOException {
         writeCondition(writer, condition, false);
     }
@@ -0,0 +1,167 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An {@link IndexedZipEntry} whose data is read
+ * from a {@link FileChannel}, using positional reads.
+ */
+final class ChannelZipEntry extends IndexedZipEntry {
+
+    private final FileChannel channel;
+
+    // computed when first needed, reading the local header
+    private volatile long dataOffset = -1;
+
+    ChannelZipEntry(final @NotNull FileChannel channel, final @NotNull ZipCentralDirectory.Entry entry) {
+        super(entry);
+        this.channel = channel;
+    }
+
+    @Override
+    byte @NotNull [] readRaw() throws IOException {
+        if (entry.compressedSize > Integer.MAX_VALUE) {
+            throw new IOException("Entry is too large: " + entry.name);
+        }
+        final ByteBuffer buffer = ZipCentralDirectory.read(channel, dataOffset(), (int) entry.compressedSize);
+        return buffer.array();
+    }
+
+    private long dataOffset() throws IOException {
+        long offset = dataOffset;
+        if (offset == -1) {
+            offset = ZipCentralDirectory.dataOffset((position, length) -> ZipCentralDirectory.read(channel, position, length), entry);
+            dataOffset = offset;
+        }
+        return offset;
+    }
+
+    @Override
+    public @NotNull InputStream open() throws IOException {
+        final InputStream raw = new RawInputStream(dataOffset(), entry.compressedSize);
+        if (entry.method == ZipCentralDirectory.METHOD_STORED) {
+            return raw;
+        } else {
+            return new EntryInflaterInputStream(raw);
+        }
+    }
+
+    /*
+     * Reads a range of the ZIP file, using positional reads,
+     * so multiple streams can be used concurrently
+     */
+    private final class RawInputStream extends InputStream {
+        private long position;
+        private long remaining;
+
+        RawInputStream(final long position, final long length) {
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte @NotNull [] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+            final int read = channel.read(buffer, position);
+            if (read == -1) {
+                throw new IOException("Unexpected end of ZIP file");
+            }
+            position += read;
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final long skipped = Math.max(0, Math.min(n, remaining));
+            position += skipped;
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(remaining, Integer.MAX_VALUE);
+        }
+    }
+
+    /*
+     * Inflates raw DEFLATE data, releasing the inflater when closed
+     */
+    private static final class EntryInflaterInputStream extends InflaterInputStream {
+        private boolean eof;
+        private boolean closed;
+
+        EntryInflaterInputStream(final @NotNull InputStream input) {
+            super(input, new Inflater(true), 8192);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new IOException("Unexpected end of ZIP entry");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                // inflaters with no header may need an extra
+                // byte to finish, like java.util.zip.ZipFile does
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                super.close();
+                inf.end();
+            }
+        }
+    }
+
+}
@@ -30,9 +30,15 @@ import team.unnamed.creative.base.Readable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import static java.util.Objects.requireNonNull;
+
 public interface FileTreeReader extends AutoCloseable {
 
     boolean hasNext();
@@ -103,6 +109,67 @@ public interface FileTreeReader extends AutoCloseable {
         return new ZipFileTreeReader(zipFile);
     }
 
+    /**
+     * Creates a new {@link FileTreeReader} for the ZIP file at the
+     * given path, which only reads its central directory (the list of
+     * entries) when opened, entries are read when their content is used.
+     *
+     * <p>Contents returned by {@link #content()} read the entry from the
+     * file every time they are used, and are only valid until the reader
+     * is closed. When written to a ZIP file by a parallel ZIP file tree
+     * writer (see {@link FileTreeWriter#parallelZip}), their compressed
+     * data is copied as it is.</p>
+     *
+     * @param path The path to the ZIP file
+     * @return The created file tree reader
+     * @throws IOException If the file can't be opened or is not a valid ZIP file
+     * @since 1.7.0
+     */
+    static @NotNull FileTreeReader indexedZip(final @NotNull Path path) throws IOException {
+        requireNonNull(path, "path");
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new IndexedZipFileTreeReader(channel);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new {@link FileTreeReader} for the ZIP file at the given
+     * path, which is memory-mapped, its central directory and entries are
+     * read directly from the mapped region.
+     *
+     * <p>Stored entries are read from slices of the mapped region, without
+     * copies, and deflated entries are inflated from it, using inflaters
+     * that are pooled by the reader. The file is not kept open, and the
+     * contents returned by {@link #content()} can be used after closing
+     * the reader, until they are no longer referenced. Like the contents
+     * of {@link #indexedZip(Path)}, their compressed data is copied as it
+     * is by parallel ZIP file tree writers.</p>
+     *
+     * <p>Files larger than 2 GiB can't be mapped at once, they are read
+     * like {@link #indexedZip(Path)} does.</p>
+     *
+     * @param path The path to the ZIP file
+     * @return The created file tree reader
+     * @throws IOException If the file can't be mapped or is not a valid ZIP file
+     * @since 1.7.0
+     */
+    static @NotNull FileTreeReader mappedZip(final @NotNull Path path) throws IOException {
+        requireNonNull(path, "path");
+        final ByteBuffer file;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return indexedZip(path);
+            }
+            // the mapping remains valid after closing the channel
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new MappedZipFileTreeReader(file);
+    }
+
     static FileTreeReader directory(File root) {
         return new DirectoryFileTreeReader(root);
     }
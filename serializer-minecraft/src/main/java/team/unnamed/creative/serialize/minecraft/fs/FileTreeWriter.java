@@ -25,6 +25,7 @@ package team.unnamed.creative.serialize.minecraft.fs;
 
 import com.google.gson.stream.JsonWriter;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import team.unnamed.creative.base.Writable;
 
 import java.io.File;
@@ -32,10 +33,13 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Represents a file tree, which may be implemented by a
  * real file system with real files, or ZIP files
@@ -159,7 +163,31 @@ public interface FileTreeWriter extends AutoCloseable {
      * stream
      */
     static FileTreeWriter zip(ZipOutputStream zipStream, ZipEntryLifecycleHandler entryLifecycleHandler) {
-        return new ZipFileTreeWriter(zipStream, entryLifecycleHandler);
+        return zip(zipStream, entryLifecycleHandler, ZipCompressionPolicy.deflate());
+    }
+
+    /**
+     * Creates a new {@link FileTreeWriter} instance for
+     * the given {@link ZipOutputStream}, will not
+     * be closed
+     *
+     * <p>Entries are stored or compressed as determined by the given
+     * {@link ZipCompressionPolicy}, note that only its path-based check
+     * ({@link ZipCompressionPolicy#store(String)}) is used, since the
+     * entries are compressed while they are written</p>
+     *
+     * @param zipStream The underlying zip stream
+     * @param entryLifecycleHandler The ZIP archive entry lifecycle handler
+     * @param compressionPolicy The compression policy
+     * @return The file tree for the given zip output
+     * stream
+     * @since 1.7.0
+     */
+    static FileTreeWriter zip(ZipOutputStream zipStream, ZipEntryLifecycleHandler entryLifecycleHandler, ZipCompressionPolicy compressionPolicy) {
+        requireNonNull(zipStream, "zipStream");
+        requireNonNull(entryLifecycleHandler, "entryLifecycleHandler");
+        requireNonNull(compressionPolicy, "compressionPolicy");
+        return new ZipFileTreeWriter(zipStream, entryLifecycleHandler, compressionPolicy);
     }
 
     /**
@@ -186,7 +214,7 @@ public interface FileTreeWriter extends AutoCloseable {
                 return entryFactory.apply(path);
             }
 
-        });
+        }, ZipCompressionPolicy.deflate());
     }
 
     /**
@@ -206,4 +234,69 @@ public interface FileTreeWriter extends AutoCloseable {
         return zip(zipStream, ZipEntryLifecycleHandler.DEFAULT);
     }
 
+    /**
+     * Creates a new {@link FileTreeWriter} instance that writes
+     * a ZIP archive to the given {@link OutputStream}, compressing
+     * the entries concurrently in the given {@link Executor}
+     *
+     * <p>Entries are still written in the same order they were
+     * received, and without timestamps, so the output is always
+     * the same for the same input. Note that the output is not
+     * the same as the one from {@link #zip(ZipOutputStream)}</p>
+     *
+     * <p>The created file tree closes the given output stream
+     * when it is closed, but not when it is finished</p>
+     *
+     * @param output The output stream
+     * @param executor The executor used to compress the entries
+     * @return The file tree for the given output stream
+     * @since 1.7.0
+     */
+    static FileTreeWriter parallelZip(OutputStream output, Executor executor) {
+        return parallelZip(output, executor, null);
+    }
+
+    /**
+     * Creates a new {@link FileTreeWriter} instance that writes
+     * a ZIP archive to the given {@link OutputStream}, compressing
+     * the entries concurrently in the given {@link Executor}, and
+     * reusing the compressed entries from the given {@link ZipEntryCache}
+     *
+     * <p>Entries that did not change since they were cached are not
+     * compressed again, the output is exactly the same as the one
+     * from {@link #parallelZip(OutputStream, Executor)}</p>
+     *
+     * @param output The output stream
+     * @param executor The executor used to compress the entries
+     * @param cache The compressed entries cache, nullable
+     * @return The file tree for the given output stream
+     * @since 1.7.0
+     */
+    static FileTreeWriter parallelZip(OutputStream output, Executor executor, @Nullable ZipEntryCache cache) {
+        return parallelZip(output, executor, cache, ZipCompressionPolicy.deflate());
+    }
+
+    /**
+     * Creates a new {@link FileTreeWriter} instance that writes
+     * a ZIP archive to the given {@link OutputStream}, compressing
+     * the entries concurrently in the given {@link Executor}, or
+     * storing them, as determined by the given {@link ZipCompressionPolicy}
+     *
+     * <p>The output is always the same for the same input and
+     * compression policy</p>
+     *
+     * @param output The output stream
+     * @param executor The executor used to compress the entries
+     * @param cache The compressed entries cache, nullable
+     * @param compressionPolicy The compression policy
+     * @return The file tree for the given output stream
+     * @since 1.7.0
+     */
+    static FileTreeWriter parallelZip(OutputStream output, Executor executor, @Nullable ZipEntryCache cache, ZipCompressionPolicy compressionPolicy) {
+        requireNonNull(output, "output");
+        requireNonNull(executor, "executor");
+        requireNonNull(compressionPolicy, "compressionPolicy");
+        return new ParallelZipFileTreeWriter(output, executor, cache, compressionPolicy);
+    }
+
 }
@@ -0,0 +1,107 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.creative.base.Readable;
+import team.unnamed.creative.base.Writable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The content of an entry from a ZIP file whose central directory
+ * was read by {@link ZipCentralDirectory}, it reads the entry data
+ * from the file every time it is opened.
+ *
+ * <p>It is also a {@link Writable}, so that it can be added to
+ * resource-packs, and the {@link ParallelZipFileTreeWriter} can
+ * copy its compressed data as it is, without inflating it.</p>
+ *
+ * @see IndexedZipFileTreeReader
+ * @see MappedZipFileTreeReader
+ */
+abstract class IndexedZipEntry implements Readable, Writable {
+
+    final ZipCentralDirectory.Entry entry;
+
+    IndexedZipEntry(final @NotNull ZipCentralDirectory.Entry entry) {
+        this.entry = entry;
+    }
+
+    final @NotNull String name() {
+        return entry.name;
+    }
+
+    final int method() {
+        return entry.method;
+    }
+
+    final long crc() {
+        return entry.crc;
+    }
+
+    final long size() {
+        return entry.size;
+    }
+
+    final long compressedSize() {
+        return entry.compressedSize;
+    }
+
+    /**
+     * Reads the entry data, as it is stored in the ZIP file
+     * (compressed, if it is a deflated entry).
+     *
+     * @return The raw entry data
+     * @throws IOException If reading fails
+     */
+    abstract byte @NotNull [] readRaw() throws IOException;
+
+    @Override
+    public abstract @NotNull InputStream open() throws IOException;
+
+    @Override
+    public @NotNull Writable asWritable() {
+        return this;
+    }
+
+    @Override
+    public void write(final @NotNull OutputStream output) throws IOException {
+        try (final InputStream input = open()) {
+            final byte[] buf = new byte[Writable.DEFAULT_BUFFER_LENGTH];
+            int len;
+            while ((len = input.read(buf)) != -1) {
+                output.write(buf, 0, len);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " { name='" + entry.name + "', size=" + entry.size + " }";
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.base.Readable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link FileTreeReader} implementation that reads a ZIP file
+ * by indexing its central directory, entries are only read when
+ * their content is opened.
+ *
+ * <p>Unlike {@link ZipFileTreeReader}, the contents are not copied
+ * to memory when the reader is closed, so they must not be used
+ * after that.</p>
+ */
+final class IndexedZipFileTreeReader implements FileTreeReader {
+    private final FileChannel channel;
+    private final Iterator<ZipCentralDirectory.Entry> entries;
+
+    private @Nullable IndexedZipEntry current;
+
+    IndexedZipFileTreeReader(final @NotNull FileChannel channel) throws IOException {
+        this.channel = requireNonNull(channel, "channel");
+        this.entries = ZipCentralDirectory.read(
+                (position, length) -> ZipCentralDirectory.read(channel, position, length),
+                channel.size()
+        ).iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return entries.hasNext();
+    }
+
+    @Override
+    public @NotNull String next() {
+        if (!entries.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        current = new ChannelZipEntry(channel, entries.next());
+        return current.name();
+    }
+
+    @Override
+    public @NotNull InputStream stream() {
+        if (current == null) {
+            throw new IllegalStateException("No current entry, call next() first");
+        }
+        try {
+            return current.open();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to get input stream for current entry: " + current.name(), e);
+        }
+    }
+
+    @Override
+    public @NotNull Readable content() {
+        if (current == null) {
+            throw new IllegalStateException("No current entry, call next() first");
+        }
+        return current;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.base.Writable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.ZipException;
+
+/**
+ * An {@link IndexedZipEntry} whose data is a slice of
+ * a memory-mapped ZIP file.
+ *
+ * <p>Stored entries are read directly from their slice, without
+ * copies, deflated entries are inflated from their slice using
+ * the pooled inflaters of the reader.</p>
+ */
+final class MappedZipEntry extends IndexedZipEntry {
+
+    private final ByteBuffer file;
+    private final MappedZipFileTreeReader.InflaterPool inflaters;
+
+    // computed when first needed, reading the local header, never
+    // read nor modified directly, only its duplicates are
+    private volatile @Nullable ByteBuffer data;
+
+    MappedZipEntry(final @NotNull ByteBuffer file, final @NotNull MappedZipFileTreeReader.InflaterPool inflaters, final @NotNull ZipCentralDirectory.Entry entry) {
+        super(entry);
+        this.file = file;
+        this.inflaters = inflaters;
+    }
+
+    /**
+     * Returns a slice of the mapped file containing
+     * the data of this entry, as it is stored.
+     *
+     * @return The entry data
+     * @throws IOException If the local header is invalid
+     */
+    @NotNull ByteBuffer data() throws IOException {
+        ByteBuffer data = this.data;
+        if (data == null) {
+            final long offset = ZipCentralDirectory.dataOffset((position, length) -> ZipCentralDirectory.slice(file, position, length), entry);
+            if (entry.compressedSize > Integer.MAX_VALUE) {
+                throw new IOException("Entry is too large: " + entry.name);
+            }
+            data = ZipCentralDirectory.slice(file, offset, (int) entry.compressedSize);
+            this.data = data;
+        }
+        return data.duplicate();
+    }
+
+    @Override
+    byte @NotNull [] readRaw() throws IOException {
+        final ByteBuffer data = data();
+        final byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public @NotNull InputStream open() throws IOException {
+        if (entry.method == ZipCentralDirectory.METHOD_STORED) {
+            return new SliceInputStream(data());
+        } else {
+            return new SliceInflaterInputStream(data());
+        }
+    }
+
+    @Override
+    public byte @NotNull [] readAsByteArray() {
+        if (entry.size > Integer.MAX_VALUE - 8) {
+            return super.readAsByteArray();
+        }
+        try {
+            if (entry.method == ZipCentralDirectory.METHOD_STORED) {
+                return readRaw();
+            }
+            // the size is known, inflate directly to the result
+            final byte[] bytes = new byte[(int) entry.size];
+            int length = 0;
+            try (final InputStream input = open()) {
+                while (length < bytes.length) {
+                    final int read = input.read(bytes, length, bytes.length - length);
+                    if (read == -1) {
+                        throw new EOFException("Unexpected end of ZIP entry: " + entry.name);
+                    }
+                    length += read;
+                }
+            }
+            return bytes;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read ZIP entry: " + entry.name, e);
+        }
+    }
+
+    @Override
+    public byte @NotNull [] toByteArray() {
+        return readAsByteArray();
+    }
+
+    @Override
+    public void write(final @NotNull OutputStream output) throws IOException {
+        if (entry.method == ZipCentralDirectory.METHOD_STORED) {
+            final ByteBuffer data = data();
+            final byte[] buf = new byte[(int) Math.min(data.remaining(), Writable.DEFAULT_BUFFER_LENGTH)];
+            while (data.hasRemaining()) {
+                final int length = Math.min(buf.length, data.remaining());
+                data.get(buf, 0, length);
+                output.write(buf, 0, length);
+            }
+        } else {
+            super.write(output);
+        }
+    }
+
+    /*
+     * Reads a slice of the mapped file
+     */
+    private static final class SliceInputStream extends InputStream {
+        private final ByteBuffer data;
+
+        SliceInputStream(final @NotNull ByteBuffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return data.hasRemaining() ? data.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte @NotNull [] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!data.hasRemaining()) {
+                return -1;
+            }
+            final int length = Math.min(len, data.remaining());
+            data.get(b, off, length);
+            return length;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int skipped = (int) Math.max(0, Math.min(n, data.remaining()));
+            data.position(data.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return data.remaining();
+        }
+    }
+
+    /*
+     * Inflates a slice of the mapped file, using a pooled
+     * inflater, which is released when the stream is closed
+     */
+    private final class SliceInflaterInputStream extends InputStream {
+        private final ByteBuffer data;
+        private MappedZipFileTreeReader.PooledInflater inflater;
+        private boolean eof;
+
+        SliceInflaterInputStream(final @NotNull ByteBuffer data) {
+            this.data = data;
+            this.inflater = inflaters.obtain();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte @NotNull [] b, final int off, final int len) throws IOException {
+            if (inflater == null) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            try {
+                while (true) {
+                    final int read = inflater.inflater.inflate(b, off, len);
+                    if (read > 0) {
+                        return read;
+                    }
+                    if (inflater.inflater.finished()) {
+                        return -1;
+                    }
+                    if (inflater.inflater.needsDictionary()) {
+                        throw new ZipException("Invalid ZIP entry data: " + entry.name);
+                    }
+                    if (inflater.inflater.needsInput()) {
+                        fill();
+                    }
+                }
+            } catch (final DataFormatException e) {
+                throw new ZipException("Invalid ZIP entry data: " + entry.name + ": " + e.getMessage());
+            }
+        }
+
+        private void fill() throws IOException {
+            final byte[] input = inflater.input;
+            if (data.hasRemaining()) {
+                // Java 8 inflaters only accept arrays, copy the next chunk
+                final int length = Math.min(input.length, data.remaining());
+                data.get(input, 0, length);
+                inflater.inflater.setInput(input, 0, length);
+            } else if (!eof) {
+                // inflaters with no header may need an extra
+                // byte to finish, like java.util.zip.ZipFile does
+                eof = true;
+                input[0] = 0;
+                inflater.inflater.setInput(input, 0, 1);
+            } else {
+                throw new EOFException("Unexpected end of ZIP entry: " + entry.name);
+            }
+        }
+
+        @Override
+        public int available() {
+            return inflater == null || inflater.inflater.finished() ? 0 : 1;
+        }
+
+        @Override
+        public void close() {
+            if (inflater != null) {
+                inflaters.release(inflater);
+                inflater = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.base.Readable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Inflater;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link FileTreeReader} implementation that reads a memory-mapped
+ * ZIP file, its central directory is parsed from the mapped region,
+ * and the entries are read from slices of it.
+ *
+ * <p>Inflaters (and their input buffers) are pooled and reused by
+ * all the entries, including the ones read concurrently, they are
+ * released when the reader is closed. The mapping itself is released
+ * when it is no longer referenced, so, unlike {@link IndexedZipFileTreeReader},
+ * the contents can still be used after closing the reader.</p>
+ */
+final class MappedZipFileTreeReader implements FileTreeReader {
+
+    // amount of compressed bytes given to an inflater at once
+    private static final int INFLATER_INPUT_LENGTH = 16 * 1024;
+
+    private final ByteBuffer file;
+    private final InflaterPool inflaters = new InflaterPool();
+    private final Iterator<ZipCentralDirectory.Entry> entries;
+
+    private @Nullable MappedZipEntry current;
+
+    MappedZipFileTreeReader(final @NotNull ByteBuffer file) throws IOException {
+        this.file = requireNonNull(file, "file");
+        this.entries = ZipCentralDirectory.read(
+                (position, length) -> ZipCentralDirectory.slice(file, position, length),
+                file.limit()
+        ).iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return entries.hasNext();
+    }
+
+    @Override
+    public @NotNull String next() {
+        if (!entries.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        current = new MappedZipEntry(file, inflaters, entries.next());
+        return current.name();
+    }
+
+    @Override
+    public @NotNull InputStream stream() {
+        if (current == null) {
+            throw new IllegalStateException("No current entry, call next() first");
+        }
+        try {
+            return current.open();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to get input stream for current entry: " + current.name(), e);
+        }
+    }
+
+    @Override
+    public @NotNull Readable content() {
+        if (current == null) {
+            throw new IllegalStateException("No current entry, call next() first");
+        }
+        return current;
+    }
+
+    @Override
+    public void close() {
+        inflaters.close();
+    }
+
+    /*
+     * A raw DEFLATE inflater and its input buffer
+     */
+    static final class PooledInflater {
+        final Inflater inflater = new Inflater(true);
+        final byte[] input = new byte[INFLATER_INPUT_LENGTH];
+    }
+
+    /*
+     * Inflaters are expensive to create and hold native memory, they
+     * are reused, inflaters released after closing are not pooled
+     */
+    static final class InflaterPool {
+        private final Queue<PooledInflater> pool = new ConcurrentLinkedQueue<>();
+        private volatile boolean closed;
+
+        @NotNull PooledInflater obtain() {
+            final PooledInflater inflater = pool.poll();
+            return inflater == null ? new PooledInflater() : inflater;
+        }
+
+        void release(final @NotNull PooledInflater inflater) {
+            if (closed) {
+                inflater.inflater.end();
+                return;
+            }
+            inflater.inflater.reset();
+            pool.add(inflater);
+            if (closed && pool.remove(inflater)) {
+                // closed concurrently
+                inflater.inflater.end();
+            }
+        }
+
+        void close() {
+            closed = true;
+            PooledInflater inflater;
+            while ((inflater = pool.poll()) != null) {
+                inflater.inflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,600 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.base.Writable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A {@link FileTreeWriter} implementation that writes a ZIP archive,
+ * compressing its entries concurrently in the given {@link Executor}.
+ *
+ * <p>Every entry is compressed as an independent DEFLATE stream, or
+ * stored as it is, as determined by the {@link ZipCompressionPolicy}, then
+ * the entries are written to the output in the same order they were
+ * received, in the calling thread, followed by the central directory.
+ * Entries have no timestamps nor extra fields, so the output is always
+ * the same for the same input.</p>
+ *
+ * <p>If a {@link ZipEntryCache} is given, entries whose contents did
+ * not change since the last time they were written are not compressed
+ * again, their cached compressed data is written instead.</p>
+ *
+ * <p>Entries whose data comes from a ZIP file read with
+ * {@link FileTreeReader#indexedZip(java.nio.file.Path)} are copied
+ * from it as they are, without being inflated and compressed again.</p>
+ */
+final class ParallelZipFileTreeWriter implements FileTreeWriter {
+
+    // minimum amount of uncompressed bytes compressed by a single
+    // executor task, small entries (most of them) are batched
+    private static final int BATCH_SIZE = 256 * 1024;
+
+    // maximum amount of uncompressed bytes kept in memory, waiting
+    // to be compressed or written to the output
+    private static final long MAX_PENDING_SIZE = 64L * 1024 * 1024;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final short ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int ZIP64_MAGIC = 0xFFFFFFFF;
+    private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private static final short VERSION_STORED = 10;
+    private static final short VERSION_DEFLATED = 20;
+    private static final short VERSION_ZIP64 = 45;
+    private static final short FLAG_UTF8 = 0x0800;
+    private static final short METHOD_STORED = 0;
+    private static final short METHOD_DEFLATED = 8;
+
+    // the minimum date for MS-DOS dates is 1980-01-01 00:00:00, also
+    // used by the default ZipEntryLifecycleHandler
+    private static final short DOS_TIME = 0;
+    private static final short DOS_DATE = (1 << 5) | 1;
+
+    private final Set<String> names = new HashSet<>();
+    private final OutputStream output;
+    private final Executor executor;
+    private final @Nullable ZipEntryCache cache;
+    private final ZipCompressionPolicy compressionPolicy;
+    private final Object compressionPolicyKey;
+
+    // deflaters are expensive to create and hold native memory, they are
+    // reused by the executor tasks and released when finishing the tree
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+
+    // written entries, in order, for the central directory
+    private final List<Entry> written = new ArrayList<>();
+
+    // entries waiting to be compressed or written, in order
+    private final Queue<Entry> pending = new ArrayDeque<>();
+    private long pendingSize;
+
+    // entries waiting to be submitted to the executor
+    private List<Entry> batch = new ArrayList<>();
+    private long batchSize;
+
+    private long offset;
+    private EntryOutputStream current;
+    private boolean finished;
+
+    ParallelZipFileTreeWriter(
+            final @NotNull OutputStream output,
+            final @NotNull Executor executor,
+            final @Nullable ZipEntryCache cache,
+            final @NotNull ZipCompressionPolicy compressionPolicy
+    ) {
+        this.output = output;
+        this.executor = executor;
+        this.cache = cache;
+        this.compressionPolicy = compressionPolicy;
+        this.compressionPolicyKey = ZipCompressionPolicyImpl.cacheKey(compressionPolicy);
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return names.contains(path);
+    }
+
+    @Override
+    public OutputStream openStream(String path) {
+        final Entry entry = createEntry(path);
+        current = new EntryOutputStream(entry);
+        return current; // should be closed when any other method is called
+    }
+
+    @Override
+    public void write(String path, Writable data) {
+        if (data instanceof IndexedZipEntry) {
+            final IndexedZipEntry source = (IndexedZipEntry) data;
+            // copy the compressed data, unless the entry must be stored
+            if (source.method() == METHOD_STORED || !compressionPolicy.store(path)) {
+                copy(path, source);
+                return;
+            }
+        }
+        final Entry entry = createEntry(path);
+        try {
+            data.write(entry.data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        submit(entry);
+    }
+
+    private void copy(final @NotNull String path, final @NotNull IndexedZipEntry source) {
+        final Entry entry = createEntry(path);
+        entry.method = (short) source.method();
+        entry.crc = source.crc();
+        entry.size = source.size();
+        entry.compressedSize = source.compressedSize();
+        try {
+            entry.compressed = source.readRaw();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy entry " + source.name() + " to " + path, e);
+        }
+        entry.task = CompletableFuture.completedFuture(null);
+        pending.add(entry);
+        pendingSize += entry.size;
+        writeCompleted(false);
+    }
+
+    private @NotNull Entry createEntry(final @NotNull String path) {
+        if (finished) {
+            throw new IllegalStateException("ZIP file tree has already been finished");
+        }
+        if (!names.add(path)) {
+            throw new IllegalStateException("File " + path + " already exists!");
+        }
+        closeCurrent();
+        return new Entry(path);
+    }
+
+    private void closeCurrent() {
+        if (current != null) {
+            // did you forgor to close it?
+            current.close();
+            current = null;
+        }
+    }
+
+    private void submit(final @NotNull Entry entry) {
+        final long size = entry.data.size();
+        pending.add(entry);
+        pendingSize += size;
+        batch.add(entry);
+        batchSize += size;
+
+        if (batchSize >= BATCH_SIZE) {
+            submitBatch();
+        }
+        writeCompleted(false);
+    }
+
+    private void submitBatch() {
+        final List<Entry> entries = batch;
+        batch = new ArrayList<>();
+        batchSize = 0;
+
+        final CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
+            for (final Entry entry : entries) {
+                compress(entry);
+            }
+        }, executor);
+        for (final Entry entry : entries) {
+            entry.task = task;
+        }
+    }
+
+    private void compress(final @NotNull Entry entry) {
+        final byte[] input = entry.data.buffer();
+        final int length = entry.data.size();
+
+        byte[] fingerprint = null;
+        if (cache != null) {
+            fingerprint = ZipEntryCache.fingerprint(input, length);
+            final ZipEntryCache.Entry cached = cache.get(entry.path, fingerprint, compressionPolicyKey);
+            if (cached != null) {
+                // not changed, reuse the compressed data
+                entry.method = cached.method;
+                entry.crc = cached.crc;
+                entry.size = cached.size;
+                entry.compressed = cached.data;
+                entry.compressedSize = cached.length;
+                return;
+            }
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(input, 0, length);
+        entry.crc = crc.getValue();
+        entry.size = length;
+
+        EntryBuffer compressed = null;
+        if (!compressionPolicy.store(entry.path)) {
+            compressed = deflate(input, length);
+            if (compressionPolicy.store(entry.path, length, compressed.size())) {
+                // not worth it, discard the compressed data
+                compressed = null;
+            }
+        }
+
+        if (compressed == null) {
+            entry.method = METHOD_STORED;
+            compressed = entry.data;
+        }
+        entry.compressedSize = compressed.size();
+
+        if (cache != null) {
+            // trim the buffer, it will be kept in memory
+            entry.compressed = compressed.toByteArray();
+            cache.put(entry.path, new ZipEntryCache.Entry(
+                    fingerprint,
+                    compressionPolicyKey,
+                    entry.method,
+                    entry.crc,
+                    entry.size,
+                    entry.compressed,
+                    entry.compressed.length
+            ));
+        } else {
+            entry.compressed = compressed.buffer();
+        }
+    }
+
+    private @NotNull EntryBuffer deflate(final byte @NotNull [] input, final int length) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+
+        final EntryBuffer compressed = new EntryBuffer(Math.max(length / 2, 64));
+        final byte[] chunk = new byte[8192];
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            final int count = deflater.deflate(chunk);
+            compressed.write(chunk, 0, count);
+        }
+        deflater.reset();
+        deflaters.add(deflater);
+        return compressed;
+    }
+
+    /*
+     * Writes the entries at the head of the queue whose compression
+     * is complete, waits for the rest of the entries if all is true,
+     * or while the pending size is over the limit
+     */
+    private void writeCompleted(final boolean all) {
+        boolean wait = all || pendingSize > MAX_PENDING_SIZE;
+        while (!pending.isEmpty()) {
+            final Entry entry = pending.peek();
+            if (entry.task == null) {
+                if (!wait) {
+                    break;
+                }
+                // entry is in the current batch, submit it now
+                submitBatch();
+            } else if (!wait && !entry.task.isDone()) {
+                break;
+            }
+
+            join(entry.task);
+            pending.remove();
+            pendingSize -= entry.size;
+            writeEntry(entry);
+            wait = all || pendingSize > MAX_PENDING_SIZE;
+        }
+    }
+
+    private static void join(final @NotNull CompletableFuture<Void> task) {
+        try {
+            task.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void writeEntry(final @NotNull Entry entry) {
+        final boolean zip64 = entry.size >= ZIP64_MAGIC_VALUE || entry.compressedSize >= ZIP64_MAGIC_VALUE;
+        final ByteBuffer header = allocate(30 + entry.name.length + (zip64 ? 20 : 0));
+
+        header.putInt(LOCAL_HEADER_SIGNATURE);
+        header.putShort(zip64 ? VERSION_ZIP64 : version(entry));
+        header.putShort(FLAG_UTF8);
+        header.putShort(entry.method);
+        header.putShort(DOS_TIME);
+        header.putShort(DOS_DATE);
+        header.putInt((int) entry.crc);
+        if (zip64) {
+            header.putInt(ZIP64_MAGIC);
+            header.putInt(ZIP64_MAGIC);
+        } else {
+            header.putInt((int) entry.compressedSize);
+            header.putInt((int) entry.size);
+        }
+        header.putShort((short) entry.name.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(entry.name);
+        if (zip64) {
+            header.putShort(ZIP64_EXTRA_ID);
+            header.putShort((short) 16);
+            header.putLong(entry.size);
+            header.putLong(entry.compressedSize);
+        }
+
+        entry.offset = offset;
+        try {
+            writeBuffer(header);
+            output.write(entry.compressed, 0, (int) entry.compressedSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        offset += entry.compressedSize;
+
+        // release the data, only the metadata is needed now
+        entry.data = null;
+        entry.compressed = null;
+        entry.task = null;
+        written.add(entry);
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        final long start = offset;
+
+        for (final Entry entry : written) {
+            final boolean sizeOverflow = entry.size >= ZIP64_MAGIC_VALUE;
+            final boolean compressedSizeOverflow = entry.compressedSize >= ZIP64_MAGIC_VALUE;
+            final boolean offsetOverflow = entry.offset >= ZIP64_MAGIC_VALUE;
+            final int extraLength = (sizeOverflow ? 8 : 0) + (compressedSizeOverflow ? 8 : 0) + (offsetOverflow ? 8 : 0);
+            final boolean zip64 = extraLength > 0;
+            final short version = zip64 ? VERSION_ZIP64 : version(entry);
+            final ByteBuffer header = allocate(46 + entry.name.length + (zip64 ? extraLength + 4 : 0));
+
+            header.putInt(CENTRAL_HEADER_SIGNATURE);
+            header.putShort(version); // version made by
+            header.putShort(version); // version needed to extract
+            header.putShort(FLAG_UTF8);
+            header.putShort(entry.method);
+            header.putShort(DOS_TIME);
+            header.putShort(DOS_DATE);
+            header.putInt((int) entry.crc);
+            header.putInt(compressedSizeOverflow ? ZIP64_MAGIC : (int) entry.compressedSize);
+            header.putInt(sizeOverflow ? ZIP64_MAGIC : (int) entry.size);
+            header.putShort((short) entry.name.length);
+            header.putShort((short) (zip64 ? extraLength + 4 : 0));
+            header.putShort((short) 0); // comment length
+            header.putShort((short) 0); // disk number start
+            header.putShort((short) 0); // internal attributes
+            header.putInt(0); // external attributes
+            header.putInt(offsetOverflow ? ZIP64_MAGIC : (int) entry.offset);
+            header.put(entry.name);
+            if (zip64) {
+                header.putShort(ZIP64_EXTRA_ID);
+                header.putShort((short) extraLength);
+                if (sizeOverflow) header.putLong(entry.size);
+                if (compressedSizeOverflow) header.putLong(entry.compressedSize);
+                if (offsetOverflow) header.putLong(entry.offset);
+            }
+            writeBuffer(header);
+        }
+
+        final long end = offset;
+        final long count = written.size();
+        final long size = end - start;
+        final boolean zip64 = count >= ZIP64_MAGIC_COUNT || size >= ZIP64_MAGIC_VALUE || start >= ZIP64_MAGIC_VALUE;
+
+        if (zip64) {
+            final ByteBuffer record = allocate(56 + 20);
+            // zip64 end of central directory record
+            record.putInt(ZIP64_END_SIGNATURE);
+            record.putLong(44); // size of the remaining record
+            record.putShort(VERSION_ZIP64); // version made by
+            record.putShort(VERSION_ZIP64); // version needed to extract
+            record.putInt(0); // number of this disk
+            record.putInt(0); // disk where central directory starts
+            record.putLong(count); // entries on this disk
+            record.putLong(count); // total entries
+            record.putLong(size);
+            record.putLong(start);
+            // zip64 end of central directory locator
+            record.putInt(ZIP64_LOCATOR_SIGNATURE);
+            record.putInt(0); // disk with the zip64 end record
+            record.putLong(end);
+            record.putInt(1); // total number of disks
+            writeBuffer(record);
+        }
+
+        final ByteBuffer record = allocate(22);
+        record.putInt(END_SIGNATURE);
+        record.putShort((short) 0); // number of this disk
+        record.putShort((short) 0); // disk where central directory starts
+        record.putShort((short) (zip64 ? ZIP64_MAGIC_COUNT : count)); // entries on this disk
+        record.putShort((short) (zip64 ? ZIP64_MAGIC_COUNT : count)); // total entries
+        record.putInt(zip64 ? ZIP64_MAGIC : (int) size);
+        record.putInt(zip64 ? ZIP64_MAGIC : (int) start);
+        record.putShort((short) 0); // comment length
+        writeBuffer(record);
+    }
+
+    private static short version(final @NotNull Entry entry) {
+        return entry.method == METHOD_STORED ? VERSION_STORED : VERSION_DEFLATED;
+    }
+
+    private static @NotNull ByteBuffer allocate(final int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeBuffer(final @NotNull ByteBuffer buffer) throws IOException {
+        output.write(buffer.array(), 0, buffer.position());
+        offset += buffer.position();
+    }
+
+    @Override
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        closeCurrent();
+        try {
+            writeCompleted(true);
+            writeCentralDirectory();
+            output.flush();
+            if (cache != null) {
+                // remove entries that are no longer used
+                cache.retain(names);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            finished = true;
+            Deflater deflater;
+            while ((deflater = deflaters.poll()) != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            finish();
+        } finally {
+            try {
+                output.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String path;
+        private final byte[] name;
+
+        private EntryBuffer data = new EntryBuffer(512);
+        private CompletableFuture<Void> task;
+
+        // set when compressed, never modified, may be shared with the cache
+        private short method = METHOD_DEFLATED;
+        private byte[] compressed;
+        private long crc;
+        private long size;
+        private long compressedSize;
+
+        // set when written
+        private long offset;
+
+        Entry(final @NotNull String path) {
+            this.path = path;
+            this.name = path.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /*
+     * ByteArrayOutputStream exposing its internal buffer,
+     * to avoid copying it
+     */
+    private static final class EntryBuffer extends ByteArrayOutputStream {
+        EntryBuffer(final int size) {
+            super(size);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    private final class EntryOutputStream extends OutputStream {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private EntryOutputStream(final @NotNull Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void write(byte @NotNull [] b, int off, int len) throws IOException {
+            ensureValid();
+            entry.data.write(b, off, len);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureValid();
+            entry.data.write(b);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                if (current == this) {
+                    current = null;
+                }
+                submit(entry);
+            }
+        }
+
+        private void ensureValid() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the central directory of a ZIP file, which lists its
+ * entries and where their data is, without reading the data.
+ *
+ * <p>Supports ZIP64 archives, entry names are always decoded
+ * as UTF-8, which is what Minecraft uses. The file is read
+ * through a {@link Source}, which may read it from a channel,
+ * or slice it, if it is memory-mapped.</p>
+ */
+final class ZipCentralDirectory {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private static final long ZIP64_MAGIC_VALUE = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    static final int METHOD_STORED = 0;
+    static final int METHOD_DEFLATED = 8;
+
+    private static final int FLAG_ENCRYPTED = 0x1;
+
+    private ZipCentralDirectory() {
+        throw new UnsupportedOperationException("Can't instantiate utility class");
+    }
+
+    /**
+     * Reads the file entries (directories are skipped) listed
+     * in the central directory of the given ZIP file, in order.
+     *
+     * @param source The ZIP file source
+     * @param fileSize The ZIP file size
+     * @return The file entries
+     * @throws IOException If the file can't be read or is not a valid ZIP file
+     */
+    static @NotNull List<Entry> read(final @NotNull Source source, final long fileSize) throws IOException {
+        // find the end of central directory record, it is at the
+        // end of the file, followed by a comment of unknown length
+        final int tailLength = (int) Math.min(fileSize, END_SIZE + MAX_COMMENT_LENGTH);
+        final ByteBuffer tail = source.read(fileSize - tailLength, tailLength);
+        int end = -1;
+        for (int i = tailLength - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE && i + END_SIZE + (tail.getShort(i + 20) & 0xFFFF) <= tailLength) {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) {
+            throw new ZipException("End of central directory record not found");
+        }
+
+        long count = tail.getShort(end + 10) & 0xFFFF;
+        long size = tail.getInt(end + 12) & ZIP64_MAGIC_VALUE;
+        long offset = tail.getInt(end + 16) & ZIP64_MAGIC_VALUE;
+
+        if (count == ZIP64_MAGIC_COUNT || size == ZIP64_MAGIC_VALUE || offset == ZIP64_MAGIC_VALUE) {
+            // may be a ZIP64 file, check for the locator
+            final long endPosition = fileSize - tailLength + end;
+            if (endPosition >= ZIP64_LOCATOR_SIZE) {
+                final ByteBuffer locator = source.read(endPosition - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+                if (locator.getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+                    final ByteBuffer record = source.read(locator.getLong(8), ZIP64_END_SIZE);
+                    if (record.getInt(0) != ZIP64_END_SIGNATURE) {
+                        throw new ZipException("Invalid ZIP64 end of central directory record");
+                    }
+                    count = record.getLong(32);
+                    size = record.getLong(40);
+                    offset = record.getLong(48);
+                }
+            }
+        }
+
+        if (size > Integer.MAX_VALUE || offset + size > fileSize) {
+            throw new ZipException("Invalid central directory size or offset");
+        }
+
+        final ByteBuffer directory = source.read(offset, (int) size);
+        final List<Entry> entries = new ArrayList<>((int) Math.min(count, 1 << 16));
+        int position = 0;
+        while (position + CENTRAL_HEADER_SIZE <= size && directory.getInt(position) == CENTRAL_HEADER_SIGNATURE) {
+            final int flags = directory.getShort(position + 8) & 0xFFFF;
+            final int method = directory.getShort(position + 10) & 0xFFFF;
+            final long crc = directory.getInt(position + 16) & ZIP64_MAGIC_VALUE;
+            long compressedSize = directory.getInt(position + 20) & ZIP64_MAGIC_VALUE;
+            long uncompressedSize = directory.getInt(position + 24) & ZIP64_MAGIC_VALUE;
+            final int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            final int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            final int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(position + 42) & ZIP64_MAGIC_VALUE;
+
+            final int nameStart = position + CENTRAL_HEADER_SIZE;
+            if (nameStart + nameLength + extraLength > size) {
+                throw new ZipException("Invalid central directory entry at " + position);
+            }
+            final byte[] nameBytes = new byte[nameLength];
+            for (int i = 0; i < nameLength; i++) {
+                nameBytes[i] = directory.get(nameStart + i);
+            }
+            final String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            // real values for the fields set to the ZIP64 magic are in the extra field
+            int extra = nameStart + nameLength;
+            final int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                final int id = directory.getShort(extra) & 0xFFFF;
+                final int length = directory.getShort(extra + 2) & 0xFFFF;
+                if (id == ZIP64_EXTRA_ID) {
+                    int field = extra + 4;
+                    final int fieldEnd = Math.min(field + length, extraEnd);
+                    if (uncompressedSize == ZIP64_MAGIC_VALUE && field + 8 <= fieldEnd) {
+                        uncompressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == ZIP64_MAGIC_VALUE && field + 8 <= fieldEnd) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == ZIP64_MAGIC_VALUE && field + 8 <= fieldEnd) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+                    break;
+                }
+                extra += 4 + length;
+            }
+
+            position = extraEnd + commentLength;
+
+            if (name.endsWith("/")) {
+                // directory
+                continue;
+            }
+            if ((flags & FLAG_ENCRYPTED) != 0) {
+                throw new ZipException("Encrypted entries are not supported: " + name);
+            }
+            if (method != METHOD_STORED && method != METHOD_DEFLATED) {
+                throw new ZipException("Unsupported compression method " + method + " for entry: " + name);
+            }
+            if (localHeaderOffset + LOCAL_HEADER_SIZE + compressedSize > fileSize) {
+                throw new ZipException("Invalid entry offset or size: " + name);
+            }
+            entries.add(new Entry(name, method, crc, compressedSize, uncompressedSize, localHeaderOffset));
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the local header of the given entry to find
+     * where its data starts.
+     *
+     * @param source The ZIP file source
+     * @param entry The entry
+     * @return The position of the entry data
+     * @throws IOException If the file can't be read or the header is invalid
+     */
+    static long dataOffset(final @NotNull Source source, final @NotNull Entry entry) throws IOException {
+        final ByteBuffer header = source.read(entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for entry: " + entry.name);
+        }
+        final int nameLength = header.getShort(26) & 0xFFFF;
+        final int extraLength = header.getShort(28) & 0xFFFF;
+        return entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    /*
+     * Reads the given amount of bytes at the given position, the
+     * read is positional, so it is safe to use from multiple threads
+     */
+    static @NotNull ByteBuffer read(final @NotNull FileChannel channel, final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position + buffer.position());
+            if (read == -1) {
+                throw new EOFException("Unexpected end of ZIP file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /*
+     * Returns a little-endian slice of the given buffer, which is
+     * not modified, so it can be sliced from multiple threads
+     */
+    static @NotNull ByteBuffer slice(final @NotNull ByteBuffer buffer, final long position, final int length) throws IOException {
+        if (position < 0 || position + length > buffer.limit()) {
+            throw new EOFException("Unexpected end of ZIP file");
+        }
+        final ByteBuffer slice = buffer.duplicate();
+        // casts are needed, these methods return Buffer in Java 8
+        ((Buffer) slice).position((int) position);
+        ((Buffer) slice).limit((int) position + length);
+        return slice.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /*
+     * Reads ranges of a ZIP file, returned buffers are little-endian
+     */
+    @FunctionalInterface
+    interface Source {
+        @NotNull ByteBuffer read(final long position, final int length) throws IOException;
+    }
+
+    /*
+     * An entry listed in the central directory
+     */
+    static final class Entry {
+        final String name;
+        final int method;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final long localHeaderOffset;
+
+        Entry(final @NotNull String name, final int method, final long crc, final long compressedSize, final long size, final long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Determines whether the entries of a ZIP archive are stored
+ * (uncompressed) or compressed using DEFLATE.
+ *
+ * <p>Storing entries whose data is already compressed, like PNG
+ * textures and OGG sounds, makes the build a lot faster, while the
+ * resulting archive is only slightly bigger.</p>
+ *
+ * <p>Stored entries are written with their CRC and sizes in their
+ * local header, without a data descriptor.</p>
+ *
+ * @see FileTreeWriter#zip(java.util.zip.ZipOutputStream, ZipEntryLifecycleHandler, ZipCompressionPolicy)
+ * @see FileTreeWriter#parallelZip(java.io.OutputStream, java.util.concurrent.Executor, ZipEntryCache, ZipCompressionPolicy)
+ * @since 1.7.0
+ */
+public interface ZipCompressionPolicy {
+    /**
+     * Gets a compression policy that compresses every entry,
+     * this is the default policy.
+     *
+     * @return The deflate compression policy
+     * @since 1.7.0
+     */
+    static @NotNull ZipCompressionPolicy deflate() {
+        return ZipCompressionPolicyImpl.DEFLATE;
+    }
+
+    /**
+     * Creates a compression policy that stores the entries with
+     * any of the given file extensions (case-insensitive) and
+     * compresses the rest.
+     *
+     * @param extensions The file extensions, with or without the leading dot, e.g. "png"
+     * @return The created compression policy
+     * @since 1.7.0
+     */
+    @Contract("_ -> new")
+    static @NotNull ZipCompressionPolicy storeExtensions(final @NotNull String @NotNull ... extensions) {
+        requireNonNull(extensions, "extensions");
+        return new ZipCompressionPolicyImpl.Extensions(extensions);
+    }
+
+    /**
+     * Creates a compression policy that stores PNG textures and
+     * OGG sounds, which are already compressed, and compresses
+     * the rest.
+     *
+     * @return The created compression policy
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    static @NotNull ZipCompressionPolicy storeCompressedMedia() {
+        return storeExtensions("png", "ogg");
+    }
+
+    /**
+     * Creates a compression policy that compresses every entry, then
+     * stores the entries whose compression saved less than the given
+     * ratio of their size.
+     *
+     * <p>Note that the entries are still compressed, so this only makes
+     * the archive faster to read, not to build. This check is only
+     * performed by writers that compress entries before writing them,
+     * see {@link #store(String, long, long)}.</p>
+     *
+     * @param minSavings The minimum ratio of saved bytes, from 0 to 1, e.g.
+     *                   0.1 to store entries that shrank less than 10%
+     * @return The created compression policy
+     * @since 1.7.0
+     */
+    @Contract("_ -> new")
+    static @NotNull ZipCompressionPolicy storeIncompressible(final double minSavings) {
+        if (minSavings < 0 || minSavings > 1) {
+            throw new IllegalArgumentException("Min savings must be between 0 and 1, got " + minSavings);
+        }
+        return new ZipCompressionPolicyImpl.Incompressible(minSavings);
+    }
+
+    /**
+     * Determines whether the entry with the given path should be
+     * stored without compressing it.
+     *
+     * @param path The entry path
+     * @return True to store the entry, false to compress it
+     * @since 1.7.0
+     */
+    boolean store(final @NotNull String path);
+
+    /**
+     * Determines whether the entry with the given path should be
+     * stored after compressing it, using the compressed size.
+     *
+     * <p>Only called for entries that were not stored by
+     * {@link #store(String)}, and only by writers that compress
+     * entries before writing them, like the one from
+     * {@link FileTreeWriter#parallelZip}.</p>
+     *
+     * @param path           The entry path
+     * @param size           The uncompressed entry size
+     * @param compressedSize The compressed entry size
+     * @return True to store the entry, false to keep it compressed
+     * @since 1.7.0
+     */
+    default boolean store(final @NotNull String path, final long size, final long compressedSize) {
+        return false;
+    }
+
+    /**
+     * Gets a key that identifies the configuration of this policy,
+     * policies with the same key must store the same entries.
+     *
+     * <p>The key must be stable across processes, since it is used to
+     * reuse resource-packs built by previous processes, see
+     * {@code BuiltResourcePackStore}. Built-in policies return a key
+     * describing their configuration, custom policies return null by
+     * default, so resource-packs built with them are never reused.</p>
+     *
+     * @return The configuration key, null if the policy can't be identified
+     * @since 1.7.0
+     */
+    default @Nullable String key() {
+        return null;
+    }
+
+    /**
+     * Creates a compression policy that stores the entries that are
+     * stored by this policy or by the given one.
+     *
+     * @param other The other compression policy
+     * @return The created compression policy
+     * @since 1.7.0
+     */
+    @Contract("_ -> new")
+    default @NotNull ZipCompressionPolicy or(final @NotNull ZipCompressionPolicy other) {
+        requireNonNull(other, "other");
+        return new ZipCompressionPolicyImpl.Or(this, other);
+    }
+}
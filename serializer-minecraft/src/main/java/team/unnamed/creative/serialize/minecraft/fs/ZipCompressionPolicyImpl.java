@@ -0,0 +1,145 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+final class ZipCompressionPolicyImpl {
+
+    static final ZipCompressionPolicy DEFLATE = new ZipCompressionPolicy() {
+        @Override
+        public boolean store(final @NotNull String path) {
+            return false;
+        }
+
+        @Override
+        public @NotNull String key() {
+            return "deflate";
+        }
+    };
+
+    private ZipCompressionPolicyImpl() {
+        throw new UnsupportedOperationException("Can't instantiate utility class");
+    }
+
+    /*
+     * Returns the key of the given policy for the ZIP entry caches,
+     * equal for policies with the same configuration key, policies
+     * without a configuration key are their own key, and combined
+     * policies are keyed by the keys of their parts
+     */
+    static @NotNull Object cacheKey(final @NotNull ZipCompressionPolicy policy) {
+        if (policy instanceof Or) {
+            final Or or = (Or) policy;
+            return Arrays.asList(cacheKey(or.first), cacheKey(or.second));
+        }
+        final String key = policy.key();
+        return key == null ? policy : key;
+    }
+
+    static final class Extensions implements ZipCompressionPolicy {
+        // lowercase, with the leading dot
+        private final String[] suffixes;
+
+        Extensions(final @NotNull String @NotNull [] extensions) {
+            this.suffixes = new String[extensions.length];
+            for (int i = 0; i < extensions.length; i++) {
+                String extension = extensions[i].toLowerCase(Locale.ROOT);
+                if (!extension.startsWith(".")) {
+                    extension = '.' + extension;
+                }
+                suffixes[i] = extension;
+            }
+        }
+
+        @Override
+        public boolean store(final @NotNull String path) {
+            for (final String suffix : suffixes) {
+                if (path.regionMatches(true, path.length() - suffix.length(), suffix, 0, suffix.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public @NotNull String key() {
+            return "storeExtensions" + Arrays.toString(suffixes);
+        }
+    }
+
+    static final class Incompressible implements ZipCompressionPolicy {
+        private final double minSavings;
+
+        Incompressible(final double minSavings) {
+            this.minSavings = minSavings;
+        }
+
+        @Override
+        public boolean store(final @NotNull String path) {
+            return false;
+        }
+
+        @Override
+        public boolean store(final @NotNull String path, final long size, final long compressedSize) {
+            return size - compressedSize < size * minSavings;
+        }
+
+        @Override
+        public @NotNull String key() {
+            return "storeIncompressible(" + minSavings + ')';
+        }
+    }
+
+    static final class Or implements ZipCompressionPolicy {
+        private final ZipCompressionPolicy first;
+        private final ZipCompressionPolicy second;
+
+        Or(final @NotNull ZipCompressionPolicy first, final @NotNull ZipCompressionPolicy second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean store(final @NotNull String path) {
+            return first.store(path) || second.store(path);
+        }
+
+        @Override
+        public boolean store(final @NotNull String path, final long size, final long compressedSize) {
+            return first.store(path, size, compressedSize) || second.store(path, size, compressedSize);
+        }
+
+        @Override
+        public @Nullable String key() {
+            final String firstKey = first.key();
+            final String secondKey = second.key();
+            return firstKey == null || secondKey == null ? null : firstKey + ".or(" + secondKey + ')';
+        }
+    }
+}
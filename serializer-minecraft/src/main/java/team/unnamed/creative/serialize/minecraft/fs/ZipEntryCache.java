@@ -0,0 +1,138 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.serialize.minecraft.HashUtil;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of compressed ZIP entries, used to avoid compressing
+ * the same entries again when a resource-pack is rebuilt.
+ *
+ * <p>Entries are keyed by their path, a fingerprint (SHA-1) of
+ * their uncompressed contents and the {@link ZipCompressionPolicy}
+ * used to compress them, so only the entries that changed since the
+ * last build are compressed again, the rest are copied to the new
+ * ZIP file as they are.</p>
+ *
+ * <p>After every successful build, the entries that were not part
+ * of it are removed from the cache, so a cache instance should be
+ * used to build a single resource-pack (e.g. on every reload), it
+ * is safe to use it from multiple threads though.</p>
+ *
+ * @see FileTreeWriter#parallelZip(java.io.OutputStream, java.util.concurrent.Executor, ZipEntryCache)
+ * @since 1.7.0
+ */
+public final class ZipEntryCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private ZipEntryCache() {
+    }
+
+    /**
+     * Creates a new, empty {@link ZipEntryCache} instance.
+     *
+     * @return The created cache
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    public static @NotNull ZipEntryCache zipEntryCache() {
+        return new ZipEntryCache();
+    }
+
+    /**
+     * Returns the amount of cached entries.
+     *
+     * @return The amount of cached entries
+     * @since 1.7.0
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all the cached entries.
+     *
+     * @since 1.7.0
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    @Nullable Entry get(final @NotNull String path, final byte @NotNull [] fingerprint, final @NotNull Object policy) {
+        final Entry entry = entries.get(path);
+        if (entry == null || !Arrays.equals(entry.fingerprint, fingerprint) || !entry.policy.equals(policy)) {
+            return null;
+        }
+        return entry;
+    }
+
+    void put(final @NotNull String path, final @NotNull Entry entry) {
+        entries.put(path, entry);
+    }
+
+    void retain(final @NotNull Set<String> paths) {
+        entries.keySet().retainAll(paths);
+    }
+
+    static byte @NotNull [] fingerprint(final byte @NotNull [] data, final int length) {
+        final MessageDigest digest = HashUtil.sha1();
+        digest.update(data, 0, length);
+        return digest.digest();
+    }
+
+    /*
+     * A compressed entry, immutable, its data is
+     * never modified after being cached
+     */
+    static final class Entry {
+        final byte[] fingerprint;
+        final Object policy;
+        final short method;
+        final long crc;
+        final long size;
+        final byte[] data;
+        final int length;
+
+        Entry(final byte @NotNull [] fingerprint, final @NotNull Object policy, final short method, final long crc, final long size, final byte @NotNull [] data, final int length) {
+            this.fingerprint = fingerprint;
+            this.policy = policy;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+}
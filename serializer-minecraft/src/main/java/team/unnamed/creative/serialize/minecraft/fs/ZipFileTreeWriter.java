@@ -26,11 +26,13 @@ package team.unnamed.creative.serialize.minecraft.fs;
 import org.jetbrains.annotations.NotNull;
 import team.unnamed.creative.base.Writable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -39,12 +41,14 @@ final class ZipFileTreeWriter implements FileTreeWriter {
     private final Set<String> names = new HashSet<>();
     private final ZipOutputStream output;
     private final ZipEntryLifecycleHandler entryLifecycleHandler;
+    private final ZipCompressionPolicy compressionPolicy;
 
     private ZipEntryOutputStream current;
 
-    ZipFileTreeWriter(ZipOutputStream output, ZipEntryLifecycleHandler entryLifecycleHandler) {
+    ZipFileTreeWriter(ZipOutputStream output, ZipEntryLifecycleHandler entryLifecycleHandler, ZipCompressionPolicy compressionPolicy) {
         this.output = output;
         this.entryLifecycleHandler = entryLifecycleHandler;
+        this.compressionPolicy = compressionPolicy;
     }
 
     @Override
@@ -67,8 +71,14 @@ final class ZipFileTreeWriter implements FileTreeWriter {
             }
 
             ZipEntry entry = entryLifecycleHandler.create(path);
-            output.putNextEntry(entry);
-            current = new ZipEntryOutputStream(entry);
+            if (compressionPolicy.store(path)) {
+                // stored entries need their size and CRC before
+                // being put, buffer the data until the stream is closed
+                current = new ZipEntryOutputStream(entry, new ByteArrayOutputStream());
+            } else {
+                output.putNextEntry(entry);
+                current = new ZipEntryOutputStream(entry, null);
+            }
             return current; // should be closed when any other method is called
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -89,9 +99,14 @@ final class ZipFileTreeWriter implements FileTreeWriter {
 
             // no-need to create a ZipEntryOutputStream
             ZipEntry entry = entryLifecycleHandler.create(path);
-            output.putNextEntry(entry);
-            data.write(output);
-            names.add(path);
+            if (compressionPolicy.store(path)) {
+                byte[] bytes = data.toByteArray();
+                putStoredEntry(entry, bytes);
+                output.write(bytes);
+            } else {
+                output.putNextEntry(entry);
+                data.write(output);
+            }
             output.closeEntry();
             entryLifecycleHandler.onClose(entry);
         } catch (IOException e) {
@@ -99,6 +114,16 @@ final class ZipFileTreeWriter implements FileTreeWriter {
         }
     }
 
+    private void putStoredEntry(ZipEntry entry, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        entry.setCrc(crc.getValue());
+        output.putNextEntry(entry);
+    }
+
     @Override
     public void finish() {
         try {
@@ -128,39 +153,62 @@ final class ZipFileTreeWriter implements FileTreeWriter {
     private class ZipEntryOutputStream extends OutputStream {
 
         private ZipEntry entry;
+        // non-null if the entry is stored, written when closed
+        private ByteArrayOutputStream buffer;
         private boolean closed;
 
-        private ZipEntryOutputStream(ZipEntry entry) {
+        private ZipEntryOutputStream(ZipEntry entry, ByteArrayOutputStream buffer) {
             this.entry = entry;
+            this.buffer = buffer;
         }
 
         @Override
         public void write(byte @NotNull [] b) throws IOException {
             ensureValid();
-            output.write(b);
+            if (buffer != null) {
+                buffer.write(b);
+            } else {
+                output.write(b);
+            }
         }
 
         @Override
         public void write(byte @NotNull [] b, int off, int len) throws IOException {
             ensureValid();
-            output.write(b, off, len);
+            if (buffer != null) {
+                buffer.write(b, off, len);
+            } else {
+                output.write(b, off, len);
+            }
         }
 
         @Override
         public void write(int b) throws IOException {
             ensureValid();
-            output.write(b);
+            if (buffer != null) {
+                buffer.write(b);
+            } else {
+                output.write(b);
+            }
         }
 
         @Override
         public void flush() throws IOException {
             ensureValid();
-            output.flush();
+            if (buffer == null) {
+                output.flush();
+            }
         }
 
         @Override
         public void close() throws IOException {
             if (!closed) {
+                if (buffer != null) {
+                    byte[] bytes = buffer.toByteArray();
+                    putStoredEntry(entry, bytes);
+                    output.write(bytes);
+                    buffer = null;
+                }
                 output.closeEntry();
                 entryLifecycleHandler.onClose(entry);
                 entry = null;
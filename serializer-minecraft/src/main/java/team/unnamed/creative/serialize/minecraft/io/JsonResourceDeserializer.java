@@ -24,6 +24,7 @@
 package team.unnamed.creative.serialize.minecraft.io;
 
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
 import net.kyori.adventure.key.Key;
 import org.intellij.lang.annotations.Language;
 import team.unnamed.creative.serialize.minecraft.GsonUtil;
@@ -31,21 +32,41 @@ import team.unnamed.creative.serialize.minecraft.GsonUtil;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 
 public interface JsonResourceDeserializer<T> extends ResourceDeserializer<T> {
 
     T deserializeFromJson(JsonElement node, Key key) throws IOException;
 
+    /**
+     * Deserializes a resource directly from the given {@link JsonReader},
+     * which must be positioned before the resource JSON value.
+     *
+     * <p>The default implementation reads the whole value to a
+     * {@link JsonElement} tree and then calls {@link #deserializeFromJson(JsonElement, Key)},
+     * implementations should override it to read the JSON tokens directly,
+     * without allocating the intermediate tree.</p>
+     *
+     * @param reader The JSON reader
+     * @param key The resource key
+     * @return The deserialized resource
+     * @throws IOException If reading fails
+     * @since 1.7.0
+     */
+    default T deserializeFromJson(JsonReader reader, Key key) throws IOException {
+        return deserializeFromJson(GsonUtil.parseReader(reader), key);
+    }
+
     default T deserializeFromJsonString(@Language("JSON") String json, Key key) throws IOException {
         return deserializeFromJson(GsonUtil.parseString(json), key);
     }
 
     @Override
     default T deserialize(InputStream input, Key key) throws IOException {
-        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
-            return deserializeFromJson(GsonUtil.parseReader(reader), key);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            // the tree parser is always lenient, keep accepting the same input
+            reader.setLenient(true);
+            return deserializeFromJson(reader, key);
         }
     }
 
@@ -25,6 +25,7 @@ package team.unnamed.creative.serialize.minecraft.language;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import net.kyori.adventure.key.Key;
 import team.unnamed.creative.lang.Language;
@@ -82,4 +83,20 @@ public final class LanguageSerializer implements JsonResourceSerializer<Language
         return Language.language(key, translations);
     }
 
+    @Override
+    public Language deserializeFromJson(JsonReader reader, Key key) throws IOException {
+        Map<String, String> translations = new HashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String translationKey = reader.nextName();
+            String translationValue = reader.nextString();
+
+            translations.put(translationKey, translationValue);
+        }
+        reader.endObject();
+
+        return Language.language(key, translations);
+    }
+
 }
\ No newline at end of file
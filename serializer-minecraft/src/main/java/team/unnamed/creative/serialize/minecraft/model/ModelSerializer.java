@@ -27,6 +27,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import net.kyori.adventure.key.Key;
 import org.jetbrains.annotations.ApiStatus;
@@ -193,6 +194,83 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
                 .build();
     }
 
+    @Override
+    public Model deserializeFromJson(JsonReader reader, Key key) throws IOException {
+        Key parent = null;
+        Map<ItemTransform.Type, ItemTransform> display = new HashMap<>();
+        List<Element> elements = new ArrayList<>();
+        boolean ambientOcclusion = Model.DEFAULT_AMBIENT_OCCLUSION;
+        ModelTextures texture = ModelTextures.builder().build();
+        Model.GuiLight guiLight = null;
+        List<ItemOverride> overrides = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "parent": {
+                    parent = Key.key(reader.nextString());
+                    break;
+                }
+                case "display": {
+                    display = new HashMap<>();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        ItemTransform.Type type = ItemTransform.Type.valueOf(reader.nextName().toUpperCase(Locale.ROOT));
+                        display.put(type, readItemTransform(reader));
+                    }
+                    reader.endObject();
+                    break;
+                }
+                case "elements": {
+                    elements = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        elements.add(readElement(reader));
+                    }
+                    reader.endArray();
+                    break;
+                }
+                case "ambientocclusion": {
+                    ambientOcclusion = reader.nextBoolean();
+                    break;
+                }
+                case "textures": {
+                    texture = readTextures(reader);
+                    break;
+                }
+                case "gui_light": {
+                    guiLight = Model.GuiLight.valueOf(reader.nextString().toUpperCase(Locale.ROOT));
+                    break;
+                }
+                case "overrides": {
+                    overrides = new ArrayList<>();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        overrides.add(readItemOverride(reader));
+                    }
+                    reader.endArray();
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+
+        return Model.model()
+                .key(key)
+                .parent(parent)
+                .display(display)
+                .elements(elements)
+                .ambientOcclusion(ambientOcclusion)
+                .textures(texture)
+                .guiLight(guiLight)
+                .overrides(overrides)
+                .build();
+    }
+
     private static void writeElement(JsonWriter writer, Element element) throws IOException {
         writer
                 .beginObject()
@@ -278,6 +356,10 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
             rotation = readElementRotation(objectNode.get("rotation"));
         }
 
+        if (!objectNode.has("faces")) {
+            throw new IllegalStateException("Element must have 'faces'");
+        }
+
         Map<CubeFace, ElementFace> faces = new HashMap<>();
         for (Map.Entry<String, JsonElement> entry : objectNode.getAsJsonObject("faces").entrySet()) {
             CubeFace face = CubeFace.valueOf(entry.getKey().toUpperCase(Locale.ROOT));
@@ -293,6 +375,10 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
                 );
             }
 
+            if (!elementFaceNode.has("texture")) {
+                throw new IllegalStateException("Element face must have a 'texture'");
+            }
+
             CubeFace cullFace = null;
             if (elementFaceNode.has("cullface")) {
                 cullFace = CubeFace.valueOf(elementFaceNode.get("cullface").getAsString().toUpperCase(Locale.ROOT));
@@ -319,6 +405,124 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
                 .build();
     }
 
+    private static Element readElement(JsonReader reader) throws IOException {
+        Vector3Float from = null;
+        Vector3Float to = null;
+        ElementRotation rotation = null;
+        boolean shade = Element.DEFAULT_SHADE;
+        Map<CubeFace, ElementFace> faces = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "from": {
+                    from = GsonUtil.readVector3Float(reader);
+                    break;
+                }
+                case "to": {
+                    to = GsonUtil.readVector3Float(reader);
+                    break;
+                }
+                case "rotation": {
+                    rotation = readElementRotation(reader);
+                    break;
+                }
+                case "shade": {
+                    shade = reader.nextBoolean();
+                    break;
+                }
+                case "faces": {
+                    faces = new HashMap<>();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        CubeFace face = CubeFace.valueOf(reader.nextName().toUpperCase(Locale.ROOT));
+                        faces.put(face, readElementFace(reader));
+                    }
+                    reader.endObject();
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+
+        if (faces == null) {
+            throw new IllegalStateException("Element must have 'faces'");
+        }
+
+        return Element.element()
+                .from(from)
+                .to(to)
+                .rotation(rotation)
+                .shade(shade)
+                .faces(faces)
+                .build();
+    }
+
+    private static ElementFace readElementFace(JsonReader reader) throws IOException {
+        TextureUV uv = null;
+        String texture = null;
+        CubeFace cullFace = null;
+        int rotation = ElementFace.DEFAULT_ROTATION;
+        int tintIndex = ElementFace.DEFAULT_TINT_INDEX;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "uv": {
+                    reader.beginArray();
+                    Vector2Float from = new Vector2Float(GsonUtil.nextFloat(reader), GsonUtil.nextFloat(reader));
+                    Vector2Float to = new Vector2Float(GsonUtil.nextFloat(reader), GsonUtil.nextFloat(reader));
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                    uv = TextureUV.uv(
+                            from.divide(MINECRAFT_UV_UNIT),
+                            to.divide(MINECRAFT_UV_UNIT)
+                    );
+                    break;
+                }
+                case "texture": {
+                    texture = reader.nextString();
+                    break;
+                }
+                case "cullface": {
+                    cullFace = CubeFace.valueOf(reader.nextString().toUpperCase(Locale.ROOT));
+                    break;
+                }
+                case "rotation": {
+                    rotation = GsonUtil.nextInt(reader, "rotation");
+                    break;
+                }
+                case "tintindex": {
+                    tintIndex = GsonUtil.nextInt(reader, "tintindex");
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+
+        if (texture == null) {
+            throw new IllegalStateException("Element face must have a 'texture'");
+        }
+
+        return ElementFace.face()
+                .uv(uv)
+                .texture(texture)
+                .cullFace(cullFace)
+                .rotation(rotation)
+                .tintIndex(tintIndex)
+                .build();
+    }
+
     private static void writeElementRotation(JsonWriter writer, ElementRotation rotation) throws IOException {
         writer.beginObject()
                 .name("origin");
@@ -344,6 +548,38 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
                 .build();
     }
 
+    private static ElementRotation readElementRotation(JsonReader reader) throws IOException {
+        ElementRotation.Builder builder = ElementRotation.builder();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "origin": {
+                    builder.origin(GsonUtil.readVector3Float(reader));
+                    break;
+                }
+                case "axis": {
+                    builder.axis(Axis3D.valueOf(reader.nextString().toUpperCase(Locale.ROOT)));
+                    break;
+                }
+                case "angle": {
+                    builder.angle(GsonUtil.nextFloat(reader));
+                    break;
+                }
+                case "rescale": {
+                    builder.rescale(reader.nextBoolean());
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        return builder.build();
+    }
+
     private static void writeItemOverride(JsonWriter writer, ItemOverride override) throws IOException {
         writer.beginObject()
                 .name("predicate").beginObject();
@@ -378,26 +614,64 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
         Key key = Key.key(objectNode.get("model").getAsString());
         List<ItemPredicate> predicates = new ArrayList<>();
         for (Map.Entry<String, JsonElement> predicateEntry : objectNode.getAsJsonObject("predicate").entrySet()) {
-            JsonElement value = predicateEntry.getValue();
-            // TODO: better transformation
-            Object object;
-            if (value.isJsonPrimitive()) {
-                JsonPrimitive primitive = value.getAsJsonPrimitive();
-                if (primitive.isNumber()) {
-                    object = primitive.getAsNumber();
-                } else if (primitive.isBoolean()) {
-                    object = primitive.getAsBoolean();
-                } else {
-                    object = primitive.getAsString();
+            predicates.add(ItemPredicate.custom(predicateEntry.getKey(), readPredicateValue(predicateEntry.getValue())));
+        }
+        return ItemOverride.of(key, predicates);
+    }
+
+    private static ItemOverride readItemOverride(JsonReader reader) throws IOException {
+        Key key = null;
+        List<ItemPredicate> predicates = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "model": {
+                    key = Key.key(reader.nextString());
+                    break;
+                }
+                case "predicate": {
+                    predicates = new ArrayList<>();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        // predicate values are small, use the tree
+                        // to read them exactly like the tree version
+                        predicates.add(ItemPredicate.custom(name, readPredicateValue(GsonUtil.parseReader(reader))));
+                    }
+                    reader.endObject();
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
                 }
-            } else {
-                object = value.getAsString();
             }
-            predicates.add(ItemPredicate.custom(predicateEntry.getKey(), object));
+        }
+        reader.endObject();
+
+        if (key == null) {
+            throw new IllegalStateException("Item override must have a 'model'");
         }
         return ItemOverride.of(key, predicates);
     }
 
+    private static Object readPredicateValue(JsonElement value) {
+        // TODO: better transformation
+        if (value.isJsonPrimitive()) {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isNumber()) {
+                return primitive.getAsNumber();
+            } else if (primitive.isBoolean()) {
+                return primitive.getAsBoolean();
+            } else {
+                return primitive.getAsString();
+            }
+        } else {
+            return value.getAsString();
+        }
+    }
+
     private static void writeItemTransform(JsonWriter writer, ItemTransform transform) throws IOException {
         writer.beginObject();
         Vector3Float rotation = transform.rotation();
@@ -427,26 +701,62 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
             rotation = GsonUtil.readVector3Float(objectNode.get("rotation"));
         }
         if (objectNode.has("translation")) {
-            translation = GsonUtil.readVector3Float(objectNode.get("translation"));
-            // clamp translations between -80 and 80 (what Minecraft does)
-            translation = new Vector3Float(
-                    Math.max(-80F, Math.min(80F, translation.x())),
-                    Math.max(-80F, Math.min(80F, translation.y())),
-                    Math.max(-80F, Math.min(80F, translation.z()))
-            );
+            translation = clampTranslation(GsonUtil.readVector3Float(objectNode.get("translation")));
         }
         if (objectNode.has("scale")) {
-            scale = GsonUtil.readVector3Float(objectNode.get("scale"));
-            // set max to 4 (what Minecraft does)
-            scale = new Vector3Float(
-                    Math.min(4F, scale.x()),
-                    Math.min(4F, scale.y()),
-                    Math.min(4F, scale.z())
-            );
+            scale = clampScale(GsonUtil.readVector3Float(objectNode.get("scale")));
         }
         return ItemTransform.transform(rotation, translation, scale);
     }
 
+    private static ItemTransform readItemTransform(JsonReader reader) throws IOException {
+        Vector3Float rotation = ItemTransform.DEFAULT_ROTATION;
+        Vector3Float translation = ItemTransform.DEFAULT_TRANSLATION;
+        Vector3Float scale = ItemTransform.DEFAULT_SCALE;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "rotation": {
+                    rotation = GsonUtil.readVector3Float(reader);
+                    break;
+                }
+                case "translation": {
+                    translation = clampTranslation(GsonUtil.readVector3Float(reader));
+                    break;
+                }
+                case "scale": {
+                    scale = clampScale(GsonUtil.readVector3Float(reader));
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        return ItemTransform.transform(rotation, translation, scale);
+    }
+
+    private static Vector3Float clampTranslation(Vector3Float translation) {
+        // clamp translations between -80 and 80 (what Minecraft does)
+        return new Vector3Float(
+                Math.max(-80F, Math.min(80F, translation.x())),
+                Math.max(-80F, Math.min(80F, translation.y())),
+                Math.max(-80F, Math.min(80F, translation.z()))
+        );
+    }
+
+    private static Vector3Float clampScale(Vector3Float scale) {
+        // set max to 4 (what Minecraft does)
+        return new Vector3Float(
+                Math.min(4F, scale.x()),
+                Math.min(4F, scale.y()),
+                Math.min(4F, scale.z())
+        );
+    }
+
     private static void writeTextures(JsonWriter writer, ModelTextures texture) throws IOException {
         final ModelTexture particle = texture.particle();
         final List<ModelTexture> layers = texture.layers();
@@ -491,16 +801,12 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
 
         for (Map.Entry<String, JsonElement> entry : objectNode.entrySet()) {
             String key = entry.getKey();
-            String value = entry.getValue().getAsString();
-            ModelTexture texture = value.charAt(0) == '#'
-                    ? ModelTexture.ofReference(value.substring(1))
-                    : ModelTexture.ofKey(Key.key(value));
+            ModelTexture texture = readModelTexture(entry.getValue().getAsString());
 
             if ("particle".equals(key)) {
                 particle = texture;
             } else if (key.startsWith("layer")) {
-                int layer = Integer.parseInt(key.substring("layer".length()));
-                // TODO: Fix
+                checkLayer(key);
                 layers.add(texture);
             } else {
                 variables.put(key, texture);
@@ -514,4 +820,51 @@ public final class ModelSerializer implements JsonResourceSerializer<Model>, Jso
                 .build();
     }
 
+    private static ModelTextures readTextures(JsonReader reader) throws IOException {
+        ModelTexture particle = null;
+        List<ModelTexture> layers = new ArrayList<>();
+        Map<String, ModelTexture> variables = new HashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            ModelTexture texture = readModelTexture(reader.nextString());
+
+            if ("particle".equals(key)) {
+                particle = texture;
+            } else if (key.startsWith("layer")) {
+                checkLayer(key);
+                // layers are kept in declaration order, like the tree path does
+                layers.add(texture);
+            } else {
+                variables.put(key, texture);
+            }
+        }
+        reader.endObject();
+
+        return ModelTextures.builder()
+                .particle(particle)
+                .layers(layers)
+                .variables(variables)
+                .build();
+    }
+
+    private static void checkLayer(String key) {
+        String index = key.substring("layer".length());
+        if (index.isEmpty()) {
+            throw new IllegalStateException("Invalid texture layer '" + key + "'");
+        }
+        for (int i = 0; i < index.length(); i++) {
+            if (!Character.isDigit(index.charAt(i))) {
+                throw new IllegalStateException("Invalid texture layer '" + key + "'");
+            }
+        }
+    }
+
+    private static ModelTexture readModelTexture(String value) {
+        return value.charAt(0) == '#'
+                ? ModelTexture.ofReference(value.substring(1))
+                : ModelTexture.ofKey(Key.key(value));
+    }
+
 }
\ No newline at end of file
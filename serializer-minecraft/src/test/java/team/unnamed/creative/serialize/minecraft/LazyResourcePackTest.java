@@ -0,0 +1,232 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.lang.Language;
+import team.unnamed.creative.model.Model;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.serialize.minecraft.fs.FileTreeWriter;
+import team.unnamed.creative.serialize.minecraft.model.ModelSerializer;
+import team.unnamed.creative.texture.Texture;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyResourcePackTest {
+
+    private static final String BROKEN_MODEL = "assets/test/models/item/broken.json";
+    private static final byte[] BROKEN_MODEL_DATA = "{ this is not a model".getBytes(StandardCharsets.UTF_8);
+
+    private @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("Test that lazy resource-packs only deserialize the requested resources")
+    void test_lazy_read() throws IOException {
+        final ResourcePack original = createResourcePack();
+        final Path source = writeSource(original);
+
+        // the eager reader fails, the broken model is deserialized
+        assertThrows(RuntimeException.class, () -> MinecraftResourcePackReader.minecraft().readFromZipFile(source));
+
+        try (LazyResourcePack resourcePack = MinecraftResourcePackReader.minecraft().readLazilyFromZipFile(source)) {
+            assertEquals(original.formats(), resourcePack.formats());
+            assertEquals(101, resourcePack.models().size());
+            assertTrue(resourcePack.removeModel(Key.key("test", "item/model_1")));
+            assertFalse(resourcePack.removeModel(Key.key("test", "item/model_1")));
+
+            final Key key = Key.key("test", "item/model_2");
+            assertEquals(original.model(key), resourcePack.model(key));
+            assertEquals(original.language(Key.key("test", "en_us")), resourcePack.language(Key.key("test", "en_us")));
+            assertArrayEquals(
+                    original.texture(Key.key("test", "item/texture.png")).data().toByteArray(),
+                    resourcePack.texture(Key.key("test", "item/texture.png")).data().toByteArray()
+            );
+
+            final Overlay overlay = resourcePack.overlay("newer");
+            assertNotNull(overlay);
+            assertEquals(original.overlay("newer").model(key), overlay.model(key));
+
+            // now it is requested
+            assertThrows(RuntimeException.class, () -> resourcePack.model(Key.key("test", "item/broken")));
+        }
+    }
+
+    @Test
+    @DisplayName("Test that unmodified entries are copied when writing lazy resource-packs")
+    void test_lazy_write() throws IOException {
+        final Path source = writeSource(createResourcePack());
+        final Path output = tempDir.resolve("output.zip");
+
+        final Model replaced = Model.model()
+                .key(Key.key("test", "item/model_0"))
+                .parent(Key.key("item/handheld"))
+                .build();
+
+        try (LazyResourcePack resourcePack = MinecraftResourcePackReader.minecraft().readLazilyFromZipFile(source)) {
+            // loaded, may have been modified
+            assertNotNull(resourcePack.model(Key.key("test", "item/model_4")));
+
+            resourcePack.model(replaced);
+            resourcePack.removeModel(Key.key("test", "item/model_1"));
+            MinecraftResourcePackWriter.minecraft().buildToZipFile(output, resourcePack);
+        }
+
+        try (ZipFile sourceZip = new ZipFile(source.toFile()); ZipFile outputZip = new ZipFile(output.toFile())) {
+            // the source entries are not compressed, if they were copied, they
+            // must have the same compressed size, not a smaller one
+            for (final String path : new String[]{
+                    "assets/test/models/item/model_2.json",
+                    "assets/test/models/item/model_99.json",
+                    "assets/test/lang/en_us.json",
+                    "assets/test/textures/item/texture.png",
+                    "overlays/newer/assets/test/models/item/model_2.json",
+                    BROKEN_MODEL
+            }) {
+                final ZipEntry expected = sourceZip.getEntry(path);
+                final ZipEntry actual = outputZip.getEntry(path);
+                assertNotNull(actual, path);
+                assertEquals(expected.getCompressedSize(), actual.getCompressedSize(), path);
+                assertEquals(expected.getCrc(), actual.getCrc(), path);
+            }
+            assertArrayEquals(BROKEN_MODEL_DATA, read(outputZip, BROKEN_MODEL));
+            assertNull(outputZip.getEntry("assets/test/models/item/model_1.json"));
+
+            // the loaded model is serialized again
+            final ZipEntry loaded = outputZip.getEntry("assets/test/models/item/model_4.json");
+            assertTrue(loaded.getCompressedSize() < sourceZip.getEntry(loaded.getName()).getCompressedSize());
+
+            // the replaced model is serialized again
+            final ZipEntry entry = outputZip.getEntry("assets/test/models/item/model_0.json");
+            assertTrue(entry.getCompressedSize() < sourceZip.getEntry(entry.getName()).getCompressedSize());
+            final Model model = ModelSerializer.INSTANCE.deserialize(new ByteArrayInputStream(read(outputZip, entry.getName())), replaced.key());
+            assertEquals(replaced, model);
+        }
+    }
+
+    @Test
+    @DisplayName("Test that modifications to loaded resources are written")
+    void test_lazy_write_modified() throws IOException {
+        final Path source = writeSource(createResourcePack());
+        final Path output = tempDir.resolve("output.zip");
+        final Key key = Key.key("test", "en_us");
+
+        try (LazyResourcePack resourcePack = MinecraftResourcePackReader.minecraft().readLazilyFromZipFile(source)) {
+            final Language language = resourcePack.language(key);
+            assertNotNull(language);
+            language.translations().put("test.added", "Added");
+            MinecraftResourcePackWriter.minecraft().buildToZipFile(output, resourcePack);
+        }
+
+        try (LazyResourcePack resourcePack = MinecraftResourcePackReader.minecraft().readLazilyFromZipFile(output)) {
+            final Language language = resourcePack.language(key);
+            assertNotNull(language);
+            assertEquals("Test", language.translations().get("test.key"));
+            assertEquals("Added", language.translations().get("test.added"));
+        }
+
+        // also when loaded by iterating
+        try (LazyResourcePack resourcePack = MinecraftResourcePackReader.minecraft().readLazilyFromZipFile(source)) {
+            for (final Language language : resourcePack.languages()) {
+                language.translations().put("test.iterated", "Iterated");
+            }
+            MinecraftResourcePackWriter.minecraft().buildToZipFile(output, resourcePack);
+        }
+
+        try (LazyResourcePack resourcePack = MinecraftResourcePackReader.minecraft().readLazilyFromZipFile(output)) {
+            final Language language = resourcePack.language(key);
+            assertNotNull(language);
+            assertEquals("Iterated", language.translations().get("test.iterated"));
+        }
+    }
+
+    private static ResourcePack createResourcePack() {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.packMeta(15, "Lazy resource-pack test");
+
+        final Overlay overlay = Overlay.overlay("newer");
+        resourcePack.overlay(overlay);
+
+        for (int i = 0; i < 100; i++) {
+            final Model model = Model.model()
+                    .key(Key.key("test", "item/model_" + i))
+                    .parent(Key.key("item/generated"))
+                    .build();
+            resourcePack.model(model);
+            if (i % 2 == 0) {
+                overlay.model(model);
+            }
+        }
+        resourcePack.language(Language.language(Key.key("test", "en_us"), Collections.singletonMap("test.key", "Test")));
+        resourcePack.texture(Texture.texture(Key.key("test", "item/texture.png"), Writable.bytes(new byte[]{1, 2, 3, 4})));
+        resourcePack.unknownFile(BROKEN_MODEL, Writable.bytes(BROKEN_MODEL_DATA));
+        return resourcePack;
+    }
+
+    /*
+     * Writes the resource-pack to a ZIP file whose entries are
+     * deflated, but not compressed
+     */
+    private Path writeSource(final ResourcePack resourcePack) throws IOException {
+        final Path path = tempDir.resolve("source.zip");
+        try (OutputStream output = Files.newOutputStream(path)) {
+            final ZipOutputStream zip = new ZipOutputStream(output);
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            try (FileTreeWriter writer = FileTreeWriter.zip(zip)) {
+                MinecraftResourcePackWriter.minecraft().write(writer, resourcePack);
+            }
+        }
+        return path;
+    }
+
+    private static byte[] read(final ZipFile zip, final String path) throws IOException {
+        try (InputStream input = zip.getInputStream(zip.getEntry(path))) {
+            return Writable.copyInputStream(input).toByteArray();
+        }
+    }
+
+}
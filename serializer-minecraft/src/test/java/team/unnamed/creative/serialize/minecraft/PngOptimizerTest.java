@@ -0,0 +1,241 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft;
+
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.texture.Texture;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PngOptimizerTest {
+
+    private @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("Test that optimized images have the same pixels")
+    void test_lossless() throws IOException {
+        final PngOptimizer optimizer = PngOptimizer.pngOptimizer();
+
+        // few colors, with transparency, should use a palette
+        final BufferedImage indexed = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        final int[] colors = { 0x00000000, 0xFFFF0000, 0x8000FF00, 0xFF0000FF, 0xFFFFFFFF };
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                indexed.setRGB(x, y, colors[(x / 8 + y / 8) % colors.length]);
+            }
+        }
+
+        // many colors, without transparency, all gray
+        final BufferedImage gray = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        // many colors, with transparency
+        final BufferedImage noise = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        final Random random = new Random(0);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                final int value = (x * 4 + y) & 0xFF;
+                gray.setRGB(x, y, 0xFF000000 | (value << 16) | (value << 8) | value);
+                noise.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        for (final BufferedImage image : new BufferedImage[] { indexed, gray, noise }) {
+            final byte[] original = encode(image);
+            final byte[] optimized = optimizer.optimize(original);
+            assertTrue(optimized.length <= original.length);
+
+            final PngImage decoded = PngImage.decode(optimized);
+            assertNotNull(decoded);
+            assertArrayEquals(image.getRGB(0, 0, 64, 64, null, 0, 64), decoded.pixels());
+
+            // still readable by other decoders
+            final BufferedImage read = ImageIO.read(new ByteArrayInputStream(optimized));
+            assertNotNull(read);
+            assertEquals(64, read.getWidth());
+            assertEquals(64, read.getHeight());
+        }
+
+        // the indexed image should always shrink
+        assertTrue(optimizer.optimize(encode(indexed)).length < encode(indexed).length);
+        assertArrayEquals(
+                indexed.getRGB(0, 0, 64, 64, null, 0, 64),
+                ImageIO.read(new ByteArrayInputStream(optimizer.optimize(encode(indexed)))).getRGB(0, 0, 64, 64, null, 0, 64)
+        );
+    }
+
+    @Test
+    @DisplayName("Test that ancillary chunks are removed")
+    void test_strip_chunks() throws IOException {
+        final BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(4, 4, 0xFFAA5500);
+        final byte[] original = withTextChunk(encode(image), "Comment", "Made with a very expensive image editor");
+
+        final byte[] optimized = PngOptimizer.pngOptimizer().optimize(original);
+        assertTrue(optimized.length < original.length);
+        assertTrue(!new String(optimized, StandardCharsets.ISO_8859_1).contains("tEXt"));
+
+        final PngImage decoded = PngImage.decode(optimized);
+        assertNotNull(decoded);
+        assertArrayEquals(image.getRGB(0, 0, 16, 16, null, 0, 16), decoded.pixels());
+    }
+
+    @Test
+    @DisplayName("Test that invalid images are not modified")
+    void test_invalid() throws IOException {
+        final PngOptimizer optimizer = PngOptimizer.pngOptimizer();
+
+        final byte[] text = "Not an image".getBytes(StandardCharsets.UTF_8);
+        assertSame(text, optimizer.optimize(text));
+
+        final byte[] image = encode(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB));
+        final byte[] truncated = new byte[image.length / 2];
+        System.arraycopy(image, 0, truncated, 0, truncated.length);
+        assertSame(truncated, optimizer.optimize(truncated));
+    }
+
+    @Test
+    @DisplayName("Test that results cached in memory are limited by the memory budget")
+    void test_memory_budget() throws IOException {
+        final PngOptimizer optimizer = PngOptimizer.pngOptimizer(1024);
+        for (int i = 0; i < 32; i++) {
+            final BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(i % 16, i / 16, 0xFF000000 | i);
+            final byte[] original = withTextChunk(encode(image), "Comment", "Image #" + i);
+            assertArrayEquals(optimizer.optimize(original), optimizer.optimize(original));
+            assertTrue(optimizer.memoryUsage() > 0);
+            assertTrue(optimizer.memoryUsage() <= 1024);
+        }
+
+        optimizer.clear();
+        assertEquals(0, optimizer.memoryUsage());
+
+        // nothing is cached without a budget
+        final PngOptimizer uncached = PngOptimizer.pngOptimizer(0);
+        uncached.optimize(encode(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB)));
+        assertEquals(0, uncached.memoryUsage());
+    }
+
+    @Test
+    @DisplayName("Test that results are cached in the given directory")
+    void test_persistent_cache() throws IOException {
+        final byte[] original = withTextChunk(encode(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB)), "Comment", "Cache me");
+        final byte[] optimized = PngOptimizer.pngOptimizer(tempDir).optimize(original);
+
+        final Path cached;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            cached = files.filter(path -> path.toString().endsWith(".png")).findFirst().orElse(null);
+        }
+        assertNotNull(cached);
+        assertArrayEquals(optimized, Files.readAllBytes(cached));
+
+        // a new optimizer, e.g. after a restart, uses the cached result
+        final byte[] marker = withTextChunk(optimized, "Comment", "From the cache");
+        Files.write(cached, marker);
+        assertArrayEquals(marker, PngOptimizer.pngOptimizer(tempDir).optimize(original));
+    }
+
+    @Test
+    @DisplayName("Test that the writer optimizes textures, in parallel too")
+    void test_writer() throws IOException {
+        final BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(1, 1, 0xFF00FF00);
+        final byte[] original = withTextChunk(encode(image), "Comment", "Texture");
+        final byte[] optimized = PngOptimizer.pngOptimizer().optimize(original);
+
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.icon(Writable.bytes(original));
+        resourcePack.texture(Texture.texture(Key.key("creative:item/test.png"), Writable.bytes(original)));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (final MinecraftResourcePackWriter writer : new MinecraftResourcePackWriter[] {
+                    MinecraftResourcePackWriter.builder().pngOptimizer(PngOptimizer.pngOptimizer()).build(),
+                    MinecraftResourcePackWriter.builder().pngOptimizer(PngOptimizer.pngOptimizer()).executor(executor).build()
+            }) {
+                final BuiltResourcePack built = writer.build(resourcePack);
+                final ResourcePack read = MinecraftResourcePackReader.minecraft()
+                        .readFromInputStream(new ByteArrayInputStream(built.data().toByteArray()));
+
+                final Texture texture = read.texture(Key.key("creative:item/test.png"));
+                assertNotNull(texture);
+                assertArrayEquals(optimized, texture.data().toByteArray());
+                assertNotNull(read.icon());
+                assertArrayEquals(optimized, read.icon().toByteArray());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] encode(final BufferedImage image) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+
+    // inserts a tEXt chunk after the IHDR chunk
+    private static byte[] withTextChunk(final byte[] png, final String keyword, final String text) {
+        final byte[] data = (keyword + '\0' + text).getBytes(StandardCharsets.ISO_8859_1);
+        final ByteBuffer chunk = ByteBuffer.allocate(12 + data.length);
+        chunk.putInt(data.length);
+        chunk.put("tEXt".getBytes(StandardCharsets.US_ASCII));
+        chunk.put(data);
+        final CRC32 crc = new CRC32();
+        crc.update(chunk.array(), 4, 4 + data.length);
+        chunk.putInt((int) crc.getValue());
+
+        // signature (8) + IHDR (4 + 4 + 13 + 4)
+        final int offset = 33;
+        final byte[] result = new byte[png.length + chunk.capacity()];
+        System.arraycopy(png, 0, result, 0, offset);
+        System.arraycopy(chunk.array(), 0, result, offset, chunk.capacity());
+        System.arraycopy(png, offset, result, offset + chunk.capacity(), png.length - offset);
+        return result;
+    }
+
+}
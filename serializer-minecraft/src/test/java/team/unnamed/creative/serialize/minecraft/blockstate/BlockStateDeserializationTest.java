@@ -0,0 +1,88 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.blockstate;
+
+import com.google.gson.stream.JsonReader;
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.blockstate.BlockState;
+import team.unnamed.creative.serialize.minecraft.GsonUtil;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlockStateDeserializationTest {
+
+    @Test
+    @DisplayName("Test that streaming block state deserialization gives the same result as tree deserialization")
+    void test_streaming_deserialization() throws Exception {
+        String json = "{"
+                + "\"variants\": {"
+                + "\"facing=north\": {\"model\": \"block/furnace\"},"
+                + "\"facing=east\": {\"model\": \"block/furnace\", \"y\": 90.0, \"uvlock\": true},"
+                + "\"facing=south\": [{\"model\": \"block/furnace\", \"x\": 180, \"weight\": 2.0}, {\"model\": \"block/furnace_alt\"}]"
+                + "},"
+                + "\"multipart\": ["
+                + "{\"apply\": {\"model\": \"block/fence_post\"}},"
+                + "{\"when\": {\"north\": \"true\"}, \"apply\": {\"model\": \"block/fence_side\", \"y\": 270.0, \"uvlock\": true}},"
+                + "{\"when\": {\"OR\": [{\"east\": \"true\"}, {\"west\": \"true|false\"}]}, \"apply\": [{\"model\": \"block/fence_side\"}]}"
+                + "]"
+                + "}";
+        Key key = Key.key("furnace");
+
+        BlockState fromTree = BlockStateSerializer.INSTANCE.deserializeFromJson(GsonUtil.parseString(json), key);
+        BlockState fromStream = deserializeStreaming(json, key);
+
+        // multi-variants and conditions do not implement equals,
+        // so compare their serialized forms
+        assertEquals(
+                BlockStateSerializer.INSTANCE.serializeToJsonString(fromTree),
+                BlockStateSerializer.INSTANCE.serializeToJsonString(fromStream)
+        );
+        assertEquals(90, fromStream.variants().get("facing=east").variants().get(0).y());
+    }
+
+    @Test
+    @DisplayName("Test that streaming block state deserialization rejects the same input as tree deserialization")
+    void test_streaming_deserialization_invalid() {
+        Key key = Key.key("furnace");
+        // rotation must be a number
+        String json = "{\"variants\": {\"\": {\"model\": \"block/furnace\", \"y\": \"90\"}}}";
+
+        assertThrows(IllegalStateException.class, () -> BlockStateSerializer.INSTANCE.deserializeFromJson(GsonUtil.parseString(json), key));
+        assertThrows(IllegalStateException.class, () -> deserializeStreaming(json, key));
+    }
+
+    private static BlockState deserializeStreaming(String json, Key key) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.setLenient(true);
+            return BlockStateSerializer.INSTANCE.deserializeFromJson(reader, key);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.creative.base.Readable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedZipFileTreeReaderTest implements FileTreeReaderTest {
+
+    private @TempDir Path tempDir;
+
+    @Override
+    public @NotNull FileTreeReader createReader() throws IOException {
+        return FileTreeReader.mappedZip(Paths.get("src/test/resources/ziptree.zip"));
+    }
+
+    @Test
+    @DisplayName("Test that stored and deflated entries are read from the mapped file")
+    void test_stored_and_deflated() throws IOException {
+        final Random random = new Random(0);
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            // large random data (incompressible) and large text (compressible)
+            final byte[] data = new byte[random.nextInt(200_000)];
+            random.nextBytes(data);
+            files.put("random_" + i + ".bin", data);
+            final StringBuilder text = new StringBuilder();
+            while (text.length() < data.length) {
+                text.append("{\"parent\":\"item/generated\",\"index\":").append(i).append('}');
+            }
+            files.put("text_" + i + ".json", text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        files.put("empty.txt", new byte[0]);
+
+        final Path path = tempDir.resolve("entries.zip");
+        try (OutputStream output = Files.newOutputStream(path); ZipOutputStream zip = new ZipOutputStream(output)) {
+            int i = 0;
+            for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+                final ZipEntry entry = new ZipEntry(file.getKey());
+                if (i++ % 2 == 0) {
+                    final CRC32 crc = new CRC32();
+                    crc.update(file.getValue());
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(file.getValue().length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(file.getValue());
+                zip.closeEntry();
+            }
+        }
+
+        final Map<String, Readable> contents = new LinkedHashMap<>();
+        try (FileTreeReader reader = FileTreeReader.mappedZip(path)) {
+            while (reader.hasNext()) {
+                final String name = reader.next();
+                final byte[] expected = files.get(name);
+                try (InputStream input = reader.stream()) {
+                    assertArrayEquals(expected, Readable.copyInputStream(input).readAsByteArray(), name);
+                }
+                contents.put(name, reader.content());
+            }
+        }
+
+        // contents are still valid after closing the reader
+        assertEquals(files.keySet(), contents.keySet());
+        for (final Map.Entry<String, Readable> content : contents.entrySet()) {
+            final byte[] expected = files.get(content.getKey());
+            assertArrayEquals(expected, content.getValue().readAsByteArray(), content.getKey());
+            assertArrayEquals(expected, content.getValue().asWritable().toByteArray(), content.getKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Test that ZIP64 files are read from the mapped file")
+    void test_zip64() throws IOException {
+        // more than 65535 entries, requires a ZIP64 end of central directory record
+        final int count = 70_000;
+        final Path path = tempDir.resolve("zip64.zip");
+        try (OutputStream output = Files.newOutputStream(path); ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (int i = 0; i < count; i++) {
+                zip.putNextEntry(new ZipEntry("entries/" + i + ".txt"));
+                zip.write(Integer.toString(i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        int read = 0;
+        try (FileTreeReader reader = FileTreeReader.mappedZip(path)) {
+            while (reader.hasNext()) {
+                final String name = reader.next();
+                assertTrue(name.startsWith("entries/"));
+                final String expected = name.substring("entries/".length(), name.length() - ".txt".length());
+                assertEquals(expected, reader.content().readAsUTF8String());
+                read++;
+            }
+        }
+        assertEquals(count, read);
+    }
+}
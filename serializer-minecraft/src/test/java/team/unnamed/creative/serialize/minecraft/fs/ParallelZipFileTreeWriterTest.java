@@ -0,0 +1,136 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.base.Writable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelZipFileTreeWriterTest extends ZipFileTreeWriterTest {
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterAll
+    static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    @Override
+    public FileTreeWriter createWriter() throws IOException {
+        return FileTreeWriter.parallelZip(Files.newOutputStream(zipPath()), EXECUTOR);
+    }
+
+    @Override
+    public void assertWritten() throws IOException {
+        // read it sequentially (local headers) and
+        // using the central directory
+        super.assertWritten();
+        try (ZipFile zip = new ZipFile(zipPath().toFile())) {
+            assertEquals(6, zip.size());
+            assertEquals("Hello there", readString(zip, "file.txt"));
+            assertEquals("File in directory", readString(zip, "dir/file.txt"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test that the parallel ZIP output is always the same")
+    void test_reproducible_output() {
+        assertArrayEquals(writeEntries(2000), writeEntries(2000));
+    }
+
+    @Test
+    @DisplayName("Test that ZIP64 is used when there are too many entries")
+    void test_zip64_entry_count() throws IOException {
+        final int count = 70_000;
+        final Path path = zipPath();
+        Files.write(path, writeEntries(count));
+
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            assertEquals(count, zip.size());
+
+            int index = 0;
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                assertEquals("entries/" + index + ".txt", entry.getName());
+                assertEquals("Entry #" + index, readString(zip, entry.getName()));
+                index++;
+            }
+            assertEquals(count, index);
+        }
+    }
+
+    @Test
+    @DisplayName("Test that the compressed entries cache does not change the output")
+    void test_entry_cache() {
+        final ZipEntryCache cache = ZipEntryCache.zipEntryCache();
+
+        assertArrayEquals(writeEntries(100, "", null), writeEntries(100, "", cache));
+        assertEquals(100, cache.size());
+
+        // rebuild with a single changed entry and some removed entries
+        assertArrayEquals(writeEntries(80, "changed", null), writeEntries(80, "changed", cache));
+        assertEquals(80, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    private static byte[] writeEntries(final int count) {
+        return writeEntries(count, "", null);
+    }
+
+    private static byte[] writeEntries(final int count, final String changed, final ZipEntryCache cache) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (FileTreeWriter writer = FileTreeWriter.parallelZip(output, EXECUTOR, cache)) {
+            for (int i = 0; i < count; i++) {
+                writer.write("entries/" + i + ".txt", Writable.stringUtf8("Entry #" + i + (i == 5 ? changed : "")));
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static String readString(final ZipFile zip, final String name) throws IOException {
+        try (InputStream input = zip.getInputStream(zip.getEntry(name))) {
+            return new String(Writable.copyInputStream(input).toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}
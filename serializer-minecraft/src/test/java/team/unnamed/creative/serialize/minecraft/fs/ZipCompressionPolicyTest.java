@@ -0,0 +1,226 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.fs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipCompressionPolicyTest {
+
+    private static final byte[] TEXT = repeat("Hello world! ", 100).getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RANDOM = new byte[4096];
+
+    static {
+        new Random(0).nextBytes(RANDOM);
+    }
+
+    private @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("Test the store-by-extension compression policy")
+    void test_store_extensions() {
+        final ZipCompressionPolicy policy = ZipCompressionPolicy.storeExtensions("png", ".OGG");
+        assertTrue(policy.store("assets/minecraft/textures/item/diamond.png"));
+        assertTrue(policy.store("assets/minecraft/sounds/music.ogg"));
+        assertTrue(policy.store("UPPERCASE.PNG"));
+        assertFalse(policy.store("assets/minecraft/models/item/diamond.json"));
+        assertFalse(policy.store("png"));
+        assertFalse(ZipCompressionPolicy.deflate().store("texture.png"));
+    }
+
+    @Test
+    @DisplayName("Test that the sequential ZIP writer stores the entries determined by the policy")
+    void test_sequential_stored_entries() throws IOException {
+        final Path path = tempDir.resolve("sequential.zip");
+        try (FileTreeWriter writer = FileTreeWriter.zip(
+                new ZipOutputStream(Files.newOutputStream(path)),
+                ZipEntryLifecycleHandler.DEFAULT,
+                ZipCompressionPolicy.storeCompressedMedia()
+        )) {
+            write(writer);
+        }
+        assertEntries(path, "texture.png", "stream.ogg", "empty.png");
+
+        // stored entries must be readable sequentially too, without data descriptors
+        final Map<String, byte[]> read = new HashMap<>();
+        try (ZipInputStream input = new ZipInputStream(Files.newInputStream(path))) {
+            ZipEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                read.put(entry.getName(), Writable.copyInputStream(input).toByteArray());
+            }
+        }
+        assertArrayEquals(RANDOM, read.get("texture.png"));
+        assertArrayEquals(RANDOM, read.get("stream.ogg"));
+        assertArrayEquals(TEXT, read.get("text.json"));
+    }
+
+    @Test
+    @DisplayName("Test that the parallel ZIP writer stores the entries determined by the policy")
+    void test_parallel_stored_entries() throws IOException {
+        final Path path = tempDir.resolve("parallel.zip");
+        try (FileTreeWriter writer = FileTreeWriter.parallelZip(
+                Files.newOutputStream(path),
+                Runnable::run,
+                null,
+                ZipCompressionPolicy.storeCompressedMedia()
+        )) {
+            write(writer);
+        }
+        assertEntries(path, "texture.png", "stream.ogg", "empty.png");
+    }
+
+    @Test
+    @DisplayName("Test that the parallel ZIP writer stores the entries that do not shrink")
+    void test_parallel_incompressible_entries() throws IOException {
+        final Path path = tempDir.resolve("incompressible.zip");
+        final ZipEntryCache cache = ZipEntryCache.zipEntryCache();
+        for (int i = 0; i < 2; i++) {
+            // the second time, from the cache
+            try (FileTreeWriter writer = FileTreeWriter.parallelZip(
+                    Files.newOutputStream(path),
+                    Runnable::run,
+                    cache,
+                    ZipCompressionPolicy.storeIncompressible(0.05)
+            )) {
+                writer.write("random.bin", Writable.bytes(RANDOM));
+                writer.write("text.json", Writable.bytes(TEXT));
+            }
+            assertEntries(path, "random.bin");
+        }
+    }
+
+    @Test
+    @DisplayName("Test that cached entries compressed with another policy are compressed again")
+    void test_entry_cache_policy() throws IOException {
+        final Path path = tempDir.resolve("cached.zip");
+        final ZipEntryCache cache = ZipEntryCache.zipEntryCache();
+        final ZipCompressionPolicy[] policies = {ZipCompressionPolicy.deflate(), ZipCompressionPolicy.storeIncompressible(0.05)};
+        for (final ZipCompressionPolicy policy : policies) {
+            try (FileTreeWriter writer = FileTreeWriter.parallelZip(Files.newOutputStream(path), Runnable::run, cache, policy)) {
+                writer.write("random.bin", Writable.bytes(RANDOM));
+                writer.write("text.json", Writable.bytes(TEXT));
+            }
+        }
+        assertEntries(path, "random.bin");
+    }
+
+    @Test
+    @DisplayName("Test that combined custom policies don't share cached entries")
+    void test_entry_cache_combined_policy() throws IOException {
+        final Path path = tempDir.resolve("combined.zip");
+        final ZipEntryCache cache = ZipEntryCache.zipEntryCache();
+        final ZipCompressionPolicy[] policies = {
+                ((ZipCompressionPolicy) p -> false).or(ZipCompressionPolicy.storeCompressedMedia()),
+                ((ZipCompressionPolicy) p -> p.endsWith(".bin")).or(ZipCompressionPolicy.storeCompressedMedia())
+        };
+        for (final ZipCompressionPolicy policy : policies) {
+            try (FileTreeWriter writer = FileTreeWriter.parallelZip(Files.newOutputStream(path), Runnable::run, cache, policy)) {
+                writer.write("random.bin", Writable.bytes(RANDOM));
+                writer.write("text.json", Writable.bytes(TEXT));
+            }
+        }
+        assertEntries(path, "random.bin");
+    }
+
+    @Test
+    @DisplayName("Test that the sequential resource-pack writer stores the entries that do not shrink")
+    void test_sequential_writer_incompressible_entries() throws IOException {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.unknownFile("random.bin", Writable.bytes(RANDOM));
+        resourcePack.unknownFile("text.json", Writable.bytes(TEXT));
+
+        final Path path = tempDir.resolve("writer.zip");
+        MinecraftResourcePackWriter.builder()
+                .prettyPrinting(false)
+                .compressionPolicy(ZipCompressionPolicy.storeIncompressible(0.05))
+                .build()
+                .buildToZipFile(path, resourcePack);
+
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            assertEquals(ZipEntry.STORED, zip.getEntry("random.bin").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("text.json").getMethod());
+        }
+    }
+
+    private static void write(final FileTreeWriter writer) throws IOException {
+        writer.write("texture.png", Writable.bytes(RANDOM));
+        writer.write("text.json", Writable.bytes(TEXT));
+        try (OutputStream output = writer.openStream("stream.ogg")) {
+            output.write(RANDOM, 0, 100);
+            output.write(RANDOM, 100, RANDOM.length - 100);
+        }
+        writer.write("empty.png", Writable.EMPTY);
+    }
+
+    private static void assertEntries(final Path path, final String... stored) throws IOException {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            for (final ZipEntry entry : Collections.list(zip.entries())) {
+                final boolean expectStored = Arrays.asList(stored).contains(entry.getName());
+                assertEquals(expectStored ? ZipEntry.STORED : ZipEntry.DEFLATED, entry.getMethod(), entry.getName());
+                if (expectStored) {
+                    assertEquals(entry.getSize(), entry.getCompressedSize(), entry.getName());
+                }
+                try (InputStream input = zip.getInputStream(entry)) {
+                    final byte[] data = Writable.copyInputStream(input).toByteArray();
+                    assertEquals(entry.getSize(), data.length);
+                    assertArrayEquals(entry.getName().endsWith(".json") ? TEXT : Arrays.copyOf(RANDOM, data.length), data);
+                }
+            }
+        }
+    }
+
+    private static String repeat(final String string, final int times) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(string);
+        }
+        return builder.toString();
+    }
+
+}
@@ -23,6 +23,7 @@
  */
 package team.unnamed.creative.serialize.minecraft.model;
 
+import com.google.gson.stream.JsonReader;
 import net.kyori.adventure.key.Key;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -36,11 +37,15 @@ import team.unnamed.creative.model.ElementRotation;
 import team.unnamed.creative.model.Model;
 import team.unnamed.creative.model.ModelTexture;
 import team.unnamed.creative.model.ModelTextures;
+import team.unnamed.creative.serialize.minecraft.GsonUtil;
 import team.unnamed.creative.texture.TextureUV;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.HashMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ModelDeserializationTest {
 
@@ -122,4 +127,69 @@ class ModelDeserializationTest {
         );
     }
 
+    @Test
+    @DisplayName("Test that streaming model deserialization gives the same result as tree deserialization")
+    void test_streaming_deserialization() throws Exception {
+        for (String name : new String[]{"cross", "cube_all", "cube", "door_top_left_open", "item_with_overrides"}) {
+            String json = Readable.resource(getClass().getClassLoader(), "model/" + name + ".json").readAsUTF8String();
+            Key key = Key.key("block/" + name);
+
+            Model fromTree = ModelSerializer.INSTANCE.deserializeFromJson(GsonUtil.parseString(json), key);
+            Model fromStream;
+            try (JsonReader reader = new JsonReader(new StringReader(json))) {
+                fromStream = ModelSerializer.INSTANCE.deserializeFromJson(reader, key);
+            }
+            assertEquals(fromTree, fromStream, "Model " + name);
+        }
+    }
+
+    @Test
+    @DisplayName("Test that streaming model deserialization handles numbers like tree deserialization")
+    void test_streaming_deserialization_numbers() throws Exception {
+        // integers written as decimals are truncated and floats are parsed
+        // directly (no double rounding) by both deserializers
+        String json = "{\"elements\": [{"
+                + "\"from\": [1.00000017881393432617187499, 0.1, 0],"
+                + "\"to\": [16, 15.9999999, 1e1],"
+                + "\"rotation\": {\"origin\": [8, 8, 8], \"axis\": \"y\", \"angle\": 22.5},"
+                + "\"faces\": {\"north\": {\"texture\": \"#all\", \"uv\": [0, 0.5, 16, 16], \"rotation\": 90.0, \"tintindex\": 1.0}}"
+                + "}]}";
+        Key key = Key.key("block/numbers");
+
+        Model fromTree = ModelSerializer.INSTANCE.deserializeFromJson(GsonUtil.parseString(json), key);
+        Model fromStream = deserializeStreaming(json, key);
+        assertEquals(fromTree, fromStream);
+
+        ElementFace face = fromStream.elements().get(0).faces().get(CubeFace.NORTH);
+        assertEquals(90, face.rotation());
+        assertEquals(1, face.tintIndex());
+    }
+
+    @Test
+    @DisplayName("Test that streaming model deserialization rejects the same input as tree deserialization")
+    void test_streaming_deserialization_invalid() {
+        Key key = Key.key("block/invalid");
+        String[] invalid = {
+                // element without faces
+                "{\"elements\": [{\"from\": [0, 0, 0], \"to\": [16, 16, 16]}]}",
+                // face without texture
+                "{\"elements\": [{\"from\": [0, 0, 0], \"to\": [16, 16, 16], \"faces\": {\"up\": {}}}]}",
+                // non-numeric integer
+                "{\"elements\": [{\"from\": [0, 0, 0], \"to\": [16, 16, 16], \"faces\": {\"up\": {\"texture\": \"#all\", \"tintindex\": \"1\"}}}]}",
+                // non-numeric texture layer
+                "{\"textures\": {\"layerX\": \"item/diamond\"}}"
+        };
+        for (String json : invalid) {
+            assertThrows(IllegalStateException.class, () -> ModelSerializer.INSTANCE.deserializeFromJson(GsonUtil.parseString(json), key));
+            assertThrows(IllegalStateException.class, () -> deserializeStreaming(json, key));
+        }
+    }
+
+    private static Model deserializeStreaming(String json, Key key) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.setLenient(true);
+            return ModelSerializer.INSTANCE.deserializeFromJson(reader, key);
+        }
+    }
+
 }
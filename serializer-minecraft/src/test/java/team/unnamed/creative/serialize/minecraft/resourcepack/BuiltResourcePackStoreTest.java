@@ -0,0 +1,164 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.resourcepack;
+
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.serialize.minecraft.BuiltResourcePackStore;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.serialize.minecraft.PngOptimizer;
+import team.unnamed.creative.serialize.minecraft.fs.ZipCompressionPolicy;
+import team.unnamed.creative.texture.Texture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BuiltResourcePackStoreTest {
+
+    private @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("Test that unchanged resource-packs are not built again")
+    void test_store() throws IOException {
+        final ResourcePack resourcePack = createResourcePack("Store test");
+        final BuiltResourcePack expected = MinecraftResourcePackWriter.minecraft().build(resourcePack);
+
+        final BuiltResourcePackStore store = BuiltResourcePackStore.store(tempDir);
+        final String fingerprint = store.fingerprint(resourcePack);
+        assertNull(store.get(fingerprint));
+
+        final BuiltResourcePack built = store.build(resourcePack);
+        assertEquals(expected.hash(), built.hash());
+        assertArrayEquals(expected.data().toByteArray(), built.data().toByteArray());
+
+        final Path zip = tempDir.resolve(built.hash() + ".zip");
+        final FileTime modified = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(zip, modified);
+
+        // a new store, e.g. after a restart, with an identical resource-pack
+        final BuiltResourcePackStore reopened = BuiltResourcePackStore.store(tempDir);
+        final ResourcePack identical = createResourcePack("Store test");
+        assertEquals(fingerprint, reopened.fingerprint(identical));
+        assertNotNull(reopened.get(fingerprint));
+
+        final BuiltResourcePack stored = reopened.build(identical);
+        assertEquals(expected.hash(), stored.hash());
+        assertArrayEquals(expected.data().toByteArray(), stored.data().toByteArray());
+        // not built again
+        assertEquals(modified, Files.getLastModifiedTime(zip));
+
+        // changed resource-packs have a different fingerprint
+        final ResourcePack changed = createResourcePack("Changed");
+        assertNotEquals(fingerprint, reopened.fingerprint(changed));
+        assertEquals(MinecraftResourcePackWriter.minecraft().build(changed).hash(), reopened.build(changed).hash());
+    }
+
+    @Test
+    @DisplayName("Test that the fingerprint depends on the writer configuration")
+    void test_writer_configuration() {
+        final ResourcePack resourcePack = createResourcePack("Configuration test");
+        final String deflate = BuiltResourcePackStore.store(tempDir).fingerprint(resourcePack);
+        final String stored = BuiltResourcePackStore.store(tempDir, MinecraftResourcePackWriter.builder()
+                .prettyPrinting(false)
+                .compressionPolicy(ZipCompressionPolicy.storeCompressedMedia())
+                .build()).fingerprint(resourcePack);
+        final String optimized = BuiltResourcePackStore.store(tempDir, MinecraftResourcePackWriter.builder()
+                .prettyPrinting(false)
+                .compressionPolicy(ZipCompressionPolicy.storeCompressedMedia())
+                .pngOptimizer(PngOptimizer.pngOptimizer())
+                .build()).fingerprint(resourcePack);
+
+        assertNotEquals(deflate, stored);
+        assertNotEquals(stored, optimized);
+
+        // equal configurations, but different instances
+        assertEquals(stored, BuiltResourcePackStore.store(tempDir, MinecraftResourcePackWriter.builder()
+                .prettyPrinting(false)
+                .compressionPolicy(ZipCompressionPolicy.storeCompressedMedia())
+                .build()).fingerprint(resourcePack));
+    }
+
+    @Test
+    @DisplayName("Test that builds with unidentifiable compression policies are not stored")
+    void test_custom_compression_policy() throws IOException {
+        final ResourcePack resourcePack = createResourcePack("Custom policy test");
+        final BuiltResourcePackStore store = BuiltResourcePackStore.store(tempDir, MinecraftResourcePackWriter.builder()
+                .prettyPrinting(false)
+                .compressionPolicy(path -> path.endsWith(".png"))
+                .build());
+        assertNull(store.fingerprint(resourcePack));
+
+        final BuiltResourcePack built = store.build(resourcePack);
+        assertNotNull(built);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+
+        // unless the policy has a key
+        final BuiltResourcePackStore keyed = BuiltResourcePackStore.store(tempDir, MinecraftResourcePackWriter.builder()
+                .prettyPrinting(false)
+                .compressionPolicy(new ZipCompressionPolicy() {
+                    @Override
+                    public boolean store(final String path) {
+                        return path.endsWith(".png");
+                    }
+
+                    @Override
+                    public String key() {
+                        return "png";
+                    }
+                })
+                .build());
+        assertNotNull(keyed.fingerprint(resourcePack));
+        assertEquals(built.hash(), keyed.build(resourcePack).hash());
+        assertNotNull(keyed.get(keyed.fingerprint(resourcePack)));
+    }
+
+    private static ResourcePack createResourcePack(final String description) {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.packMeta(15, description);
+        for (int i = 0; i < 10; i++) {
+            resourcePack.texture(Texture.texture(
+                    Key.key("test", "item/texture_" + i + ".png"),
+                    Writable.bytes(new byte[]{(byte) i})
+            ));
+        }
+        return resourcePack;
+    }
+
+}
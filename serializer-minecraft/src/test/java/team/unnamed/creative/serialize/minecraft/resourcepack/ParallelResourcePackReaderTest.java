@@ -0,0 +1,124 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.resourcepack;
+
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.lang.Language;
+import team.unnamed.creative.metadata.Metadata;
+import team.unnamed.creative.metadata.animation.AnimationMeta;
+import team.unnamed.creative.model.Model;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackReader;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.texture.Texture;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ParallelResourcePackReaderTest {
+
+    private @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("Test that the parallel reader result is the same as the sequential reader result")
+    void test_parallel_read() throws IOException {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.packMeta(15, "Parallel reader test");
+
+        final Overlay overlay = Overlay.overlay("newer");
+        resourcePack.overlay(overlay);
+
+        final Metadata animated = Metadata.metadata()
+                .add(AnimationMeta.animation().frameTime(2).build())
+                .build();
+
+        for (int i = 0; i < 300; i++) {
+            final Model model = Model.model()
+                    .key(Key.key("test", "item/model_" + i))
+                    .parent(Key.key("item/generated"))
+                    .build();
+            resourcePack.model(model);
+            overlay.model(model);
+
+            final Texture texture = Texture.texture(
+                    Key.key("test", "item/texture_" + i + ".png"),
+                    Writable.bytes(new byte[]{(byte) i}),
+                    i % 3 == 0 ? animated : Metadata.empty()
+            );
+            resourcePack.texture(texture);
+            if (i % 2 == 0) {
+                overlay.texture(texture);
+            }
+        }
+        resourcePack.language(Language.language(Key.key("test", "en_us"), Collections.singletonMap("test.key", "Test")));
+
+        final Path path = tempDir.resolve("resource-pack.zip");
+        MinecraftResourcePackWriter.minecraft().writeToZipFile(path, resourcePack);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final MinecraftResourcePackReader parallelReader = MinecraftResourcePackReader.builder()
+                    .executor(executor)
+                    .build();
+
+            final ResourcePack sequential = MinecraftResourcePackReader.minecraft().readFromZipFile(path);
+            final ResourcePack parallel = parallelReader.readFromZipFile(path);
+            final ResourcePack parallelFromStream;
+            try (InputStream input = Files.newInputStream(path)) {
+                parallelFromStream = parallelReader.readFromInputStream(input);
+            }
+
+            assertEquals(300, parallel.models().size());
+            assertEquals(300, parallel.textures().size());
+            assertNotNull(parallel.overlay("newer"));
+            assertEquals(150, parallel.overlay("newer").textures().size());
+            assertEquals(animated, parallel.texture(Key.key("test", "item/texture_3.png")).meta());
+
+            final byte[] expected = build(sequential);
+            assertArrayEquals(expected, build(parallel));
+            assertArrayEquals(expected, build(parallelFromStream));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] build(final ResourcePack resourcePack) throws IOException {
+        return MinecraftResourcePackWriter.minecraft().build(resourcePack).data().toByteArray();
+    }
+
+}
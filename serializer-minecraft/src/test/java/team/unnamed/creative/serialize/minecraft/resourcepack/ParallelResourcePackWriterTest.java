@@ -0,0 +1,139 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.resourcepack;
+
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.lang.Language;
+import team.unnamed.creative.model.Model;
+import team.unnamed.creative.model.ModelTexture;
+import team.unnamed.creative.model.ModelTextures;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.serialize.minecraft.fs.FileTreeWriter;
+import team.unnamed.creative.texture.Texture;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelResourcePackWriterTest {
+
+    @Test
+    @DisplayName("Test that the parallel writer output is reproducible and equivalent to the sequential writer output")
+    void test_parallel_output_is_reproducible() throws IOException {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.packMeta(15, "Parallel writer test");
+
+        final Overlay overlay = Overlay.overlay("newer");
+        resourcePack.overlay(overlay);
+
+        for (int i = 0; i < 500; i++) {
+            final Model model = Model.model()
+                    .key(Key.key("test", "item/model_" + i))
+                    .parent(Key.key("item/generated"))
+                    .textures(ModelTextures.builder()
+                            .layers(ModelTexture.ofKey(Key.key("test", "item/texture_" + i)))
+                            .build())
+                    .build();
+            resourcePack.model(model);
+            overlay.model(model);
+            resourcePack.texture(Texture.texture(
+                    Key.key("test", "item/texture_" + i + ".png"),
+                    Writable.bytes(new byte[]{(byte) i, (byte) (i >> 8)})
+            ));
+            resourcePack.unknownFile("unknown/file_" + i + ".txt", Writable.stringUtf8("Unknown file #" + i));
+        }
+
+        final Map<String, String> translations = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            translations.put("test.translation." + i, "Translation #" + i);
+        }
+        resourcePack.language(Language.language(Key.key("test", "en_us"), translations));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final MinecraftResourcePackWriter parallelWriter = MinecraftResourcePackWriter.builder()
+                    .executor(executor)
+                    .build();
+
+            // serialization output must be the same
+            assertArrayEquals(
+                    writeZip(MinecraftResourcePackWriter.minecraft(), resourcePack),
+                    writeZip(parallelWriter, resourcePack)
+            );
+
+            // built (parallel compressed) output must always be the same
+            final BuiltResourcePack built = parallelWriter.build(resourcePack);
+            final BuiltResourcePack rebuilt = parallelWriter.build(resourcePack);
+            assertEquals(built.hash(), rebuilt.hash());
+            assertArrayEquals(built.data().toByteArray(), rebuilt.data().toByteArray());
+
+            // and have the same contents as the sequential output
+            assertEquals(
+                    readEntries(MinecraftResourcePackWriter.minecraft().build(resourcePack)),
+                    readEntries(built)
+            );
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] writeZip(final MinecraftResourcePackWriter writer, final ResourcePack resourcePack) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (FileTreeWriter tree = FileTreeWriter.zip(new ZipOutputStream(output))) {
+            writer.write(tree, resourcePack);
+        }
+        return output.toByteArray();
+    }
+
+    private static Map<String, String> readEntries(final BuiltResourcePack builtResourcePack) throws IOException {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream input = new ZipInputStream(new ByteArrayInputStream(builtResourcePack.data().toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                final byte[] bytes = Writable.copyInputStream(input).toByteArray();
+                entries.put(entry.getName(), Base64.getEncoder().encodeToString(bytes));
+            }
+        }
+        return entries;
+    }
+
+}
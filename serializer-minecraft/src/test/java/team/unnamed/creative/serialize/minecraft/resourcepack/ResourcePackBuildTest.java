@@ -0,0 +1,112 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.serialize.minecraft.resourcepack;
+
+import net.kyori.adventure.key.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.model.Model;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.texture.Texture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResourcePackBuildTest {
+
+    private @TempDir Path tempDir;
+
+    @Test
+    @DisplayName("Test that building to a ZIP file gives the same result as building in memory")
+    void test_build_to_zip_file() throws IOException {
+        final ResourcePack resourcePack = createResourcePack();
+        assertBuildsToSameZip(MinecraftResourcePackWriter.minecraft(), resourcePack, tempDir.resolve("sequential.zip"));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final MinecraftResourcePackWriter writer = MinecraftResourcePackWriter.builder()
+                    .executor(executor)
+                    .build();
+            assertBuildsToSameZip(writer, resourcePack, tempDir.resolve("parallel.zip"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test that failed builds don't leave a partial ZIP file")
+    void test_build_to_zip_file_failure() {
+        final ResourcePack resourcePack = createResourcePack();
+        resourcePack.unknownFile("broken.bin", new Writable() {
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                throw new IOException("Broken file");
+            }
+        });
+
+        final Path path = tempDir.resolve("failed.zip");
+        assertThrows(UncheckedIOException.class, () -> MinecraftResourcePackWriter.minecraft().buildToZipFile(path, resourcePack));
+        assertFalse(Files.exists(path));
+    }
+
+    private static void assertBuildsToSameZip(final MinecraftResourcePackWriter writer, final ResourcePack resourcePack, final Path path) throws IOException {
+        final BuiltResourcePack inMemory = writer.build(resourcePack);
+        final BuiltResourcePack inFile = writer.buildToZipFile(path, resourcePack);
+
+        assertEquals(inMemory.hash(), inFile.hash());
+        assertArrayEquals(inMemory.data().toByteArray(), Files.readAllBytes(path));
+        assertArrayEquals(Files.readAllBytes(path), inFile.data().toByteArray());
+    }
+
+    private static ResourcePack createResourcePack() {
+        final ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.packMeta(15, "Build test");
+        for (int i = 0; i < 100; i++) {
+            resourcePack.model(Model.model()
+                    .key(Key.key("test", "item/model_" + i))
+                    .parent(Key.key("item/generated"))
+                    .build());
+            resourcePack.texture(Texture.texture(
+                    Key.key("test", "item/texture_" + i + ".png"),
+                    Writable.bytes(new byte[]{(byte) i})
+            ));
+        }
+        return resourcePack;
+    }
+
+}
@@ -7,4 +7,12 @@ description = "An standalone resource-pack server for the creative API"
 dependencies {
     api(project(":creative-api"))
     testImplementation(project(":creative-serializer-minecraft"))
-}
\ No newline at end of file
+}
+
+tasks.test {
+    // SlowDownloadLoadTest is disabled unless enabled using
+    // "-Pcreative.loadTest=true" (and "-Pcreative.loadTest.clients=<n>")
+    for (name in listOf("creative.loadTest", "creative.loadTest.clients")) {
+        findProperty(name)?.let { systemProperty(name, it) }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the bandwidth and the amount of concurrent resource-pack
+ * downloads of a {@link ResourcePackServer}.
+ *
+ * <p>The total bandwidth is shaped using a global token bucket, and
+ * every download is also limited by its own per-connection rate. Requests
+ * received while the maximum amount of concurrent downloads is reached are
+ * rejected with a {@code 503 Service Unavailable} status and a
+ * {@code Retry-After} header.</p>
+ *
+ * <p>All the limits can be changed at any time, even while the
+ * server is running, changes apply to the ongoing downloads too.
+ * Zero or negative limits mean no limit.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * DownloadLimiter limiter = DownloadLimiter.limiter();
+ * limiter.maxBandwidth(50L * 1024 * 1024); // 50MiB/s in total
+ * limiter.maxConnectionBandwidth(2L * 1024 * 1024); // 2MiB/s per download
+ * limiter.maxConcurrentDownloads(200);
+ *
+ * ResourcePackServer server = ResourcePackServer.server()
+ *         .address(7270)
+ *         .pack(pack)
+ *         .limiter(limiter)
+ *         .build();
+ * }</pre>
+ *
+ * @see ResourcePackServer.Builder#limiter(DownloadLimiter)
+ * @since 1.7.0
+ */
+public final class DownloadLimiter {
+    private volatile long maxBandwidth;
+    private volatile long maxConnectionBandwidth;
+    private volatile int maxConcurrentDownloads;
+    private volatile int retryAfter = 5;
+
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+    private final TokenBucket bandwidth = new TokenBucket(() -> maxBandwidth);
+
+    private DownloadLimiter() {
+    }
+
+    /**
+     * Creates a new {@link DownloadLimiter} instance, without limits.
+     *
+     * @return The created limiter
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    public static @NotNull DownloadLimiter limiter() {
+        return new DownloadLimiter();
+    }
+
+    /**
+     * Returns the maximum total bandwidth, in bytes per second.
+     *
+     * @return The maximum total bandwidth, zero if not limited
+     * @since 1.7.0
+     */
+    public long maxBandwidth() {
+        return maxBandwidth;
+    }
+
+    /**
+     * Sets the maximum total bandwidth, shared by all the downloads.
+     *
+     * @param maxBandwidth The maximum bandwidth, in bytes per second,
+     *                     zero or negative to not limit it
+     * @since 1.7.0
+     */
+    public void maxBandwidth(final long maxBandwidth) {
+        this.maxBandwidth = Math.max(maxBandwidth, 0L);
+    }
+
+    /**
+     * Returns the maximum bandwidth of every download,
+     * in bytes per second.
+     *
+     * @return The maximum bandwidth per download, zero if not limited
+     * @since 1.7.0
+     */
+    public long maxConnectionBandwidth() {
+        return maxConnectionBandwidth;
+    }
+
+    /**
+     * Sets the maximum bandwidth of every download.
+     *
+     * @param maxConnectionBandwidth The maximum bandwidth per download, in
+     *                               bytes per second, zero or negative to not
+     *                               limit it
+     * @since 1.7.0
+     */
+    public void maxConnectionBandwidth(final long maxConnectionBandwidth) {
+        this.maxConnectionBandwidth = Math.max(maxConnectionBandwidth, 0L);
+    }
+
+    /**
+     * Returns the maximum amount of concurrent downloads.
+     *
+     * @return The maximum amount of concurrent downloads, zero if not limited
+     * @since 1.7.0
+     */
+    public int maxConcurrentDownloads() {
+        return maxConcurrentDownloads;
+    }
+
+    /**
+     * Sets the maximum amount of concurrent downloads, requests received
+     * while this limit is reached are rejected with a 503 status.
+     *
+     * @param maxConcurrentDownloads The maximum amount of concurrent downloads,
+     *                               zero or negative to not limit it
+     * @since 1.7.0
+     */
+    public void maxConcurrentDownloads(final int maxConcurrentDownloads) {
+        this.maxConcurrentDownloads = Math.max(maxConcurrentDownloads, 0);
+    }
+
+    /**
+     * Returns the value of the {@code Retry-After} header sent
+     * with rejected requests, in seconds.
+     *
+     * @return The retry delay, in seconds
+     * @since 1.7.0
+     */
+    public int retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Sets the value of the {@code Retry-After} header sent
+     * with rejected requests, defaults to 5 seconds.
+     *
+     * @param retryAfter The retry delay, in seconds
+     * @since 1.7.0
+     */
+    public void retryAfter(final int retryAfter) {
+        if (retryAfter < 0) {
+            throw new IllegalArgumentException("retryAfter must be non-negative");
+        }
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the amount of downloads currently in progress.
+     *
+     * @return The amount of active downloads
+     * @since 1.7.0
+     */
+    public int activeDownloads() {
+        return activeDownloads.get();
+    }
+
+    /**
+     * Starts a download if the maximum amount of concurrent
+     * downloads is not reached, must be followed by {@link #release()}
+     *
+     * @return True if the download can start
+     */
+    boolean tryAdmit() {
+        while (true) {
+            final int active = activeDownloads.get();
+            final int max = maxConcurrentDownloads;
+            if (max > 0 && active >= max) {
+                return false;
+            }
+            if (activeDownloads.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finishes a download started by {@link #tryAdmit()}
+     */
+    void release() {
+        activeDownloads.decrementAndGet();
+    }
+
+    @NotNull TokenBucket bandwidth() {
+        return bandwidth;
+    }
+
+    @NotNull TokenBucket newConnectionBandwidth() {
+        return new TokenBucket(() -> maxConnectionBandwidth);
+    }
+
+    /**
+     * Takes up to the given amount of bytes from the given
+     * connection bucket and from the global bucket, without blocking.
+     *
+     * @param connection The connection bucket
+     * @param max        The maximum amount of bytes
+     * @return The amount of bytes that can be sent, may be zero
+     */
+    long tryAcquire(final @NotNull TokenBucket connection, final long max) {
+        final long connectionGranted = connection.tryAcquire(max);
+        if (connectionGranted <= 0) {
+            return 0;
+        }
+        final long granted = bandwidth.tryAcquire(connectionGranted);
+        if (granted < connectionGranted) {
+            connection.refund(connectionGranted - granted);
+        }
+        return granted;
+    }
+
+    /**
+     * Gives back bytes taken by {@link #tryAcquire(TokenBucket, long)}
+     * but not sent.
+     *
+     * @param connection The connection bucket
+     * @param amount     The amount of bytes
+     */
+    void refund(final @NotNull TokenBucket connection, final long amount) {
+        connection.refund(amount);
+        bandwidth.refund(amount);
+    }
+
+    long nanosUntilAvailable(final @NotNull TokenBucket connection, final long amount) {
+        return Math.max(connection.nanosUntilAvailable(amount), bandwidth.nanosUntilAvailable(amount));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "DownloadLimiter{" +
+                "maxBandwidth=" + maxBandwidth +
+                ", maxConnectionBandwidth=" + maxConnectionBandwidth +
+                ", maxConcurrentDownloads=" + maxConcurrentDownloads +
+                ", activeDownloads=" + activeDownloads +
+                '}';
+    }
+}
@@ -0,0 +1,580 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects metrics about the requests handled by a {@link ResourcePackServer}:
+ * request counts by {@link Outcome}, sent bytes, latency histograms, in-flight
+ * requests and a breakdown by client version and pack format.
+ *
+ * <p>Metrics are recorded using lock-free counters, and can be
+ * polled at any time using {@link #snapshot()}, counters are never
+ * reset, so monitoring systems should compute deltas between
+ * snapshots.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * DownloadMetrics metrics = DownloadMetrics.metrics();
+ * ResourcePackServer server = ResourcePackServer.server()
+ *         .address(7270)
+ *         .pack(pack)
+ *         .metrics(metrics)
+ *         .build();
+ *
+ * // later...
+ * DownloadMetrics.Snapshot snapshot = metrics.snapshot();
+ * long served = snapshot.requests(DownloadMetrics.Outcome.SUCCESS);
+ * long p99 = snapshot.transferTime().percentile(0.99);
+ * }</pre>
+ *
+ * @see ResourcePackServer.Builder#metrics(DownloadMetrics)
+ * @since 1.7.0
+ */
+public final class DownloadMetrics {
+    // histogram bucket upper bounds, in milliseconds
+    private static final long[] BUCKET_BOUNDS = {
+            1, 2, 5, 10, 25, 50, 100, 250, 500,
+            1000, 2500, 5000, 10000, 30000, 60000, Long.MAX_VALUE
+    };
+    // max distinct client versions and pack formats, client
+    // versions are sent by clients, so they can't be trusted
+    private static final int MAX_BREAKDOWN_KEYS = 256;
+    private static final String OTHER_CLIENT_VERSION = "other";
+    private static final int OTHER_PACK_FORMAT = -1;
+
+    private final Map<Outcome, LongAdder> requests = new EnumMap<>(Outcome.class);
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder unknownClients = new LongAdder();
+    private final HistogramRecorder timeToFirstByte = new HistogramRecorder();
+    private final HistogramRecorder transferTime = new HistogramRecorder();
+    private final ConcurrentMap<String, LongAdder> clientVersions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, LongAdder> packFormats = new ConcurrentHashMap<>();
+
+    private DownloadMetrics() {
+        for (final Outcome outcome : Outcome.values()) {
+            requests.put(outcome, new LongAdder());
+        }
+    }
+
+    /**
+     * Creates a new, empty, {@link DownloadMetrics} instance.
+     *
+     * @return The created metrics
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    public static @NotNull DownloadMetrics metrics() {
+        return new DownloadMetrics();
+    }
+
+    /**
+     * Takes a snapshot of the current metrics.
+     *
+     * <p>The snapshot is not atomic, metrics recorded while
+     * taking it may be partially included.</p>
+     *
+     * @return The metrics snapshot
+     * @since 1.7.0
+     */
+    public @NotNull Snapshot snapshot() {
+        final Map<Outcome, Long> requests = new EnumMap<>(Outcome.class);
+        for (final Map.Entry<Outcome, LongAdder> entry : this.requests.entrySet()) {
+            requests.put(entry.getKey(), entry.getValue().sum());
+        }
+        final Map<String, Long> clientVersions = new LinkedHashMap<>();
+        for (final Map.Entry<String, LongAdder> entry : this.clientVersions.entrySet()) {
+            clientVersions.put(entry.getKey(), entry.getValue().sum());
+        }
+        final Map<Integer, Long> packFormats = new LinkedHashMap<>();
+        for (final Map.Entry<Integer, LongAdder> entry : this.packFormats.entrySet()) {
+            packFormats.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new Snapshot(
+                requests,
+                bytesSent.sum(),
+                inFlight.sum(),
+                unknownClients.sum(),
+                timeToFirstByte.snapshot(),
+                transferTime.snapshot(),
+                clientVersions,
+                packFormats
+        );
+    }
+
+    /**
+     * Starts recording a request.
+     *
+     * @param request The parsed download request, null if the
+     *                request was not made by a Minecraft client
+     * @return The request recorder
+     */
+    @NotNull Transfer start(final @Nullable ResourcePackDownloadRequest request) {
+        inFlight.increment();
+        if (request == null) {
+            unknownClients.increment();
+        } else {
+            count(clientVersions, request.clientVersion(), OTHER_CLIENT_VERSION);
+            count(packFormats, request.packFormat(), OTHER_PACK_FORMAT);
+        }
+        return new Transfer();
+    }
+
+    private static <K> void count(final @NotNull ConcurrentMap<K, LongAdder> counters, final @NotNull K key, final @NotNull K other) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.size() < MAX_BREAKDOWN_KEYS
+                    ? counters.computeIfAbsent(key, k -> new LongAdder())
+                    : counters.computeIfAbsent(other, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Records a single request, from start to completion, must
+     * only be used by one thread at a time.
+     */
+    final class Transfer {
+        private final long start = System.nanoTime();
+        private boolean started;
+        private boolean done;
+
+        private Transfer() {
+        }
+
+        /**
+         * Records that the given amount of response bytes were sent,
+         * the first call also records the time to first byte.
+         *
+         * @param bytes The amount of sent bytes
+         */
+        void sent(final long bytes) {
+            if (!started) {
+                started = true;
+                timeToFirstByte.record(System.nanoTime() - start);
+            }
+            bytesSent.add(bytes);
+        }
+
+        /**
+         * Records that the response was completely sent.
+         *
+         * @param statusCode The response status code, -1 if
+         *                   no response was sent
+         */
+        void complete(final int statusCode) {
+            finish(Outcome.of(statusCode));
+        }
+
+        /**
+         * Records that the response couldn't be sent, e.g.
+         * because the connection was closed.
+         */
+        void fail() {
+            finish(Outcome.FAILED);
+        }
+
+        private void finish(final @NotNull Outcome outcome) {
+            if (done) {
+                return;
+            }
+            done = true;
+            final long elapsed = System.nanoTime() - start;
+            if (!started) {
+                // bodiless responses, the first byte is sent on completion
+                started = true;
+                timeToFirstByte.record(elapsed);
+            }
+            transferTime.record(elapsed);
+            requests.get(outcome).increment();
+            inFlight.decrement();
+        }
+    }
+
+    /**
+     * The outcome of a request.
+     *
+     * @since 1.7.0
+     */
+    public enum Outcome {
+        /**
+         * A successful response (2xx status), full or partial.
+         *
+         * @since 1.7.0
+         */
+        SUCCESS,
+
+        /**
+         * A 304 response, the client already has the resource pack.
+         *
+         * @since 1.7.0
+         */
+        NOT_MODIFIED,
+
+        /**
+         * A client error response (4xx status), e.g. the
+         * resource pack was not found.
+         *
+         * @since 1.7.0
+         */
+        CLIENT_ERROR,
+
+        /**
+         * A 503 response, the server was too busy to handle the
+         * request, e.g. because of a {@link DownloadLimiter}.
+         *
+         * @since 1.7.0
+         */
+        REJECTED,
+
+        /**
+         * A server error response (other 5xx status), or no response
+         * at all, e.g. the request handler failed.
+         *
+         * @since 1.7.0
+         */
+        SERVER_ERROR,
+
+        /**
+         * The response couldn't be sent, e.g. the client
+         * closed the connection.
+         *
+         * @since 1.7.0
+         */
+        FAILED;
+
+        static @NotNull Outcome of(final int statusCode) {
+            if (statusCode == 503) {
+                return REJECTED;
+            } else if (statusCode >= 200 && statusCode < 300) {
+                return SUCCESS;
+            } else if (statusCode >= 300 && statusCode < 400) {
+                return NOT_MODIFIED;
+            } else if (statusCode >= 400 && statusCode < 500) {
+                return CLIENT_ERROR;
+            } else {
+                return SERVER_ERROR;
+            }
+        }
+    }
+
+    private static final class HistogramRecorder {
+        private final LongAdder[] counts = new LongAdder[BUCKET_BOUNDS.length];
+        private final LongAdder sum = new LongAdder();
+
+        private HistogramRecorder() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        private void record(final long nanos) {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (millis > BUCKET_BOUNDS[bucket]) {
+                bucket++;
+            }
+            counts[bucket].increment();
+            sum.add(nanos);
+        }
+
+        private @NotNull Histogram snapshot() {
+            final long[] counts = new long[this.counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = this.counts[i].sum();
+            }
+            return new Histogram(counts, sum.sum());
+        }
+    }
+
+    /**
+     * An immutable snapshot of a latency histogram, with
+     * fixed bucket bounds, in milliseconds.
+     *
+     * @since 1.7.0
+     */
+    public static final class Histogram {
+        private final long[] counts;
+        private final long count;
+        private final long sumNanos;
+
+        private Histogram(final long @NotNull [] counts, final long sumNanos) {
+            this.counts = counts;
+            this.sumNanos = sumNanos;
+            long count = 0;
+            for (final long c : counts) {
+                count += c;
+            }
+            this.count = count;
+        }
+
+        /**
+         * Returns the inclusive upper bound of every bucket, in milliseconds,
+         * the last bound is {@link Long#MAX_VALUE}.
+         *
+         * @return The bucket bounds
+         * @since 1.7.0
+         */
+        public long @NotNull [] bounds() {
+            return BUCKET_BOUNDS.clone();
+        }
+
+        /**
+         * Returns the amount of recorded values in every bucket,
+         * in the same order as {@link #bounds()}.
+         *
+         * @return The bucket counts
+         * @since 1.7.0
+         */
+        public long @NotNull [] counts() {
+            return counts.clone();
+        }
+
+        /**
+         * Returns the amount of recorded values.
+         *
+         * @return The amount of recorded values
+         * @since 1.7.0
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the mean of the recorded values.
+         *
+         * @return The mean, in milliseconds, zero if empty
+         * @since 1.7.0
+         */
+        public double mean() {
+            return count == 0 ? 0D : sumNanos / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * Returns an upper bound of the given percentile, the
+         * bound of the bucket containing it.
+         *
+         * @param percentile The percentile, between 0 and 1
+         * @return The percentile upper bound, in milliseconds,
+         * zero if empty
+         * @since 1.7.0
+         */
+        public long percentile(final double percentile) {
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1");
+            }
+            if (count == 0) {
+                return 0L;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil(percentile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return BUCKET_BOUNDS[i];
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return "Histogram{" +
+                    "counts=" + Arrays.toString(counts) +
+                    ", count=" + count +
+                    ", mean=" + mean() +
+                    '}';
+        }
+    }
+
+    /**
+     * An immutable snapshot of the {@link DownloadMetrics}.
+     *
+     * @since 1.7.0
+     */
+    public static final class Snapshot {
+        private final Map<Outcome, Long> requests;
+        private final long bytesSent;
+        private final long inFlight;
+        private final long unknownClients;
+        private final Histogram timeToFirstByte;
+        private final Histogram transferTime;
+        private final Map<String, Long> clientVersions;
+        private final Map<Integer, Long> packFormats;
+
+        private Snapshot(
+                final @NotNull Map<Outcome, Long> requests,
+                final long bytesSent,
+                final long inFlight,
+                final long unknownClients,
+                final @NotNull Histogram timeToFirstByte,
+                final @NotNull Histogram transferTime,
+                final @NotNull Map<String, Long> clientVersions,
+                final @NotNull Map<Integer, Long> packFormats
+        ) {
+            this.requests = Collections.unmodifiableMap(requests);
+            this.bytesSent = bytesSent;
+            this.inFlight = inFlight;
+            this.unknownClients = unknownClients;
+            this.timeToFirstByte = timeToFirstByte;
+            this.transferTime = transferTime;
+            this.clientVersions = Collections.unmodifiableMap(clientVersions);
+            this.packFormats = Collections.unmodifiableMap(packFormats);
+        }
+
+        /**
+         * Returns the amount of completed requests with the given outcome.
+         *
+         * @param outcome The request outcome
+         * @return The amount of requests
+         * @since 1.7.0
+         */
+        public long requests(final @NotNull Outcome outcome) {
+            return requests.get(outcome);
+        }
+
+        /**
+         * Returns the amount of completed requests, with any outcome.
+         *
+         * @return The amount of requests
+         * @since 1.7.0
+         */
+        public long requests() {
+            long total = 0;
+            for (final long count : requests.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * Returns the amount of sent response body bytes.
+         *
+         * @return The amount of sent bytes
+         * @since 1.7.0
+         */
+        public long bytesSent() {
+            return bytesSent;
+        }
+
+        /**
+         * Returns the amount of requests currently being handled
+         * or being sent.
+         *
+         * @return The amount of in-flight requests
+         * @since 1.7.0
+         */
+        public long inFlight() {
+            return inFlight;
+        }
+
+        /**
+         * Returns the amount of requests that were not made by a
+         * Minecraft client, not included in {@link #clientVersions()}
+         * and {@link #packFormats()}.
+         *
+         * @return The amount of non-Minecraft requests
+         * @since 1.7.0
+         */
+        public long unknownClients() {
+            return unknownClients;
+        }
+
+        /**
+         * Returns the histogram of times from the request being received
+         * to the response starting to be sent.
+         *
+         * @return The time to first byte histogram
+         * @since 1.7.0
+         */
+        public @NotNull Histogram timeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        /**
+         * Returns the histogram of times from the request being received
+         * to the response being completely sent.
+         *
+         * @return The total transfer time histogram
+         * @since 1.7.0
+         */
+        public @NotNull Histogram transferTime() {
+            return transferTime;
+        }
+
+        /**
+         * Returns the amount of requests by client version name, once
+         * there are too many distinct versions, new versions are counted
+         * as {@code "other"}.
+         *
+         * @return The amount of requests by client version
+         * @since 1.7.0
+         */
+        public @Unmodifiable @NotNull Map<String, Long> clientVersions() {
+            return clientVersions;
+        }
+
+        /**
+         * Returns the amount of requests by client pack format, once
+         * there are too many distinct formats, new formats are counted
+         * as {@code -1}.
+         *
+         * @return The amount of requests by pack format
+         * @since 1.7.0
+         */
+        public @Unmodifiable @NotNull Map<Integer, Long> packFormats() {
+            return packFormats;
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return "Snapshot{" +
+                    "requests=" + requests +
+                    ", bytesSent=" + bytesSent +
+                    ", inFlight=" + inFlight +
+                    ", unknownClients=" + unknownClients +
+                    ", timeToFirstByte=" + timeToFirstByte +
+                    ", transferTime=" + transferTime +
+                    ", clientVersions=" + clientVersions +
+                    ", packFormats=" + packFormats +
+                    '}';
+        }
+    }
+}
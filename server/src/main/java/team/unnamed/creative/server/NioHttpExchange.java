@@ -0,0 +1,350 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.server.util.ByteBufferSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An {@link HttpExchange} implementation for {@link NioResourcePackServerImpl},
+ * the response is buffered (shared buffers are kept as references, not copied)
+ * and written to the client by the server selector thread once the exchange
+ * is {@link #close() closed}.
+ */
+final class NioHttpExchange extends HttpExchange {
+    private static final byte[] EMPTY = new byte[0];
+    private static final int CHUNK_SIZE = 8192;
+
+    private final String method;
+    private final URI requestURI;
+    private final String protocol;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    private final InetSocketAddress remoteAddress;
+    private final InetSocketAddress localAddress;
+    private final Consumer<NioHttpExchange> onClose;
+    private final ResponseBody responseBody = new ResponseBody();
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private volatile int responseCode = -1;
+    private volatile boolean closed;
+    private volatile boolean aborted;
+
+    NioHttpExchange(
+            final @NotNull String method,
+            final @NotNull URI requestURI,
+            final @NotNull String protocol,
+            final @NotNull Headers requestHeaders,
+            final @NotNull InetSocketAddress remoteAddress,
+            final @NotNull InetSocketAddress localAddress,
+            final @NotNull Consumer<NioHttpExchange> onClose
+    ) {
+        this.method = method;
+        this.requestURI = requestURI;
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.remoteAddress = remoteAddress;
+        this.localAddress = localAddress;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public @NotNull Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public @NotNull Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public @NotNull URI getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public @NotNull String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        throw new UnsupportedOperationException("Non-blocking resource-pack servers do not use HttpContexts");
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        onClose.accept(this);
+    }
+
+    /**
+     * Closes this exchange discarding its response, the
+     * connection is closed without sending anything.
+     */
+    void abort() {
+        aborted = true;
+        close();
+    }
+
+    @Override
+    public @NotNull InputStream getRequestBody() {
+        // only GET and HEAD requests are handled
+        return new ByteArrayInputStream(EMPTY);
+    }
+
+    @Override
+    public @NotNull OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(final int rCode, final long responseLength) throws IOException {
+        if (responseCode != -1) {
+            throw new IOException("headers already sent");
+        }
+        responseCode = rCode;
+    }
+
+    @Override
+    public @NotNull InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public @NotNull InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    @Override
+    public @NotNull String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public synchronized @Nullable Object getAttribute(final String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public synchronized void setAttribute(final String name, final @Nullable Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void setStreams(final @Nullable InputStream i, final @Nullable OutputStream o) {
+        throw new UnsupportedOperationException("Non-blocking resource-pack servers do not support filters");
+    }
+
+    @Override
+    public @Nullable HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    /**
+     * Encodes the response status line, headers and body, must only
+     * be called after the exchange is closed.
+     *
+     * @param keepAlive Whether the connection will be kept alive
+     * @return The response buffers, or null if no response was sent
+     */
+    @Nullable ByteBuffer @Nullable [] encode(final boolean keepAlive) {
+        final int code = responseCode;
+        if (code == -1 || aborted) {
+            // the handler didn't send a response,
+            // the connection must be closed
+            return null;
+        }
+
+        final boolean bodyless = (code >= 100 && code < 200) || code == 204 || code == 304;
+        final boolean head = "HEAD".equals(method);
+        final List<ByteBuffer> body = responseBody.seal();
+
+        if (!bodyless && !head) {
+            // the body is fully buffered, so its length is always known
+            responseHeaders.set("Content-Length", Long.toString(responseBody.size));
+        }
+        responseHeaders.set("Date", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+        if (!keepAlive) {
+            responseHeaders.set("Connection", "close");
+        }
+
+        final StringBuilder builder = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(code).append(' ').append(reasonPhrase(code)).append("\r\n");
+        for (final Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (final String value : header.getValue()) {
+                builder.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        builder.append("\r\n");
+
+        final boolean writeBody = !bodyless && !head;
+        final ByteBuffer[] buffers = new ByteBuffer[writeBody ? body.size() + 1 : 1];
+        buffers[0] = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.ISO_8859_1));
+        if (writeBody) {
+            for (int i = 0; i < body.size(); i++) {
+                buffers[i + 1] = body.get(i);
+            }
+        }
+        return buffers;
+    }
+
+    private static String reasonPhrase(final int code) {
+        switch (code) {
+            case 200:
+                return "OK";
+            case 204:
+                return "No Content";
+            case 206:
+                return "Partial Content";
+            case 304:
+                return "Not Modified";
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 405:
+                return "Method Not Allowed";
+            case 416:
+                return "Range Not Satisfiable";
+            case 429:
+                return "Too Many Requests";
+            case 500:
+                return "Internal Server Error";
+            case 503:
+                return "Service Unavailable";
+            default:
+                return "";
+        }
+    }
+
+    /*
+     * Buffers the response body, byte arrays are copied since they may
+     * be reused by the caller, but given buffers are kept as they are
+     */
+    private final class ResponseBody extends OutputStream implements ByteBufferSink {
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        private byte[] chunk;
+        private int chunkLength;
+        private long size;
+
+        @Override
+        public void write(final int b) throws IOException {
+            ensureOpen();
+            if (chunk == null || chunkLength == chunk.length) {
+                flushChunk();
+                chunk = new byte[CHUNK_SIZE];
+            }
+            chunk[chunkLength++] = (byte) b;
+            size++;
+        }
+
+        @Override
+        public void write(final byte @NotNull [] b, int off, int len) throws IOException {
+            ensureOpen();
+            if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+                throw new IndexOutOfBoundsException();
+            }
+            size += len;
+            while (len > 0) {
+                if (chunk == null || chunkLength == chunk.length) {
+                    flushChunk();
+                    chunk = new byte[Math.max(CHUNK_SIZE, len)];
+                }
+                final int count = Math.min(len, chunk.length - chunkLength);
+                System.arraycopy(b, off, chunk, chunkLength, count);
+                chunkLength += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void write(final @NotNull ByteBuffer buffer) throws IOException {
+            ensureOpen();
+            flushChunk();
+            size += buffer.remaining();
+            buffers.add(buffer);
+        }
+
+        private void flushChunk() {
+            if (chunk != null && chunkLength > 0) {
+                buffers.add(ByteBuffer.wrap(chunk, 0, chunkLength));
+            }
+            chunk = null;
+            chunkLength = 0;
+        }
+
+        private List<ByteBuffer> seal() {
+            flushChunk();
+            return buffers;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (responseCode == -1) {
+                throw new IOException("response headers not sent yet");
+            }
+            if (closed) {
+                throw new IOException("exchange closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,700 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.server.handler.AsyncResourcePackRequestHandler;
+import team.unnamed.creative.server.handler.ResourcePackRequestHandler;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+import team.unnamed.creative.server.util.ResourcePackDownloadRequestParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link ResourcePackServer} implementation based on a single
+ * non-blocking selector thread.
+ *
+ * <p>Requests are parsed and responses are written by the selector
+ * thread, so slow clients never block a thread. Handlers are executed
+ * by the given executor (or by the selector thread if not set), their
+ * responses are buffered (shared resource-pack data is referenced, not
+ * copied) and written once they return.</p>
+ *
+ * <p>Connections over the {@link DownloadLimiter} bandwidth limits stop
+ * being written to until their tokens are refilled, without blocking
+ * the selector thread.</p>
+ */
+final class NioResourcePackServerImpl implements ResourcePackServer {
+    // max request head size, requests are only GET or HEAD, without body
+    private static final int MAX_REQUEST_HEAD_SIZE = 16 * 1024;
+    // max bytes written from a heap buffer per write call, the JDK
+    // copies heap buffers to a temporary direct buffer of this size
+    private static final int MAX_HEAP_WRITE_SIZE = 256 * 1024;
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long SELECT_TIMEOUT_MILLIS = 1000L;
+    // min delay before writing again to a throttled connection
+    private static final long MIN_THROTTLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // amount of tokens waited by a throttled connection
+    private static final int THROTTLE_CHUNK_SIZE = 16 * 1024;
+    private static final byte[] BAD_REQUEST = ("HTTP/1.1 400 Bad Request\r\n" +
+            "Content-Length: 0\r\n" +
+            "Connection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final String path;
+    private final @Nullable ResourcePackRequestHandler handler;
+    private final @Nullable AsyncResourcePackRequestHandler asyncHandler;
+    private final @Nullable DownloadLimiter limiter;
+    private final @Nullable DownloadMetrics metrics;
+    private final Executor executor;
+    private final @Nullable ExecutorService ownedExecutor;
+    private final InetSocketAddress address;
+    private final Thread thread;
+
+    // connections whose exchange was closed and have a response to write,
+    // added by the handler threads, consumed by the selector thread
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+
+    // connections waiting for bandwidth, only accessed by the selector thread
+    private final List<Connection> throttled = new ArrayList<>();
+
+    private volatile boolean started;
+    private volatile boolean stopping;
+    private volatile long stopDeadline;
+
+    NioResourcePackServerImpl(
+            final @NotNull InetSocketAddress address,
+            final int backlog,
+            final @Nullable Executor executor,
+            final @Nullable ExecutorService ownedExecutor,
+            final @NotNull String path,
+            final @Nullable ResourcePackRequestHandler handler,
+            final @Nullable AsyncResourcePackRequestHandler asyncHandler,
+            final @Nullable DownloadLimiter limiter,
+            final @Nullable DownloadMetrics metrics
+    ) throws IOException {
+        this.path = requireNonNull(path, "path");
+        if (handler == null && asyncHandler == null) {
+            throw new NullPointerException("handler");
+        }
+        this.handler = handler;
+        this.asyncHandler = asyncHandler;
+        this.limiter = limiter;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.ownedExecutor = ownedExecutor;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(requireNonNull(address, "address"), Math.max(backlog, 0));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (final IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        this.address = (InetSocketAddress) serverChannel.getLocalAddress();
+        this.thread = new Thread(this::run, "creative-resource-pack-server");
+    }
+
+    @Override
+    @Deprecated
+    public @NotNull HttpServer httpServer() {
+        throw new UnsupportedOperationException("Non-blocking resource-pack servers are not backed by an HttpServer");
+    }
+
+    @Override
+    public @NotNull InetSocketAddress address() {
+        return address;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (started || stopping) {
+            throw new IllegalStateException("server already started");
+        }
+        started = true;
+        thread.start();
+    }
+
+    @Override
+    public void stop(final int delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("negative delay parameter");
+        }
+        synchronized (this) {
+            if (stopping) {
+                return;
+            }
+            stopDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(delay);
+            stopping = true;
+        }
+
+        if (!started) {
+            closeAll();
+            return;
+        }
+
+        selector.wakeup();
+        if (Thread.currentThread() == thread) {
+            // called by a handler on the selector thread, which
+            // stops once it returns, joining it would never end
+            return;
+        }
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                selector.select(selectTimeout());
+
+                Connection connection;
+                while ((connection = completed.poll()) != null) {
+                    connection.respond();
+                }
+
+                resumeThrottled();
+
+                final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    final SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        } else if (key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (final IOException | CancelledKeyException e) {
+                        connection.close();
+                    }
+                }
+
+                if (checkConnections()) {
+                    break;
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Resource-pack server selector failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    private long selectTimeout() {
+        if (throttled.isEmpty()) {
+            return SELECT_TIMEOUT_MILLIS;
+        }
+        final long now = System.nanoTime();
+        long wait = Long.MAX_VALUE;
+        for (final Connection connection : throttled) {
+            wait = Math.min(wait, connection.resumeAt - now);
+        }
+        // zero would mean no timeout
+        return Math.max(1L, Math.min(SELECT_TIMEOUT_MILLIS, TimeUnit.NANOSECONDS.toMillis(wait)));
+    }
+
+    private void resumeThrottled() {
+        if (throttled.isEmpty()) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final List<Connection> ready = new ArrayList<>();
+        final Iterator<Connection> iterator = throttled.iterator();
+        while (iterator.hasNext()) {
+            final Connection connection = iterator.next();
+            if (connection.state != State.WRITING) {
+                iterator.remove();
+            } else if (now - connection.resumeAt >= 0) {
+                iterator.remove();
+                ready.add(connection);
+            }
+        }
+        // write after iterating, connections may be throttled again
+        for (final Connection connection : ready) {
+            try {
+                connection.write();
+            } catch (final IOException | CancelledKeyException e) {
+                connection.close();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                final Connection connection = new Connection(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (final IOException e) {
+                channel.close();
+            }
+        }
+    }
+
+    /*
+     * Closes idle connections, returns true if the
+     * server is stopping and can now be closed
+     */
+    private boolean checkConnections() throws IOException {
+        final long now = System.nanoTime();
+        final boolean stopping = this.stopping;
+        if (stopping && serverChannel.isOpen()) {
+            // stop accepting new connections
+            serverChannel.close();
+        }
+
+        boolean active = false;
+        for (final SelectionKey key : selector.keys()) {
+            final Object attachment = key.attachment();
+            if (!(attachment instanceof Connection)) {
+                continue;
+            }
+            final Connection connection = (Connection) attachment;
+            if (connection.state == State.HANDLING) {
+                active = true;
+            } else if (connection.state == State.READING && (stopping || now - connection.lastActivity > IDLE_TIMEOUT_NANOS)) {
+                connection.close();
+            } else if (connection.state == State.WRITING) {
+                if (now - connection.lastActivity > IDLE_TIMEOUT_NANOS) {
+                    connection.close();
+                } else {
+                    active = true;
+                }
+            }
+        }
+
+        return stopping && (!active || now - stopDeadline >= 0);
+    }
+
+    private void closeAll() {
+        for (final SelectionKey key : selector.keys()) {
+            final Object attachment = key.attachment();
+            if (attachment instanceof Connection) {
+                ((Connection) attachment).close();
+            }
+        }
+        try {
+            serverChannel.close();
+        } catch (final IOException ignored) {
+        }
+        try {
+            selector.close();
+        } catch (final IOException ignored) {
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private enum State {
+        READING,
+        HANDLING,
+        WRITING,
+        CLOSED
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer input = ByteBuffer.allocate(MAX_REQUEST_HEAD_SIZE);
+        private SelectionKey key;
+
+        // only accessed by the selector thread, or by the handler
+        // thread, but never by both at the same time
+        private State state = State.READING;
+        private long lastActivity = System.nanoTime();
+        private boolean keepAlive;
+        private NioHttpExchange exchange;
+        private ByteBuffer[] output;
+        private int outputIndex;
+
+        // whether the current request counts as a download for the
+        // limiter, only accessed by the selector thread
+        private boolean admitted;
+        private TokenBucket bandwidth;
+        private long resumeAt;
+
+        // the metrics of the current request, only accessed by
+        // the selector thread
+        private DownloadMetrics.Transfer transfer;
+        private int responseCode;
+
+        private Connection(final @NotNull SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void read() throws IOException {
+            final int read = channel.read(input);
+            if (read == -1) {
+                close();
+                return;
+            }
+            lastActivity = System.nanoTime();
+            parse();
+        }
+
+        private void parse() throws IOException {
+            final int end = headEnd();
+            if (end == -1) {
+                if (!input.hasRemaining()) {
+                    // request head too large
+                    reject();
+                }
+                return;
+            }
+
+            final String head = new String(input.array(), 0, end, StandardCharsets.ISO_8859_1);
+
+            // keep any pipelined bytes for the next request
+            input.flip();
+            input.position(end + 4);
+            input.compact();
+
+            final String[] lines = head.split("\r\n");
+            final String[] requestLine = lines[0].split(" ");
+            if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+                reject();
+                return;
+            }
+
+            final String method = requestLine[0];
+            final String protocol = requestLine[2];
+            final URI uri;
+            try {
+                uri = new URI(requestLine[1]);
+            } catch (final URISyntaxException e) {
+                reject();
+                return;
+            }
+
+            final Headers headers = new Headers();
+            for (int i = 1; i < lines.length; i++) {
+                final String line = lines[i];
+                final int colon = line.indexOf(':');
+                if (colon <= 0) {
+                    reject();
+                    return;
+                }
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+
+            final String connectionHeader = headers.getFirst("Connection");
+            keepAlive = "HTTP/1.1".equals(protocol)
+                    ? !"close".equalsIgnoreCase(connectionHeader)
+                    : "keep-alive".equalsIgnoreCase(connectionHeader);
+            if (headers.containsKey("Content-Length") || headers.containsKey("Transfer-Encoding")) {
+                // request bodies are not read, so the connection
+                // can't be reused after responding
+                keepAlive = false;
+            }
+
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                close();
+                return;
+            }
+
+            final NioHttpExchange exchange = new NioHttpExchange(
+                    method,
+                    uri,
+                    protocol,
+                    headers,
+                    (InetSocketAddress) channel.getRemoteAddress(),
+                    (InetSocketAddress) channel.getLocalAddress(),
+                    this::complete
+            );
+            this.exchange = exchange;
+            state = State.HANDLING;
+            key.interestOps(0);
+
+            final ResourcePackDownloadRequest request = ResourcePackDownloadRequestParser.parse(headers);
+            if (metrics != null) {
+                transfer = metrics.start(request);
+            }
+
+            final String requestPath = uri.getPath();
+            if (requestPath == null || !requestPath.startsWith(path)) {
+                exchange.getResponseHeaders().set("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+
+            if (limiter != null) {
+                if (!limiter.tryAdmit()) {
+                    exchange.getResponseHeaders().set("Retry-After", Integer.toString(limiter.retryAfter()));
+                    exchange.sendResponseHeaders(503, -1);
+                    exchange.close();
+                    return;
+                }
+                admitted = true;
+                if (bandwidth == null) {
+                    bandwidth = limiter.newConnectionBandwidth();
+                }
+            }
+
+            if (executor == null) {
+                handle(exchange, request);
+                return;
+            }
+
+            try {
+                executor.execute(() -> handle(exchange, request));
+            } catch (final RejectedExecutionException e) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+            }
+        }
+
+        private int headEnd() {
+            final byte[] array = input.array();
+            for (int i = 0, limit = input.position() - 3; i < limit; i++) {
+                if (array[i] == '\r' && array[i + 1] == '\n' && array[i + 2] == '\r' && array[i + 3] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void handle(final @NotNull NioHttpExchange exchange, final @Nullable ResourcePackDownloadRequest request) {
+            if (asyncHandler != null) {
+                final CompletableFuture<?> future;
+                try {
+                    future = requireNonNull(asyncHandler.onRequest(request, exchange), "future");
+                } catch (final Throwable e) {
+                    fail(exchange);
+                    return;
+                }
+                future.whenComplete((result, error) -> {
+                    if (error == null) {
+                        exchange.close();
+                    } else {
+                        fail(exchange);
+                    }
+                });
+                return;
+            }
+
+            try {
+                handler.onRequest(request, exchange);
+            } catch (final Throwable e) {
+                fail(exchange);
+                return;
+            }
+            exchange.close();
+        }
+
+        private void fail(final @NotNull NioHttpExchange exchange) {
+            if (exchange.getResponseCode() != -1) {
+                // the response may be incomplete, don't send it
+                exchange.abort();
+                return;
+            }
+            try {
+                exchange.sendResponseHeaders(500, -1);
+            } catch (final IOException ignored) {
+            }
+            exchange.close();
+        }
+
+        private void complete(final @NotNull NioHttpExchange exchange) {
+            output = exchange.encode(keepAlive && !stopping);
+            responseCode = exchange.getResponseCode();
+            completed.add(this);
+            selector.wakeup();
+        }
+
+        // called from the selector thread
+        private void respond() throws IOException {
+            if (state == State.CLOSED) {
+                return;
+            }
+            exchange = null;
+            if (output == null) {
+                close();
+                return;
+            }
+            outputIndex = 0;
+            state = State.WRITING;
+            lastActivity = System.nanoTime();
+            try {
+                write();
+            } catch (final IOException | CancelledKeyException e) {
+                close();
+            }
+        }
+
+        private void reject() throws IOException {
+            keepAlive = false;
+            state = State.WRITING;
+            output = new ByteBuffer[]{ByteBuffer.wrap(BAD_REQUEST)};
+            outputIndex = 0;
+            write();
+        }
+
+        private void write() throws IOException {
+            final ByteBuffer[] output = this.output;
+            while (outputIndex < output.length) {
+                final ByteBuffer buffer = output[outputIndex];
+                if (!buffer.hasRemaining()) {
+                    output[outputIndex++] = null;
+                    continue;
+                }
+
+                int max = buffer.isDirect() ? buffer.remaining() : Math.min(buffer.remaining(), MAX_HEAP_WRITE_SIZE);
+                final boolean limited = admitted;
+                if (limited) {
+                    final int granted = (int) limiter.tryAcquire(bandwidth, max);
+                    if (granted == 0) {
+                        throttle(max);
+                        return;
+                    }
+                    max = granted;
+                }
+
+                final int written;
+                if (max == buffer.remaining()) {
+                    written = channel.write(buffer);
+                } else {
+                    final ByteBuffer chunk = buffer.duplicate();
+                    chunk.limit(chunk.position() + max);
+                    written = channel.write(chunk);
+                    buffer.position(chunk.position());
+                }
+
+                if (limited && written < max) {
+                    limiter.refund(bandwidth, max - written);
+                }
+                if (transfer != null && written > 0) {
+                    // the first buffer holds the status line and headers
+                    transfer.sent(outputIndex == 0 ? 0 : written);
+                }
+
+                if (written == 0) {
+                    // socket buffer is full, wait until writable
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                lastActivity = System.nanoTime();
+            }
+
+            this.output = null;
+            release();
+            if (transfer != null) {
+                transfer.complete(responseCode);
+                transfer = null;
+            }
+            if (!keepAlive || stopping) {
+                close();
+                return;
+            }
+
+            state = State.READING;
+            key.interestOps(SelectionKey.OP_READ);
+            if (input.position() > 0) {
+                // pipelined request
+                parse();
+            }
+        }
+
+        // stop writing until there are enough tokens
+        private void throttle(final int amount) {
+            key.interestOps(0);
+            resumeAt = System.nanoTime() + Math.max(
+                    limiter.nanosUntilAvailable(bandwidth, Math.min(amount, THROTTLE_CHUNK_SIZE)),
+                    MIN_THROTTLE_NANOS
+            );
+            throttled.add(this);
+        }
+
+        private void release() {
+            if (admitted) {
+                admitted = false;
+                limiter.release();
+            }
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            output = null;
+            release();
+            if (transfer != null) {
+                transfer.fail();
+                transfer = null;
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.server.handler.AsyncResourcePackRequestHandler;
 import team.unnamed.creative.server.handler.ResourcePackRequestHandler;
 
 import javax.net.ssl.SSLContext;
@@ -181,6 +182,70 @@ public interface ResourcePackServer {
         @Contract("_ -> this")
         @NotNull Builder executor(final @Nullable Executor executor);
 
+        /**
+         * Makes the server handle every request in its own virtual thread,
+         * if the runtime supports them (Java 21+), otherwise, requests are
+         * handled by a pool with the given amount of threads, optional.
+         *
+         * <p>This replaces the {@link #executor(Executor) executor}, the
+         * created executor is owned by the server, and it is shut down
+         * when the server is {@link ResourcePackServer#stop(int) stopped}.</p>
+         *
+         * <p>Handlers and downloads running in virtual threads don't hold
+         * a platform thread while they are blocked, so a single slow client
+         * doesn't hold up others, and thousands of concurrent downloads can
+         * be served.</p>
+         *
+         * @param fallbackThreads The amount of threads used if the
+         *                        runtime doesn't support virtual threads
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder virtualThreads(final int fallbackThreads);
+
+        /**
+         * Makes the server handle every request in its own virtual thread,
+         * if the runtime supports them (Java 21+), otherwise, requests are
+         * handled by a pool with as many threads as four times the available
+         * processors, optional.
+         *
+         * @return This builder
+         * @see #virtualThreads(int)
+         * @since 1.7.0
+         */
+        @Contract("-> this")
+        default @NotNull Builder virtualThreads() {
+            return virtualThreads(Runtime.getRuntime().availableProcessors() * 4);
+        }
+
+        /**
+         * Sets whether the server should use a non-blocking implementation,
+         * optional, defaults to false.
+         *
+         * <p>A non-blocking server reads requests and writes responses using
+         * a single selector thread, instead of the {@link HttpServer} blocking
+         * streams, so slow clients never hold a thread while they download a
+         * resource-pack, and thousands of concurrent downloads can be served
+         * by a handful of threads.</p>
+         *
+         * <p>Request handlers are still executed by the {@link #executor(Executor) executor},
+         * or by the selector thread if not set, and their responses are buffered
+         * and written once they return. Resource-pack data written by the built-in
+         * handlers is shared, not copied, so the handlers should not write big
+         * byte arrays by themselves, see {@link team.unnamed.creative.server.handler.ResourcePackResponseCache}</p>
+         *
+         * <p>Note that non-blocking servers do not support HTTPS, see
+         * {@link #secure(HttpsConfigurator)}, and do not expose an
+         * {@link HttpServer}, see {@link ResourcePackServer#httpServer()}</p>
+         *
+         * @param nonBlocking Whether to use a non-blocking implementation
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder nonBlocking(final boolean nonBlocking);
+
         /**
          * Sets the server's HTTPS configurator, optional.
          * If not set, the server will default to a HTTP
@@ -252,7 +317,8 @@ public interface ResourcePackServer {
 
         /**
          * Sets the server's request handler, required,
-         * may also be set by using {@link #pack}.
+         * may also be set by using {@link #pack}, or replaced
+         * by an {@link #asyncHandler asynchronous handler}.
          *
          * @param handler The server's request handler
          * @return This builder
@@ -260,6 +326,22 @@ public interface ResourcePackServer {
          */
         @NotNull Builder handler(final @NotNull ResourcePackRequestHandler handler);
 
+        /**
+         * Sets the server's asynchronous request handler, replaces
+         * the handler set by {@link #handler(ResourcePackRequestHandler)}
+         * or {@link #pack}.
+         *
+         * <p>The exchange is closed when the future returned by the
+         * handler completes, so slow resource-pack preparation doesn't
+         * block the server threads.</p>
+         *
+         * @param handler The server's asynchronous request handler
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder asyncHandler(final @NotNull AsyncResourcePackRequestHandler handler);
+
         /**
          * Sets the server's request handler, required,
          * may also be set by using {@link #pack}.
@@ -318,6 +400,37 @@ public interface ResourcePackServer {
         @Contract("_ -> this")
         @NotNull Builder path(final @NotNull String path);
 
+        /**
+         * Sets the download limiter, optional, used to limit the total
+         * bandwidth, the bandwidth per download and the amount of concurrent
+         * downloads, requests over the limit are rejected with a 503 status.
+         *
+         * <p>Keep a reference to the limiter to change its limits
+         * while the server is running.</p>
+         *
+         * @param limiter The download limiter, null to not limit downloads
+         * @return This builder
+         * @see DownloadLimiter
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder limiter(final @Nullable DownloadLimiter limiter);
+
+        /**
+         * Sets the metrics recorder, optional, every handled request
+         * is recorded in it.
+         *
+         * <p>Keep a reference to the metrics to poll them
+         * using {@link DownloadMetrics#snapshot()}.</p>
+         *
+         * @param metrics The download metrics, null to not record metrics
+         * @return This builder
+         * @see DownloadMetrics
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder metrics(final @Nullable DownloadMetrics metrics);
+
         /**
          * Builds the {@link ResourcePackServer} instance.
          *
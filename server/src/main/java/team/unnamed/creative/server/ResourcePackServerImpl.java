@@ -30,28 +30,50 @@ import com.sun.net.httpserver.HttpsConfigurator;
 import com.sun.net.httpserver.HttpsServer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.server.handler.AsyncResourcePackRequestHandler;
 import team.unnamed.creative.server.handler.ResourcePackRequestHandler;
 import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
 import team.unnamed.creative.server.util.ResourcePackDownloadRequestParser;
+import team.unnamed.creative.server.util.VirtualThreads;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import static java.util.Objects.requireNonNull;
 
 final class ResourcePackServerImpl implements ResourcePackServer {
 
     private final HttpServer server;
-    private final ResourcePackRequestHandler handler;
+    private final @Nullable ResourcePackRequestHandler handler;
+    private final @Nullable AsyncResourcePackRequestHandler asyncHandler;
+    private final @Nullable DownloadLimiter limiter;
+    private final @Nullable DownloadMetrics metrics;
+
+    // the executor created by the builder, owned by this server
+    private final @Nullable ExecutorService ownedExecutor;
 
     ResourcePackServerImpl(
             final @NotNull HttpServer server,
             final @NotNull String path,
-            final @NotNull ResourcePackRequestHandler handler
+            final @Nullable ResourcePackRequestHandler handler,
+            final @Nullable AsyncResourcePackRequestHandler asyncHandler,
+            final @Nullable DownloadLimiter limiter,
+            final @Nullable DownloadMetrics metrics,
+            final @Nullable ExecutorService ownedExecutor
     ) {
         this.server = requireNonNull(server, "server");
-        this.handler = requireNonNull(handler, "handler");
+        this.ownedExecutor = ownedExecutor;
+        if (handler == null && asyncHandler == null) {
+            throw new NullPointerException("handler");
+        }
+        this.handler = handler;
+        this.asyncHandler = asyncHandler;
+        this.limiter = limiter;
+        this.metrics = metrics;
         this.server.createContext(requireNonNull(path, "path"), this::handleRequest);
     }
 
@@ -74,30 +96,112 @@ final class ResourcePackServerImpl implements ResourcePackServer {
     @Override
     public void stop(final int delay) {
         server.stop(delay);
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
     }
 
     private void handleRequest(final @NotNull HttpExchange exchange) throws IOException {
-        if (!"GET".equals(exchange.getRequestMethod())) {
+        final String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
             exchange.close();
             return;
         }
 
         final Headers headers = exchange.getRequestHeaders();
         final ResourcePackDownloadRequest request = ResourcePackDownloadRequestParser.parse(headers);
+        final DownloadMetrics.Transfer transfer = metrics == null ? null : metrics.start(request);
+
+        if (limiter != null && !limiter.tryAdmit()) {
+            exchange.getResponseHeaders().set("Retry-After", Integer.toString(limiter.retryAfter()));
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            if (transfer != null) {
+                transfer.complete(503);
+            }
+            return;
+        }
+
+        OutputStream body = exchange.getResponseBody();
+        if (limiter != null) {
+            body = new ThrottledOutputStream(body, limiter);
+        }
+        if (transfer != null) {
+            body = new MeteredOutputStream(body, transfer);
+        }
+        if (body != exchange.getResponseBody()) {
+            exchange.setStreams(null, body);
+        }
 
+        if (asyncHandler != null) {
+            final CompletableFuture<?> future;
+            try {
+                future = requireNonNull(asyncHandler.onRequest(request, exchange), "future");
+            } catch (final RuntimeException e) {
+                close(exchange, transfer, false);
+                throw e;
+            }
+            // the exchange is closed once the response is written,
+            // not when this method returns
+            future.whenComplete((result, error) -> {
+                if (error != null && exchange.getResponseCode() == -1) {
+                    try {
+                        exchange.sendResponseHeaders(500, -1);
+                    } catch (final IOException ignored) {
+                    }
+                }
+                close(exchange, transfer, error != null && rootCause(error) instanceof IOException);
+            });
+            return;
+        }
+
+        boolean failed = false;
         try {
             handler.onRequest(request, exchange);
+        } catch (final IOException e) {
+            failed = true;
+            throw e;
         } finally {
+            close(exchange, transfer, failed);
+        }
+    }
+
+    private void close(final @NotNull HttpExchange exchange, final DownloadMetrics.@Nullable Transfer transfer, final boolean failed) {
+        try {
             exchange.close();
+        } finally {
+            if (limiter != null) {
+                limiter.release();
+            }
+            if (transfer != null) {
+                if (failed) {
+                    transfer.fail();
+                } else {
+                    transfer.complete(exchange.getResponseCode());
+                }
+            }
+        }
+    }
+
+    private static @NotNull Throwable rootCause(@NotNull Throwable error) {
+        while (error.getCause() != null && error.getCause() != error) {
+            error = error.getCause();
         }
+        return error;
     }
 
     static final class BuilderImpl implements Builder {
         private InetSocketAddress address;
         private Executor executor;
         private int backlog;
+        private int virtualThreadsFallback;
         private ResourcePackRequestHandler handler;
+        private AsyncResourcePackRequestHandler asyncHandler;
+        private DownloadLimiter limiter;
+        private DownloadMetrics metrics;
         private String path = "/";
+        private boolean nonBlocking;
+        private boolean secure;
         private HttpServerFactory serverFactory = HttpServer::create;
 
         @Override
@@ -109,12 +213,30 @@ final class ResourcePackServerImpl implements ResourcePackServer {
         @Override
         public @NotNull Builder executor(final @Nullable Executor executor) {
             this.executor = executor;
+            this.virtualThreadsFallback = 0;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder virtualThreads(final int fallbackThreads) {
+            if (fallbackThreads < 1) {
+                throw new IllegalArgumentException("fallbackThreads must be positive");
+            }
+            this.executor = null;
+            this.virtualThreadsFallback = fallbackThreads;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder nonBlocking(final boolean nonBlocking) {
+            this.nonBlocking = nonBlocking;
             return this;
         }
 
         @Override
         public @NotNull Builder secure(final @NotNull HttpsConfigurator httpsConfigurator) {
             requireNonNull(httpsConfigurator, "httpsConfigurator");
+            this.secure = true;
             this.serverFactory = (address, backlog) -> {
                 HttpsServer server = HttpsServer.create(address, backlog);
                 server.setHttpsConfigurator(httpsConfigurator);
@@ -132,6 +254,26 @@ final class ResourcePackServerImpl implements ResourcePackServer {
         @Override
         public @NotNull Builder handler(final @NotNull ResourcePackRequestHandler handler) {
             this.handler = requireNonNull(handler, "handler");
+            this.asyncHandler = null;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder asyncHandler(final @NotNull AsyncResourcePackRequestHandler handler) {
+            this.asyncHandler = requireNonNull(handler, "handler");
+            this.handler = null;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder limiter(final @Nullable DownloadLimiter limiter) {
+            this.limiter = limiter;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder metrics(final @Nullable DownloadMetrics metrics) {
+            this.metrics = metrics;
             return this;
         }
 
@@ -143,9 +285,38 @@ final class ResourcePackServerImpl implements ResourcePackServer {
 
         @Override
         public @NotNull ResourcePackServer build() throws IOException {
-            final HttpServer server = serverFactory.create(address, backlog);
-            server.setExecutor(executor);
-            return new ResourcePackServerImpl(server, path, handler);
+            if (nonBlocking && secure) {
+                throw new IllegalStateException("Non-blocking resource-pack servers do not support HTTPS");
+            }
+
+            final ExecutorService ownedExecutor = virtualThreadsFallback > 0
+                    ? VirtualThreads.newVirtualThreadOrBoundedExecutor(virtualThreadsFallback, "creative-resource-pack-server-")
+                    : null;
+            final Executor executor = ownedExecutor == null ? this.executor : ownedExecutor;
+
+            try {
+                if (nonBlocking) {
+                    return new NioResourcePackServerImpl(
+                            requireNonNull(address, "address"),
+                            backlog,
+                            executor,
+                            ownedExecutor,
+                            path,
+                            handler,
+                            asyncHandler,
+                            limiter,
+                            metrics
+                    );
+                }
+                final HttpServer server = serverFactory.create(address, backlog);
+                server.setExecutor(executor);
+                return new ResourcePackServerImpl(server, path, handler, asyncHandler, limiter, metrics, ownedExecutor);
+            } catch (final IOException | RuntimeException e) {
+                if (ownedExecutor != null) {
+                    ownedExecutor.shutdown();
+                }
+                throw e;
+            }
         }
     }
 
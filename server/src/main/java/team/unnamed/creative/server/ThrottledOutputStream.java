@@ -0,0 +1,79 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that blocks writes to respect the
+ * bandwidth limits of a {@link DownloadLimiter}.
+ */
+final class ThrottledOutputStream extends FilterOutputStream {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final DownloadLimiter limiter;
+    private final TokenBucket connection;
+
+    ThrottledOutputStream(final @NotNull OutputStream out, final @NotNull DownloadLimiter limiter) {
+        super(out);
+        this.limiter = limiter;
+        this.connection = limiter.newConnectionBandwidth();
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        acquire(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(final byte @NotNull [] b, int off, int len) throws IOException {
+        while (len > 0) {
+            final int count = (int) acquire(Math.min(len, CHUNK_SIZE));
+            out.write(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    private long acquire(final int max) throws IOException {
+        try {
+            while (true) {
+                final long granted = limiter.tryAcquire(connection, max);
+                if (granted > 0) {
+                    return granted;
+                }
+                Thread.sleep(Math.max(limiter.nanosUntilAvailable(connection, max) / 1_000_000L, 1L));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket, tokens are bytes, refilled at a rate (bytes
+ * per second) read on every refill, so it can be changed at any
+ * time, a non-positive rate means unlimited.
+ *
+ * <p>The bucket holds up to 100ms worth of tokens, so bursts
+ * after idle periods are short.</p>
+ */
+final class TokenBucket {
+    private static final double MIN_CAPACITY = 16 * 1024;
+
+    private final LongSupplier rate;
+    private double tokens = Double.MAX_VALUE; // clamped on first refill
+    private long lastRefill = System.nanoTime();
+
+    TokenBucket(final @NotNull LongSupplier rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Takes up to the given amount of tokens, without blocking.
+     *
+     * @param max The maximum amount of tokens to take
+     * @return The amount of taken tokens, may be zero
+     */
+    synchronized long tryAcquire(final long max) {
+        final long rate = this.rate.getAsLong();
+        if (rate <= 0) {
+            return max;
+        }
+        refill(rate);
+        final long granted = (long) Math.min(max, tokens);
+        if (granted <= 0) {
+            return 0;
+        }
+        tokens -= granted;
+        return granted;
+    }
+
+    /**
+     * Gives back tokens that were taken but not used.
+     *
+     * @param amount The amount of tokens to give back
+     */
+    synchronized void refund(final long amount) {
+        final long rate = this.rate.getAsLong();
+        if (rate > 0) {
+            tokens = Math.min(capacity(rate), tokens + amount);
+        }
+    }
+
+    /**
+     * Returns the time until the given amount of tokens (or
+     * the bucket capacity, if less) is available.
+     *
+     * @param amount The amount of tokens
+     * @return The time, in nanoseconds
+     */
+    synchronized long nanosUntilAvailable(final long amount) {
+        final long rate = this.rate.getAsLong();
+        if (rate <= 0) {
+            return 0L;
+        }
+        refill(rate);
+        final double missing = Math.min(amount, capacity(rate)) - tokens;
+        return missing <= 0 ? 0L : (long) Math.ceil(missing * TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    private void refill(final long rate) {
+        final long now = System.nanoTime();
+        tokens = Math.min(capacity(rate), tokens + (now - lastRefill) * (double) rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+
+    private static double capacity(final long rate) {
+        return Math.max(rate / 10.0, MIN_CAPACITY);
+    }
+}
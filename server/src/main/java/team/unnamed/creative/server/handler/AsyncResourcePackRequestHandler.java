@@ -0,0 +1,81 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Responsible for handling resource-pack download requests
+ * asynchronously.
+ *
+ * <p>Unlike {@link ResourcePackRequestHandler}, the response doesn't
+ * have to be written before this handler returns, so handlers that have
+ * to build or fetch a resource-pack don't block the server threads while
+ * doing it. The server closes the exchange once the returned future
+ * completes.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * AsyncResourcePackRequestHandler handler = (request, exchange) ->
+ *     fetchPack(request).thenAccept(pack -> {
+ *         try {
+ *             responseCache.send(pack, exchange);
+ *         } catch (IOException e) {
+ *             throw new UncheckedIOException(e);
+ *         }
+ *     });
+ * }</pre>
+ *
+ * @see team.unnamed.creative.server.ResourcePackServer.Builder#asyncHandler(AsyncResourcePackRequestHandler)
+ * @since 1.7.0
+ */
+@FunctionalInterface
+public interface AsyncResourcePackRequestHandler {
+    /**
+     * Handles a resource pack request asynchronously, the resulting
+     * resource pack is written to {@link HttpExchange#getResponseBody()}
+     * before the returned future completes.
+     *
+     * <p>The exchange is closed by the server when the returned future
+     * completes, if it completes exceptionally and no response headers
+     * were sent, a 500 status is sent.</p>
+     *
+     * <p>Note that the request method may be either {@code GET} or
+     * {@code HEAD}, a response body must not be written for {@code HEAD}
+     * requests, see {@link HttpExchange#sendResponseHeaders(int, long)}</p>
+     *
+     * @param request  The resource pack request, null means that the
+     *                 request couldn't be parsed and the requester is
+     *                 not a Minecraft client
+     * @param exchange The HTTP exchange
+     * @return A future completed when the response is written
+     * @since 1.7.0
+     */
+    @NotNull CompletableFuture<?> onRequest(final @Nullable ResourcePackDownloadRequest request, final @NotNull HttpExchange exchange);
+}
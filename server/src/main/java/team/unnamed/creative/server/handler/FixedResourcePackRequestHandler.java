@@ -30,37 +30,27 @@ import team.unnamed.creative.BuiltResourcePack;
 import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 final class FixedResourcePackRequestHandler implements ResourcePackRequestHandler {
     private final BuiltResourcePack pack;
     private final boolean validOnly;
+    private final ResourcePackResponse response;
 
     FixedResourcePackRequestHandler(final @NotNull BuiltResourcePack pack, final boolean validOnly) {
         this.pack = Objects.requireNonNull(pack, "pack");
         this.validOnly = validOnly;
+        this.response = ResourcePackResponse.of(pack);
     }
 
     @Override
     public void onRequest(final @Nullable ResourcePackDownloadRequest request, final @NotNull HttpExchange exchange) throws IOException {
         if (request == null && validOnly) {
-            final byte[] data = "Please use a Minecraft client\n".getBytes(StandardCharsets.UTF_8);
-            exchange.getResponseHeaders().set("Content-Type", "text/plain");
-            exchange.sendResponseHeaders(400, data.length);
-            try (final OutputStream responseStream = exchange.getResponseBody()) {
-                responseStream.write(data);
-            }
+            ResourcePackResponses.sendText(exchange, 400, "Please use a Minecraft client\n");
             return;
         }
 
-        final byte[] data = pack.data().toByteArray();
-        exchange.getResponseHeaders().set("Content-Type", "application/zip");
-        exchange.sendResponseHeaders(200, data.length);
-        try (final OutputStream responseStream = exchange.getResponseBody()) {
-            responseStream.write(data);
-        }
+        response.send(exchange);
     }
 
     @Override
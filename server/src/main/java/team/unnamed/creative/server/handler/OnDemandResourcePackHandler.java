@@ -0,0 +1,534 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.resources.MergeStrategy;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A request handler that builds personalized resource-packs on demand,
+ * e.g. per player or per party, from a base resource-pack plus some
+ * variant-specific resources.
+ *
+ * <p>Every request is mapped to a variant key, concurrent requests for
+ * the same variant share a single build (single-flight), builds are
+ * executed by a bounded worker pool, and the most recently used built
+ * variants are kept in a LRU cache. So a login wave triggers one build
+ * per distinct variant, instead of one per player.</p>
+ *
+ * <p>Variants can also be requested before the download, e.g. to send
+ * the resource-pack hash to the player, see {@link #variant(Object)}</p>
+ *
+ * <p>When used as a (blocking) request handler, requests wait for the
+ * build up to the {@link Builder#requestTimeout(Duration) request timeout},
+ * and are answered with a 503 status if it expires. To avoid blocking
+ * the server threads while building, use its {@link #async() asynchronous
+ * view} instead.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * OnDemandResourcePackHandler<UUID> handler = OnDemandResourcePackHandler.<UUID>onDemand()
+ *         .key(request -> request == null ? null : partyOf(request.uuid()))
+ *         .base(basePack)
+ *         .variant((party, pack) -> addPartyResources(party, pack))
+ *         .builder(MinecraftResourcePackWriter.minecraft()::build)
+ *         .build();
+ * ResourcePackServer server = ResourcePackServer.server()
+ *         .address(7270)
+ *         .asyncHandler(handler.async())
+ *         .build();
+ * }</pre>
+ *
+ * @param <K> The variant key type
+ * @since 1.7.0
+ */
+public final class OnDemandResourcePackHandler<K> implements ResourcePackRequestHandler {
+    private final Function<@Nullable ResourcePackDownloadRequest, @Nullable K> key;
+    private final ResourcePack base;
+    private final BiConsumer<K, ResourcePack> variant;
+    private final Function<ResourcePack, BuiltResourcePack> builder;
+    private final Executor executor;
+    private final long requestTimeoutNanos;
+
+    // builds in progress, a single build per key
+    private final Map<K, CompletableFuture<Variant>> building = new ConcurrentHashMap<>();
+
+    // built variants, in access order, guarded by itself
+    private final Map<K, Variant> built;
+
+    private OnDemandResourcePackHandler(final @NotNull BuilderImpl<K> builder) {
+        this.key = requireNonNull(builder.key, "key");
+        this.base = requireNonNull(builder.base, "base");
+        this.variant = requireNonNull(builder.variant, "variant");
+        this.builder = requireNonNull(builder.builder, "builder");
+        this.executor = builder.executor == null ? newBuildPool(builder.buildThreads) : builder.executor;
+        this.requestTimeoutNanos = builder.requestTimeout.toNanos();
+        final int maxCachedVariants = builder.maxCachedVariants;
+        this.built = new LinkedHashMap<K, Variant>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, Variant> eldest) {
+                return size() > maxCachedVariants;
+            }
+        };
+    }
+
+    /**
+     * Creates a new builder for {@link OnDemandResourcePackHandler}.
+     *
+     * @param <K> The variant key type
+     * @return A new builder instance
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    public static <K> @NotNull Builder<K> onDemand() {
+        return new BuilderImpl<>();
+    }
+
+    /**
+     * Gets or builds the variant for the given key, concurrent calls
+     * for the same key share the same build.
+     *
+     * @param key The variant key
+     * @return A future completed with the built variant
+     * @since 1.7.0
+     */
+    public @NotNull CompletableFuture<BuiltResourcePack> variant(final @NotNull K key) {
+        return future(key).thenApply(variant -> variant.pack);
+    }
+
+    /**
+     * Removes the built variant for the given key, so it is built
+     * again the next time it is requested.
+     *
+     * <p>If the variant is being built, the build is discarded: its
+     * result is still given to the requests already waiting for it,
+     * but it is not cached, and next requests start a new build.</p>
+     *
+     * @param key The variant key
+     * @return True if a built variant was removed or a build in
+     * progress was discarded
+     * @since 1.7.0
+     */
+    public boolean invalidate(final @NotNull K key) {
+        requireNonNull(key, "key");
+        synchronized (built) {
+            final boolean discarded = building.remove(key) != null;
+            return built.remove(key) != null || discarded;
+        }
+    }
+
+    /**
+     * Returns an asynchronous view of this handler, which sends the
+     * responses when the variants are built, without blocking the
+     * server threads while building them.
+     *
+     * @return The asynchronous handler
+     * @see team.unnamed.creative.server.ResourcePackServer.Builder#asyncHandler(AsyncResourcePackRequestHandler)
+     * @since 1.7.0
+     */
+    public @NotNull AsyncResourcePackRequestHandler async() {
+        return (request, exchange) -> {
+            final K variantKey = key.apply(request);
+            if (variantKey == null) {
+                final CompletableFuture<Void> notFound = new CompletableFuture<>();
+                try {
+                    ResourcePackResponses.sendText(exchange, 404, "Resource-pack not found\n");
+                    notFound.complete(null);
+                } catch (final IOException e) {
+                    notFound.completeExceptionally(e);
+                }
+                return notFound;
+            }
+            // sent from the thread that completes the build, or from
+            // the current thread if the variant is already built
+            return future(variantKey).handle((variant, error) -> {
+                try {
+                    if (error != null) {
+                        ResourcePackResponses.sendText(exchange, 500, "Failed to build resource-pack\n");
+                    } else {
+                        variant.response.send(exchange);
+                    }
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        };
+    }
+
+    @Override
+    public void onRequest(final @Nullable ResourcePackDownloadRequest request, final @NotNull HttpExchange exchange) throws IOException {
+        final K variantKey = key.apply(request);
+        if (variantKey == null) {
+            ResourcePackResponses.sendText(exchange, 404, "Resource-pack not found\n");
+            return;
+        }
+
+        final Variant variant;
+        try {
+            variant = future(variantKey).get(requestTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ResourcePackResponses.sendText(exchange, 503, "Interrupted\n");
+            return;
+        } catch (final TimeoutException e) {
+            // still building, the build is not cancelled, so a
+            // next request may find it finished
+            ResourcePackResponses.sendText(exchange, 503, "Resource-pack is being built, try again later\n");
+            return;
+        } catch (final ExecutionException e) {
+            ResourcePackResponses.sendText(exchange, 500, "Failed to build resource-pack\n");
+            return;
+        }
+        variant.response.send(exchange);
+    }
+
+    private @NotNull CompletableFuture<Variant> future(final @NotNull K key) {
+        requireNonNull(key, "key");
+        final Variant cached = cached(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        final CompletableFuture<Variant> existing = building.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        final CompletableFuture<Variant> future = new CompletableFuture<>();
+        final CompletableFuture<Variant> concurrent = building.putIfAbsent(key, future);
+        if (concurrent != null) {
+            return concurrent;
+        }
+
+        // a build may have finished between the cache check and now,
+        // builds are cached before they are removed from "building"
+        final Variant finished = cached(key);
+        if (finished != null) {
+            building.remove(key, future);
+            future.complete(finished);
+            return future;
+        }
+
+        try {
+            executor.execute(() -> {
+                // the future is removed from "building" before it is
+                // completed, so a completed build is never returned after
+                // being invalidated
+                final Variant variant;
+                try {
+                    variant = build(key);
+                } catch (final Throwable e) {
+                    building.remove(key, future);
+                    future.completeExceptionally(e);
+                    return;
+                }
+                synchronized (built) {
+                    // only cache the build if it is still current, i.e. it
+                    // wasn't discarded by invalidate(key) while in progress
+                    if (building.get(key) == future) {
+                        built.put(key, variant);
+                    }
+                }
+                building.remove(key, future);
+                future.complete(variant);
+            });
+        } catch (final RejectedExecutionException e) {
+            building.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private @Nullable Variant cached(final @NotNull K key) {
+        synchronized (built) {
+            return built.get(key);
+        }
+    }
+
+    private @NotNull Variant build(final @NotNull K key) {
+        final ResourcePack pack = ResourcePack.resourcePack();
+        pack.merge(base, MergeStrategy.override());
+        // merging adds the base overlay instances, copy them, so
+        // variants don't modify the base (nor each other)
+        for (final Overlay overlay : base.overlays()) {
+            final Overlay copy = Overlay.overlay(overlay.directory());
+            copy.merge(overlay, MergeStrategy.override());
+            pack.overlay(copy);
+        }
+        variant.accept(key, pack);
+        final BuiltResourcePack builtPack = requireNonNull(builder.apply(pack), "built resource-pack");
+        return new Variant(builtPack, ResourcePackResponse.of(builtPack));
+    }
+
+    private static @NotNull Executor newBuildPool(final int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                task -> {
+                    final Thread thread = new Thread(task, "creative-pack-builder-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        // don't keep idle threads
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "OnDemandResourcePackHandler{" +
+                "base=" + base +
+                ", building=" + building.keySet() +
+                '}';
+    }
+
+    private static final class Variant {
+        private final BuiltResourcePack pack;
+        private final ResourcePackResponse response;
+
+        private Variant(final @NotNull BuiltResourcePack pack, final @NotNull ResourcePackResponse response) {
+            this.pack = pack;
+            this.response = response;
+        }
+    }
+
+    /**
+     * A builder for {@link OnDemandResourcePackHandler} instances.
+     *
+     * @param <K> The variant key type
+     * @since 1.7.0
+     */
+    public interface Builder<K> {
+        /**
+         * Sets the function that maps requests to variant keys, required.
+         *
+         * <p>The function receives null if the request was not made by
+         * a Minecraft client, a null key results in a 404 response.</p>
+         *
+         * @param key The variant key function
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> key(final @NotNull Function<@Nullable ResourcePackDownloadRequest, @Nullable K> key);
+
+        /**
+         * Sets the base resource-pack, required, it is copied (not
+         * modified) for every variant, must not be modified after
+         * the handler is built.
+         *
+         * @param base The base resource-pack
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> base(final @NotNull ResourcePack base);
+
+        /**
+         * Sets the function that adds the variant-specific resources
+         * to a copy of the base resource-pack, optional.
+         *
+         * @param variant The variant function
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> variant(final @NotNull BiConsumer<@NotNull K, @NotNull ResourcePack> variant);
+
+        /**
+         * Sets the function used to build the variants, required,
+         * e.g. {@code MinecraftResourcePackWriter.minecraft()::build}
+         *
+         * @param builder The build function
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> builder(final @NotNull Function<@NotNull ResourcePack, @NotNull BuiltResourcePack> builder);
+
+        /**
+         * Sets the amount of threads used to build variants, optional,
+         * defaults to 1, ignored if an executor is set.
+         *
+         * @param buildThreads The amount of build threads
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> buildThreads(final int buildThreads);
+
+        /**
+         * Sets the executor used to build variants, optional, if
+         * not set, a pool of {@link #buildThreads(int)} threads is used.
+         *
+         * @param executor The build executor
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> executor(final @Nullable Executor executor);
+
+        /**
+         * Sets the maximum time that a (blocking) request waits for its
+         * variant to be built, optional, defaults to 30 seconds, if it
+         * expires, a 503 status is sent, and the build continues.
+         *
+         * <p>Not used by the {@link OnDemandResourcePackHandler#async()
+         * asynchronous handler}, which never blocks.</p>
+         *
+         * @param requestTimeout The request timeout
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> requestTimeout(final @NotNull Duration requestTimeout);
+
+        /**
+         * Sets the maximum amount of built variants kept in
+         * memory, optional, defaults to 64.
+         *
+         * @param maxCachedVariants The maximum amount of cached variants
+         * @return This builder
+         * @since 1.7.0
+         */
+        @Contract("_ -> this")
+        @NotNull Builder<K> maxCachedVariants(final int maxCachedVariants);
+
+        /**
+         * Builds the handler.
+         *
+         * @return The built handler
+         * @since 1.7.0
+         */
+        @Contract("-> new")
+        @NotNull OnDemandResourcePackHandler<K> build();
+    }
+
+    static final class BuilderImpl<K> implements Builder<K> {
+        private Function<@Nullable ResourcePackDownloadRequest, @Nullable K> key;
+        private ResourcePack base;
+        private BiConsumer<K, ResourcePack> variant = (key, pack) -> {};
+        private Function<ResourcePack, BuiltResourcePack> builder;
+        private int buildThreads = 1;
+        private Executor executor;
+        private int maxCachedVariants = 64;
+        private Duration requestTimeout = Duration.ofSeconds(30);
+
+        @Override
+        public @NotNull Builder<K> key(final @NotNull Function<@Nullable ResourcePackDownloadRequest, @Nullable K> key) {
+            this.key = requireNonNull(key, "key");
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder<K> base(final @NotNull ResourcePack base) {
+            this.base = requireNonNull(base, "base");
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder<K> variant(final @NotNull BiConsumer<@NotNull K, @NotNull ResourcePack> variant) {
+            this.variant = requireNonNull(variant, "variant");
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder<K> builder(final @NotNull Function<@NotNull ResourcePack, @NotNull BuiltResourcePack> builder) {
+            this.builder = requireNonNull(builder, "builder");
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder<K> buildThreads(final int buildThreads) {
+            if (buildThreads < 1) {
+                throw new IllegalArgumentException("buildThreads must be positive");
+            }
+            this.buildThreads = buildThreads;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder<K> executor(final @Nullable Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder<K> maxCachedVariants(final int maxCachedVariants) {
+            if (maxCachedVariants < 0) {
+                throw new IllegalArgumentException("maxCachedVariants must be non-negative");
+            }
+            this.maxCachedVariants = maxCachedVariants;
+            return this;
+        }
+
+        @Override
+        public @NotNull Builder<K> requestTimeout(final @NotNull Duration requestTimeout) {
+            requireNonNull(requestTimeout, "requestTimeout");
+            if (requestTimeout.isNegative()) {
+                throw new IllegalArgumentException("requestTimeout must be non-negative");
+            }
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        @Override
+        public @NotNull OnDemandResourcePackHandler<K> build() {
+            return new OnDemandResourcePackHandler<>(this);
+        }
+    }
+}
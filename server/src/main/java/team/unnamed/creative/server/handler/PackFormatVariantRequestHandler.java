@@ -0,0 +1,217 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.metadata.overlays.OverlayEntry;
+import team.unnamed.creative.metadata.overlays.OverlaysMeta;
+import team.unnamed.creative.metadata.pack.PackFormat;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.resources.MergeStrategy;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A request handler that serves a variant of a resource-pack for
+ * every client pack format, each variant only contains the overlays
+ * that the client would apply.
+ *
+ * <p>Variants are built once, when the handler is created, there is
+ * one for every distinct set of applicable overlays, which is at most
+ * {@code 2n + 1} for {@code n} declared overlays.</p>
+ *
+ * <p>Every variant has its own hash, the hash sent to a player (e.g.
+ * in the resource-pack request packet) must be the hash of the variant
+ * served to that player, see {@link #hash(int)}, otherwise the client
+ * rejects the downloaded resource-pack.</p>
+ *
+ * @see ResourcePackRequestHandler#perPackFormat(ResourcePack, Function, boolean)
+ * @since 1.7.0
+ */
+public final class PackFormatVariantRequestHandler implements ResourcePackRequestHandler {
+    private final ResourcePack pack;
+    private final boolean validOnly;
+    private final List<OverlayEntry> entries;
+
+    // the full resource-pack, for requests without a pack format
+    private final Variant full;
+
+    // the variants, keyed by their overlay directories
+    private final Map<List<String>, Variant> variants = new HashMap<>();
+
+    PackFormatVariantRequestHandler(
+            final @NotNull ResourcePack pack,
+            final @NotNull Function<@NotNull ResourcePack, @NotNull BuiltResourcePack> builder,
+            final boolean validOnly
+    ) {
+        this.pack = requireNonNull(pack, "pack");
+        requireNonNull(builder, "builder");
+        this.validOnly = validOnly;
+
+        final OverlaysMeta overlaysMeta = pack.overlaysMeta();
+        this.entries = overlaysMeta == null ? Collections.emptyList() : new ArrayList<>(overlaysMeta.entries());
+        this.full = new Variant(builder.apply(pack));
+
+        // every format in [point, next point) has the same applicable
+        // overlays, so only the range boundaries have to be checked
+        final TreeSet<Integer> points = new TreeSet<>();
+        points.add(Integer.MIN_VALUE);
+        for (final OverlayEntry entry : entries) {
+            final PackFormat formats = entry.formats();
+            points.add(formats.min());
+            if (formats.max() != Integer.MAX_VALUE) {
+                points.add(formats.max() + 1);
+            }
+        }
+
+        for (final int point : points) {
+            final List<String> directories = overlayDirectories(point);
+            if (variants.containsKey(directories)) {
+                continue;
+            }
+            variants.put(directories, new Variant(builder.apply(variant(directories))));
+        }
+    }
+
+    /**
+     * Returns the variant served to clients with the given pack format,
+     * it only contains the overlays whose formats include it.
+     *
+     * @param packFormat The client pack format
+     * @return The built variant
+     * @since 1.7.0
+     */
+    public @NotNull BuiltResourcePack variant(final int packFormat) {
+        return find(packFormat).pack;
+    }
+
+    /**
+     * Returns the hash of the variant served to clients with the given
+     * pack format, this is the hash that must be sent to players with
+     * that pack format.
+     *
+     * @param packFormat The client pack format
+     * @return The variant hash
+     * @since 1.7.0
+     */
+    public @NotNull String hash(final int packFormat) {
+        return variant(packFormat).hash();
+    }
+
+    /**
+     * Returns the full resource-pack, with all its overlays, served
+     * to requests without a pack format.
+     *
+     * @return The built full resource-pack
+     * @since 1.7.0
+     */
+    public @NotNull BuiltResourcePack full() {
+        return full.pack;
+    }
+
+    private @NotNull Variant find(final int packFormat) {
+        final Variant variant = variants.get(overlayDirectories(packFormat));
+        // never null, all the possible overlay sets are built
+        return variant == null ? full : variant;
+    }
+
+    private @NotNull List<String> overlayDirectories(final int packFormat) {
+        final List<String> directories = new ArrayList<>(entries.size());
+        for (final OverlayEntry entry : entries) {
+            if (entry.formats().isInRange(packFormat)) {
+                directories.add(entry.directory());
+            }
+        }
+        return directories;
+    }
+
+    private @NotNull ResourcePack variant(final @NotNull List<String> directories) {
+        final ResourcePack variant = ResourcePack.resourcePack();
+        variant.merge(pack, MergeStrategy.override());
+
+        // remove the overlays that the client won't apply
+        for (final Overlay overlay : new ArrayList<>(variant.overlays())) {
+            if (!directories.contains(overlay.directory())) {
+                variant.removeOverlay(overlay.directory());
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            final List<OverlayEntry> variantEntries = new ArrayList<>(directories.size());
+            for (final OverlayEntry entry : entries) {
+                if (directories.contains(entry.directory())) {
+                    variantEntries.add(entry);
+                }
+            }
+            variant.overlaysMeta(OverlaysMeta.of(variantEntries));
+        }
+        return variant;
+    }
+
+    @Override
+    public void onRequest(final @Nullable ResourcePackDownloadRequest request, final @NotNull HttpExchange exchange) throws IOException {
+        if (request == null) {
+            if (validOnly) {
+                ResourcePackResponses.sendText(exchange, 400, "Please use a Minecraft client\n");
+            } else {
+                full.response.send(exchange);
+            }
+            return;
+        }
+
+        find(request.packFormat()).response.send(exchange);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "PackFormatVariantRequestHandler{" +
+                "pack=" + pack +
+                ", variants=" + variants.keySet() +
+                '}';
+    }
+
+    private static final class Variant {
+        private final BuiltResourcePack pack;
+        private final ResourcePackResponse response;
+
+        Variant(final @NotNull BuiltResourcePack pack) {
+            this.pack = requireNonNull(pack, "built resource-pack");
+            this.response = ResourcePackResponse.of(pack);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+import team.unnamed.creative.server.util.ByteBuffers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A content-addressed resource-pack registry, serves many resource-packs
+ * keyed by their SHA-1 {@link BuiltResourcePack#hash() hash}, at paths like
+ * {@code /<hash>.zip}, relative to the server path.
+ *
+ * <p>Registered resource-packs are stored in a local directory, and the
+ * most recently requested ones are also kept in memory, up to the given
+ * memory budget, the least recently requested ones are evicted from memory
+ * and memory-mapped from the directory when requested again, so they are
+ * never copied to the heap, and don't count against the memory budget.
+ * Concurrent requests for the same evicted resource-pack share a single
+ * load.</p>
+ *
+ * <p>Since the URL of every resource-pack contains its hash, its contents
+ * never change, so responses are marked as immutable and can be cached
+ * forever by any proxy or CDN in front of the server. Resource-packs that
+ * were stored in the directory by a previous registry instance are also
+ * served.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ResourcePackRegistry registry = ResourcePackRegistry.registry(Paths.get("packs"), 256L * 1024 * 1024);
+ * String hash = registry.register(pack);
+ * // serve the registry
+ * ResourcePackServer server = ResourcePackServer.server()
+ *         .address(7270)
+ *         .handler(registry)
+ *         .build();
+ * // send "http://host:7270/" + ResourcePackRegistry.fileName(hash) to players
+ * }</pre>
+ *
+ * @since 1.7.0
+ */
+public final class ResourcePackRegistry implements ResourcePackRequestHandler {
+    private final Path directory;
+    private final long memoryBudget;
+
+    // responses whose data is in the heap, limited by the memory budget
+    private final ResourcePackResponseCache responses;
+
+    // responses whose data is memory-mapped from the directory
+    private final Map<String, ResourcePackResponse> mapped = new ConcurrentHashMap<>();
+
+    // loads from the directory in progress, a single load per hash,
+    // completed with null if the resource-pack is not stored
+    private final Map<String, CompletableFuture<ResourcePackResponse>> loading = new ConcurrentHashMap<>();
+
+    private ResourcePackRegistry(final @NotNull Path directory, final long memoryBudget) {
+        this.directory = requireNonNull(directory, "directory");
+        this.responses = ResourcePackResponseCache.responseCache(memoryBudget);
+        this.memoryBudget = memoryBudget;
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to create the registry directory", e);
+        }
+    }
+
+    /**
+     * Creates a new {@link ResourcePackRegistry} instance.
+     *
+     * @param directory    The directory where the resource-packs are stored,
+     *                     created if it doesn't exist
+     * @param memoryBudget The maximum amount of bytes of resource-pack data
+     *                     kept in memory
+     * @return The created registry
+     * @since 1.7.0
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull ResourcePackRegistry registry(final @NotNull Path directory, final long memoryBudget) {
+        return new ResourcePackRegistry(directory, memoryBudget);
+    }
+
+    /**
+     * Returns the file name (and path, relative to the server
+     * path) of the resource-pack with the given hash.
+     *
+     * @param hash The resource-pack hash
+     * @return The file name, {@code <hash>.zip}
+     * @since 1.7.0
+     */
+    public static @NotNull String fileName(final @NotNull String hash) {
+        requireNonNull(hash, "hash");
+        return hash + ResourcePackResponses.EXTENSION;
+    }
+
+    /**
+     * Registers the given resource-pack, storing it in the registry
+     * directory (if not stored yet) and keeping it in memory if the
+     * memory budget allows it.
+     *
+     * @param pack The resource-pack to register
+     * @return The resource-pack hash
+     * @throws IllegalArgumentException If the resource-pack hash is not
+     *                                  the SHA-1 hash of its data
+     * @throws UncheckedIOException     If storing the resource-pack fails
+     * @since 1.7.0
+     */
+    public @NotNull String register(final @NotNull BuiltResourcePack pack) {
+        requireNonNull(pack, "pack");
+        final String hash = ResourcePackResponses.normalizeHash(pack.hash());
+        if (hash == null) {
+            throw new IllegalArgumentException("Invalid resource-pack hash: " + pack.hash());
+        }
+
+        final ByteBuffer data;
+        try {
+            data = ByteBuffers.heapBuffer(pack.data());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read resource-pack " + hash, e);
+        }
+
+        // the hash is the resource-pack address, and clients reject
+        // resource-packs whose data doesn't match it
+        final String actualHash = ResourcePackResponses.sha1(data);
+        if (!hash.equals(actualHash)) {
+            throw new IllegalArgumentException("Resource-pack hash " + hash + " doesn't match its data hash " + actualHash);
+        }
+
+        try {
+            final Path file = file(hash);
+            if (!Files.exists(file)) {
+                // write to a temporary file first, so a partially
+                // written resource-pack is never served
+                final Path temporary = Files.createTempFile(directory, hash, ".tmp");
+                try {
+                    try (final OutputStream output = Files.newOutputStream(temporary)) {
+                        ByteBuffers.transfer(data, output);
+                    }
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to store resource-pack " + hash, e);
+        }
+
+        responses.cache(ResourcePackResponse.immutable(hash, data));
+        return hash;
+    }
+
+    /**
+     * Determines whether the resource-pack with the given hash is
+     * registered, in memory or in the registry directory.
+     *
+     * @param hash The resource-pack hash
+     * @return True if the resource-pack is registered
+     * @since 1.7.0
+     */
+    public boolean contains(final @NotNull String hash) {
+        requireNonNull(hash, "hash");
+        final String normalized = ResourcePackResponses.normalizeHash(hash);
+        if (normalized == null) {
+            return false;
+        }
+        return responses.contains(normalized)
+                || mapped.containsKey(normalized)
+                || Files.exists(file(normalized));
+    }
+
+    /**
+     * Unregisters the resource-pack with the given hash, removing it
+     * from memory and from the registry directory, requests being
+     * served keep using it until they finish.
+     *
+     * @param hash The resource-pack hash
+     * @return True if the resource-pack was registered
+     * @throws UncheckedIOException If deleting the resource-pack file fails
+     * @since 1.7.0
+     */
+    public boolean unregister(final @NotNull String hash) {
+        requireNonNull(hash, "hash");
+        final String normalized = ResourcePackResponses.normalizeHash(hash);
+        if (normalized == null) {
+            return false;
+        }
+
+        boolean removed = responses.invalidate(normalized);
+        removed |= mapped.remove(normalized) != null;
+        try {
+            removed |= Files.deleteIfExists(file(normalized));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to delete resource-pack " + normalized, e);
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the amount of resource-pack bytes currently kept
+     * in memory, never greater than the memory budget, memory-mapped
+     * resource-packs are not counted.
+     *
+     * @return The memory usage, in bytes
+     * @since 1.7.0
+     */
+    public long memoryUsage() {
+        return responses.memoryUsage();
+    }
+
+    @Override
+    public void onRequest(final @Nullable ResourcePackDownloadRequest request, final @NotNull HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        final String hash = path == null ? null : ResourcePackResponses.pathHash(path);
+        final ResourcePackResponse response = hash == null ? null : response(hash);
+        if (response == null) {
+            ResourcePackResponses.sendText(exchange, 404, "Resource-pack not found\n");
+            return;
+        }
+        response.send(exchange);
+    }
+
+    private @Nullable ResourcePackResponse response(final @NotNull String hash) throws IOException {
+        final ResourcePackResponse cached = cached(hash);
+        if (cached != null) {
+            return cached;
+        }
+
+        // evicted or stored by a previous registry, load it from
+        // the directory, outside the lock, once for concurrent requests
+        final CompletableFuture<ResourcePackResponse> future = new CompletableFuture<>();
+        final CompletableFuture<ResourcePackResponse> existing = loading.putIfAbsent(hash, future);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            // a load may have finished between the cache check and now,
+            // loads are cached before they are removed from "loading"
+            ResourcePackResponse response = cached(hash);
+            if (response == null) {
+                response = load(hash);
+            }
+            future.complete(response);
+            return response;
+        } catch (final IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(hash, future);
+        }
+    }
+
+    private @Nullable ResourcePackResponse load(final @NotNull String hash) throws IOException {
+        final ByteBuffer data;
+        try {
+            // mapped, so it is never copied to the heap
+            data = ByteBuffers.map(file(hash));
+        } catch (final NoSuchFileException e) {
+            return null;
+        }
+        final ResourcePackResponse response = ResourcePackResponse.immutable(hash, data);
+        final ResourcePackResponse existing = mapped.putIfAbsent(hash, response);
+        return existing == null ? response : existing;
+    }
+
+    private @Nullable ResourcePackResponse cached(final @NotNull String hash) {
+        final ResourcePackResponse response = responses.cached(hash);
+        return response == null ? mapped.get(hash) : response;
+    }
+
+    private static @Nullable ResourcePackResponse await(final @NotNull CompletableFuture<ResourcePackResponse> future) throws IOException {
+        try {
+            return future.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private @NotNull Path file(final @NotNull String hash) {
+        return directory.resolve(fileName(hash));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ResourcePackRegistry{" +
+                "directory=" + directory +
+                ", memoryBudget=" + memoryBudget +
+                '}';
+    }
+}
@@ -28,9 +28,12 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.metadata.overlays.OverlayEntry;
 import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
 
 import java.io.IOException;
+import java.util.function.Function;
 
 /**
  * Responsible for handling resource-pack download requests.
@@ -47,6 +50,15 @@ public interface ResourcePackRequestHandler {
      * Creates a new {@link ResourcePackRequestHandler} instance
      * that will always return the given resource-pack.
      *
+     * <p>The resource-pack data is read once, when the handler is
+     * created, and shared by all the requests without copying it.</p>
+     *
+     * <p>The returned handler sets an {@code ETag} header based on
+     * {@link BuiltResourcePack#hash()} and supports {@code HEAD},
+     * {@code If-None-Match} and single byte {@code Range} requests,
+     * so interrupted downloads can be resumed and caches can revalidate
+     * the resource-pack without downloading it again.</p>
+     *
      * @param pack      The resource-pack to return
      * @param validOnly Whether to only return the resource-pack
      *                  if the request is valid (has all the values
@@ -72,6 +84,44 @@ public interface ResourcePackRequestHandler {
         return fixed(pack, false);
     }
 
+    /**
+     * Creates a new {@link ResourcePackRequestHandler} instance that
+     * returns a variant of the given resource-pack for every client
+     * pack format ({@code X-Minecraft-Pack-Format} header).
+     *
+     * <p>Every variant only contains the overlays whose
+     * {@link OverlayEntry#formats() formats} include the client pack
+     * format, so clients don't download overlays they can't use.</p>
+     *
+     * <p>All the variants are built once, when the handler is created,
+     * using the given builder function (e.g.
+     * {@code MinecraftResourcePackWriter.minecraft()::build}). There is
+     * a variant for every distinct set of applicable overlays, so their
+     * amount is small, at most {@code 2n + 1} for {@code n} overlays.
+     * Requests without a pack format are served the full resource-pack.</p>
+     *
+     * <p>Every variant has a different hash, so the hash sent to a player
+     * must be the hash of the variant for that player's pack format, see
+     * {@link PackFormatVariantRequestHandler#hash(int)}, otherwise the
+     * client rejects the downloaded resource-pack.</p>
+     *
+     * @param pack      The resource-pack to return
+     * @param builder   The function used to build the variants
+     * @param validOnly Whether to only return the resource-pack
+     *                  if the request is valid (has all the values
+     *                  that a Minecraft vanilla client would send)
+     * @return The new handler instance
+     * @since 1.7.0
+     */
+    @Contract("_, _, _ -> new")
+    static @NotNull PackFormatVariantRequestHandler perPackFormat(
+            final @NotNull ResourcePack pack,
+            final @NotNull Function<@NotNull ResourcePack, @NotNull BuiltResourcePack> builder,
+            final boolean validOnly
+    ) {
+        return new PackFormatVariantRequestHandler(pack, builder, validOnly);
+    }
+
     /**
      * Handles a resource pack request, the resulting resource
      * pack is written to {@link HttpExchange#getResponseBody()}
@@ -79,6 +129,10 @@ public interface ResourcePackRequestHandler {
      * <p>An "application/zip" Content-Type header should be set
      * when returning a resource-pack, {@link HttpExchange#getResponseHeaders()}</p>
      *
+     * <p>Note that the request method may be either {@code GET} or
+     * {@code HEAD}, a response body must not be written for {@code HEAD}
+     * requests, see {@link HttpExchange#sendResponseHeaders(int, long)}</p>
+     *
      * @param request  The resource pack request, null means that the
      *                 request couldn't be parsed and the requester is
      *                 not a Minecraft client
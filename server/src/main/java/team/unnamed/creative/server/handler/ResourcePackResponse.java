@@ -0,0 +1,164 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.server.util.ByteBuffers;
+import team.unnamed.creative.server.util.ByteRange;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A pre-computed resource-pack response, contains the response
+ * body and header values, computed once and shared by all the
+ * requests for the same resource-pack.
+ *
+ * <p>Honors {@code HEAD}, conditional ({@code If-None-Match},
+ * {@code If-Range}) and single byte {@code Range} requests.</p>
+ */
+final class ResourcePackResponse {
+    private final String hash;
+    private final String etag;
+    private final String contentLength;
+    private final @Nullable String cacheControl;
+
+    // the pack data, read once and shared by all the requests,
+    // never modified, requests use their own duplicate
+    private final ByteBuffer data;
+
+    private ResourcePackResponse(final @NotNull String hash, final @NotNull ByteBuffer data, final @Nullable String cacheControl) {
+        this.hash = hash;
+        this.etag = ResourcePackResponses.entityTag(hash);
+        this.contentLength = Integer.toString(data.remaining());
+        this.cacheControl = cacheControl;
+        this.data = data;
+    }
+
+    static @NotNull ResourcePackResponse of(final @NotNull BuiltResourcePack pack) {
+        requireNonNull(pack, "pack");
+        try {
+            return new ResourcePackResponse(pack.hash(), ByteBuffers.heapBuffer(pack.data()), null);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read resource-pack data", e);
+        }
+    }
+
+    /**
+     * Creates a response for the resource-pack with the given hash and
+     * data, that can be cached forever, since its URL contains the hash.
+     *
+     * @param hash The resource-pack hash
+     * @param data The resource-pack data, must not be modified
+     * @return The created response
+     */
+    static @NotNull ResourcePackResponse immutable(final @NotNull String hash, final @NotNull ByteBuffer data) {
+        requireNonNull(hash, "hash");
+        requireNonNull(data, "data");
+        return new ResourcePackResponse(hash, data, "public, max-age=31536000, immutable");
+    }
+
+    @NotNull String hash() {
+        return hash;
+    }
+
+    /**
+     * Returns the response body length, in bytes.
+     *
+     * @return The body length
+     */
+    int length() {
+        return data.remaining();
+    }
+
+    /**
+     * Sends this response for the given exchange.
+     *
+     * @param exchange The HTTP exchange
+     * @throws IOException If writing the response fails
+     */
+    void send(final @NotNull HttpExchange exchange) throws IOException {
+        final Headers requestHeaders = exchange.getRequestHeaders();
+        final Headers responseHeaders = exchange.getResponseHeaders();
+
+        responseHeaders.set("ETag", etag);
+        responseHeaders.set("Accept-Ranges", "bytes");
+        if (cacheControl != null) {
+            responseHeaders.set("Cache-Control", cacheControl);
+        }
+
+        if (ResourcePackResponses.matches(requestHeaders.get("If-None-Match"), etag)) {
+            // the client already has this exact resource-pack
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        responseHeaders.set("Content-Type", "application/zip");
+
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            // HEAD responses must not include a body, the content
+            // length has to be set manually, see HttpExchange#sendResponseHeaders
+            responseHeaders.set("Content-Length", contentLength);
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        final String rangeHeader = requestHeaders.getFirst("Range");
+        ByteRange range = null;
+        if (rangeHeader != null) {
+            final String ifRange = requestHeaders.getFirst("If-Range");
+            if (ifRange == null || ifRange.trim().equals(etag)) {
+                range = ByteRange.parse(rangeHeader, data.remaining());
+            }
+        }
+
+        if (range == null) {
+            ResourcePackResponses.sendBody(exchange, 200, data);
+        } else if (!range.satisfiable()) {
+            responseHeaders.set("Content-Range", range.contentRange(data.remaining()));
+            exchange.sendResponseHeaders(416, -1);
+        } else {
+            final ByteBuffer slice = data.duplicate();
+            slice.position(slice.position() + (int) range.first());
+            slice.limit(slice.position() + (int) range.length());
+            responseHeaders.set("Content-Range", range.contentRange(data.remaining()));
+            ResourcePackResponses.sendBody(exchange, 206, slice);
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ResourcePackResponse{" +
+                "hash='" + hash + '\'' +
+                ", length=" + contentLength +
+                '}';
+    }
+}
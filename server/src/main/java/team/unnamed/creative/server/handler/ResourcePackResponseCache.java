@@ -0,0 +1,257 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A cache of pre-computed resource-pack responses, used to avoid
+ * reading the resource-pack data and computing the response headers
+ * on every request.
+ *
+ * <p>Responses are keyed by the resource-pack {@link BuiltResourcePack#hash() hash},
+ * the resource-pack data is read once, the first time it is sent, and then
+ * shared by all the requests without copying it, so sending a cached response
+ * only writes the headers and transfers the shared buffer.</p>
+ *
+ * <p>Sent responses support {@code HEAD}, conditional and byte range
+ * requests, see {@link ResourcePackRequestHandler#fixed(BuiltResourcePack, boolean)}.
+ * Note that the resource-pack data is already compressed, so no
+ * {@code Content-Encoding} is applied to it.</p>
+ *
+ * <p>The cached resource-pack data is limited by a memory budget, when
+ * it is exceeded, the least recently sent responses are evicted, and
+ * responses for resource-packs bigger than the budget are computed on
+ * every request but never kept. Responses are also removed when they are
+ * {@link #invalidate(String) invalidated}, it is safe to use a cache
+ * instance from multiple threads.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ResourcePackResponseCache cache = ResourcePackResponseCache.responseCache();
+ * ResourcePackRequestHandler handler = (request, exchange) -> {
+ *     BuiltResourcePack pack = ...;
+ *     cache.send(pack, exchange);
+ * };
+ * }</pre>
+ *
+ * @since 1.7.0
+ */
+public final class ResourcePackResponseCache {
+    /**
+     * The default memory budget, in bytes, used by {@link #responseCache()}.
+     *
+     * @since 1.7.0
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+    private final long memoryBudget;
+
+    // cached responses, in access order, guarded by "this"
+    private final Map<String, ResourcePackResponse> responses = new LinkedHashMap<>(16, 0.75F, true);
+    private long memoryUsage;
+
+    private ResourcePackResponseCache(final long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must be non-negative");
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Creates a new, empty {@link ResourcePackResponseCache} instance,
+     * using the {@link #DEFAULT_MEMORY_BUDGET default memory budget}.
+     *
+     * @return The created cache
+     * @since 1.7.0
+     */
+    @Contract("-> new")
+    public static @NotNull ResourcePackResponseCache responseCache() {
+        return new ResourcePackResponseCache(DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Creates a new, empty {@link ResourcePackResponseCache} instance.
+     *
+     * @param memoryBudget The maximum amount of bytes of resource-pack
+     *                     data kept in memory
+     * @return The created cache
+     * @since 1.7.0
+     */
+    @Contract("_ -> new")
+    public static @NotNull ResourcePackResponseCache responseCache(final long memoryBudget) {
+        return new ResourcePackResponseCache(memoryBudget);
+    }
+
+    /**
+     * Sends the given resource-pack as response for the given exchange,
+     * using the cached response or computing it if not present.
+     *
+     * @param pack     The resource-pack to send
+     * @param exchange The HTTP exchange
+     * @throws IOException If writing the response fails
+     * @since 1.7.0
+     */
+    public void send(final @NotNull BuiltResourcePack pack, final @NotNull HttpExchange exchange) throws IOException {
+        requireNonNull(exchange, "exchange");
+        response(pack).send(exchange);
+    }
+
+    /**
+     * Computes the response for the given resource-pack, if not present,
+     * so that it is not computed when it is sent for the first time.
+     *
+     * @param pack The resource-pack
+     * @since 1.7.0
+     */
+    public void precompute(final @NotNull BuiltResourcePack pack) {
+        response(pack);
+    }
+
+    /**
+     * Determines whether the response for the resource-pack
+     * with the given hash is cached.
+     *
+     * @param hash The resource-pack hash
+     * @return True if the response is cached
+     * @since 1.7.0
+     */
+    public synchronized boolean contains(final @NotNull String hash) {
+        requireNonNull(hash, "hash");
+        return responses.containsKey(hash);
+    }
+
+    /**
+     * Removes the cached response for the resource-pack with
+     * the given hash, requests being served keep using it until
+     * they finish.
+     *
+     * @param hash The resource-pack hash
+     * @return True if a response was removed
+     * @since 1.7.0
+     */
+    public synchronized boolean invalidate(final @NotNull String hash) {
+        requireNonNull(hash, "hash");
+        final ResourcePackResponse response = responses.remove(hash);
+        if (response == null) {
+            return false;
+        }
+        memoryUsage -= response.length();
+        return true;
+    }
+
+    /**
+     * Returns the amount of cached responses.
+     *
+     * @return The amount of cached responses
+     * @since 1.7.0
+     */
+    public synchronized int size() {
+        return responses.size();
+    }
+
+    /**
+     * Returns the amount of resource-pack bytes currently
+     * kept in memory, never greater than the memory budget.
+     *
+     * @return The memory usage, in bytes
+     * @since 1.7.0
+     */
+    public synchronized long memoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Removes all the cached responses.
+     *
+     * @since 1.7.0
+     */
+    public synchronized void clear() {
+        responses.clear();
+        memoryUsage = 0;
+    }
+
+    @NotNull ResourcePackResponse response(final @NotNull BuiltResourcePack pack) {
+        requireNonNull(pack, "pack");
+        synchronized (this) {
+            final ResourcePackResponse response = responses.get(pack.hash());
+            if (response != null) {
+                return response;
+            }
+        }
+
+        // read the resource-pack data outside the lock
+        return cache(ResourcePackResponse.of(pack));
+    }
+
+    synchronized @Nullable ResourcePackResponse cached(final @NotNull String hash) {
+        return responses.get(hash);
+    }
+
+    /*
+     * Caches the given response if the memory budget allows it, evicting
+     * the least recently used responses, and returns the response that
+     * should be sent, which is the already cached one, if present
+     */
+    synchronized @NotNull ResourcePackResponse cache(final @NotNull ResourcePackResponse response) {
+        final ResourcePackResponse existing = responses.get(response.hash());
+        if (existing != null) {
+            return existing;
+        }
+        if (response.length() > memoryBudget) {
+            // will never fit, serve it without keeping it
+            return response;
+        }
+
+        responses.put(response.hash(), response);
+        memoryUsage += response.length();
+
+        // evict the least recently used responses
+        final Iterator<ResourcePackResponse> iterator = responses.values().iterator();
+        while (memoryUsage > memoryBudget && iterator.hasNext()) {
+            final ResourcePackResponse eldest = iterator.next();
+            iterator.remove();
+            memoryUsage -= eldest.length();
+        }
+        return response;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ResourcePackResponseCache{" +
+                "memoryBudget=" + memoryBudget +
+                '}';
+    }
+}
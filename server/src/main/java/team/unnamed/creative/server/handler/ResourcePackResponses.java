@@ -0,0 +1,179 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.server.util.ByteBuffers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+
+final class ResourcePackResponses {
+    // extension of content-addressed resource-pack file names
+    static final String EXTENSION = ".zip";
+    private static final int HASH_LENGTH = 40;
+
+    private ResourcePackResponses() {
+        throw new UnsupportedOperationException("Can't instantiate utility class");
+    }
+
+    /**
+     * Creates the (strong) entity tag for the resource-pack
+     * with the given SHA-1 hash.
+     *
+     * @param hash The resource-pack hash
+     * @return The entity tag, including the quotes
+     */
+    static @NotNull String entityTag(final @NotNull String hash) {
+        return '"' + hash + '"';
+    }
+
+    /**
+     * Sends the given plain text as response for the given exchange.
+     *
+     * @param exchange The HTTP exchange
+     * @param status   The response status code
+     * @param text     The response text
+     * @throws IOException If writing the response fails
+     */
+    static void sendText(final @NotNull HttpExchange exchange, final int status, final @NotNull String text) throws IOException {
+        final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(data.length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        sendBody(exchange, status, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Sends the response headers with the given status and
+     * writes the remaining bytes of the given body.
+     *
+     * @param exchange The HTTP exchange
+     * @param status   The response status code
+     * @param body     The response body, not modified
+     * @throws IOException If writing the response fails
+     */
+    static void sendBody(final @NotNull HttpExchange exchange, final int status, final @NotNull ByteBuffer body) throws IOException {
+        exchange.sendResponseHeaders(status, body.remaining());
+        try (final OutputStream responseStream = exchange.getResponseBody()) {
+            ByteBuffers.transfer(body, responseStream);
+        }
+    }
+
+    /**
+     * Determines whether the given {@code If-None-Match} header
+     * values match the given entity tag, using the weak comparison.
+     *
+     * @param ifNoneMatch The {@code If-None-Match} header values
+     * @param etag        The entity tag
+     * @return True if any value matches
+     */
+    static boolean matches(final @Nullable List<String> ifNoneMatch, final @NotNull String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (final String value : ifNoneMatch) {
+            for (String candidate : value.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the resource-pack hash in the given request path,
+     * which must end with {@code <hash>.zip}.
+     *
+     * @param path The request path
+     * @return The lower-case hash, null if the path doesn't
+     * contain a valid hash
+     */
+    static @Nullable String pathHash(final @NotNull String path) {
+        if (!path.endsWith(EXTENSION)) {
+            return null;
+        }
+        final int start = path.lastIndexOf('/') + 1;
+        return normalizeHash(path.substring(start, path.length() - EXTENSION.length()));
+    }
+
+    /**
+     * Computes the lower-case, hexadecimal SHA-1 hash of the
+     * remaining bytes of the given buffer, without modifying
+     * its position.
+     *
+     * @param data The data
+     * @return The SHA-1 hash
+     */
+    static @NotNull String sha1(final @NotNull ByteBuffer data) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot find SHA-1 algorithm", e);
+        }
+        digest.update(data.duplicate());
+        final StringBuilder hash = new StringBuilder(HASH_LENGTH);
+        for (final byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Normalizes the given SHA-1 hash.
+     *
+     * @param hash The hash
+     * @return The lower-case hash, null if it is not a valid SHA-1 hash
+     */
+    static @Nullable String normalizeHash(final @NotNull String hash) {
+        if (hash.length() != HASH_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            final char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f') && (c < 'A' || c > 'F')) {
+                return null;
+            }
+        }
+        return hash.toLowerCase(Locale.ROOT);
+    }
+}
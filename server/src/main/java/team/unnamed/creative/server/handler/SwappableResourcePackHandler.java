@@ -0,0 +1,252 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A request handler serving a resource-pack that can be replaced
+ * at any time, without restarting the server.
+ *
+ * <p>{@link #swap(BuiltResourcePack)} atomically publishes a new
+ * resource-pack: requests received after it are served the new
+ * resource-pack, and requests being served keep sending the previous
+ * one until they finish, its data is released once they drain.</p>
+ *
+ * <p>Requests at paths ending with {@code <hash>.zip} are served the
+ * resource-pack with that hash, so clients that received the previous
+ * hash right before a swap still download the matching resource-pack,
+ * previous resource-packs are kept for the given grace period, then
+ * their URLs respond with 404. Requests at any other path are served
+ * the current resource-pack.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * SwappableResourcePackHandler handler = SwappableResourcePackHandler.swappable(pack, Duration.ofMinutes(5));
+ * ResourcePackServer server = ResourcePackServer.server()
+ *         .address(7270)
+ *         .handler(handler)
+ *         .build();
+ * // send "http://host:7270/" + ResourcePackRegistry.fileName(handler.current().hash()) to players
+ *
+ * // later, roll out a new resource-pack
+ * handler.swap(newPack);
+ * }</pre>
+ *
+ * @since 1.7.0
+ */
+public final class SwappableResourcePackHandler implements ResourcePackRequestHandler {
+    private final long gracePeriodNanos;
+    private final boolean validOnly;
+
+    private volatile Version current;
+    // previous versions, by hash, still served until they expire
+    private final Map<String, Version> retired = new ConcurrentHashMap<>();
+
+    private SwappableResourcePackHandler(final @NotNull BuiltResourcePack pack, final @NotNull Duration gracePeriod, final boolean validOnly) {
+        requireNonNull(pack, "pack");
+        requireNonNull(gracePeriod, "gracePeriod");
+        if (gracePeriod.isNegative()) {
+            throw new IllegalArgumentException("Grace period must be non-negative");
+        }
+        this.gracePeriodNanos = gracePeriod.toNanos();
+        this.validOnly = validOnly;
+        this.current = new Version(pack);
+    }
+
+    /**
+     * Creates a new {@link SwappableResourcePackHandler} instance.
+     *
+     * @param pack        The initially served resource-pack
+     * @param gracePeriod The time that previous resource-packs are still
+     *                    served at their hash URLs after being swapped
+     * @param validOnly   Whether to only serve the resource-pack if the
+     *                    request was made from a Minecraft client
+     * @return The created handler
+     * @since 1.7.0
+     */
+    @Contract("_, _, _ -> new")
+    public static @NotNull SwappableResourcePackHandler swappable(final @NotNull BuiltResourcePack pack, final @NotNull Duration gracePeriod, final boolean validOnly) {
+        return new SwappableResourcePackHandler(pack, gracePeriod, validOnly);
+    }
+
+    /**
+     * Creates a new {@link SwappableResourcePackHandler} instance,
+     * serving requests from any client.
+     *
+     * @param pack        The initially served resource-pack
+     * @param gracePeriod The time that previous resource-packs are still
+     *                    served at their hash URLs after being swapped
+     * @return The created handler
+     * @since 1.7.0
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull SwappableResourcePackHandler swappable(final @NotNull BuiltResourcePack pack, final @NotNull Duration gracePeriod) {
+        return new SwappableResourcePackHandler(pack, gracePeriod, false);
+    }
+
+    /**
+     * Returns the currently served resource-pack.
+     *
+     * @return The current resource-pack
+     * @since 1.7.0
+     */
+    public @NotNull BuiltResourcePack current() {
+        return current.pack;
+    }
+
+    /**
+     * Atomically replaces the served resource-pack, the previous
+     * resource-pack is still served at its hash URL during the
+     * grace period.
+     *
+     * @param pack The new resource-pack
+     * @return The previous resource-pack
+     * @since 1.7.0
+     */
+    public @NotNull BuiltResourcePack swap(final @NotNull BuiltResourcePack pack) {
+        requireNonNull(pack, "pack");
+        final Version version = new Version(pack);
+        final Version previous;
+        synchronized (this) {
+            previous = current;
+            expire(System.nanoTime());
+            // requests read "current" and "retired" without the lock, so
+            // the previous version is retired before it stops being
+            // current, and a version is current before it stops being
+            // retired, its hash is always matched by one of them
+            if (previous.hash != null && !previous.hash.equals(version.hash)) {
+                previous.expiresAt = System.nanoTime() + gracePeriodNanos;
+                retired.put(previous.hash, previous);
+            }
+            current = version;
+            if (version.hash != null) {
+                // swapped back to a retired resource-pack
+                retired.remove(version.hash);
+            }
+        }
+        return previous.pack;
+    }
+
+    /**
+     * Determines whether the resource-pack with the given hash is
+     * currently served, either because it is the current resource-pack
+     * or because it was swapped during the grace period.
+     *
+     * @param hash The resource-pack hash
+     * @return True if the resource-pack is served
+     * @since 1.7.0
+     */
+    public boolean isServed(final @NotNull String hash) {
+        requireNonNull(hash, "hash");
+        final String normalized = ResourcePackResponses.normalizeHash(hash);
+        return normalized != null && version(normalized) != null;
+    }
+
+    @Override
+    public void onRequest(final @Nullable ResourcePackDownloadRequest request, final @NotNull HttpExchange exchange) throws IOException {
+        if (request == null && validOnly) {
+            ResourcePackResponses.sendText(exchange, 400, "Please use a Minecraft client\n");
+            return;
+        }
+
+        if (!retired.isEmpty()) {
+            expire(System.nanoTime());
+        }
+
+        final String path = exchange.getRequestURI().getPath();
+        final String hash = path == null ? null : ResourcePackResponses.pathHash(path);
+
+        // the version is read once, so the whole response is
+        // sent from the same data even if swapped meanwhile
+        final Version version = hash == null ? current : version(hash);
+        if (version == null) {
+            ResourcePackResponses.sendText(exchange, 404, "Resource-pack not found\n");
+            return;
+        }
+        version.response.send(exchange);
+    }
+
+    private @Nullable Version version(final @NotNull String hash) {
+        final Version current = this.current;
+        if (hash.equals(current.hash)) {
+            return current;
+        }
+        final Version version = retired.get(hash);
+        if (version == null) {
+            return null;
+        }
+        if (System.nanoTime() - version.expiresAt >= 0) {
+            retired.remove(hash, version);
+            return null;
+        }
+        return version;
+    }
+
+    // removes the expired versions, requests being served
+    // keep a reference to their data until they finish
+    private void expire(final long now) {
+        final Iterator<Version> iterator = retired.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().expiresAt >= 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "SwappableResourcePackHandler{" +
+                "current=" + current.pack +
+                ", retired=" + retired.keySet() +
+                ", gracePeriodNanos=" + gracePeriodNanos +
+                '}';
+    }
+
+    private static final class Version {
+        private final BuiltResourcePack pack;
+        private final @Nullable String hash;
+        private final ResourcePackResponse response;
+        private volatile long expiresAt;
+
+        private Version(final @NotNull BuiltResourcePack pack) {
+            this.pack = pack;
+            this.hash = ResourcePackResponses.normalizeHash(pack.hash());
+            this.response = ResourcePackResponse.of(pack);
+        }
+    }
+}
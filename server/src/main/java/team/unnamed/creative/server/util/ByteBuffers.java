@@ -0,0 +1,121 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.creative.base.Writable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.util.Objects.requireNonNull;
+
+@ApiStatus.Internal
+public final class ByteBuffers {
+    private ByteBuffers() {
+        throw new UnsupportedOperationException("Can't instantiate utility class");
+    }
+
+    /**
+     * Reads the given {@link Writable} into a new heap buffer,
+     * copying its data exactly once.
+     *
+     * <p>The returned buffer is backed by an accessible array so
+     * that it can be transferred without further copies, callers
+     * must not expose it nor modify its contents.</p>
+     *
+     * @param data The data to read
+     * @return The heap buffer
+     * @throws IOException If writing the data fails
+     */
+    public static @NotNull ByteBuffer heapBuffer(final @NotNull Writable data) throws IOException {
+        requireNonNull(data, "data");
+        return ByteBuffer.wrap(data.toByteArray());
+    }
+
+    /**
+     * Maps the given file into memory, read-only.
+     *
+     * <p>The returned buffer is not backed by the heap, its contents
+     * are paged in by the operating system when they are read, so large
+     * files can be served without reading them first. The mapping is
+     * released when the buffer is garbage collected.</p>
+     *
+     * @param file The file to map
+     * @return The mapped buffer
+     * @throws IOException If opening or mapping the file fails
+     */
+    public static @NotNull ByteBuffer map(final @NotNull Path file) throws IOException {
+        requireNonNull(file, "file");
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer to the given
+     * output stream, without modifying the buffer position and without
+     * copying heap buffers.
+     *
+     * <p>If the output stream is a {@link ByteBufferSink}, the buffer
+     * is given to it as is, without copying it.</p>
+     *
+     * <p>Note that this operation <strong>won't close</strong> the
+     * given {@link OutputStream}</p>
+     *
+     * @param buffer The source buffer
+     * @param output The target output stream
+     * @throws IOException If writing fails
+     */
+    public static void transfer(final @NotNull ByteBuffer buffer, final @NotNull OutputStream output) throws IOException {
+        requireNonNull(buffer, "buffer");
+        requireNonNull(output, "output");
+        if (output instanceof ByteBufferSink) {
+            // the sink holds the shared data itself, e.g. to
+            // write it later to a non-blocking channel
+            ((ByteBufferSink) output).write(buffer.duplicate());
+            return;
+        }
+        if (buffer.hasArray()) {
+            // heap, non read-only buffer, write the backing array directly
+            output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+
+        // read-only, direct or mapped buffer, the channel adapter will
+        // write it in small chunks
+        final ByteBuffer source = buffer.duplicate();
+        final WritableByteChannel channel = Channels.newChannel(output);
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a single, already resolved, byte range from an
+ * HTTP {@code Range} request header.
+ *
+ * <p>Only single {@code bytes} ranges are supported, requests
+ * for multiple ranges are ignored and served in full, which is
+ * allowed by RFC 9110.</p>
+ */
+@ApiStatus.Internal
+public final class ByteRange {
+    /**
+     * The range returned when the requested range can not be
+     * satisfied for the content length, a 416 status should be
+     * returned
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1L, -1L);
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long first;
+    private final long last;
+
+    private ByteRange(final long first, final long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parses the given {@code Range} header value for content
+     * of the given length.
+     *
+     * @param header The {@code Range} header value, may be null
+     * @param length The full content length
+     * @return The resolved range, {@link #UNSATISFIABLE} if it can
+     * not be satisfied, or null if the header is absent, malformed or
+     * not supported, meaning that the full content should be sent
+     */
+    public static @Nullable ByteRange parse(final @Nullable String header, final long length) {
+        if (header == null || !header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+
+        final String spec = header.substring(BYTES_UNIT.length()).trim();
+        if (spec.indexOf(',') != -1) {
+            // multipart/byteranges responses are not supported
+            return null;
+        }
+
+        final int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+
+        final long first = parseLong(spec.substring(0, dash).trim());
+        final long last = parseLong(spec.substring(dash + 1).trim());
+
+        if (dash == 0) {
+            // suffix range, "bytes=-n", the last n bytes
+            if (last < 0) {
+                return null;
+            } else if (last == 0 || length == 0) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(Math.max(0L, length - last), length - 1);
+        }
+
+        if (first < 0 || (dash != spec.length() - 1 && (last < 0 || last < first))) {
+            // malformed, must be ignored
+            return null;
+        } else if (first >= length) {
+            return UNSATISFIABLE;
+        } else if (last < 0 || last >= length) {
+            // "bytes=a-" or a last position past the content end
+            return new ByteRange(first, length - 1);
+        } else {
+            return new ByteRange(first, last);
+        }
+    }
+
+    private static long parseLong(final String value) {
+        if (value.isEmpty()) {
+            return -1L;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Determines whether this range can be satisfied.
+     *
+     * @return True if this range can be satisfied
+     */
+    public boolean satisfiable() {
+        return first >= 0;
+    }
+
+    /**
+     * Returns the first byte position in this range, inclusive.
+     *
+     * @return The first byte position
+     */
+    public long first() {
+        return first;
+    }
+
+    /**
+     * Returns the last byte position in this range, inclusive.
+     *
+     * @return The last byte position
+     */
+    public long last() {
+        return last;
+    }
+
+    /**
+     * Returns the amount of bytes in this range.
+     *
+     * @return The range length
+     */
+    public long length() {
+        return last - first + 1;
+    }
+
+    /**
+     * Creates the {@code Content-Range} header value for
+     * this range and the given full content length.
+     *
+     * @param length The full content length
+     * @return The {@code Content-Range} header value
+     */
+    public @NotNull String contentRange(final long length) {
+        if (!satisfiable()) {
+            return "bytes */" + length;
+        }
+        return "bytes " + first + '-' + last + '/' + length;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ByteRange{" +
+                "first=" + first +
+                ", last=" + last +
+                '}';
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates virtual thread executors when the runtime supports them
+ * (Java 21+), accessed reflectively since this library targets Java 8.
+ */
+@ApiStatus.Internal
+public final class VirtualThreads {
+    private VirtualThreads() {
+        throw new UnsupportedOperationException("Can't instantiate utility class");
+    }
+
+    /**
+     * Creates an executor that runs every task in a new virtual thread,
+     * or, if the runtime doesn't support virtual threads, a pool with the
+     * given amount of threads. Like virtual threads, the pool threads are
+     * daemon threads, so they never keep the JVM alive.
+     *
+     * @param fallbackThreads The amount of threads of the fallback pool
+     * @param namePrefix      The thread name prefix
+     * @return The created executor
+     */
+    public static @NotNull ExecutorService newVirtualThreadOrBoundedExecutor(final int fallbackThreads, final @NotNull String namePrefix) {
+        requireNonNull(namePrefix, "namePrefix");
+        if (fallbackThreads < 1) {
+            throw new IllegalArgumentException("fallbackThreads must be positive");
+        }
+
+        final ExecutorService virtualThreadExecutor = newVirtualThreadExecutor(namePrefix);
+        if (virtualThreadExecutor != null) {
+            return virtualThreadExecutor;
+        }
+
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                fallbackThreads,
+                fallbackThreads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                task -> {
+                    final Thread thread = new Thread(task, namePrefix + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        // don't keep idle threads
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // equivalent to Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory())
+    private static @Nullable ExecutorService newVirtualThreadExecutor(final @NotNull String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            final ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            final Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (final ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // not supported (Java < 21, or preview features not enabled)
+            return null;
+        }
+    }
+}
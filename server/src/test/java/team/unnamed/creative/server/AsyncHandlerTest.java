@@ -0,0 +1,89 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.server.handler.AsyncResourcePackRequestHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class AsyncHandlerTest extends ResourcePackServerTestBase {
+
+    @Test
+    @DisplayName("Test that slow asynchronous handlers do not block other requests")
+    void test_async_handler() throws Exception {
+        forEachServerMode(nonBlocking -> {
+            CompletableFuture<Void> gate = new CompletableFuture<>();
+            AsyncResourcePackRequestHandler handler = (request, exchange) -> {
+                String path = exchange.getRequestURI().getPath();
+                if (path.equals("/fail")) {
+                    CompletableFuture<Void> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(new IllegalStateException("Expected"));
+                    return failed;
+                }
+
+                CompletableFuture<Void> ready = path.equals("/slow") ? gate : CompletableFuture.completedFuture(null);
+                return ready.thenRunAsync(() -> {
+                    try {
+                        byte[] data = "ok".getBytes(StandardCharsets.UTF_8);
+                        exchange.sendResponseHeaders(200, data.length);
+                        try (OutputStream output = exchange.getResponseBody()) {
+                            output.write(data);
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            };
+
+            // no executor, requests are dispatched by a single thread
+            try (TestServer server = start(ResourcePackServer.server()
+                    .asyncHandler(handler)
+                    .nonBlocking(nonBlocking))) {
+                CompletableFuture<Integer> slow = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return server.responseCode("/slow");
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+
+                Assertions.assertEquals(200, server.responseCode("/fast"));
+                Assertions.assertFalse(slow.isDone());
+
+                gate.complete(null);
+                Assertions.assertEquals(200, (int) slow.get(10, TimeUnit.SECONDS));
+
+                Assertions.assertEquals(500, server.responseCode("/fail"));
+            }
+        });
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+
+class ConditionalDownloadTest extends LocalHttpTestBase {
+
+    private HttpURLConnection openMinecraft(String method) throws IOException {
+        HttpURLConnection connection = open("/");
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("X-Minecraft-UUID", "30b9e3deb4b64d37943af5747f710ca6");
+        connection.setRequestProperty("X-Minecraft-Username", "Yusshu");
+        connection.setRequestProperty("X-Minecraft-Pack-Format", "8");
+        connection.setRequestProperty("X-Minecraft-Version", "1.18.2");
+        connection.setRequestProperty("X-Minecraft-Version-ID", "1.18.2");
+        return connection;
+    }
+
+    private byte[] read(HttpURLConnection connection) throws IOException {
+        try (InputStream input = connection.getInputStream()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            stream(input, output);
+            return output.toByteArray();
+        }
+    }
+
+    @Test
+    @DisplayName("Test that the ETag is the resource-pack hash")
+    void test_etag() throws IOException {
+        HttpURLConnection connection = openMinecraft("GET");
+        Assertions.assertArrayEquals(resourcePack.data().toByteArray(), read(connection));
+        Assertions.assertEquals('"' + resourcePack.hash() + '"', connection.getHeaderField("ETag"));
+        Assertions.assertEquals("bytes", connection.getHeaderField("Accept-Ranges"));
+    }
+
+    @Test
+    @DisplayName("Test that a matching If-None-Match returns 304 Not Modified")
+    void test_not_modified() throws IOException {
+        HttpURLConnection connection = openMinecraft("GET");
+        connection.setRequestProperty("If-None-Match", "\"other\", \"" + resourcePack.hash() + '"');
+        Assertions.assertEquals(304, connection.getResponseCode());
+
+        HttpURLConnection modified = openMinecraft("GET");
+        modified.setRequestProperty("If-None-Match", "\"other\"");
+        Assertions.assertEquals(200, modified.getResponseCode());
+        Assertions.assertArrayEquals(resourcePack.data().toByteArray(), read(modified));
+    }
+
+    @Test
+    @DisplayName("Test that HEAD requests return the headers only")
+    void test_head() throws IOException {
+        HttpURLConnection connection = openMinecraft("HEAD");
+        Assertions.assertEquals(200, connection.getResponseCode());
+        Assertions.assertEquals(resourcePack.data().toByteArray().length, connection.getContentLengthLong());
+        Assertions.assertEquals("application/zip", connection.getContentType());
+        Assertions.assertEquals('"' + resourcePack.hash() + '"', connection.getHeaderField("ETag"));
+    }
+
+    @Test
+    @DisplayName("Test that byte ranges return 206 Partial Content")
+    void test_range() throws IOException {
+        byte[] data = resourcePack.data().toByteArray();
+
+        HttpURLConnection first = openMinecraft("GET");
+        first.setRequestProperty("Range", "bytes=0-9");
+        Assertions.assertEquals(206, first.getResponseCode());
+        Assertions.assertEquals("bytes 0-9/" + data.length, first.getHeaderField("Content-Range"));
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, 0, 10), read(first));
+
+        // resume an interrupted download
+        HttpURLConnection rest = openMinecraft("GET");
+        rest.setRequestProperty("Range", "bytes=10-");
+        rest.setRequestProperty("If-Range", '"' + resourcePack.hash() + '"');
+        Assertions.assertEquals(206, rest.getResponseCode());
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, 10, data.length), read(rest));
+
+        HttpURLConnection suffix = openMinecraft("GET");
+        suffix.setRequestProperty("Range", "bytes=-5");
+        Assertions.assertEquals(206, suffix.getResponseCode());
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, data.length - 5, data.length), read(suffix));
+    }
+
+    @Test
+    @DisplayName("Test that changed or unsatisfiable ranges are handled")
+    void test_invalid_range() throws IOException {
+        byte[] data = resourcePack.data().toByteArray();
+
+        // the pack changed, the full pack must be sent
+        HttpURLConnection changed = openMinecraft("GET");
+        changed.setRequestProperty("Range", "bytes=10-");
+        changed.setRequestProperty("If-Range", "\"old\"");
+        Assertions.assertEquals(200, changed.getResponseCode());
+        Assertions.assertArrayEquals(data, read(changed));
+
+        HttpURLConnection unsatisfiable = openMinecraft("GET");
+        unsatisfiable.setRequestProperty("Range", "bytes=" + data.length + '-');
+        Assertions.assertEquals(416, unsatisfiable.getResponseCode());
+        Assertions.assertEquals("bytes */" + data.length, unsatisfiable.getHeaderField("Content-Range"));
+    }
+
+}
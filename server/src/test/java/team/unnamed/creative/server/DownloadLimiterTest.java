@@ -0,0 +1,150 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.server.handler.AsyncResourcePackRequestHandler;
+import team.unnamed.creative.server.handler.ResourcePackRequestHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class DownloadLimiterTest extends ResourcePackServerTestBase {
+
+    private static long download(TestServer server, String path) throws IOException {
+        HttpURLConnection connection = server.open(path);
+        Assertions.assertEquals(200, connection.getResponseCode());
+        return readAll(connection.getInputStream()).length;
+    }
+
+    private static void awaitNoDownloads(DownloadLimiter limiter) throws InterruptedException {
+        // downloads may be released right after the client reads the response
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.activeDownloads() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, limiter.activeDownloads());
+    }
+
+    @Test
+    @DisplayName("Test that downloads over the concurrency limit are rejected")
+    void test_max_concurrent_downloads() throws Exception {
+        forEachServerMode(nonBlocking -> {
+            CompletableFuture<Void> gate = new CompletableFuture<>();
+            AsyncResourcePackRequestHandler handler = (request, exchange) -> {
+                CompletableFuture<Void> ready = exchange.getRequestURI().getPath().equals("/slow")
+                        ? gate
+                        : CompletableFuture.completedFuture(null);
+                return ready.thenRunAsync(() -> {
+                    try {
+                        exchange.sendResponseHeaders(200, 2);
+                        try (OutputStream output = exchange.getResponseBody()) {
+                            output.write(new byte[]{'o', 'k'});
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            };
+
+            DownloadLimiter limiter = DownloadLimiter.limiter();
+            limiter.maxConcurrentDownloads(1);
+            limiter.retryAfter(3);
+
+            try (TestServer server = start(ResourcePackServer.server()
+                    .asyncHandler(handler)
+                    .limiter(limiter)
+                    .nonBlocking(nonBlocking))) {
+                CompletableFuture<Long> slow = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return download(server, "/slow");
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (limiter.activeDownloads() == 0 && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                Assertions.assertEquals(1, limiter.activeDownloads());
+
+                HttpURLConnection rejected = server.open("/fast");
+                Assertions.assertEquals(503, rejected.getResponseCode());
+                Assertions.assertEquals("3", rejected.getHeaderField("Retry-After"));
+
+                // limits can be changed while running
+                limiter.maxConcurrentDownloads(2);
+                Assertions.assertEquals(2, download(server, "/fast"));
+
+                gate.complete(null);
+                Assertions.assertEquals(2, (long) slow.get(10, TimeUnit.SECONDS));
+                awaitNoDownloads(limiter);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Test that downloads are limited to the configured bandwidth")
+    void test_bandwidth() throws Exception {
+        byte[] data = new byte[512 * 1024];
+        ResourcePackRequestHandler handler = (request, exchange) -> {
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(data);
+            }
+        };
+
+        forEachServerMode(nonBlocking -> {
+            DownloadLimiter limiter = DownloadLimiter.limiter();
+            limiter.maxBandwidth(256 * 1024);
+
+            try (TestServer server = start(ResourcePackServer.server()
+                    .handler(handler)
+                    .limiter(limiter)
+                    .nonBlocking(nonBlocking))) {
+                long start = System.nanoTime();
+                Assertions.assertEquals(data.length, download(server, "/"));
+                long elapsed = System.nanoTime() - start;
+                Assertions.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(1500), "Download took " + elapsed + "ns");
+
+                // the per-download limit also applies
+                limiter.maxBandwidth(0);
+                limiter.maxConnectionBandwidth(256 * 1024);
+                start = System.nanoTime();
+                Assertions.assertEquals(data.length, download(server, "/"));
+                elapsed = System.nanoTime() - start;
+                Assertions.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(1500), "Download took " + elapsed + "ns");
+
+                awaitNoDownloads(limiter);
+            }
+        });
+    }
+
+}
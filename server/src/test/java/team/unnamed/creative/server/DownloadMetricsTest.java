@@ -0,0 +1,139 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.server.handler.ResourcePackRequestHandler;
+import team.unnamed.creative.server.request.ResourcePackDownloadRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+class DownloadMetricsTest extends ResourcePackServerTestBase {
+
+    private static int request(TestServer server, String path, boolean minecraft) throws IOException {
+        HttpURLConnection connection = server.open(path);
+        if (minecraft) {
+            connection.setRequestProperty("X-Minecraft-Username", "Notch");
+            connection.setRequestProperty("X-Minecraft-UUID", "069a79f444e94726a5befca90e38aaf5");
+            connection.setRequestProperty("X-Minecraft-Version", "1.20.1");
+            connection.setRequestProperty("X-Minecraft-Version-ID", "1.20.1");
+            connection.setRequestProperty("X-Minecraft-Pack-Format", "15");
+        }
+        int code = connection.getResponseCode();
+        InputStream input = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (input != null) {
+            // consume the response
+            readAll(input);
+        }
+        return code;
+    }
+
+    @Test
+    @DisplayName("Test that handled requests are recorded")
+    void test_request_metrics() throws Exception {
+        byte[] data = new byte[1000];
+        ResourcePackRequestHandler handler = (request, exchange) -> {
+            if (exchange.getRequestURI().getPath().equals("/missing")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(data);
+            }
+        };
+
+        forEachServerMode(nonBlocking -> {
+            DownloadMetrics metrics = DownloadMetrics.metrics();
+            try (TestServer server = start(ResourcePackServer.server()
+                    .handler(handler)
+                    .metrics(metrics)
+                    .nonBlocking(nonBlocking))) {
+                Assertions.assertEquals(200, request(server, "/", true));
+                Assertions.assertEquals(200, request(server, "/", false));
+                Assertions.assertEquals(404, request(server, "/missing", false));
+
+                // requests may be recorded right after the client reads the response
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (metrics.snapshot().requests() < 3 && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+
+                DownloadMetrics.Snapshot snapshot = metrics.snapshot();
+                Assertions.assertEquals(3, snapshot.requests());
+                Assertions.assertEquals(2, snapshot.requests(DownloadMetrics.Outcome.SUCCESS));
+                Assertions.assertEquals(1, snapshot.requests(DownloadMetrics.Outcome.CLIENT_ERROR));
+                Assertions.assertEquals(0, snapshot.requests(DownloadMetrics.Outcome.FAILED));
+                Assertions.assertEquals(2 * data.length, snapshot.bytesSent());
+                Assertions.assertEquals(0, snapshot.inFlight());
+                Assertions.assertEquals(2, snapshot.unknownClients());
+                Assertions.assertEquals(1L, (long) snapshot.clientVersions().get("1.20.1"));
+                Assertions.assertEquals(1L, (long) snapshot.packFormats().get(15));
+                Assertions.assertEquals(3, snapshot.timeToFirstByte().count());
+                Assertions.assertEquals(3, snapshot.transferTime().count());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Test the recorded outcomes and histogram percentiles")
+    void test_outcomes_and_percentiles() {
+        DownloadMetrics metrics = DownloadMetrics.metrics();
+        ResourcePackDownloadRequest request = ResourcePackDownloadRequest.request(UUID.randomUUID(), "Notch", "1.20.4", "1.20.4", 22);
+
+        metrics.start(request).complete(206);
+        metrics.start(request).complete(304);
+        metrics.start(request).complete(503);
+        metrics.start(null).complete(-1);
+        DownloadMetrics.Transfer transfer = metrics.start(null);
+        transfer.fail();
+        // completing twice is ignored
+        transfer.complete(200);
+        metrics.start(null); // still in flight
+
+        DownloadMetrics.Snapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(1, snapshot.requests(DownloadMetrics.Outcome.SUCCESS));
+        Assertions.assertEquals(1, snapshot.requests(DownloadMetrics.Outcome.NOT_MODIFIED));
+        Assertions.assertEquals(1, snapshot.requests(DownloadMetrics.Outcome.REJECTED));
+        Assertions.assertEquals(1, snapshot.requests(DownloadMetrics.Outcome.SERVER_ERROR));
+        Assertions.assertEquals(1, snapshot.requests(DownloadMetrics.Outcome.FAILED));
+        Assertions.assertEquals(1, snapshot.inFlight());
+        Assertions.assertEquals(3L, (long) snapshot.packFormats().get(22));
+
+        DownloadMetrics.Histogram histogram = snapshot.transferTime();
+        Assertions.assertEquals(5, histogram.count());
+        Assertions.assertEquals(histogram.bounds().length, histogram.counts().length);
+        // recorded instantly, so all in the first bucket (<= 1ms)
+        Assertions.assertEquals(1, histogram.percentile(0.99));
+        Assertions.assertEquals(0, DownloadMetrics.metrics().snapshot().transferTime().percentile(0.5));
+    }
+
+}
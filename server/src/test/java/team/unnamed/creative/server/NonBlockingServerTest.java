@@ -0,0 +1,177 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.server.handler.ResourcePackRequestHandler;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class NonBlockingServerTest extends ResourcePackServerTestBase {
+
+    private static BuiltResourcePack resourcePack;
+    private static ExecutorService executor;
+    private static TestServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        resourcePack = MinecraftResourcePackWriter.minecraft().build(resourcePack -> {
+            resourcePack.packMeta(8, "Resource pack!");
+            // make the pack big enough to fill the socket buffers
+            byte[] noise = new byte[4 * 1024 * 1024];
+            new Random(7271).nextBytes(noise);
+            resourcePack.unknownFile("noise.bin", Writable.bytes(noise));
+        });
+        executor = Executors.newFixedThreadPool(2);
+        server = start(ResourcePackServer.server()
+                .pack(resourcePack)
+                .nonBlocking(true)
+                .executor(executor));
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+        executor.shutdown();
+    }
+
+    private static byte[] download(HttpURLConnection connection) throws IOException {
+        return readAll(connection.getInputStream());
+    }
+
+    @Test
+    @DisplayName("Test that downloads are successful using the non-blocking server")
+    void test_download() throws IOException {
+        byte[] expected = resourcePack.data().toByteArray();
+
+        // the connection should be kept alive and reused
+        for (int i = 0; i < 3; i++) {
+            HttpURLConnection connection = server.open("/");
+            Assertions.assertEquals(200, connection.getResponseCode());
+            Assertions.assertEquals("application/zip", connection.getContentType());
+            Assertions.assertArrayEquals(expected, download(connection));
+        }
+
+        HttpURLConnection range = server.open("/");
+        range.setRequestProperty("Range", "bytes=100-199");
+        Assertions.assertEquals(206, range.getResponseCode());
+        Assertions.assertArrayEquals(Arrays.copyOfRange(expected, 100, 200), download(range));
+
+        HttpURLConnection head = server.open("/");
+        head.setRequestMethod("HEAD");
+        Assertions.assertEquals(200, head.getResponseCode());
+        Assertions.assertEquals(expected.length, head.getContentLengthLong());
+    }
+
+    @Test
+    @DisplayName("Test that slow clients do not block other downloads")
+    void test_slow_clients() throws IOException {
+        List<Socket> slowClients = new ArrayList<>();
+        try {
+            // clients that request the pack but never read it
+            for (int i = 0; i < 64; i++) {
+                Socket socket = new Socket(server.address().getAddress(), server.port());
+                socket.setReceiveBufferSize(1024);
+                OutputStream output = socket.getOutputStream();
+                output.write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                output.flush();
+                slowClients.add(socket);
+            }
+
+            HttpURLConnection connection = server.open("/");
+            Assertions.assertEquals(200, connection.getResponseCode());
+            Assertions.assertArrayEquals(resourcePack.data().toByteArray(), download(connection));
+        } finally {
+            for (Socket socket : slowClients) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test that malformed requests are rejected")
+    void test_malformed_request() throws IOException {
+        try (Socket socket = new Socket(server.address().getAddress(), server.port())) {
+            socket.getOutputStream().write("NOT HTTP\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            byte[] response = new byte[12];
+            int read = 0;
+            InputStream input = socket.getInputStream();
+            while (read < response.length) {
+                int count = input.read(response, read, response.length - read);
+                if (count == -1) {
+                    break;
+                }
+                read += count;
+            }
+            Assertions.assertEquals("HTTP/1.1 400", new String(response, 0, read, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @Test
+    @DisplayName("Test that handlers can stop the server from the selector thread")
+    void test_stop_from_handler() throws Exception {
+        AtomicReference<ResourcePackServer> reference = new AtomicReference<>();
+        CountDownLatch stopped = new CountDownLatch(1);
+        ResourcePackRequestHandler handler = (request, exchange) -> {
+            reference.get().stop(0);
+            stopped.countDown();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        };
+        // without executor, the handler runs on the selector thread
+        try (TestServer stopping = start(ResourcePackServer.server()
+                .nonBlocking(true)
+                .handler(handler))) {
+            reference.set(stopping.server());
+            try {
+                stopping.responseCode("/");
+            } catch (IOException ignored) {
+                // the connection may be closed before responding
+            }
+            Assertions.assertTrue(stopped.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+}
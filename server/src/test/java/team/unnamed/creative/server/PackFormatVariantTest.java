@@ -0,0 +1,153 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.metadata.overlays.OverlayEntry;
+import team.unnamed.creative.metadata.overlays.OverlaysMeta;
+import team.unnamed.creative.metadata.pack.PackFormat;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.server.handler.PackFormatVariantRequestHandler;
+import team.unnamed.creative.server.handler.ResourcePackRequestHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+class PackFormatVariantTest extends ResourcePackServerTestBase {
+
+    private static PackFormatVariantRequestHandler handler;
+    private static TestServer server;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        ResourcePack resourcePack = ResourcePack.resourcePack();
+        resourcePack.packMeta(15, "Resource pack!");
+        resourcePack.unknownFile("base.txt", Writable.stringUtf8("base"));
+
+        Overlay legacy = Overlay.overlay("legacy");
+        legacy.unknownFile("legacy.txt", Writable.stringUtf8("legacy"));
+        resourcePack.overlay(legacy);
+
+        Overlay modern = Overlay.overlay("modern");
+        modern.unknownFile("modern.txt", Writable.stringUtf8("modern"));
+        resourcePack.overlay(modern);
+
+        resourcePack.overlaysMeta(OverlaysMeta.of(
+                OverlayEntry.of(PackFormat.format(15, 15, 18), "legacy"),
+                OverlayEntry.of(PackFormat.format(22, 22, 34), "modern")
+        ));
+
+        handler = ResourcePackRequestHandler.perPackFormat(
+                resourcePack,
+                MinecraftResourcePackWriter.minecraft()::build,
+                false
+        );
+        server = start(ResourcePackServer.server().handler(handler));
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    private static byte[] downloadBytes(String packFormat) throws IOException {
+        HttpURLConnection connection = server.open("/");
+        if (packFormat != null) {
+            connection.setRequestProperty("X-Minecraft-UUID", "30b9e3deb4b64d37943af5747f710ca6");
+            connection.setRequestProperty("X-Minecraft-Username", "Yusshu");
+            connection.setRequestProperty("X-Minecraft-Pack-Format", packFormat);
+            connection.setRequestProperty("X-Minecraft-Version", "1.20.4");
+            connection.setRequestProperty("X-Minecraft-Version-ID", "1.20.4");
+        }
+
+        return readAll(connection.getInputStream());
+    }
+
+    private static Set<String> download(String packFormat) throws IOException {
+        Set<String> names = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(downloadBytes(packFormat)))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("Test that clients only receive the overlays they can use")
+    void test_variants() throws IOException {
+        Set<String> legacy = download("15");
+        Assertions.assertTrue(legacy.contains("base.txt"));
+        Assertions.assertTrue(legacy.contains("overlays/legacy/legacy.txt"));
+        Assertions.assertFalse(legacy.contains("overlays/modern/modern.txt"));
+
+        Set<String> middle = download("20");
+        Assertions.assertTrue(middle.contains("base.txt"));
+        Assertions.assertFalse(middle.contains("overlays/legacy/legacy.txt"));
+        Assertions.assertFalse(middle.contains("overlays/modern/modern.txt"));
+
+        Set<String> modern = download("32");
+        Assertions.assertTrue(modern.contains("base.txt"));
+        Assertions.assertFalse(modern.contains("overlays/legacy/legacy.txt"));
+        Assertions.assertTrue(modern.contains("overlays/modern/modern.txt"));
+    }
+
+    @Test
+    @DisplayName("Test that requests without pack format receive the full pack")
+    void test_full() throws IOException {
+        Set<String> full = download(null);
+        Assertions.assertTrue(full.contains("base.txt"));
+        Assertions.assertTrue(full.contains("overlays/legacy/legacy.txt"));
+        Assertions.assertTrue(full.contains("overlays/modern/modern.txt"));
+    }
+
+    @Test
+    @DisplayName("Test that variant hashes match the resource-packs served for every pack format")
+    void test_hashes() throws IOException {
+        // formats with the same applicable overlays share a variant
+        Assertions.assertEquals(handler.hash(15), handler.hash(15));
+        Assertions.assertEquals(handler.hash(20), handler.hash(19));
+        Assertions.assertNotEquals(handler.hash(15), handler.hash(20));
+        Assertions.assertNotEquals(handler.hash(20), handler.hash(32));
+        Assertions.assertNotEquals(handler.full().hash(), handler.hash(32));
+
+        Assertions.assertArrayEquals(handler.variant(15).data().toByteArray(), downloadBytes("15"));
+        Assertions.assertArrayEquals(handler.variant(32).data().toByteArray(), downloadBytes("32"));
+        Assertions.assertArrayEquals(handler.full().data().toByteArray(), downloadBytes(null));
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+/**
+ * Base for tests that start their own resource-pack servers, servers
+ * are bound to a free loopback port, so tests never depend on a fixed
+ * port being available.
+ */
+public abstract class ResourcePackServerTestBase {
+
+    private static final String HOST = "127.0.0.1";
+    private static final int READ_TIMEOUT = 10_000;
+
+    /**
+     * Builds and starts a server from the given builder, bound
+     * to a free loopback port, the server is stopped when the
+     * returned {@link TestServer} is closed.
+     */
+    protected static TestServer start(ResourcePackServer.Builder builder) throws IOException {
+        ResourcePackServer server = builder
+                .address(new InetSocketAddress(HOST, 0))
+                .build();
+        server.start();
+        return new TestServer(server);
+    }
+
+    /**
+     * Runs the given test once for the blocking server and
+     * once for the non-blocking server.
+     */
+    protected static void forEachServerMode(ServerModeTest test) throws Exception {
+        for (boolean nonBlocking : new boolean[]{false, true}) {
+            test.run(nonBlocking);
+        }
+    }
+
+    protected static byte[] readAll(InputStream input) throws IOException {
+        try (InputStream in = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int read;
+            while ((read = in.read(buf)) != -1) {
+                output.write(buf, 0, read);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    @FunctionalInterface
+    protected interface ServerModeTest {
+        void run(boolean nonBlocking) throws Exception;
+    }
+
+    protected static final class TestServer implements AutoCloseable {
+        private final ResourcePackServer server;
+
+        private TestServer(ResourcePackServer server) {
+            this.server = server;
+        }
+
+        public ResourcePackServer server() {
+            return server;
+        }
+
+        public InetSocketAddress address() {
+            return server.address();
+        }
+
+        public int port() {
+            return server.address().getPort();
+        }
+
+        public HttpURLConnection open(String path) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://" + HOST + ":" + port() + path).openConnection();
+            connection.setReadTimeout(READ_TIMEOUT);
+            return connection;
+        }
+
+        public byte[] download(String path) throws IOException {
+            return readAll(open(path).getInputStream());
+        }
+
+        public int responseCode(String path) throws IOException {
+            return open(path).getResponseCode();
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+        }
+    }
+
+}
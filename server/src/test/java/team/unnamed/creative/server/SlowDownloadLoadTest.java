@@ -0,0 +1,157 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test, thousands of slow clients downloading a resource-pack
+ * at the same time from a server using virtual threads (or its fallback
+ * pool, on runtimes without virtual threads).
+ *
+ * <p>Disabled by default, since it opens thousands of sockets and may take
+ * a while, it is enabled by setting the "creative.loadTest" system property
+ * to true, e.g. {@code ./gradlew :creative-server:test -Pcreative.loadTest=true}.
+ * The amount of clients can be set using the "creative.loadTest.clients"
+ * property.</p>
+ */
+@EnabledIfSystemProperty(named = "creative.loadTest", matches = "true")
+class SlowDownloadLoadTest extends ResourcePackServerTestBase {
+
+    private static final int CLIENTS = Integer.getInteger("creative.loadTest.clients", 1000);
+    // every client reads at most this amount of bytes per round
+    private static final int READ_PER_ROUND = 4096;
+    private static final long ROUND_MILLIS = 5;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    @Test
+    @DisplayName("Test thousands of slow concurrent downloads using virtual threads")
+    void test_slow_downloads() throws Exception {
+        BuiltResourcePack pack = MinecraftResourcePackWriter.minecraft().build(resourcePack -> {
+            resourcePack.packMeta(8, "Resource pack!");
+            byte[] noise = new byte[64 * 1024];
+            new Random(7275).nextBytes(noise);
+            resourcePack.unknownFile("noise.bin", Writable.bytes(noise));
+        });
+        int packLength = pack.data().toByteArray().length;
+
+        long start = System.nanoTime();
+        long received = 0;
+        int completed = 0;
+
+        try (TestServer server = start(ResourcePackServer.server()
+                .backlog(CLIENTS)
+                .pack(pack)
+                .virtualThreads(32));
+             Selector selector = Selector.open()) {
+            byte[] request = ("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            for (int i = 0; i < CLIENTS; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                // small receive window, so the server can't write the
+                // whole pack to the socket at once
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, 4096);
+                channel.connect(server.address());
+                channel.register(selector, SelectionKey.OP_CONNECT, new Client(ByteBuffer.wrap(request)));
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(READ_PER_ROUND);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (completed < CLIENTS && System.nanoTime() < deadline) {
+                selector.select(ROUND_MILLIS);
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    Client client = (Client) key.attachment();
+
+                    if (key.isConnectable()) {
+                        channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_WRITE);
+                    } else if (key.isWritable()) {
+                        channel.write(client.request);
+                        if (!client.request.hasRemaining()) {
+                            key.interestOps(SelectionKey.OP_READ);
+                        }
+                    } else if (key.isReadable()) {
+                        buffer.clear();
+                        int read = channel.read(buffer);
+                        if (read == -1) {
+                            key.cancel();
+                            channel.close();
+                            completed++;
+                            Assertions.assertTrue(client.ok, "Response status is not 200");
+                            Assertions.assertTrue(client.received > packLength, "Incomplete download");
+                            continue;
+                        }
+                        if (client.received == 0) {
+                            client.ok = new String(buffer.array(), 0, Math.min(read, 12), StandardCharsets.ISO_8859_1)
+                                    .equals("HTTP/1.1 200");
+                        }
+                        client.received += read;
+                        received += read;
+                    }
+                }
+                // slow clients, read once per round
+                Thread.sleep(ROUND_MILLIS);
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assertions.assertEquals(
+                CLIENTS,
+                completed,
+                completed + "/" + CLIENTS + " slow downloads completed in " + elapsedMillis + "ms ("
+                        + received + " bytes received), timeout is " + TIMEOUT_SECONDS + "s"
+        );
+    }
+
+    private static final class Client {
+        private final ByteBuffer request;
+        private long received;
+        private boolean ok;
+
+        private Client(ByteBuffer request) {
+            this.request = request;
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.ResourcePack;
+import team.unnamed.creative.base.Writable;
+import team.unnamed.creative.overlay.Overlay;
+import team.unnamed.creative.server.ResourcePackServer;
+import team.unnamed.creative.server.ResourcePackServerTestBase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OnDemandResourcePackHandlerTest extends ResourcePackServerTestBase {
+
+    @Test
+    @DisplayName("Test that concurrent requests for the same variant share a single build")
+    void test_single_flight() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        OnDemandResourcePackHandler<String> handler = OnDemandResourcePackHandler.<String>onDemand()
+                .key(request -> request == null ? null : request.username())
+                .base(ResourcePack.resourcePack())
+                .variant((party, pack) -> pack.unknownFile("party.txt", Writable.stringUtf8(party)))
+                .builder(pack -> {
+                    builds.incrementAndGet();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                        String party = pack.unknownFile("party.txt").toUTF8String();
+                        return BuiltResourcePack.of(party.getBytes(StandardCharsets.UTF_8), party);
+                    } catch (InterruptedException | IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .buildThreads(2)
+                .build();
+
+        List<CompletableFuture<BuiltResourcePack>> red = new ArrayList<>();
+        List<CompletableFuture<BuiltResourcePack>> blue = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            red.add(handler.variant("red"));
+            blue.add(handler.variant("blue"));
+        }
+        release.countDown();
+
+        BuiltResourcePack redPack = red.get(0).get(10, TimeUnit.SECONDS);
+        for (CompletableFuture<BuiltResourcePack> future : red) {
+            assertSame(redPack, future.get(10, TimeUnit.SECONDS));
+        }
+        for (CompletableFuture<BuiltResourcePack> future : blue) {
+            assertEquals("blue", future.get(10, TimeUnit.SECONDS).hash());
+        }
+        assertEquals("red", redPack.hash());
+        assertEquals(2, builds.get());
+
+        // built variants are cached
+        assertSame(redPack, handler.variant("red").get(10, TimeUnit.SECONDS));
+        assertEquals(2, builds.get());
+
+        assertTrue(handler.invalidate("red"));
+        handler.variant("red").get(10, TimeUnit.SECONDS);
+        assertEquals(3, builds.get());
+    }
+
+    @Test
+    @DisplayName("Test that builds invalidated while in progress are not cached")
+    void test_invalidate_in_progress() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        OnDemandResourcePackHandler<String> handler = OnDemandResourcePackHandler.<String>onDemand()
+                .key(request -> request == null ? null : request.username())
+                .base(ResourcePack.resourcePack())
+                .variant((party, pack) -> {
+                })
+                .builder(pack -> {
+                    int build = builds.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return BuiltResourcePack.of(new byte[0], "build-" + build);
+                })
+                .buildThreads(2)
+                .build();
+
+        CompletableFuture<BuiltResourcePack> stale = handler.variant("red");
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // invalidated while building, next requests start a new build
+        assertTrue(handler.invalidate("red"));
+        CompletableFuture<BuiltResourcePack> fresh = handler.variant("red");
+        release.countDown();
+
+        assertEquals("build-1", stale.get(10, TimeUnit.SECONDS).hash());
+        assertEquals("build-2", fresh.get(10, TimeUnit.SECONDS).hash());
+
+        // only the current build is cached
+        assertEquals("build-2", handler.variant("red").get(10, TimeUnit.SECONDS).hash());
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    @DisplayName("Test that variants modifying overlays don't modify the base resource-pack")
+    void test_overlay_isolation() throws Exception {
+        ResourcePack base = ResourcePack.resourcePack();
+        base.overlay(Overlay.overlay("newer"));
+
+        OnDemandResourcePackHandler<String> handler = OnDemandResourcePackHandler.<String>onDemand()
+                .key(request -> request == null ? null : request.username())
+                .base(base)
+                .variant((party, pack) -> pack.overlay("newer").unknownFile(party + ".txt", Writable.stringUtf8(party)))
+                .builder(pack -> {
+                    // the files of the variant overlay, as the hash
+                    List<String> files = new ArrayList<>(pack.overlay("newer").unknownFiles().keySet());
+                    Collections.sort(files);
+                    return BuiltResourcePack.of(new byte[0], String.join(",", files));
+                })
+                .build();
+
+        assertEquals("red.txt", handler.variant("red").get(10, TimeUnit.SECONDS).hash());
+        assertEquals("blue.txt", handler.variant("blue").get(10, TimeUnit.SECONDS).hash());
+        assertTrue(base.overlay("newer").unknownFiles().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test that requests don't block the server threads while building")
+    void test_slow_build() throws Exception {
+        byte[] data = "Slow pack".getBytes(StandardCharsets.UTF_8);
+        CountDownLatch release = new CountDownLatch(1);
+
+        OnDemandResourcePackHandler<String> handler = OnDemandResourcePackHandler.<String>onDemand()
+                .key(request -> "all")
+                .base(ResourcePack.resourcePack())
+                .builder(pack -> {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return BuiltResourcePack.of(data, "slow");
+                })
+                .requestTimeout(Duration.ofMillis(100))
+                .build();
+
+        // blocking requests give up after the request timeout
+        try (TestServer server = start(ResourcePackServer.server().handler(handler))) {
+            assertEquals(503, server.responseCode("/"));
+        }
+
+        // asynchronous requests are answered when the build finishes
+        try (TestServer server = start(ResourcePackServer.server().asyncHandler(handler.async()))) {
+            CompletableFuture<byte[]> download = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return server.download("/");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Thread.sleep(200);
+            assertFalse(download.isDone());
+            release.countDown();
+            assertArrayEquals(data, download.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+}
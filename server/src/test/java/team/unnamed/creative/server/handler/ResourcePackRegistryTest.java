@@ -0,0 +1,102 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.server.ResourcePackServer;
+import team.unnamed.creative.server.ResourcePackServerTestBase;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+class ResourcePackRegistryTest extends ResourcePackServerTestBase {
+
+    private static byte[] download(TestServer server, String path) throws IOException {
+        HttpURLConnection connection = server.open(path);
+        Assertions.assertEquals("public, max-age=31536000, immutable", connection.getHeaderField("Cache-Control"));
+        return readAll(connection.getInputStream());
+    }
+
+    @Test
+    @DisplayName("Test serving many packs by hash with a bounded memory budget")
+    void test_registry() throws IOException {
+        BuiltResourcePack first = MinecraftResourcePackWriter.minecraft().build(pack -> pack.packMeta(8, "First"));
+        BuiltResourcePack second = MinecraftResourcePackWriter.minecraft().build(pack -> pack.packMeta(8, "Second"));
+        int firstLength = first.data().toByteArray().length;
+        int secondLength = second.data().toByteArray().length;
+
+        Path directory = Files.createTempDirectory("registry");
+        // only fits the biggest pack
+        ResourcePackRegistry registry = ResourcePackRegistry.registry(directory, Math.max(firstLength, secondLength));
+
+        Assertions.assertEquals(first.hash(), registry.register(first));
+        Assertions.assertEquals(second.hash(), registry.register(second));
+        Assertions.assertEquals(secondLength, registry.memoryUsage());
+        Assertions.assertTrue(Files.exists(directory.resolve(ResourcePackRegistry.fileName(first.hash()))));
+
+        try (TestServer server = start(ResourcePackServer.server()
+                .path("/packs/")
+                .handler(registry))) {
+            // the first pack was evicted, it is mapped from the directory,
+            // so it doesn't evict the second pack from the heap
+            Assertions.assertArrayEquals(first.data().toByteArray(), download(server, "/packs/" + ResourcePackRegistry.fileName(first.hash())));
+            Assertions.assertEquals(secondLength, registry.memoryUsage());
+            Assertions.assertArrayEquals(second.data().toByteArray(), download(server, "/packs/" + ResourcePackRegistry.fileName(second.hash())));
+
+            Assertions.assertEquals(404, server.responseCode("/packs/"
+                    + ResourcePackRegistry.fileName("0000000000000000000000000000000000000000")));
+
+            Assertions.assertTrue(registry.unregister(first.hash()));
+            Assertions.assertFalse(registry.contains(first.hash()));
+            Assertions.assertTrue(registry.contains(second.hash()));
+        }
+
+        // packs are still served by a new registry instance
+        ResourcePackRegistry reopened = ResourcePackRegistry.registry(directory, 0);
+        Assertions.assertTrue(reopened.contains(second.hash()));
+        Assertions.assertEquals(0, reopened.memoryUsage());
+    }
+
+    @Test
+    @DisplayName("Test that resource-packs whose hash doesn't match their data are rejected")
+    void test_hash_mismatch() throws IOException {
+        BuiltResourcePack pack = MinecraftResourcePackWriter.minecraft().build(resourcePack -> resourcePack.packMeta(8, "Pack"));
+        BuiltResourcePack wrongHash = BuiltResourcePack.of(pack.data(), "0000000000000000000000000000000000000000");
+
+        Path directory = Files.createTempDirectory("registry");
+        ResourcePackRegistry registry = ResourcePackRegistry.registry(directory, 1024 * 1024);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.register(wrongHash));
+        Assertions.assertFalse(registry.contains(wrongHash.hash()));
+        Assertions.assertEquals(pack.hash(), registry.register(BuiltResourcePack.of(pack.data(), pack.hash().toUpperCase(Locale.ROOT))));
+    }
+
+}
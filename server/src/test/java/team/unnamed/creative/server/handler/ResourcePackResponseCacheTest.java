@@ -0,0 +1,96 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.BuiltResourcePack;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourcePackResponseCacheTest {
+
+    @Test
+    @DisplayName("Test that responses are computed once per resource-pack hash")
+    void test_reuse() {
+        ResourcePackResponseCache cache = ResourcePackResponseCache.responseCache();
+        BuiltResourcePack pack = BuiltResourcePack.of("pack".getBytes(StandardCharsets.UTF_8), "abc");
+        BuiltResourcePack samePack = BuiltResourcePack.of("pack".getBytes(StandardCharsets.UTF_8), "abc");
+        BuiltResourcePack otherPack = BuiltResourcePack.of("other pack".getBytes(StandardCharsets.UTF_8), "def");
+
+        assertFalse(cache.contains("abc"));
+        cache.precompute(pack);
+        assertTrue(cache.contains("abc"));
+
+        ResourcePackResponse response = cache.response(pack);
+        assertSame(response, cache.response(samePack));
+        assertEquals(4, response.length());
+        assertEquals(10, cache.response(otherPack).length());
+        assertEquals(2, cache.size());
+
+        assertTrue(cache.invalidate("abc"));
+        assertFalse(cache.invalidate("abc"));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Test that least recently sent responses are evicted when the memory budget is exceeded")
+    void test_eviction() {
+        ResourcePackResponseCache cache = ResourcePackResponseCache.responseCache(10);
+        BuiltResourcePack a = BuiltResourcePack.of("aaaa".getBytes(StandardCharsets.UTF_8), "a");
+        BuiltResourcePack b = BuiltResourcePack.of("bbbb".getBytes(StandardCharsets.UTF_8), "b");
+        BuiltResourcePack c = BuiltResourcePack.of("cccc".getBytes(StandardCharsets.UTF_8), "c");
+        BuiltResourcePack big = BuiltResourcePack.of("big resource-pack".getBytes(StandardCharsets.UTF_8), "big");
+
+        cache.precompute(a);
+        cache.precompute(b);
+        // "a" is now the most recently used
+        cache.precompute(a);
+        cache.precompute(c);
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(8, cache.memoryUsage());
+
+        // never kept, bigger than the budget
+        assertEquals(17, cache.response(big).length());
+        assertFalse(cache.contains("big"));
+        assertEquals(2, cache.size());
+
+        assertTrue(cache.invalidate("a"));
+        assertEquals(4, cache.memoryUsage());
+        cache.clear();
+        assertEquals(0, cache.memoryUsage());
+    }
+
+}
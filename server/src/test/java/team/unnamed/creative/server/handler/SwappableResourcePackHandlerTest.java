@@ -0,0 +1,67 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.handler;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import team.unnamed.creative.BuiltResourcePack;
+import team.unnamed.creative.serialize.minecraft.MinecraftResourcePackWriter;
+import team.unnamed.creative.server.ResourcePackServer;
+import team.unnamed.creative.server.ResourcePackServerTestBase;
+
+import java.time.Duration;
+
+class SwappableResourcePackHandlerTest extends ResourcePackServerTestBase {
+
+    @Test
+    @DisplayName("Test swapping the served pack, keeping the previous one during the grace period")
+    void test_swap() throws Exception {
+        BuiltResourcePack first = MinecraftResourcePackWriter.minecraft().build(pack -> pack.packMeta(8, "First"));
+        BuiltResourcePack second = MinecraftResourcePackWriter.minecraft().build(pack -> pack.packMeta(8, "Second"));
+
+        SwappableResourcePackHandler handler = SwappableResourcePackHandler.swappable(first, Duration.ofMillis(500));
+        try (TestServer server = start(ResourcePackServer.server().handler(handler))) {
+            Assertions.assertArrayEquals(first.data().toByteArray(), server.download("/"));
+            Assertions.assertArrayEquals(first.data().toByteArray(), server.download("/" + ResourcePackRegistry.fileName(first.hash())));
+            Assertions.assertEquals(404, server.open("/" + ResourcePackRegistry.fileName(second.hash())).getResponseCode());
+
+            Assertions.assertSame(first, handler.swap(second));
+            Assertions.assertSame(second, handler.current());
+
+            Assertions.assertArrayEquals(second.data().toByteArray(), server.download("/"));
+            Assertions.assertArrayEquals(second.data().toByteArray(), server.download("/" + ResourcePackRegistry.fileName(second.hash())));
+
+            // the previous pack is still served by hash during the grace period
+            Assertions.assertTrue(handler.isServed(first.hash()));
+            Assertions.assertArrayEquals(first.data().toByteArray(), server.download("/" + ResourcePackRegistry.fileName(first.hash())));
+
+            Thread.sleep(600);
+            Assertions.assertFalse(handler.isServed(first.hash()));
+            Assertions.assertEquals(404, server.open("/" + ResourcePackRegistry.fileName(first.hash())).getResponseCode());
+            Assertions.assertTrue(handler.isServed(second.hash()));
+        }
+    }
+
+}
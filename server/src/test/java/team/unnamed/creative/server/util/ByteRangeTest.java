@@ -0,0 +1,84 @@
+/*
+ * This file is part of creative, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2023 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.creative.server.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ByteRangeTest {
+
+    @Test
+    @DisplayName("Test parsing satisfiable byte ranges")
+    void test_satisfiable() {
+        ByteRange range = ByteRange.parse("bytes=0-99", 1000);
+        assertEquals(0, range.first());
+        assertEquals(99, range.last());
+        assertEquals(100, range.length());
+        assertEquals("bytes 0-99/1000", range.contentRange(1000));
+
+        range = ByteRange.parse("bytes=500-", 1000);
+        assertEquals(500, range.first());
+        assertEquals(999, range.last());
+
+        range = ByteRange.parse("bytes=900-5000", 1000);
+        assertEquals(900, range.first());
+        assertEquals(999, range.last());
+
+        range = ByteRange.parse("bytes=-100", 1000);
+        assertEquals(900, range.first());
+        assertEquals(999, range.last());
+
+        range = ByteRange.parse("bytes=-5000", 1000);
+        assertEquals(0, range.first());
+        assertEquals(999, range.last());
+    }
+
+    @Test
+    @DisplayName("Test parsing unsatisfiable byte ranges")
+    void test_unsatisfiable() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", 1000));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 1000));
+        assertFalse(ByteRange.UNSATISFIABLE.satisfiable());
+        assertEquals("bytes */1000", ByteRange.UNSATISFIABLE.contentRange(1000));
+    }
+
+    @Test
+    @DisplayName("Test that malformed or unsupported ranges are ignored")
+    void test_ignored() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("items=0-10", 1000));
+        assertNull(ByteRange.parse("bytes=0-10,20-30", 1000));
+        assertNull(ByteRange.parse("bytes=10", 1000));
+        assertNull(ByteRange.parse("bytes=10-5", 1000));
+        assertNull(ByteRange.parse("bytes=a-b", 1000));
+        assertNull(ByteRange.parse("bytes=-", 1000));
+        assertNull(ByteRange.parse("bytes=+1-2", 1000));
+    }
+
+}